@@ -0,0 +1,65 @@
+package com.artexchange.dao;
+
+import com.artexchange.bench.SyntheticCatalogue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+import com.artexchange.model.Artwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document/model conversion in ArtworkDAO, over a whole synthetic catalogue
+ * per invocation. Every listing and detail page goes through mapToArtwork;
+ * every save through artworkToMap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ArtworkMappingBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int catalogueSize;
+    
+    private ArtworkDAO artworkDAO;
+    private List<Artwork> artworks;
+    private List<QueryDocumentSnapshot> documents;
+    
+    @Setup
+    public void setUp() throws Exception {
+        DocumentStore store = SyntheticCatalogue.installStore();
+        artworkDAO = new ArtworkDAO();
+        artworks = SyntheticCatalogue.artworks(catalogueSize);
+        SyntheticCatalogue.seed(store, artworks, artworkDAO::artworkToMap);
+        documents = store.collection("artworks").get().get().getDocuments();
+    }
+    
+    @Benchmark
+    public void artworkToMap(Blackhole blackhole) {
+        for (Artwork artwork : artworks) {
+            blackhole.consume(artworkDAO.artworkToMap(artwork));
+        }
+    }
+    
+    @Benchmark
+    public void mapToArtwork(Blackhole blackhole) {
+        for (QueryDocumentSnapshot document : documents) {
+            blackhole.consume(artworkDAO.mapToArtwork(document));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.artexchange.dao;
+
+import com.artexchange.bench.SyntheticCatalogue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.WriteBatch;
+import com.artexchange.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuctionDAO.getAuctionBidders: row building, sorting and status assignment,
+ * for an auction with a leaderboard and for one that predates it and is read
+ * from bid_history. Scaled by the number of bids rather than catalogue size,
+ * since only the one auction is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class AuctionBiddersBenchmark {
+    
+    private static final String TRACKED_AUCTION = "auction-tracked";
+    private static final String LEGACY_AUCTION = "auction-legacy";
+    
+    @Param({"10", "100", "1000"})
+    public int bids;
+    
+    /** "amount" sorts by bid amount, anything else by time */
+    @Param({"amount", "time"})
+    public String sortBy;
+    
+    private AuctionDAO auctionDAO;
+    
+    @Setup
+    public void setUp() throws Exception {
+        DocumentStore store = SyntheticCatalogue.installStore();
+        auctionDAO = new AuctionDAO();
+        UserDAO userDAO = new UserDAO();
+        
+        int bidders = Math.max(1, bids / 3);
+        for (int i = 0; i < bidders; i++) {
+            User user = new User("bidder" + i + "@example.com", "bidder" + i, "Bidder", String.valueOf(i), User.UserRole.BUYER);
+            user.setUserId("bidder-" + i);
+            userDAO.saveUser(user);
+        }
+        
+        AuctionLeaderboard leaderboard = AuctionLeaderboard.fromHistory(new ArrayList<>());
+        WriteBatch history = store.batch();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < bids; i++) {
+            String bidderId = "bidder-" + (i % bidders);
+            double amount = 100 + i * 10;
+            String timestamp = start.plusSeconds(i * 37L).toString();
+            leaderboard.record(bidderId, "bidder" + (i % bidders), amount, timestamp);
+            
+            Map<String, Object> bid = new HashMap<>();
+            bid.put("auctionId", LEGACY_AUCTION);
+            bid.put("bidderId", bidderId);
+            bid.put("bidderName", "bidder" + (i % bidders));
+            bid.put("bidAmount", amount);
+            bid.put("previousBid", amount - 10);
+            bid.put("timestamp", timestamp);
+            history.set(store.collection("bid_history").document(), bid);
+            if (history.getMutationsSize() == 500) {
+                history.commit().get();
+                history = store.batch();
+            }
+        }
+        history.commit().get();
+        
+        Map<String, Object> tracked = new HashMap<>(leaderboard.toFields());
+        tracked.put("status", "ACTIVE");
+        tracked.put("bidCount", bids);
+        tracked.put("highestBidderId", leaderboard.getLeader().getBidderId());
+        store.collection("artworks").document(TRACKED_AUCTION).set(tracked).get();
+        
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("status", "ACTIVE");
+        legacy.put("bidCount", bids);
+        legacy.put("highestBidderId", leaderboard.getLeader().getBidderId());
+        store.collection("artworks").document(LEGACY_AUCTION).set(legacy).get();
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> fromLeaderboard() throws Exception {
+        return auctionDAO.getAuctionBidders(TRACKED_AUCTION, sortBy);
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> fromBidHistory() throws Exception {
+        return auctionDAO.getAuctionBidders(LEGACY_AUCTION, sortBy);
+    }
+}
@@ -0,0 +1,82 @@
+package com.artexchange.dao;
+
+import com.artexchange.bench.SyntheticCatalogue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.model.Artwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter, sort and paginate in the 8-argument findActiveArtworks: the
+ * catalogue index it normally serves from, and the scan it falls back to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class CatalogueQueryBenchmark {
+    
+    private static final int PAGE_SIZE = 24;
+    
+    @Param({"1000", "10000", "100000"})
+    public int catalogueSize;
+    
+    private ArtworkDAO artworkDAO;
+    
+    @Setup
+    public void setUp() throws Exception {
+        DocumentStore store = SyntheticCatalogue.installStore();
+        artworkDAO = new ArtworkDAO();
+        List<Artwork> artworks = SyntheticCatalogue.artworks(catalogueSize);
+        SyntheticCatalogue.seed(store, artworks, artworkDAO::artworkToMap);
+        // The index is a singleton; load it with this trial's catalogue
+        ArtworkCatalogIndex.getInstance().rebuild(artworks, System.nanoTime());
+    }
+    
+    @Benchmark
+    public List<Artwork> firstPageNewest() throws Exception {
+        return artworkDAO.findActiveArtworks(1, PAGE_SIZE, null, null, null, null, null, "newest");
+    }
+    
+    @Benchmark
+    public List<Artwork> deepPageNewest() throws Exception {
+        return artworkDAO.findActiveArtworks(20, PAGE_SIZE, null, null, null, null, null, "newest");
+    }
+    
+    @Benchmark
+    public List<Artwork> categoryAndPriceRange() throws Exception {
+        return artworkDAO.findActiveArtworks(1, PAGE_SIZE, "painting", null, "500", "5000", null, "price_low");
+    }
+    
+    @Benchmark
+    public List<Artwork> auctionsByPrice() throws Exception {
+        return artworkDAO.findActiveArtworks(1, PAGE_SIZE, null, null, null, null, "auction", "price_high");
+    }
+    
+    @Benchmark
+    public List<Artwork> search() throws Exception {
+        return artworkDAO.findActiveArtworks(1, PAGE_SIZE, null, "harbour", null, null, null, "newest");
+    }
+    
+    /**
+     * The pre-index path, still taken when the index cannot be loaded
+     */
+    @Benchmark
+    public List<Artwork> scanFallback() throws Exception {
+        return artworkDAO.scanActiveArtworks(1, PAGE_SIZE, "painting", null, "500", "5000", null, "price_low");
+    }
+}
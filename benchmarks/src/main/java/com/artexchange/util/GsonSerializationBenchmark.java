@@ -0,0 +1,65 @@
+package com.artexchange.util;
+
+import com.artexchange.bench.SyntheticCatalogue;
+import com.artexchange.model.Artwork;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GsonUtil serialization of artwork lists, as written by the listing and
+ * dashboard JSON endpoints: one listing page, and the whole catalogue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class GsonSerializationBenchmark {
+    
+    private static final int PAGE_SIZE = 24;
+    
+    @Param({"1000", "10000", "100000"})
+    public int catalogueSize;
+    
+    private Gson gson;
+    private List<Artwork> catalogue;
+    private List<Artwork> page;
+    private String pageJson;
+    
+    @Setup
+    public void setUp() {
+        gson = GsonUtil.getGson();
+        catalogue = SyntheticCatalogue.artworks(catalogueSize);
+        page = catalogue.subList(0, PAGE_SIZE);
+        pageJson = gson.toJson(page);
+    }
+    
+    @Benchmark
+    public String serializePage() {
+        return gson.toJson(page);
+    }
+    
+    @Benchmark
+    public String serializeCatalogue() {
+        return gson.toJson(catalogue);
+    }
+    
+    @Benchmark
+    public Artwork[] deserializePage() {
+        return gson.fromJson(pageJson, Artwork[].class);
+    }
+}
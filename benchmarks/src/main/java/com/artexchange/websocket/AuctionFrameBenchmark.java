@@ -0,0 +1,76 @@
+package com.artexchange.websocket;
+
+import com.artexchange.bench.SyntheticCatalogue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frames built by AuctionWebSocket. The clock tick builds one timer frame per
+ * live room every second, so tickAllRooms is the per-second cost of the
+ * timer broadcast across a catalogue whose auctions all have viewers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class AuctionFrameBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int catalogueSize;
+    
+    private String[] artworkIds;
+    private double[] prices;
+    private String[] leaders;
+    
+    @Setup
+    public void setUp() {
+        // AuctionWebSocket creates DAOs when it is loaded
+        SyntheticCatalogue.installStore();
+        int rooms = catalogueSize / 4;
+        artworkIds = new String[rooms];
+        prices = new double[rooms];
+        leaders = new String[rooms];
+        for (int i = 0; i < rooms; i++) {
+            artworkIds[i] = String.format("art-%07d", i);
+            prices[i] = 100 + i;
+            leaders[i] = "user-" + (i % 1_000);
+        }
+    }
+    
+    @Benchmark
+    public String bidUpdate() {
+        return AuctionWebSocket.bidUpdateFrame(artworkIds[0], leaders[0], 1250.0, 1250.0, 3_600_000L);
+    }
+    
+    @Benchmark
+    public String timerUpdate() {
+        return AuctionWebSocket.timerUpdateFrame(artworkIds[0], 3_600_000L, prices[0], leaders[0]);
+    }
+    
+    @Benchmark
+    public String auctionEnded() {
+        return AuctionWebSocket.auctionEndedFrame(artworkIds[0], prices[0], leaders[0]);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void tickAllRooms(Blackhole blackhole) {
+        for (int i = 0; i < artworkIds.length; i++) {
+            blackhole.consume(AuctionWebSocket.timerUpdateFrame(artworkIds[i], 3_600_000L - i, prices[i], leaders[i]));
+        }
+    }
+}
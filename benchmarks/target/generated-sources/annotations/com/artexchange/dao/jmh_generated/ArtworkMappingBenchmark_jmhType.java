@@ -0,0 +1,4 @@
+package com.artexchange.dao.jmh_generated;
+public class ArtworkMappingBenchmark_jmhType extends ArtworkMappingBenchmark_jmhType_B3 {
+}
+
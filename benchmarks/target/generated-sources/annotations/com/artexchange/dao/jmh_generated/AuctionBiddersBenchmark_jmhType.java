@@ -0,0 +1,4 @@
+package com.artexchange.dao.jmh_generated;
+public class AuctionBiddersBenchmark_jmhType extends AuctionBiddersBenchmark_jmhType_B3 {
+}
+
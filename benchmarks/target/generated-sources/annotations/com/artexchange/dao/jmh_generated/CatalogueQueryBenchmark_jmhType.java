@@ -0,0 +1,4 @@
+package com.artexchange.dao.jmh_generated;
+public class CatalogueQueryBenchmark_jmhType extends CatalogueQueryBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.artexchange.util.jmh_generated;
+public class GsonSerializationBenchmark_jmhType extends GsonSerializationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.artexchange.websocket.jmh_generated;
+public class AuctionFrameBenchmark_jmhType extends AuctionFrameBenchmark_jmhType_B3 {
+}
+
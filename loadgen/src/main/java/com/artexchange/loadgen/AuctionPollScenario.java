@@ -0,0 +1,30 @@
+package com.artexchange.loadgen;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auction pages left open: each poller fetches its auction every
+ * pollSeconds, as place-bid.js does, with start times spread over one period.
+ */
+final class AuctionPollScenario implements Scenario {
+    static final String ENDPOINT = "GET /api/auctions/{id}";
+    
+    @Override
+    public String name() {
+        return "poll";
+    }
+    
+    @Override
+    public void start(LoadRun run) {
+        List<String> auctions = run.seed().hotAuctionIds();
+        int pollers = run.config().pollers;
+        long period = TimeUnit.SECONDS.toNanos(run.config().pollSeconds);
+        for (int i = 0; i < pollers; i++) {
+            String path = "/api/auctions/" + auctions.get(i % auctions.size());
+            long first = run.startNanos() + period * i / pollers;
+            run.repeat(first, intended -> intended + period,
+                intended -> run.send(ENDPOINT, run.request(path).GET().build(), intended));
+        }
+    }
+}
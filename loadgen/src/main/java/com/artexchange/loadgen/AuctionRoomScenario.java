@@ -0,0 +1,73 @@
+package com.artexchange.loadgen;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Viewers joining the hot auctions' websocket rooms, arriving evenly over
+ * the first 80% of the run and staying to the end. Times the join (connect
+ * to first auction_status frame) and the delivery of each bid_update frame
+ * from when the bid that caused it was meant to be sent.
+ */
+final class AuctionRoomScenario implements Scenario {
+    static final String JOIN_ENDPOINT = "WS /auction/{id} join";
+    static final String BID_UPDATE_ENDPOINT = "WS /auction/{id} bid_update";
+    
+    private final ConcurrentLinkedQueue<WebSocket> sockets = new ConcurrentLinkedQueue<>();
+    
+    @Override
+    public String name() {
+        return "room";
+    }
+    
+    @Override
+    public void start(LoadRun run) {
+        List<String> auctions = run.seed().hotAuctionIds();
+        int viewers = run.config().roomViewers;
+        long arrivalWindow = (run.endNanos() - run.startNanos()) * 4 / 5;
+        for (int i = 0; i < viewers; i++) {
+            String auctionId = auctions.get(i % auctions.size());
+            run.at(run.startNanos() + arrivalWindow * i / viewers, () -> join(run, auctionId, System.nanoTime()));
+        }
+    }
+    
+    private void join(LoadRun run, String auctionId, long intended) {
+        boolean[] joined = new boolean[1];
+        TextFrameListener listener = new TextFrameListener(message -> {
+            JsonObject frame = JsonParser.parseString(message).getAsJsonObject();
+            String type = frame.has("type") ? frame.get("type").getAsString() : "unknown";
+            run.count("ws.auction." + type);
+            if ("auction_status".equals(type) && !joined[0]) {
+                joined[0] = true;
+                run.record(JOIN_ENDPOINT, intended, EndpointStats.Outcome.OK);
+            } else if ("bid_update".equals(type)) {
+                Long sentAt = run.bidSentAt(auctionId, (long) frame.get("newBid").getAsDouble());
+                if (sentAt != null) {
+                    run.record(BID_UPDATE_ENDPOINT, sentAt, EndpointStats.Outcome.OK);
+                }
+            }
+        });
+        run.http().newWebSocketBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .buildAsync(run.webSocketUri("/auction/" + auctionId), listener)
+            .whenComplete((socket, error) -> {
+                if (error != null) {
+                    run.recordFailure(JOIN_ENDPOINT, intended);
+                } else {
+                    sockets.add(socket);
+                }
+            });
+    }
+    
+    @Override
+    public void stop() {
+        for (WebSocket socket : sockets) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "load run finished");
+        }
+    }
+}
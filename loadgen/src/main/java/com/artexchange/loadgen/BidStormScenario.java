@@ -0,0 +1,107 @@
+package com.artexchange.loadgen;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signed-in bidders on the hot auctions. Each bids a little over the highest
+ * bid it has seen every bidIntervalMs, stampedeFactor times as often in the
+ * last stampedeSeconds before the auctions close at the end of the run.
+ */
+final class BidStormScenario implements Scenario {
+    static final String ENDPOINT = "POST /api/auctions/{id}/bid";
+    
+    private final Map<String, AtomicLong> highestSeen = new ConcurrentHashMap<>();
+    
+    @Override
+    public String name() {
+        return "bid";
+    }
+    
+    @Override
+    public void start(LoadRun run) throws Exception {
+        List<String> auctions = run.seed().hotAuctionIds();
+        List<String> bidders = run.seed().bidderIds();
+        for (String auctionId : auctions) {
+            highestSeen.put(auctionId, new AtomicLong((long) MarketplaceSeed.STARTING_BID));
+        }
+        
+        List<CompletableFuture<String>> logins = new ArrayList<>();
+        for (String bidderId : bidders) {
+            logins.add(login(run, bidderId));
+        }
+        
+        LoadConfig config = run.config();
+        long interval = TimeUnit.MILLISECONDS.toNanos(config.bidIntervalMs);
+        long stampedeInterval = Math.max(1, interval / Math.max(1, config.stampedeFactor));
+        long stampedeFrom = run.endNanos() - TimeUnit.SECONDS.toNanos(config.stampedeSeconds);
+        for (int i = 0; i < bidders.size(); i++) {
+            String cookie = logins.get(i).get();
+            String auctionId = auctions.get(i % auctions.size());
+            long first = run.startNanos() + interval * i / bidders.size();
+            run.repeat(first,
+                intended -> intended + (intended >= stampedeFrom ? stampedeInterval : interval),
+                intended -> bid(run, cookie, auctionId, intended));
+        }
+    }
+    
+    /**
+     * Session cookie for the bidder
+     */
+    private CompletableFuture<String> login(LoadRun run, String bidderId) {
+        HttpRequest request = run.request(SessionLoginServlet.PATH + "?userId=" + bidderId)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        return run.http().sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("Login of " + bidderId + " failed: " + response.statusCode());
+            }
+            String setCookie = response.headers().firstValue("Set-Cookie")
+                .orElseThrow(() -> new IllegalStateException("No session cookie for " + bidderId));
+            return setCookie.split(";", 2)[0];
+        });
+    }
+    
+    private void bid(LoadRun run, String cookie, String auctionId, long intended) {
+        AtomicLong highest = highestSeen.get(auctionId);
+        long amount = highest.get() + 1 + ThreadLocalRandom.current().nextInt(25);
+        HttpRequest request = run.request("/api/auctions/" + auctionId + "/bid")
+            .header("Content-Type", "application/json")
+            .header("Cookie", cookie)
+            .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": " + amount + "}"))
+            .build();
+        run.bidSent(auctionId, amount, intended);
+        run.send(ENDPOINT, request, intended).thenAccept(response -> onResponse(run, highest, amount, response));
+    }
+    
+    private void onResponse(LoadRun run, AtomicLong highest, long amount, HttpResponse<String> response) {
+        try {
+            JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+            if (body.has("success") && body.get("success").getAsBoolean()) {
+                highest.accumulateAndGet(amount, Math::max);
+                run.count("bids.accepted");
+                return;
+            }
+            JsonElement outcome = body.get("outcome");
+            run.count("bids.rejected." + (outcome != null && !outcome.isJsonNull() ? outcome.getAsString() : response.statusCode()));
+            JsonElement currentBid = body.get("currentBid");
+            if (currentBid != null && !currentBid.isJsonNull()) {
+                highest.accumulateAndGet((long) Math.ceil(currentBid.getAsDouble()), Math::max);
+            }
+        } catch (RuntimeException e) {
+            run.count("bids.unparseable." + response.statusCode());
+        }
+    }
+}
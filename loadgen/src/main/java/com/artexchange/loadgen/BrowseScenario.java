@@ -0,0 +1,48 @@
+package com.artexchange.loadgen;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Catalogue browsing at a fixed arrival rate: mostly first pages, with the
+ * filter and sort mix of the browse page.
+ */
+final class BrowseScenario implements Scenario {
+    static final String ENDPOINT = "GET /api/artworks";
+    private static final String[] SORTS = { "newest", "newest", "newest", "price_low", "price_high", "oldest" };
+    private static final String[] CATEGORIES = { "PAINTING", "PHOTOGRAPHY", "DIGITAL_ART", "SCULPTURE" };
+    
+    @Override
+    public String name() {
+        return "browse";
+    }
+    
+    @Override
+    public void start(LoadRun run) {
+        int rate = run.config().browseRate;
+        if (rate <= 0) {
+            return;
+        }
+        long interval = 1_000_000_000L / rate;
+        run.repeat(run.startNanos(), intended -> intended + interval, intended -> browse(run, intended));
+    }
+    
+    private void browse(LoadRun run, long intended) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(10);
+        int page = roll < 7 ? 1 : roll < 9 ? 2 + random.nextInt(2) : 4 + random.nextInt(7);
+        StringBuilder path = new StringBuilder("/api/artworks?page=").append(page)
+            .append("&limit=").append(run.config().pageSize)
+            .append("&sortBy=").append(SORTS[random.nextInt(SORTS.length)]);
+        if (random.nextInt(3) == 0) {
+            path.append("&category=").append(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+        if (random.nextInt(5) == 0) {
+            int min = random.nextInt(5) * 1000;
+            path.append("&minPrice=").append(min).append("&maxPrice=").append(min + 5000);
+        }
+        if (random.nextInt(8) == 0) {
+            path.append("&listingType=AUCTION");
+        }
+        run.send(ENDPOINT, run.request(path.toString()).GET().build(), intended);
+    }
+}
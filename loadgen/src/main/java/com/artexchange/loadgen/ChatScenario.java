@@ -0,0 +1,124 @@
+package com.artexchange.loadgen;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pairs of users chatting over /chat/{userId}, each sending to the other
+ * every chatIntervalMs. Times delivery from the sender's intended send time
+ * to the receiver's new_message frame; messages never delivered count as
+ * failures, as does a user that cannot connect, whose pair then sits out.
+ */
+final class ChatScenario implements Scenario {
+    static final String ENDPOINT = "WS /chat/{userId} delivery";
+    private static final String CONTENT_PREFIX = "loadgen:";
+    
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<WebSocket> sockets = new ConcurrentLinkedQueue<>();
+    private LoadRun run;
+    
+    @Override
+    public String name() {
+        return "chat";
+    }
+    
+    @Override
+    public void start(LoadRun run) {
+        this.run = run;
+        List<String> users = run.seed().chatUserIds();
+        long interval = TimeUnit.MILLISECONDS.toNanos(run.config().chatIntervalMs);
+        for (int i = 0; i + 1 < users.size(); i += 2) {
+            String first = users.get(i);
+            String second = users.get(i + 1);
+            WebSocket firstSocket = connect(first);
+            WebSocket secondSocket = connect(second);
+            if (firstSocket == null || secondSocket == null) {
+                continue;
+            }
+            long phase = interval * i / users.size();
+            converse(firstSocket, second, run.startNanos() + phase, interval);
+            converse(secondSocket, first, run.startNanos() + phase + interval / 2, interval);
+        }
+    }
+    
+    /**
+     * The user's socket, or null if it did not connect, which counts as a failure
+     */
+    private WebSocket connect(String userId) {
+        TextFrameListener listener = new TextFrameListener(this::onMessage);
+        try {
+            WebSocket socket = run.http().newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(run.webSocketUri("/chat/" + userId), listener)
+                .get(10, TimeUnit.SECONDS);
+            sockets.add(socket);
+            return socket;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Failed below
+        }
+        // Pairs connect before the warm-up ends, but a lost pair still shows in the report
+        run.endpoint(ENDPOINT).recordFailure();
+        return null;
+    }
+    
+    /**
+     * Send to {@code receiverId} every interval. Sends on one socket are chained,
+     * as the client allows only one outstanding send at a time.
+     */
+    private void converse(WebSocket socket, String receiverId, long first, long interval) {
+        CompletableFuture<?>[] lastSend = { CompletableFuture.completedFuture(null) };
+        run.repeat(first, intended -> intended + interval, intended -> {
+            long id = sequence.incrementAndGet();
+            JsonObject message = new JsonObject();
+            message.addProperty("type", "chat_message");
+            message.addProperty("receiverId", receiverId);
+            message.addProperty("content", CONTENT_PREFIX + id);
+            String text = message.toString();
+            pending.put(id, intended);
+            synchronized (lastSend) {
+                lastSend[0] = lastSend[0].handle((ignored, error) -> null)
+                    .thenCompose(ignored -> socket.sendText(text, true));
+            }
+        });
+    }
+    
+    private void onMessage(String text) {
+        JsonObject frame = JsonParser.parseString(text).getAsJsonObject();
+        String type = frame.has("type") ? frame.get("type").getAsString() : "unknown";
+        run.count("ws.chat." + type);
+        if ("new_message".equals(type)) {
+            String content = frame.get("content").getAsString();
+            if (content.startsWith(CONTENT_PREFIX)) {
+                Long sentAt = pending.remove(Long.parseLong(content.substring(CONTENT_PREFIX.length())));
+                if (sentAt != null) {
+                    run.record(ENDPOINT, sentAt, EndpointStats.Outcome.OK);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void stop() {
+        for (Long sentAt : pending.values()) {
+            run.recordFailure(ENDPOINT, sentAt);
+        }
+        for (WebSocket socket : sockets) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "load run finished");
+        }
+    }
+}
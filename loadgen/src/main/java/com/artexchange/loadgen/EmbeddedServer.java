@@ -0,0 +1,113 @@
+package com.artexchange.loadgen;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.websocket.AuctionWebSocket;
+import com.artexchange.websocket.ChatWebSocket;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerContainer;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.JarResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * The webapp in embedded Tomcat 10, as cargo's tomcat10x container runs it.
+ *
+ * The application classes are mounted as WEB-INF/classes so servlets,
+ * filters and listeners are found by annotation scanning as in the war.
+ * The websocket endpoints are registered explicitly, as with class path
+ * scanning off Tomcat does not hand them to its websocket initializer, and
+ * a default servlet is mapped so upgrade requests reach the websocket filter.
+ * Class loading delegates to the load generator's class loader, so
+ * the webapp and the generator share one FirebaseConfig and therefore one
+ * in-memory store.
+ */
+final class EmbeddedServer {
+    private final Tomcat tomcat;
+    private final Path baseDir;
+    
+    private EmbeddedServer(Tomcat tomcat, Path baseDir) {
+        this.tomcat = tomcat;
+        this.baseDir = baseDir;
+    }
+    
+    static EmbeddedServer start(int port) throws Exception {
+        Path baseDir = Files.createTempDirectory("artexchange-loadgen");
+        Path docBase = Files.createDirectories(baseDir.resolve("webapp"));
+        
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(port);
+        tomcat.getConnector();
+        // Only the annotated components; no JSP servlet, and nothing in the docBase to serve
+        tomcat.setAddDefaultWebXmlToWebapp(false);
+        
+        Context context = tomcat.addWebapp("", docBase.toString());
+        ((StandardContext) context).setDelegate(true);
+        ((StandardJarScanner) context.getJarScanner()).setScanClassPath(false);
+        
+        WebResourceRoot resources = new StandardRoot(context);
+        File classes = new File(FirebaseConfig.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (classes.isDirectory()) {
+            resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes", classes.getAbsolutePath(), "/"));
+        } else {
+            resources.addJarResources(new JarResourceSet(resources, "/WEB-INF/classes", classes.getAbsolutePath(), "/"));
+        }
+        context.setResources(resources);
+        ((StandardContext) context).addApplicationLifecycleListener(new EndpointRegistration());
+        
+        // The websocket filter only sees requests that map to a servlet
+        Tomcat.addServlet(context, "default", new DefaultServlet());
+        context.addServletMappingDecoded("/", "default");
+        Tomcat.addServlet(context, "loadgenLogin", new SessionLoginServlet());
+        context.addServletMappingDecoded(SessionLoginServlet.PATH, "loadgenLogin");
+        
+        tomcat.start();
+        return new EmbeddedServer(tomcat, baseDir);
+    }
+    
+    /**
+     * Adds the endpoints to the container Tomcat's websocket initializer
+     * created, once the context has started
+     */
+    private static final class EndpointRegistration implements ServletContextListener {
+        @Override
+        public void contextInitialized(ServletContextEvent event) {
+            ServerContainer container = (ServerContainer) event.getServletContext()
+                .getAttribute(ServerContainer.class.getName());
+            try {
+                container.addEndpoint(AuctionWebSocket.class);
+                container.addEndpoint(ChatWebSocket.class);
+            } catch (DeploymentException e) {
+                throw new IllegalStateException("Could not register the websocket endpoints", e);
+            }
+        }
+    }
+    
+    URI baseUri() {
+        return URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/");
+    }
+    
+    void stop() throws LifecycleException, IOException {
+        tomcat.stop();
+        tomcat.destroy();
+        try (var paths = Files.walk(baseDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.artexchange.loadgen;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies and outcomes of one endpoint. Every sample is kept, so
+ * percentiles are exact; a run of a few minutes stays in the low megabytes.
+ */
+final class EndpointStats {
+    private final String name;
+    private long[] latencies = new long[1024];
+    private int size;
+    private long ok;
+    private long rejected;
+    private long failed;
+    
+    EndpointStats(String name) {
+        this.name = name;
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    /**
+     * A completed call. Rejected calls are 4xx answers, which under a bid
+     * storm are mostly outbid bids rather than faults.
+     */
+    synchronized void record(long latencyNanos, Outcome outcome) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = latencyNanos;
+        switch (outcome) {
+            case OK: ok++; break;
+            case REJECTED: rejected++; break;
+            default: failed++;
+        }
+    }
+    
+    /**
+     * A call that never completed (connection refused, timeout)
+     */
+    synchronized void recordFailure() {
+        failed++;
+    }
+    
+    enum Outcome {
+        OK, REJECTED, FAILED;
+        
+        static Outcome ofStatus(int status) {
+            if (status < 400) {
+                return OK;
+            }
+            return status < 500 ? REJECTED : FAILED;
+        }
+    }
+    
+    /**
+     * Summary for the report; throughput counts completed calls over the measured window
+     */
+    synchronized Map<String, Object> summarize(double measuredSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long latency : sorted) {
+            total += latency;
+        }
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", size);
+        summary.put("ok", ok);
+        summary.put("rejected", rejected);
+        summary.put("failed", failed);
+        summary.put("throughputPerSecond", round(size / measuredSeconds));
+        summary.put("meanMs", size == 0 ? 0.0 : millis(total / size));
+        summary.put("p50Ms", millis(percentile(sorted, 0.50)));
+        summary.put("p90Ms", millis(percentile(sorted, 0.90)));
+        summary.put("p99Ms", millis(percentile(sorted, 0.99)));
+        summary.put("p999Ms", millis(percentile(sorted, 0.999)));
+        summary.put("maxMs", size == 0 ? 0.0 : millis(sorted[size - 1]));
+        return summary;
+    }
+    
+    /**
+     * Nearest-rank percentile
+     */
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+    
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.artexchange.loadgen;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Run settings, read from -Dartexchange.loadgen.* system properties
+ */
+final class LoadConfig {
+    private static final String PREFIX = "artexchange.loadgen.";
+    
+    /** Scenarios to run: browse, poll, bid, room, chat */
+    final Set<String> scenarios;
+    final int port;
+    final int durationSeconds;
+    /** Samples taken before this are not reported */
+    final int warmupSeconds;
+    final String reportPath;
+    
+    final int catalogueSize;
+    /** Auctions the poll, bid and room scenarios converge on; they all end when the run does */
+    final int hotAuctions;
+    
+    final int browseRate;
+    final int pageSize;
+    
+    final int pollers;
+    final int pollSeconds;
+    
+    final int bidders;
+    final int bidIntervalMs;
+    /** The closing window of each hot auction in which bidders speed up */
+    final int stampedeSeconds;
+    final int stampedeFactor;
+    
+    final int roomViewers;
+    
+    final int chatPairs;
+    final int chatIntervalMs;
+    
+    private LoadConfig() {
+        scenarios = new LinkedHashSet<>(Arrays.asList(
+            System.getProperty(PREFIX + "scenarios", "browse,poll,bid,room,chat").split("\\s*,\\s*")));
+        port = Integer.getInteger(PREFIX + "port", 0);
+        durationSeconds = Integer.getInteger(PREFIX + "durationSeconds", 60);
+        warmupSeconds = Integer.getInteger(PREFIX + "warmupSeconds", 10);
+        reportPath = System.getProperty(PREFIX + "report", "loadgen-report.json");
+        
+        catalogueSize = Integer.getInteger(PREFIX + "catalogueSize", 2000);
+        hotAuctions = Integer.getInteger(PREFIX + "hotAuctions", 3);
+        
+        browseRate = Integer.getInteger(PREFIX + "browseRate", 50);
+        pageSize = Integer.getInteger(PREFIX + "pageSize", 24);
+        
+        pollers = Integer.getInteger(PREFIX + "pollers", 300);
+        pollSeconds = Integer.getInteger(PREFIX + "pollSeconds", 10);
+        
+        bidders = Integer.getInteger(PREFIX + "bidders", 60);
+        bidIntervalMs = Integer.getInteger(PREFIX + "bidIntervalMs", 3000);
+        stampedeSeconds = Integer.getInteger(PREFIX + "stampedeSeconds", 15);
+        stampedeFactor = Integer.getInteger(PREFIX + "stampedeFactor", 10);
+        
+        roomViewers = Integer.getInteger(PREFIX + "roomViewers", 300);
+        
+        chatPairs = Integer.getInteger(PREFIX + "chatPairs", 25);
+        chatIntervalMs = Integer.getInteger(PREFIX + "chatIntervalMs", 2000);
+        
+        if (durationSeconds <= warmupSeconds) {
+            throw new IllegalArgumentException("durationSeconds (" + durationSeconds
+                + ") must be longer than warmupSeconds (" + warmupSeconds + ")");
+        }
+    }
+    
+    static LoadConfig fromSystemProperties() {
+        return new LoadConfig();
+    }
+    
+    boolean runs(String scenario) {
+        return scenarios.contains(scenario);
+    }
+}
@@ -0,0 +1,94 @@
+package com.artexchange.loadgen;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.dao.store.InMemoryDocumentStore;
+import com.artexchange.dao.store.LatencyModel;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays marketplace traffic against the webapp in embedded Tomcat with
+ * the in-memory store, and reports latency percentiles and throughput per
+ * endpoint. Configured with -Dartexchange.loadgen.* properties, see
+ * {@link LoadConfig}; store latency with -Dartexchange.store.latency.*.
+ */
+public final class LoadGenerator {
+    private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+    /** Held so the level set below is not lost when the logger is collected */
+    private static final Logger APP_LOGGER = Logger.getLogger("com.artexchange");
+    /** Time given to websocket frames still on their way once requests have drained */
+    private static final long FRAME_GRACE_MILLIS = 2000;
+    
+    private LoadGenerator() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        // The application logs every request at INFO; keep that off the hot path unless asked for
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        }
+        if (!Boolean.getBoolean("artexchange.loadgen.verbose")) {
+            APP_LOGGER.setLevel(Level.WARNING);
+        }
+        
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        InMemoryDocumentStore store = new InMemoryDocumentStore(LatencyModel.fromSystemProperties());
+        FirebaseConfig.setDocumentStore(store);
+        
+        EmbeddedServer server = EmbeddedServer.start(config.port);
+        try {
+            System.out.println("Server at " + server.baseUri() + ", seeding...");
+            MarketplaceSeed seed = MarketplaceSeed.create(config);
+            seed.openHotAuctions(config.hotAuctions, LocalDateTime.now().plusSeconds(config.durationSeconds));
+            
+            LoadRun run = new LoadRun(config, server.baseUri(), seed);
+            List<Scenario> scenarios = scenarios(config);
+            System.out.println("Running " + config.scenarios + " for " + config.durationSeconds + "s ("
+                + config.warmupSeconds + "s warm-up)");
+            Instant startedAt = Instant.now();
+            run.start();
+            for (Scenario scenario : scenarios) {
+                scenario.start(run);
+            }
+            run.awaitEnd();
+            Thread.sleep(FRAME_GRACE_MILLIS);
+            for (Scenario scenario : scenarios) {
+                scenario.stop();
+            }
+            
+            LoadReport report = new LoadReport(run, startedAt);
+            Path reportPath = Path.of(config.reportPath);
+            report.write(reportPath);
+            report.print(System.out);
+            System.out.println("Report written to " + reportPath.toAbsolutePath());
+        } finally {
+            server.stop();
+            store.close();
+        }
+        // The application's schedulers are not daemons
+        System.exit(0);
+    }
+    
+    private static List<Scenario> scenarios(LoadConfig config) {
+        List<Scenario> all = List.of(new BrowseScenario(), new AuctionPollScenario(), new BidStormScenario(),
+            new AuctionRoomScenario(), new ChatScenario());
+        List<Scenario> selected = new ArrayList<>();
+        for (Scenario scenario : all) {
+            if (config.runs(scenario.name())) {
+                selected.add(scenario);
+            }
+        }
+        for (String name : config.scenarios) {
+            if (all.stream().noneMatch(scenario -> scenario.name().equals(name))) {
+                logger.warning("Unknown scenario ignored: " + name);
+            }
+        }
+        return selected;
+    }
+}
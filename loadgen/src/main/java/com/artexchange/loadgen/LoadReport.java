@@ -0,0 +1,70 @@
+package com.artexchange.loadgen;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The run's results: a JSON report for tooling and a table for the console
+ */
+final class LoadReport {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> endpoints = new LinkedHashMap<>();
+    
+    LoadReport(LoadRun run, Instant startedAt) {
+        LoadConfig config = run.config();
+        for (EndpointStats stats : run.endpoints()) {
+            endpoints.put(stats.getName(), stats.summarize(run.measuredSeconds()));
+        }
+        
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("scenarios", config.scenarios);
+        settings.put("catalogueSize", config.catalogueSize);
+        settings.put("hotAuctions", config.hotAuctions);
+        settings.put("browseRate", config.browseRate);
+        settings.put("pollers", config.pollers);
+        settings.put("pollSeconds", config.pollSeconds);
+        settings.put("bidders", config.bidders);
+        settings.put("bidIntervalMs", config.bidIntervalMs);
+        settings.put("stampedeSeconds", config.stampedeSeconds);
+        settings.put("stampedeFactor", config.stampedeFactor);
+        settings.put("roomViewers", config.roomViewers);
+        settings.put("chatPairs", config.chatPairs);
+        settings.put("chatIntervalMs", config.chatIntervalMs);
+        settings.put("storeLatencyMedianMs", Long.getLong("artexchange.store.latency.medianMs", 0L));
+        settings.put("storeLatencyP99Ms", Long.getLong("artexchange.store.latency.p99Ms", 0L));
+        
+        report.put("startedAt", startedAt.toString());
+        report.put("durationSeconds", config.durationSeconds);
+        report.put("warmupSeconds", config.warmupSeconds);
+        report.put("measuredSeconds", run.measuredSeconds());
+        report.put("settings", settings);
+        report.put("endpoints", endpoints);
+        report.put("counters", run.counters());
+    }
+    
+    void write(Path path) throws IOException {
+        Files.writeString(path, GSON.toJson(report), StandardCharsets.UTF_8);
+    }
+    
+    void print(PrintStream out) {
+        out.printf("%-34s %9s %8s %8s %10s %9s %9s %9s %9s%n",
+            "endpoint", "count", "rejected", "failed", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, Map<String, Object>> endpoint : endpoints.entrySet()) {
+            Map<String, Object> s = endpoint.getValue();
+            out.printf("%-34s %9s %8s %8s %10s %9s %9s %9s %9s%n", endpoint.getKey(),
+                s.get("count"), s.get("rejected"), s.get("failed"), s.get("throughputPerSecond"),
+                s.get("p50Ms"), s.get("p99Ms"), s.get("p999Ms"), s.get("maxMs"));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.artexchange.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.logging.Logger;
+
+/**
+ * Clock, HTTP client and measurements shared by the scenarios of one run.
+ *
+ * Work is scheduled at intended times on a fixed plan and every latency is
+ * measured from the intended time, not from when the request actually went
+ * out, so a stalled server shows up as latency instead of silently lowering
+ * the offered load.
+ */
+final class LoadRun {
+    private static final Logger logger = Logger.getLogger(LoadRun.class.getName());
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final LoadConfig config;
+    private final URI baseUri;
+    private final MarketplaceSeed seed;
+    private final HttpClient http;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Intended send time of each bid by auction and amount, for timing the bid_update frames it causes */
+    private final Map<String, Long> bidSendTimes = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private long startNanos;
+    private long measureFromNanos;
+    private long endNanos;
+    
+    LoadRun(LoadConfig config, URI baseUri, MarketplaceSeed seed) {
+        this.config = config;
+        this.baseUri = baseUri;
+        this.seed = seed;
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        this.scheduler = Executors.newScheduledThreadPool(4, r -> {
+            Thread thread = new Thread(r, "loadgen-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    LoadConfig config() {
+        return config;
+    }
+    
+    MarketplaceSeed seed() {
+        return seed;
+    }
+    
+    HttpClient http() {
+        return http;
+    }
+    
+    URI uri(String path) {
+        return baseUri.resolve(path);
+    }
+    
+    URI webSocketUri(String path) {
+        URI uri = uri(path);
+        return URI.create("ws://" + uri.getAuthority() + uri.getRawPath());
+    }
+    
+    /**
+     * Start the clock; the run ends durationSeconds from now
+     */
+    void start() {
+        startNanos = System.nanoTime();
+        measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        endNanos = startNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+    }
+    
+    long startNanos() {
+        return startNanos;
+    }
+    
+    long endNanos() {
+        return endNanos;
+    }
+    
+    boolean isRunning() {
+        return !stopped && System.nanoTime() < endNanos;
+    }
+    
+    boolean isMeasured(long intendedNanos) {
+        return intendedNanos >= measureFromNanos;
+    }
+    
+    double measuredSeconds() {
+        return (endNanos - measureFromNanos) / 1e9;
+    }
+    
+    synchronized EndpointStats endpoint(String name) {
+        return endpoints.computeIfAbsent(name, EndpointStats::new);
+    }
+    
+    synchronized List<EndpointStats> endpoints() {
+        return new ArrayList<>(endpoints.values());
+    }
+    
+    void count(String counter) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).increment();
+    }
+    
+    Map<String, Long> counters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        return snapshot;
+    }
+    
+    void bidSent(String auctionId, long amount, long intendedNanos) {
+        bidSendTimes.put(auctionId + ":" + amount, intendedNanos);
+    }
+    
+    /**
+     * When the bid of this amount on this auction was meant to be sent, or null if it was not ours
+     */
+    Long bidSentAt(String auctionId, long amount) {
+        return bidSendTimes.get(auctionId + ":" + amount);
+    }
+    
+    /**
+     * Run {@code action} at {@code firstNanos}, then at each time {@code next}
+     * returns, until the run ends. The action gets its intended start time.
+     */
+    void repeat(long firstNanos, LongUnaryOperator next, LongConsumer action) {
+        if (stopped || firstNanos >= endNanos) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                action.accept(firstNanos);
+            } catch (RuntimeException e) {
+                logger.warning("Load action failed: " + e);
+            }
+            repeat(next.applyAsLong(firstNanos), next, action);
+        }, firstNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Run {@code action} once at {@code atNanos} unless the run is over
+     */
+    void at(long atNanos, Runnable action) {
+        repeat(atNanos, previous -> Long.MAX_VALUE, intended -> action.run());
+    }
+    
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(REQUEST_TIMEOUT);
+    }
+    
+    /**
+     * Send a request and record it against {@code endpoint}, measured from {@code intendedNanos}
+     */
+    CompletableFuture<HttpResponse<String>> send(String endpoint, HttpRequest request, long intendedNanos) {
+        EndpointStats stats = endpoint(endpoint);
+        inFlight.incrementAndGet();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                inFlight.decrementAndGet();
+                if (!isMeasured(intendedNanos)) {
+                    return;
+                }
+                if (error != null) {
+                    stats.recordFailure();
+                } else {
+                    stats.record(System.nanoTime() - intendedNanos, EndpointStats.Outcome.ofStatus(response.statusCode()));
+                }
+            });
+    }
+    
+    /**
+     * Record a sample that is not a plain request/response, e.g. a websocket frame arriving
+     */
+    void record(String endpoint, long intendedNanos, EndpointStats.Outcome outcome) {
+        if (isMeasured(intendedNanos)) {
+            endpoint(endpoint).record(System.nanoTime() - intendedNanos, outcome);
+        }
+    }
+    
+    void recordFailure(String endpoint, long intendedNanos) {
+        if (isMeasured(intendedNanos)) {
+            endpoint(endpoint).recordFailure();
+        }
+    }
+    
+    /**
+     * Block until the run's end time, then stop scheduling and wait for in-flight requests
+     */
+    void awaitEnd() throws InterruptedException {
+        long remaining = endNanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+        stopped = true;
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        if (inFlight.get() > 0) {
+            logger.warning(inFlight.get() + " requests still in flight at the end of the run");
+        }
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,150 @@
+package com.artexchange.loadgen;
+
+import com.artexchange.dao.ArtworkDAO;
+import com.artexchange.dao.UserDAO;
+import com.artexchange.model.Artwork;
+import com.artexchange.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Users and artworks written through the DAOs before the run, so stats,
+ * summaries, the catalogue index and the auction clock are all populated
+ * the way the application populates them.
+ */
+final class MarketplaceSeed {
+    private static final Logger logger = Logger.getLogger(MarketplaceSeed.class.getName());
+    private static final int ARTISTS = 25;
+    private static final int SEED_THREADS = 16;
+    private static final String[] WORDS = {
+        "sunset", "harbour", "kampung", "monsoon", "batik", "rainforest", "portrait", "abstract",
+        "river", "night", "market", "orchid", "city", "dream", "study", "blue", "gold", "silence"
+    };
+    
+    static final double STARTING_BID = 100.0;
+    
+    private final List<String> bidderIds = new ArrayList<>();
+    private final List<String> chatUserIds = new ArrayList<>();
+    private final List<String> hotAuctionIds = new ArrayList<>();
+    
+    private MarketplaceSeed() {
+    }
+    
+    List<String> bidderIds() {
+        return Collections.unmodifiableList(bidderIds);
+    }
+    
+    List<String> chatUserIds() {
+        return Collections.unmodifiableList(chatUserIds);
+    }
+    
+    List<String> hotAuctionIds() {
+        return Collections.unmodifiableList(hotAuctionIds);
+    }
+    
+    /**
+     * Write the catalogue and users. Hot auctions are added separately by
+     * {@link #openHotAuctions} right before the run, so they close with it.
+     */
+    static MarketplaceSeed create(LoadConfig config) throws Exception {
+        MarketplaceSeed seed = new MarketplaceSeed();
+        long startedAt = System.currentTimeMillis();
+        UserDAO userDAO = new UserDAO();
+        ArtworkDAO artworkDAO = new ArtworkDAO();
+        
+        for (int i = 0; i < ARTISTS; i++) {
+            saveUser(userDAO, "lg-artist-" + i, User.UserRole.ARTIST);
+        }
+        for (int i = 0; i < config.bidders; i++) {
+            seed.bidderIds.add(saveUser(userDAO, "lg-bidder-" + i, User.UserRole.BUYER));
+        }
+        for (int i = 0; i < config.chatPairs * 2; i++) {
+            seed.chatUserIds.add(saveUser(userDAO, "lg-chat-" + i, User.UserRole.BUYER));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(SEED_THREADS);
+        try {
+            List<Future<String>> saves = new ArrayList<>(config.catalogueSize);
+            Random random = new Random(42);
+            for (int i = 0; i < config.catalogueSize; i++) {
+                Artwork artwork = catalogueArtwork(random, i);
+                saves.add(executor.submit(() -> artworkDAO.saveArtwork(artwork)));
+            }
+            for (Future<String> save : saves) {
+                save.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("Seeded " + config.catalogueSize + " artworks and " + (ARTISTS + config.bidders + config.chatPairs * 2)
+            + " users in " + (System.currentTimeMillis() - startedAt) + "ms");
+        return seed;
+    }
+    
+    /**
+     * Create the hot auctions, closing at {@code closesAt}
+     */
+    void openHotAuctions(int count, LocalDateTime closesAt) throws Exception {
+        ArtworkDAO artworkDAO = new ArtworkDAO();
+        for (int i = 0; i < count; i++) {
+            Artwork artwork = new Artwork("Hot lot " + i, "Closing auction driven by the load generator",
+                "lg-artist-" + (i % ARTISTS), BigDecimal.valueOf(STARTING_BID));
+            artwork.setArtworkId("lg-hot-" + i);
+            artwork.setArtistName("Load Artist " + (i % ARTISTS));
+            artwork.setCategory(Artwork.ArtCategory.PAINTING);
+            artwork.setStatus(Artwork.ArtworkStatus.ACTIVE);
+            artwork.setSaleType(Artwork.SaleType.AUCTION);
+            artwork.setAuctionStartTime(LocalDateTime.now().minusHours(1));
+            artwork.setAuctionEndTime(closesAt);
+            artwork.setStartingBid(BigDecimal.valueOf(STARTING_BID));
+            artwork.setCurrentBid(BigDecimal.valueOf(STARTING_BID));
+            hotAuctionIds.add(artworkDAO.saveArtwork(artwork));
+        }
+    }
+    
+    private static String saveUser(UserDAO userDAO, String userId, User.UserRole role) throws Exception {
+        User user = new User(userId + "@loadgen.invalid", userId, "Load", userId, role);
+        user.setUserId(userId);
+        return userDAO.saveUser(user);
+    }
+    
+    /**
+     * Mostly fixed-price listings, one in five an auction that stays open past the run
+     */
+    private static Artwork catalogueArtwork(Random random, int index) {
+        Artwork artwork = new Artwork(
+            capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + WORDS[random.nextInt(WORDS.length)] + " no. " + index,
+            WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " study",
+            "lg-artist-" + random.nextInt(ARTISTS),
+            BigDecimal.valueOf(50 + random.nextInt(20_000)));
+        artwork.setArtworkId(String.format("lg-art-%06d", index));
+        artwork.setArtistName("Load Artist " + artwork.getArtistId().substring("lg-artist-".length()));
+        Artwork.ArtCategory[] categories = Artwork.ArtCategory.values();
+        artwork.setCategory(categories[random.nextInt(categories.length)]);
+        artwork.setStatus(random.nextInt(5) == 0 ? Artwork.ArtworkStatus.SOLD : Artwork.ArtworkStatus.ACTIVE);
+        artwork.setCreatedAt(LocalDateTime.now().minusMinutes(random.nextInt(500_000)));
+        artwork.getImageUrls().add("/uploads/" + Long.toHexString(random.nextLong()) + ".jpg");
+        artwork.setPrimaryImageUrl(artwork.getImageUrls().get(0));
+        if (random.nextInt(5) == 0) {
+            artwork.setSaleType(Artwork.SaleType.AUCTION);
+            artwork.setAuctionStartTime(LocalDateTime.now().minusDays(1));
+            artwork.setAuctionEndTime(LocalDateTime.now().plusDays(1 + random.nextInt(7)));
+            artwork.setStartingBid(artwork.getPrice());
+            artwork.setCurrentBid(artwork.getPrice());
+        }
+        return artwork;
+    }
+    
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.artexchange.loadgen;
+
+/**
+ * One kind of traffic. start() schedules its work on the run and returns;
+ * stop() releases anything still open once the run is over.
+ */
+interface Scenario {
+    
+    String name();
+    
+    void start(LoadRun run) throws Exception;
+    
+    default void stop() {
+    }
+}
@@ -0,0 +1,37 @@
+package com.artexchange.loadgen;
+
+import com.artexchange.dao.UserDAO;
+import com.artexchange.model.User;
+import com.artexchange.util.SessionUtil;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Signs a seeded user in without Firebase Auth, which is not available with
+ * the in-memory store. Registered only in the load generator's embedded
+ * server, never in the webapp.
+ */
+class SessionLoginServlet extends HttpServlet {
+    static final String PATH = "/loadgen/login";
+    
+    private final UserDAO userDAO = new UserDAO();
+    
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String userId = request.getParameter("userId");
+        try {
+            User user = userId != null ? userDAO.findById(userId) : null;
+            if (user == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such user: " + userId);
+                return;
+            }
+            SessionUtil.createUserSession(request, user);
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } catch (Exception e) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.artexchange.loadgen;
+
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Reassembles text frames and hands each complete message to a callback
+ */
+class TextFrameListener implements WebSocket.Listener {
+    private final Consumer<String> onMessage;
+    private final StringBuilder partial = new StringBuilder();
+    private volatile boolean closed;
+    
+    TextFrameListener(Consumer<String> onMessage) {
+        this.onMessage = onMessage;
+    }
+    
+    boolean isClosed() {
+        return closed;
+    }
+    
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String message = partial.toString();
+            partial.setLength(0);
+            onMessage.accept(message);
+        }
+        webSocket.request(1);
+        return null;
+    }
+    
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        closed = true;
+        return null;
+    }
+    
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        closed = true;
+    }
+}
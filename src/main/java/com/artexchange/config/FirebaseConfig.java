@@ -1,5 +1,11 @@
 package com.artexchange.config;
 
+import com.artexchange.dao.store.AccountingDocumentStore;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.FirestoreDocumentStore;
+import com.artexchange.dao.store.InMemoryDocumentStore;
+import com.artexchange.dao.store.LatencyModel;
+import com.artexchange.metrics.TimedDocumentStore;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
 import com.google.firebase.FirebaseApp;
@@ -17,15 +23,50 @@ import java.io.InputStream;
 
 /**
  * Firebase configuration and initialization
+ *
+ * With -Dartexchange.store=memory Firebase is not initialized and the DAOs run
+ * against an {@link InMemoryDocumentStore} instead, with the round-trip latency
+ * given by -Dartexchange.store.latency.medianMs / p99Ms. Benchmarks and tests
+ * that use the DAOs without a servlet container call {@link #setDocumentStore}.
+ *
+ * In the web application the store is wrapped in a {@link TimedDocumentStore},
+ * which records the latency of every call, and an {@link AccountingDocumentStore},
+ * which counts the reads and writes of each request;
+ * -Dartexchange.metrics=false and -Dartexchange.storeAccounting=false turn them off.
  */
 @WebListener
 public class FirebaseConfig implements ServletContextListener {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseConfig.class);
     private static FirebaseApp firebaseApp;
     private static Firestore firestore;
+    private static volatile DocumentStore documentStore;
+    /** The store under the timing and accounting wrappers, closed on shutdown */
+    private static DocumentStore backingStore;
     
     @Override
     public void contextInitialized(ServletContextEvent sce) {
+        initializeDocumentStore();
+        backingStore = documentStore;
+        DocumentStore store = documentStore;
+        if (!"false".equalsIgnoreCase(System.getProperty("artexchange.metrics"))) {
+            store = new TimedDocumentStore(store);
+        }
+        if (!"false".equalsIgnoreCase(System.getProperty("artexchange.storeAccounting"))) {
+            store = new AccountingDocumentStore(store);
+        }
+        documentStore = store;
+    }
+    
+    private void initializeDocumentStore() {
+        if (documentStore != null) {
+            logger.info("Document store already set: {}", documentStore.getClass().getSimpleName());
+            return;
+        }
+        if ("memory".equalsIgnoreCase(System.getProperty("artexchange.store"))) {
+            documentStore = new InMemoryDocumentStore(LatencyModel.fromSystemProperties());
+            logger.warn("Using the in-memory document store; data is lost on shutdown and Firebase is not initialized");
+            return;
+        }
         try {
             initializeFirebase();
             logger.info("Firebase initialized successfully");
@@ -37,6 +78,9 @@ public class FirebaseConfig implements ServletContextListener {
     
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        if (backingStore instanceof InMemoryDocumentStore) {
+            ((InMemoryDocumentStore) backingStore).close();
+        }
         if (firebaseApp != null) {
             firebaseApp.delete();
             logger.info("Firebase app deleted");
@@ -68,6 +112,7 @@ public class FirebaseConfig implements ServletContextListener {
             
             firebaseApp = FirebaseApp.initializeApp(options);
             firestore = FirestoreClient.getFirestore();
+            documentStore = new FirestoreDocumentStore(firestore);
             
             logger.info("Firebase initialized with project ID: " + projectId);
         }
@@ -81,6 +126,20 @@ public class FirebaseConfig implements ServletContextListener {
         return firestore;
     }
     
+    /**
+     * The store the DAOs read and write
+     */
+    public static DocumentStore getDocumentStore() {
+        return documentStore;
+    }
+    
+    /**
+     * Run the DAOs against the given store; called before any DAO is created
+     */
+    public static void setDocumentStore(DocumentStore store) {
+        documentStore = store;
+    }
+    
     public static FirebaseAuth getFirebaseAuth() {
         return FirebaseAuth.getInstance(firebaseApp);
     }
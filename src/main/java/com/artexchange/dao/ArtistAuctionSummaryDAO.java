@@ -0,0 +1,229 @@
+package com.artexchange.dao;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.dao.store.CollectionReference;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.FieldValue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+import com.artexchange.dao.store.QuerySnapshot;
+import com.artexchange.dao.store.SetOptions;
+import com.artexchange.dao.store.Transaction;
+import com.artexchange.dao.store.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Data Access Object for the per-artist auction summary projection
+ * (artist_auction_summaries collection).
+ *
+ * Each auction has an entry document, keyed by auction id in the artist's
+ * auctions subcollection, with its title, status, current bid, bid and
+ * bidder counts and winner. The artwork, bid and settlement writes update
+ * the entry in the same transaction or batch, so a bid only touches its own
+ * auction's entry and the seller dashboard is served from one query. The
+ * artist's document only records that the entries were built; an artist
+ * without it is rebuilt once from their auctions.
+ */
+public class ArtistAuctionSummaryDAO {
+    private static final Logger logger = LoggerFactory.getLogger(ArtistAuctionSummaryDAO.class);
+    private static final String COLLECTION_NAME = "artist_auction_summaries";
+    private static final String AUCTIONS_COLLECTION = "auctions";
+    /** Set once the entries have been rebuilt; "seeded" marked the old single-document layout */
+    private static final String SEEDED = "auctionsSeeded";
+    /** The old layout's map of every entry and its marker, dropped by the rebuild */
+    private static final String LEGACY_AUCTIONS_FIELD = "auctions";
+    private static final String LEGACY_SEEDED = "seeded";
+    private static final int ENTRIES_PER_BATCH = 400;
+    
+    private final DocumentStore firestore;
+    
+    public ArtistAuctionSummaryDAO() {
+        this.firestore = FirebaseConfig.getDocumentStore();
+    }
+    
+    /**
+     * Summary entries of every auction by an artist, newest first
+     */
+    public List<Map<String, Object>> getAuctions(String artistId) throws ExecutionException, InterruptedException {
+        // The entries are read alongside the marker and dropped if the artist has to be rebuilt
+        CompletableFuture<DocumentSnapshot> marker = ref(firestore, artistId).get();
+        CompletableFuture<QuerySnapshot> stored = auctions(firestore, artistId).get();
+        DocumentSnapshot doc = marker.get();
+        Map<String, Map<String, Object>> auctions;
+        if (doc.exists() && Boolean.TRUE.equals(doc.getBoolean(SEEDED))) {
+            auctions = new HashMap<>();
+            for (QueryDocumentSnapshot entry : stored.get().getDocuments()) {
+                auctions.put(entry.getId(), entry.getData());
+            }
+        } else {
+            auctions = rebuild(artistId);
+        }
+        
+        List<Map<String, Object>> entries = new ArrayList<>();
+        auctions.forEach((auctionId, value) -> {
+            Map<String, Object> entry = new HashMap<>(value);
+            entry.put("auctionId", auctionId);
+            entries.add(entry);
+        });
+        entries.sort((a, b) -> String.valueOf(b.get("createdAt")).compareTo(String.valueOf(a.get("createdAt"))));
+        return entries;
+    }
+    
+    /**
+     * Recompute the entries of an artist's auctions from the artworks and store them
+     */
+    public Map<String, Map<String, Object>> rebuild(String artistId) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = firestore.collection("artworks")
+            .whereEqualTo("artistId", artistId)
+            .whereEqualTo("saleType", "AUCTION")
+            .get().get().getDocuments();
+        
+        Map<String, Map<String, Object>> auctions = new HashMap<>();
+        for (QueryDocumentSnapshot doc : documents) {
+            Map<String, Object> entry = entryOf(doc.getData());
+            if (!entry.containsKey("biddersCount")) {
+                // Auction from before the leaderboard: count distinct bidders once
+                entry.put("biddersCount", countLegacyBidders(doc.getId()));
+            }
+            auctions.put(doc.getId(), entry);
+        }
+        
+        String now = LocalDateTime.now().toString();
+        WriteBatch batch = firestore.batch();
+        for (Map.Entry<String, Map<String, Object>> auction : auctions.entrySet()) {
+            Map<String, Object> entry = new HashMap<>(auction.getValue());
+            entry.put("updatedAt", now);
+            batch.set(auctions(firestore, artistId).document(auction.getKey()), entry);
+            if (batch.getMutationsSize() >= ENTRIES_PER_BATCH) {
+                batch.commit().get();
+                batch = firestore.batch();
+            }
+        }
+        // The marker goes last, so an interrupted rebuild is run again
+        Map<String, Object> marker = new HashMap<>();
+        marker.put(SEEDED, true);
+        marker.put(LEGACY_AUCTIONS_FIELD, FieldValue.delete());
+        marker.put(LEGACY_SEEDED, FieldValue.delete());
+        marker.put("updatedAt", now);
+        batch.set(ref(firestore, artistId), marker, SetOptions.merge());
+        batch.commit().get();
+        logger.info("Rebuilt auction summary for artist {} with {} auctions", artistId, auctions.size());
+        return auctions;
+    }
+    
+    private long countLegacyBidders(String auctionId) throws ExecutionException, InterruptedException {
+        Set<String> bidders = new HashSet<>();
+        for (QueryDocumentSnapshot bid : firestore.collection("bid_history")
+                .whereEqualTo("auctionId", auctionId)
+                .select("bidderId")
+                .get().get().getDocuments()) {
+            String bidderId = bid.getString("bidderId");
+            if (bidderId != null && !bidderId.trim().isEmpty()) {
+                bidders.add(bidderId);
+            }
+        }
+        return bidders.size();
+    }
+    
+    /**
+     * Summary entry for an artwork, from its stored fields (a document's data or artworkToMap)
+     */
+    static Map<String, Object> entryOf(Map<String, Object> artwork) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("artworkTitle", artwork.get("title"));
+        entry.put("status", artwork.get("status"));
+        entry.put("currentBid", asDouble(artwork.get("currentBid")));
+        Object bidCount = artwork.get("bidCount");
+        entry.put("bidCount", bidCount instanceof Number ? ((Number) bidCount).longValue() : 0L);
+        Object bidderIds = artwork.get(AuctionLeaderboard.BIDDER_IDS_FIELD);
+        if (bidderIds instanceof List) {
+            entry.put("biddersCount", (long) ((List<?>) bidderIds).size());
+        } else if (!(bidCount instanceof Number) || ((Number) bidCount).longValue() == 0) {
+            entry.put("biddersCount", 0L);
+        }
+        entry.put("winnerId", artwork.get("winnerId"));
+        entry.put("winnerName", artwork.get("winnerName"));
+        Object winningBid = artwork.get("winningBidAmount");
+        entry.put("winningBidAmount", winningBid != null ? asDouble(winningBid) : null);
+        entry.put("endedAt", artwork.get("endedAt"));
+        entry.put("createdAt", artwork.get("createdAt"));
+        return entry;
+    }
+    
+    /**
+     * Summary entry for a save that does not carry the bid fields, which the
+     * bid engine keeps current in the entry
+     */
+    static Map<String, Object> listingEntryOf(Map<String, Object> artwork) {
+        Map<String, Object> entry = entryOf(artwork);
+        entry.remove("currentBid");
+        entry.remove("bidCount");
+        entry.remove("biddersCount");
+        return entry;
+    }
+    
+    private static double asDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        return 0.0;
+    }
+    
+    /**
+     * Merge fields into an auction's entry; fields not given are left as they are
+     */
+    public static void update(Transaction transaction, String artistId, String auctionId, Map<String, Object> fields) {
+        if (artistId != null) {
+            transaction.set(entryRef(artistId, auctionId), payload(fields), SetOptions.merge());
+        }
+    }
+    
+    static void update(WriteBatch batch, String artistId, String auctionId, Map<String, Object> fields) {
+        if (artistId != null) {
+            batch.set(entryRef(artistId, auctionId), payload(fields), SetOptions.merge());
+        }
+    }
+    
+    static void remove(Transaction transaction, String artistId, String auctionId) {
+        if (artistId != null) {
+            transaction.delete(entryRef(artistId, auctionId));
+        }
+    }
+    
+    private static Map<String, Object> payload(Map<String, Object> fields) {
+        Map<String, Object> payload = new HashMap<>(fields);
+        payload.put("updatedAt", LocalDateTime.now().toString());
+        return payload;
+    }
+    
+    private static DocumentReference ref(DocumentStore firestore, String artistId) {
+        return firestore.collection(COLLECTION_NAME).document(artistId);
+    }
+    
+    private static CollectionReference auctions(DocumentStore firestore, String artistId) {
+        return ref(firestore, artistId).collection(AUCTIONS_COLLECTION);
+    }
+    
+    private static DocumentReference entryRef(String artistId, String auctionId) {
+        return auctions(FirebaseConfig.getDocumentStore(), artistId).document(auctionId);
+    }
+}
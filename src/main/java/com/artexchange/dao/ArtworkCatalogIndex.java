@@ -0,0 +1,569 @@
+package com.artexchange.dao;
+
+import com.artexchange.model.Artwork;
+import com.artexchange.util.PageCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process index of the browsable catalogue (ACTIVE and SOLD artworks).
+ *
+ * Holds a token inverted index over title, description and artistName plus
+ * price and createdAt orderings, so the browse page can be filtered, sorted and
+ * paginated without reading the artworks collection. ArtworkDAO keeps it current
+ * on save/update/delete; a periodic background reload picks up writes made by
+ * other instances.
+ *
+ * The artworks that queries return are shared by every request and are never
+ * modified: the index stores its own copy of each saved artwork, and a status
+ * change or bid replaces the copy with a new one.
+ */
+public final class ArtworkCatalogIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ArtworkCatalogIndex.class);
+
+    /** How long a full load is trusted before a background reload is triggered */
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /** Below this many search hits, sort the hits directly instead of walking an ordering */
+    private static final int SMALL_CANDIDATE_SET = 256;
+
+    private static final Comparator<Entry> BY_PRICE = Comparator
+            .comparingDouble((Entry e) -> e.price)
+            .thenComparing(e -> e.artworkId);
+
+    private static final Comparator<Entry> BY_CREATED_AT = Comparator
+            .comparingLong((Entry e) -> e.createdAtKey)
+            .thenComparing(e -> e.artworkId);
+
+    private static final ArtworkCatalogIndex INSTANCE = new ArtworkCatalogIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Set<String>> tokens = new TreeMap<>();
+    private final TreeSet<Entry> byPrice = new TreeSet<>(BY_PRICE);
+    private final TreeSet<Entry> byCreatedAt = new TreeSet<>(BY_CREATED_AT);
+
+    /** Ids written through the index since the last full load began, with the write time */
+    private final Map<String, Long> recentWrites = new HashMap<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "artwork-catalog-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean loaded;
+    private volatile long loadedAtNanos;
+
+    private ArtworkCatalogIndex() {
+    }
+
+    public static ArtworkCatalogIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isStale() {
+        return !loaded || System.nanoTime() - loadedAtNanos > REFRESH_INTERVAL_NANOS;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the index contents with a full scan. Writes that went through the
+     * index after {@code scanStartedNanos} win over the scanned documents.
+     */
+    public void rebuild(List<Artwork> artworks, long scanStartedNanos) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Entry> keep = new HashMap<>();
+            Set<String> dropped = new HashSet<>();
+            for (Map.Entry<String, Long> write : recentWrites.entrySet()) {
+                if (write.getValue() >= scanStartedNanos) {
+                    Entry current = entries.get(write.getKey());
+                    if (current != null) {
+                        keep.put(write.getKey(), current);
+                    } else {
+                        dropped.add(write.getKey());
+                    }
+                }
+            }
+
+            entries.clear();
+            tokens.clear();
+            byPrice.clear();
+            byCreatedAt.clear();
+
+            for (Artwork artwork : artworks) {
+                String id = artwork.getArtworkId();
+                if (id == null || keep.containsKey(id) || dropped.contains(id) || !isListable(artwork)) {
+                    continue;
+                }
+                insert(new Entry(artwork));
+            }
+            for (Entry entry : keep.values()) {
+                insert(entry);
+            }
+
+            recentWrites.values().removeIf(writtenAt -> writtenAt < scanStartedNanos);
+            loadedAtNanos = System.nanoTime();
+            loaded = true;
+            logger.info("Artwork catalogue index rebuilt with {} listable artworks", entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reload the index in the background unless a reload is already running.
+     */
+    public void refreshAsync(Supplier<List<Artwork>> loader) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                long startedAt = System.nanoTime();
+                rebuild(loader.get(), startedAt);
+            } catch (Exception e) {
+                logger.warn("Background refresh of artwork catalogue index failed: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Add or replace an artwork. Artworks that are no longer listable are removed.
+     */
+    public void upsert(Artwork artwork) {
+        if (artwork == null || artwork.getArtworkId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(new Artwork(artwork));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index an artwork the caller no longer holds; must hold the write lock
+     */
+    private void put(Artwork artwork) {
+        recordWrite(artwork.getArtworkId());
+        Entry previous = entries.get(artwork.getArtworkId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        if (isListable(artwork)) {
+            insert(new Entry(artwork));
+        }
+    }
+
+    /**
+     * Add or replace an artwork from a save that does not write the bid fields.
+     * Bid counts only grow, so if the indexed artwork has seen more bids than
+     * {@code artwork} its bid state is kept and copied onto {@code artwork}.
+     */
+    public void upsertListing(Artwork artwork) {
+        if (artwork == null || artwork.getArtworkId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(artwork.getArtworkId());
+            if (previous != null && previous.artwork.getBidCount() > artwork.getBidCount()) {
+                artwork.setCurrentBid(previous.artwork.getCurrentBid());
+                artwork.setHighestBidderId(previous.artwork.getHighestBidderId());
+                artwork.setBidCount(previous.artwork.getBidCount());
+                artwork.setTopBids(previous.artwork.getTopBids());
+                artwork.setBidderIds(previous.artwork.getBidderIds());
+            }
+            upsert(artwork);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String artworkId) {
+        if (artworkId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            recordWrite(artworkId);
+            Entry previous = entries.get(artworkId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a status change made with a partial update (e.g. mark as sold).
+     */
+    public void updateStatus(String artworkId, Artwork.ArtworkStatus status) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(artworkId);
+            if (previous == null) {
+                return;
+            }
+            Artwork updated = new Artwork(previous.artwork);
+            updated.setStatus(status);
+            if (status == Artwork.ArtworkStatus.SOLD) {
+                updated.setSoldAt(LocalDateTime.now());
+            }
+            put(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply an accepted bid. Bid fields are not index keys, so the entry keeps
+     * its place and only its artwork is swapped for an updated copy.
+     */
+    public void applyBid(String artworkId, BigDecimal currentBid, String highestBidderId, int bidCount) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(artworkId);
+            if (entry != null) {
+                Artwork updated = new Artwork(entry.artwork);
+                updated.setCurrentBid(currentBid);
+                updated.setHighestBidderId(highestBidderId);
+                updated.setBidCount(bidCount);
+                entry.artwork = updated;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filter, sort and paginate the catalogue with the same semantics as the
+     * Firestore-backed browse query: ACTIVE artworks first, then SOLD, each
+     * group in {@code sortBy} order (newest first when unspecified).
+     */
+    public List<Artwork> query(int page, int limit, String category, String search,
+                               String minPrice, String maxPrice, String listingType, String sortBy) {
+        return collect(Math.max(0, (page - 1) * limit), null, limit,
+                category, search, minPrice, maxPrice, listingType, sortBy).getItems();
+    }
+
+    /**
+     * Same as {@link #query(int, int, String, String, String, String, String, String)}
+     * but resumes after the position encoded in {@code cursor}, so deep pages
+     * do not walk the rows in front of them.
+     */
+    public CursorPage<Artwork> query(String cursor, int limit, String category, String search,
+                                     String minPrice, String maxPrice, String listingType, String sortBy) {
+        return collect(0, cursor, limit, category, search, minPrice, maxPrice, listingType, sortBy);
+    }
+
+    private CursorPage<Artwork> collect(int offset, String cursor, int limit, String category, String search,
+                                        String minPrice, String maxPrice, String listingType, String sortBy) {
+        List<Artwork> result = new ArrayList<>(Math.max(0, limit));
+        CursorPage<Artwork> empty = new CursorPage<>(result, null);
+        if (limit <= 0) {
+            return empty;
+        }
+
+        Artwork.ArtCategory categoryFilter = null;
+        if (category != null && !category.trim().isEmpty()) {
+            try {
+                categoryFilter = Artwork.ArtCategory.valueOf(category.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return empty;
+            }
+        }
+        Artwork.SaleType saleTypeFilter = null;
+        if (listingType != null && !listingType.trim().isEmpty()) {
+            try {
+                saleTypeFilter = Artwork.SaleType.valueOf(listingType.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return empty;
+            }
+        }
+        double min = parsePrice(minPrice, Double.NEGATIVE_INFINITY, "minPrice");
+        double max = parsePrice(maxPrice, Double.POSITIVE_INFINITY, "maxPrice");
+        String sort = sortBy != null ? sortBy.trim().toLowerCase() : "";
+        Comparator<Entry> comparator = comparatorFor(sort);
+
+        // Cursor layout: sort, status group, price, createdAt key, artworkId
+        Artwork.ArtworkStatus resumeStatus = null;
+        Entry resumeAfter = null;
+        String[] position = PageCursor.decode(cursor, 5);
+        if (position != null && position[0].equals(sort)) {
+            try {
+                resumeStatus = Artwork.ArtworkStatus.valueOf(position[1]);
+                resumeAfter = Entry.probe(Double.parseDouble(position[2]), Long.parseLong(position[3]), position[4]);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring malformed catalogue cursor");
+                resumeStatus = null;
+                resumeAfter = null;
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<String> candidates = null;
+            if (search != null && !search.trim().isEmpty()) {
+                candidates = searchCandidates(search);
+                if (candidates.isEmpty()) {
+                    return empty;
+                }
+            }
+
+            NavigableSet<Entry> ordering;
+            if (candidates != null && candidates.size() <= SMALL_CANDIDATE_SET) {
+                ordering = new TreeSet<>(comparator);
+                for (String id : candidates) {
+                    ordering.add(entries.get(id));
+                }
+                candidates = null;
+            } else {
+                ordering = orderingFor(sort, min, max);
+            }
+
+            int skipped = 0;
+            boolean resumed = resumeStatus == null;
+            for (Artwork.ArtworkStatus status : new Artwork.ArtworkStatus[] {
+                    Artwork.ArtworkStatus.ACTIVE, Artwork.ArtworkStatus.SOLD }) {
+                Iterable<Entry> group = ordering;
+                if (!resumed) {
+                    if (status != resumeStatus) {
+                        continue;
+                    }
+                    group = ordering.tailSet(resumeAfter, false);
+                    resumed = true;
+                }
+                for (Entry entry : group) {
+                    if (entry.status != status
+                            || (categoryFilter != null && entry.category != categoryFilter)
+                            || (saleTypeFilter != null && entry.saleType != saleTypeFilter)
+                            || entry.price < min || entry.price > max
+                            || (candidates != null && !candidates.contains(entry.artworkId))) {
+                        continue;
+                    }
+                    if (skipped < offset) {
+                        skipped++;
+                        continue;
+                    }
+                    result.add(entry.artwork);
+                    if (result.size() >= limit) {
+                        return new CursorPage<>(result, PageCursor.encode(sort, status.name(),
+                                Double.toString(entry.price), Long.toString(entry.createdAtKey), entry.artworkId));
+                    }
+                }
+            }
+            return new CursorPage<>(result, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private NavigableSet<Entry> orderingFor(String sort, double min, double max) {
+        switch (sort) {
+            case "price_low":
+                return priceRange(min, max);
+            case "price_high":
+                return priceRange(min, max).descendingSet();
+            case "oldest":
+                return byCreatedAt;
+            default:
+                return byCreatedAt.descendingSet();
+        }
+    }
+
+    private static Comparator<Entry> comparatorFor(String sort) {
+        switch (sort) {
+            case "price_low":
+                return BY_PRICE;
+            case "price_high":
+                return BY_PRICE.reversed();
+            case "oldest":
+                return BY_CREATED_AT;
+            default:
+                return BY_CREATED_AT.reversed();
+        }
+    }
+
+    private NavigableSet<Entry> priceRange(double min, double max) {
+        if (min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY) {
+            return byPrice;
+        }
+        if (min > max) {
+            return Collections.emptyNavigableSet();
+        }
+        return byPrice.subSet(Entry.probe(min, Long.MIN_VALUE, ""), true, Entry.probe(max, Long.MAX_VALUE, "\uffff"), true);
+    }
+
+    /**
+     * Every query token must prefix-match a token of title, description or artistName.
+     */
+    private Set<String> searchCandidates(String search) {
+        List<String> queryTokens = tokenize(search);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = null;
+        for (String queryToken : queryTokens) {
+            Set<String> matches = new HashSet<>();
+            NavigableMap<String, Set<String>> range = tokens.subMap(queryToken, true, queryToken + '\uffff', false);
+            for (Set<String> ids : range.values()) {
+                matches.addAll(ids);
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.artworkId, entry);
+        byPrice.add(entry);
+        byCreatedAt.add(entry);
+        for (String token : entry.tokens) {
+            tokens.computeIfAbsent(token, k -> new HashSet<>()).add(entry.artworkId);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        entries.remove(entry.artworkId);
+        byPrice.remove(entry);
+        byCreatedAt.remove(entry);
+        for (String token : entry.tokens) {
+            Set<String> ids = tokens.get(token);
+            if (ids != null) {
+                ids.remove(entry.artworkId);
+                if (ids.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    private void recordWrite(String artworkId) {
+        recentWrites.put(artworkId, System.nanoTime());
+    }
+
+    private static boolean isListable(Artwork artwork) {
+        return artwork.getStatus() == Artwork.ArtworkStatus.ACTIVE
+                || artwork.getStatus() == Artwork.ArtworkStatus.SOLD;
+    }
+
+    private static double parsePrice(String value, double fallback, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} format: {}", name, value);
+            return fallback;
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Immutable snapshot of the index keys for one artwork, with the artwork's
+     * current copy, which applyBid replaces under the write lock.
+     */
+    private static final class Entry {
+        final String artworkId;
+        final double price;
+        final long createdAtKey;
+        final Artwork.ArtworkStatus status;
+        final Artwork.ArtCategory category;
+        final Artwork.SaleType saleType;
+        final Set<String> tokens;
+        Artwork artwork;
+
+        Entry(Artwork artwork) {
+            this.artworkId = artwork.getArtworkId();
+            this.price = artwork.getPrice() != null ? artwork.getPrice().doubleValue() : 0.0;
+            this.createdAtKey = artwork.getCreatedAt() != null
+                    ? artwork.getCreatedAt().toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + artwork.getCreatedAt().getNano()
+                    : Long.MIN_VALUE;
+            this.status = artwork.getStatus();
+            this.category = artwork.getCategory();
+            this.saleType = artwork.getSaleType();
+            this.tokens = new HashSet<>();
+            this.tokens.addAll(tokenize(artwork.getTitle()));
+            this.tokens.addAll(tokenize(artwork.getDescription()));
+            this.tokens.addAll(tokenize(artwork.getArtistName()));
+            this.artwork = artwork;
+        }
+
+        private Entry(double price, long createdAtKey, String artworkId) {
+            this.artworkId = artworkId;
+            this.price = price;
+            this.createdAtKey = createdAtKey;
+            this.status = null;
+            this.category = null;
+            this.saleType = null;
+            this.tokens = Collections.emptySet();
+            this.artwork = null;
+        }
+
+        static Entry probe(double price, long createdAtKey, String artworkId) {
+            return new Entry(price, createdAtKey, artworkId);
+        }
+    }
+}
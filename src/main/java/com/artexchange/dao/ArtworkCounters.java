@@ -0,0 +1,233 @@
+package com.artexchange.dao;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.FieldValue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view and like counters for artworks.
+ *
+ * Page views and likes are added to per-artwork LongAdders, so recording one
+ * never touches Firestore and never contends on a lock. A background thread
+ * flushes the accumulated deltas every few seconds as FieldValue.increment
+ * batch writes, which commute with increments from other instances instead of
+ * overwriting them. Deltas from a failed flush are put back and retried, up to
+ * MAX_FLUSH_ATTEMPTS times; those of artworks deleted meanwhile, whose
+ * increments fail the whole batch, are dropped.
+ * Likes are added to the artist's user_stats in the same batch.
+ */
+public final class ArtworkCounters {
+    private static final Logger logger = LoggerFactory.getLogger(ArtworkCounters.class);
+    private static final String COLLECTION_NAME = "artworks";
+    
+    /** Seconds between flushes (-Dartexchange.counters.flushSeconds) */
+    private static final long FLUSH_SECONDS = Long.getLong("artexchange.counters.flushSeconds", 5L);
+    /** Artworks per batch; with one user_stats write each this stays under Firestore's 500 writes */
+    private static final int ARTWORKS_PER_BATCH = 250;
+    /** Flushes in a row an artwork's deltas may fail before they are dropped */
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+    
+    private static final ArtworkCounters INSTANCE = new ArtworkCounters();
+    
+    /** Entries are kept until the artwork is deleted, so an increment never lands on a discarded adder */
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    
+    private ArtworkCounters() {
+    }
+    
+    public static ArtworkCounters getInstance() {
+        return INSTANCE;
+    }
+    
+    public void recordView(String artworkId) {
+        pendingFor(artworkId).views.increment();
+    }
+    
+    public void recordLike(String artworkId, String artistId) {
+        Pending counts = pendingFor(artworkId);
+        counts.artistId = artistId;
+        counts.likes.increment();
+    }
+    
+    /**
+     * Drop pending counts of a deleted artwork; increments on a missing document would fail the whole batch
+     */
+    public void discard(String artworkId) {
+        pending.remove(artworkId);
+    }
+    
+    /**
+     * Views recorded but not yet written to Firestore
+     */
+    public long pendingViews(String artworkId) {
+        Pending counts = pending.get(artworkId);
+        return counts != null ? counts.views.sum() : 0;
+    }
+    
+    /**
+     * Likes recorded but not yet written to Firestore
+     */
+    public long pendingLikes(String artworkId) {
+        Pending counts = pending.get(artworkId);
+        return counts != null ? counts.likes.sum() : 0;
+    }
+    
+    /**
+     * Stop the background flusher and write out everything still pending
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (flusher != null) {
+                flusher.shutdown();
+                try {
+                    flusher.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                flusher = null;
+            }
+        }
+        flush();
+    }
+    
+    private Pending pendingFor(String artworkId) {
+        Pending counts = pending.get(artworkId);
+        if (counts == null) {
+            counts = pending.computeIfAbsent(artworkId, id -> new Pending());
+            start();
+        }
+        return counts;
+    }
+    
+    private synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "artwork-counter-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Write all pending deltas as increments, in batches of up to 250 artworks
+     */
+    synchronized void flush() {
+        Map<String, long[]> deltas = new HashMap<>();
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            long views = entry.getValue().views.sumThenReset();
+            long likes = entry.getValue().likes.sumThenReset();
+            if (views != 0 || likes != 0) {
+                deltas.put(entry.getKey(), new long[] { views, likes });
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        DocumentStore firestore = FirebaseConfig.getDocumentStore();
+        List<String> ids = new ArrayList<>(deltas.keySet());
+        for (int start = 0; start < ids.size(); start += ARTWORKS_PER_BATCH) {
+            List<String> chunk = ids.subList(start, Math.min(start + ARTWORKS_PER_BATCH, ids.size()));
+            try {
+                WriteBatch batch = firestore.batch();
+                UserStatsDAO.Delta stats = UserStatsDAO.delta();
+                for (String artworkId : chunk) {
+                    long[] delta = deltas.get(artworkId);
+                    Map<String, Object> updates = new HashMap<>();
+                    if (delta[0] != 0) {
+                        updates.put("views", FieldValue.increment(delta[0]));
+                    }
+                    if (delta[1] != 0) {
+                        updates.put("likes", FieldValue.increment(delta[1]));
+                        Pending counts = pending.get(artworkId);
+                        stats.add(counts != null ? counts.artistId : null, UserStatsDAO.LIKES_RECEIVED, delta[1]);
+                    }
+                    batch.update(firestore.collection(COLLECTION_NAME).document(artworkId), updates);
+                }
+                stats.applyTo(batch);
+                batch.commit().get();
+                for (String artworkId : chunk) {
+                    DocumentCache.artworks().invalidate(artworkId);
+                    Pending counts = pending.get(artworkId);
+                    if (counts != null) {
+                        counts.failedFlushes = 0;
+                    }
+                }
+            } catch (Exception e) {
+                Set<String> deleted = deletedArtworks(firestore, chunk);
+                logger.warn("Failed to flush counters for {} artworks ({} deleted), will retry: {}",
+                    chunk.size(), deleted.size(), e.getMessage());
+                for (String artworkId : chunk) {
+                    if (deleted.contains(artworkId)) {
+                        pending.remove(artworkId);
+                        continue;
+                    }
+                    long[] delta = deltas.get(artworkId);
+                    Pending counts = pending.get(artworkId);
+                    if (counts == null) {
+                        continue;
+                    }
+                    if (++counts.failedFlushes >= MAX_FLUSH_ATTEMPTS) {
+                        logger.warn("Dropping {} views and {} likes of artwork {} after {} failed flushes",
+                            delta[0], delta[1], artworkId, counts.failedFlushes);
+                        counts.failedFlushes = 0;
+                    } else {
+                        counts.views.add(delta[0]);
+                        counts.likes.add(delta[1]);
+                    }
+                }
+            }
+        }
+        logger.debug("Flushed view/like counters for {} artworks", ids.size());
+    }
+    
+    /**
+     * Artworks of a failed batch that no longer exist; none if they cannot be read either
+     */
+    private static Set<String> deletedArtworks(DocumentStore firestore, List<String> artworkIds) {
+        Set<String> deleted = new HashSet<>();
+        List<DocumentReference> references = new ArrayList<>(artworkIds.size());
+        for (String artworkId : artworkIds) {
+            references.add(firestore.collection(COLLECTION_NAME).document(artworkId));
+        }
+        try {
+            for (DocumentSnapshot doc : firestore.getAll(references).get()) {
+                if (!doc.exists()) {
+                    deleted.add(doc.getId());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not check which artworks of a failed counter flush still exist: {}", e.getMessage());
+        }
+        return deleted;
+    }
+    
+    private static final class Pending {
+        final LongAdder views = new LongAdder();
+        final LongAdder likes = new LongAdder();
+        volatile String artistId;
+        /** Only touched by flush, which is synchronized */
+        int failedFlushes;
+    }
+}
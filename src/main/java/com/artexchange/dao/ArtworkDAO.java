@@ -3,17 +3,25 @@ package com.artexchange.dao;
 import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Artwork;
 import com.artexchange.model.User;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.artexchange.util.AuctionClock;
+import com.artexchange.util.ImageDerivatives;
+import com.artexchange.util.PageCursor;
+import com.artexchange.dao.store.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -22,10 +30,21 @@ import java.util.concurrent.ExecutionException;
 public class ArtworkDAO {
     private static final Logger logger = LoggerFactory.getLogger(ArtworkDAO.class);
     private static final String COLLECTION_NAME = "artworks";
-    private final Firestore firestore;
+    private final DocumentStore firestore;
+    private final ArtworkCatalogIndex catalogIndex = ArtworkCatalogIndex.getInstance();
+    private final DocumentCache artworkCache = DocumentCache.artworks();
+    private final ArtworkCounters counters = ArtworkCounters.getInstance();
+    private final UserDAO userDAO = new UserDAO();
+    private final SalesRollupDAO salesRollupDAO = new SalesRollupDAO();
+    
+    /** Fields updateArtwork leaves alone, as other writers own them */
+    private static final String[] NOT_UPDATED_FIELDS = {
+        "views", "likes", "currentBid", "highestBidderId", "bidCount",
+        AuctionLeaderboard.TOP_BIDS_FIELD, AuctionLeaderboard.BIDDER_IDS_FIELD, "distinctBidderCount"
+    };
     
     public ArtworkDAO() {
-        this.firestore = FirebaseConfig.getFirestore();
+        this.firestore = FirebaseConfig.getDocumentStore();
     }
     
     /**
@@ -40,12 +59,23 @@ public class ArtworkDAO {
             }
             
             Map<String, Object> artworkData = artworkToMap(artwork);
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(artwork.getArtworkId());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(artwork.getArtworkId())
-                .set(artworkData);
-            
-            result.get();
+            firestore.runTransaction(transaction -> {
+                DocumentSnapshot existing = transaction.get(docRef).get();
+                transaction.set(docRef, artworkData);
+                if (!existing.exists()) {
+                    UserStatsDAO.delta().add(artwork.getArtistId(), UserStatsDAO.ARTWORK_COUNT, 1L).applyTo(transaction);
+                }
+                if (artwork.isAuction()) {
+                    ArtistAuctionSummaryDAO.update(transaction, artwork.getArtistId(), artwork.getArtworkId(),
+                        ArtistAuctionSummaryDAO.entryOf(artworkData));
+                }
+                return null;
+            }).get();
+            artworkCache.invalidate(artwork.getArtworkId());
+            catalogIndex.upsert(artwork);
+            syncAuctionDeadline(artwork);
             logger.info("Artwork saved successfully: {}", artwork.getArtworkId());
             return artwork.getArtworkId();
             
@@ -60,9 +90,8 @@ public class ArtworkDAO {
      */
     public Artwork findById(String artworkId) throws ExecutionException, InterruptedException {
         try {
-            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(artworkId);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
-            DocumentSnapshot document = future.get();
+            DocumentSnapshot document = artworkCache.get(artworkId,
+                id -> firestore.collection(COLLECTION_NAME).document(id).get().get());
             
             if (document.exists()) {
                 return mapToArtwork(document);
@@ -76,19 +105,48 @@ public class ArtworkDAO {
     }
     
     /**
-     * Find active artworks with pagination and filters
+     * Find several artworks by ID. Cached artworks are served from memory and the rest
+     * are fetched with a single getAll; unknown ids are left out of the returned map.
+     */
+    public Map<String, Artwork> findByIds(Collection<String> artworkIds) throws ExecutionException, InterruptedException {
+        try {
+            Map<String, DocumentSnapshot> documents = artworkCache.getAll(artworkIds, ids -> {
+                DocumentReference[] refs = new DocumentReference[ids.size()];
+                for (int i = 0; i < refs.length; i++) {
+                    refs[i] = firestore.collection(COLLECTION_NAME).document(ids.get(i));
+                }
+                return firestore.getAll(refs).get();
+            });
+            
+            List<Artwork> artworks = mapToArtworks(new ArrayList<>(documents.values()));
+            Map<String, Artwork> result = new HashMap<>();
+            for (Artwork artwork : artworks) {
+                result.put(artwork.getArtworkId(), artwork);
+            }
+            return result;
+            
+        } catch (Exception e) {
+            logger.error("Error finding artworks by IDs: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Find active artworks with keyset pagination and filters.
+     * Pass the nextCursor of the previous page (null for the first page).
      */
-    public List<Artwork> findActiveArtworks(int page, int limit, String category, String search) 
+    public CursorPage<Artwork> findActiveArtworks(String cursor, int limit, String category, String search) 
             throws ExecutionException, InterruptedException {
         logger.info("=== findActiveArtworks called ===");
-        logger.info("Parameters: page={}, limit={}, category={}, search={}", page, limit, category, search);
+        logger.info("Parameters: cursor={}, limit={}, category={}, search={}", cursor, limit, category, search);
+        boolean firstPage = cursor == null || cursor.trim().isEmpty();
         
         try {
             // Query for both ACTIVE and SOLD artworks (include sold artworks in listings)
-            // Note: Firestore doesn't support whereIn with multiple orderBy easily, so we'll fetch all and sort in memory
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereIn("status", java.util.Arrays.asList("ACTIVE", "SOLD"))
-                .orderBy("createdAt", Query.Direction.DESCENDING);
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
             
             logger.info("Initial query created for collection: {} (including SOLD artworks)", COLLECTION_NAME);
             
@@ -98,24 +156,20 @@ public class ArtworkDAO {
                 logger.info("Added category filter: {}", category.toUpperCase());
             }
             
-            // Calculate offset
-            int offset = (page - 1) * limit;
-            logger.info("Calculated offset: {} (page {} * limit {})", offset, page, limit);
+            // Resume after the last document of the previous page
+            query = PageCursor.startAfter(query, cursor).limit(limit);
+            logger.info("Applied pagination - limit: {}, first page: {}", limit, firstPage);
             
-            // Apply pagination
-            query = query.limit(limit).offset(offset);
-            logger.info("Applied pagination - limit: {}, offset: {}", limit, offset);
-            
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             logger.info("Executing Firestore query...");
             
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             logger.info("Query executed. Found {} documents in Firestore", documents.size());
+            String nextCursor = PageCursor.next(documents, limit);
             
             List<Artwork> artworks = new ArrayList<>();
-            for (DocumentSnapshot doc : documents) {
-                logger.debug("Processing document: {}", doc.getId());
-                Artwork artwork = mapToArtwork(doc);
+            for (Artwork artwork : mapToArtworks(documents)) {
+                logger.debug("Processing document: {}", artwork.getArtworkId());
                 
                 // Apply search filter if provided
                 if (search == null || search.trim().isEmpty() || 
@@ -130,7 +184,7 @@ public class ArtworkDAO {
             logger.info("After search filtering: {} artworks", artworks.size());
             
             // If no artworks found and this is the first page, return sample data for demonstration
-            if (artworks.isEmpty() && page == 1) {
+            if (artworks.isEmpty() && firstPage && nextCursor == null) {
                 logger.info("No active artworks found in database, returning sample data for demonstration");
                 List<Artwork> sampleArtworks = createSampleArtworks();
                 logger.info("Created {} sample artworks", sampleArtworks.size());
@@ -161,34 +215,117 @@ public class ArtworkDAO {
                 
                 logger.info("Final sample artworks returned: {}", limitedSamples.size());
                 logger.info("=== findActiveArtworks completed (sample data) ===");
-                return limitedSamples;
+                return new CursorPage<>(limitedSamples, null);
             }
             
             logger.info("Final artworks returned from database: {}", artworks.size());
             logger.info("=== findActiveArtworks completed (database data) ===");
-            return artworks;
+            return new CursorPage<>(artworks, nextCursor);
             
         } catch (Exception e) {
             logger.error("Error finding active artworks: {}", e.getMessage(), e);
             // Return sample artworks for demonstration when there's an error
-            if (page == 1) {
+            if (firstPage) {
                 logger.info("Returning sample artworks due to error");
                 List<Artwork> samples = createSampleArtworks().stream()
                     .limit(limit)
                     .collect(java.util.stream.Collectors.toList());
                 logger.info("Sample artworks returned due to error: {}", samples.size());
-                return samples;
+                return new CursorPage<>(samples, null);
             }
             throw e;
         }
     }
     
     /**
-     * Find active artworks with advanced filtering including price range
+     * Find active artworks with advanced filtering including price range.
+     * Served from the in-memory catalogue index; falls back to a Firestore scan
+     * if the index cannot be loaded.
      */
     public List<Artwork> findActiveArtworks(int page, int limit, String category, String search, 
                                           String minPrice, String maxPrice, String listingType, String sortBy) 
             throws ExecutionException, InterruptedException {
+        try {
+            ensureCatalogIndexLoaded();
+            return catalogIndex.query(page, limit, category, search, minPrice, maxPrice, listingType, sortBy);
+        } catch (Exception e) {
+            logger.warn("Catalogue index unavailable, falling back to Firestore scan: {}", e.getMessage());
+        }
+        return scanActiveArtworks(page, limit, category, search, minPrice, maxPrice, listingType, sortBy);
+    }
+    
+    /**
+     * Cursor-paginated variant of the filtered listing. Pass the nextCursor of
+     * the previous page (null for the first page).
+     */
+    public CursorPage<Artwork> findActiveArtworks(String cursor, int limit, String category, String search, 
+                                                  String minPrice, String maxPrice, String listingType, String sortBy) 
+            throws ExecutionException, InterruptedException {
+        try {
+            ensureCatalogIndexLoaded();
+            return catalogIndex.query(cursor, limit, category, search, minPrice, maxPrice, listingType, sortBy);
+        } catch (Exception e) {
+            logger.warn("Catalogue index unavailable, falling back to Firestore scan: {}", e.getMessage());
+        }
+        
+        // Fallback: scan everything and resume after the artwork id carried by the cursor
+        List<Artwork> all = scanActiveArtworks(1, Integer.MAX_VALUE, category, search, minPrice, maxPrice, listingType, sortBy);
+        String[] position = PageCursor.decode(cursor, 1);
+        int start = 0;
+        if (position != null) {
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getArtworkId().equals(position[0])) {
+                    start = i + 1;
+                    break;
+                }
+            }
+        }
+        int end = Math.min(start + limit, all.size());
+        List<Artwork> items = new ArrayList<>(all.subList(start, end));
+        String next = end < all.size() && !items.isEmpty()
+            ? PageCursor.encode(items.get(items.size() - 1).getArtworkId()) : null;
+        return new CursorPage<>(items, next);
+    }
+    
+    /**
+     * Load the catalogue index on first use and schedule a background reload when it is stale
+     */
+    private void ensureCatalogIndexLoaded() throws ExecutionException, InterruptedException {
+        if (!catalogIndex.isLoaded()) {
+            synchronized (ArtworkCatalogIndex.class) {
+                if (!catalogIndex.isLoaded()) {
+                    long startedAt = System.nanoTime();
+                    catalogIndex.rebuild(loadListableArtworks(), startedAt);
+                }
+            }
+        } else if (catalogIndex.isStale()) {
+            catalogIndex.refreshAsync(() -> {
+                try {
+                    return loadListableArtworks();
+                } catch (ExecutionException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Read every ACTIVE and SOLD artwork for the catalogue index
+     */
+    private List<Artwork> loadListableArtworks() throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = firestore.collection(COLLECTION_NAME)
+            .whereIn("status", java.util.Arrays.asList("ACTIVE", "SOLD"))
+            .get().get().getDocuments();
+        
+        return mapToArtworks(documents);
+    }
+    
+    /**
+     * Filter, sort and paginate the catalogue by scanning Firestore
+     */
+    List<Artwork> scanActiveArtworks(int page, int limit, String category, String search, 
+                                           String minPrice, String maxPrice, String listingType, String sortBy) 
+            throws ExecutionException, InterruptedException {
         logger.info("=== findActiveArtworks (with filters) called ===");
         logger.info("Parameters: page={}, limit={}, category={}, search={}, minPrice={}, maxPrice={}, listingType={}, sortBy={}", 
                    page, limit, category, search, minPrice, maxPrice, listingType, sortBy);
@@ -214,18 +351,12 @@ public class ArtworkDAO {
                 logger.info("Added listing type filter: {}", listingType.toUpperCase());
             }
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             logger.info("Retrieved {} documents from Firestore before filtering", documents.size());
             
-            List<Artwork> allArtworks = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
-                Artwork artwork = mapToArtwork(document);
-                if (artwork != null) {
-                    allArtworks.add(artwork);
-                }
-            }
+            List<Artwork> allArtworks = mapToArtworks(documents);
             
             logger.info("Mapped {} artworks from documents", allArtworks.size());
             
@@ -422,15 +553,10 @@ public class ArtworkDAO {
                 .orderBy("createdAt", Query.Direction.DESCENDING)
                 .limit(limit);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
-            List<Artwork> artworks = new ArrayList<>();
-            for (DocumentSnapshot doc : documents) {
-                artworks.add(mapToArtwork(doc));
-            }
-            
-            return artworks;
+            return mapToArtworks(documents);
             
         } catch (Exception e) {
             logger.error("Error finding featured artworks: {}", e.getMessage(), e);
@@ -448,18 +574,55 @@ public class ArtworkDAO {
                 .whereEqualTo("artistId", artistId)
                 .orderBy("createdAt", Query.Direction.DESCENDING);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
-            List<Artwork> artworks = new ArrayList<>();
-            for (DocumentSnapshot doc : documents) {
-                artworks.add(mapToArtwork(doc));
+            return mapToArtworks(documents);
+            
+        } catch (Exception e) {
+            logger.error("Error finding artworks by artist: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * One page of an artist's sold auctions that ended between two dates (either may be
+     * null), newest first. Pass the nextCursor of the previous page (null for the first).
+     *
+     * Settlement writes endedAt on every sold auction, so the range is applied in the
+     * query; it needs the composite index (artistId, saleType, status, endedAt desc).
+     */
+    public CursorPage<Artwork> findSoldAuctions(String artistId, LocalDateTime from, LocalDateTime to,
+            String cursor, int limit) throws ExecutionException, InterruptedException {
+        try {
+            Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("artistId", artistId)
+                .whereEqualTo("saleType", "AUCTION")
+                .whereEqualTo("status", "SOLD");
+            if (from != null) {
+                query = query.whereGreaterThanOrEqualTo("endedAt", from.toString());
             }
+            if (to != null) {
+                query = query.whereLessThanOrEqualTo("endedAt", to.toString());
+            }
+            query = query.orderBy("endedAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
             
-            return artworks;
+            String[] position = PageCursor.decode(cursor, 2);
+            if (position != null) {
+                query = query.startAfter(position[0], position[1]);
+            }
+            
+            List<QueryDocumentSnapshot> documents = query.limit(limit).get().get().getDocuments();
+            String nextCursor = null;
+            if (documents.size() == limit) {
+                QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+                nextCursor = PageCursor.encode(last.getString("endedAt"), last.getId());
+            }
+            return new CursorPage<>(mapToArtworks(documents), nextCursor);
             
         } catch (Exception e) {
-            logger.error("Error finding artworks by artist: {}", e.getMessage(), e);
+            logger.error("Error finding sold auctions by artist: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -481,7 +644,7 @@ public class ArtworkDAO {
                     .limit(limit)
                     .offset(offset);
                 
-                ApiFuture<QuerySnapshot> querySnapshot = query.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = query.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 logger.info("Query returned " + documents.size() + " documents for artist " + artistId);
@@ -489,7 +652,7 @@ public class ArtworkDAO {
                 List<Artwork> artworks = new ArrayList<>();
                 for (DocumentSnapshot doc : documents) {
                     try {
-                        Artwork artwork = mapToArtwork(doc);
+                        Artwork artwork = toArtwork(doc);
                         if (artwork != null) {
                             artworks.add(artwork);
                             logger.debug("Mapped artwork: " + artwork.getArtworkId() + 
@@ -501,6 +664,7 @@ public class ArtworkDAO {
                     }
                 }
                 
+                fillArtistNames(artworks);
                 logger.info("Successfully mapped " + artworks.size() + " artworks for artist " + artistId);
                 return artworks;
             } catch (Exception orderByError) {
@@ -511,7 +675,7 @@ public class ArtworkDAO {
                     .limit(limit)
                     .offset(offset);
                 
-                ApiFuture<QuerySnapshot> querySnapshot = query.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = query.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 logger.info("Fallback query returned " + documents.size() + " documents for artist " + artistId);
@@ -519,7 +683,7 @@ public class ArtworkDAO {
                 List<Artwork> artworks = new ArrayList<>();
                 for (DocumentSnapshot doc : documents) {
                     try {
-                        Artwork artwork = mapToArtwork(doc);
+                        Artwork artwork = toArtwork(doc);
                         if (artwork != null) {
                             artworks.add(artwork);
                         }
@@ -536,6 +700,7 @@ public class ArtworkDAO {
                     return b.getCreatedAt().compareTo(a.getCreatedAt()); // Descending
                 });
                 
+                fillArtistNames(artworks);
                 logger.info("Successfully mapped " + artworks.size() + " artworks (fallback query) for artist " + artistId);
                 return artworks;
             }
@@ -558,13 +723,11 @@ public class ArtworkDAO {
                 .whereEqualTo("saleType", "AUCTION")
                 .orderBy("auctionEndTime", Query.Direction.ASCENDING);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<Artwork> auctions = new ArrayList<>();
-            for (DocumentSnapshot doc : documents) {
-                Artwork artwork = mapToArtwork(doc);
-                
+            for (Artwork artwork : mapToArtworks(documents)) {
                 // Only include active auctions
                 if (artwork.isAuctionActive()) {
                     auctions.add(artwork);
@@ -586,12 +749,23 @@ public class ArtworkDAO {
         try {
             artwork.setUpdatedAt(LocalDateTime.now());
             Map<String, Object> artworkData = artworkToMap(artwork);
+            // Views and likes are owned by ArtworkCounters and the bid fields by the bid
+            // engine; writing them back from a possibly stale copy would undo increments
+            // flushed and bids committed in the meantime
+            for (String field : NOT_UPDATED_FIELDS) {
+                artworkData.remove(field);
+            }
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(artwork.getArtworkId())
-                .set(artworkData);
-            
-            result.get();
+            WriteBatch batch = firestore.batch();
+            batch.set(firestore.collection(COLLECTION_NAME).document(artwork.getArtworkId()), artworkData, SetOptions.merge());
+            if (artwork.isAuction()) {
+                ArtistAuctionSummaryDAO.update(batch, artwork.getArtistId(), artwork.getArtworkId(),
+                    ArtistAuctionSummaryDAO.listingEntryOf(artworkData));
+            }
+            batch.commit().get();
+            artworkCache.invalidate(artwork.getArtworkId());
+            catalogIndex.upsertListing(artwork);
+            syncAuctionDeadline(artwork);
             logger.info("Artwork updated successfully: {}", artwork.getArtworkId());
             
         } catch (Exception e) {
@@ -600,6 +774,20 @@ public class ArtworkDAO {
         }
     }
     
+    /**
+     * Keep the auction deadline index in step with a saved artwork
+     */
+    private void syncAuctionDeadline(Artwork artwork) {
+        if (artwork.getSaleType() == Artwork.SaleType.AUCTION
+                && artwork.getStatus() == Artwork.ArtworkStatus.ACTIVE
+                && artwork.getAuctionEndTime() != null
+                && (artwork.getWinnerId() == null || artwork.getWinnerId().isEmpty())) {
+            AuctionClock.getInstance().schedule(artwork.getArtworkId(), artwork.getAuctionEndTime());
+        } else {
+            AuctionClock.getInstance().cancel(artwork.getArtworkId());
+        }
+    }
+    
     /**
      * Atomically mark artwork as sold with race condition protection
      * Returns true if successfully marked as sold, false if already sold
@@ -609,7 +797,7 @@ public class ArtworkDAO {
             DocumentReference artworkRef = firestore.collection(COLLECTION_NAME).document(artworkId);
             
             // Use a transaction to atomically check and update
-            return firestore.runTransaction(transaction -> {
+            boolean marked = firestore.runTransaction(transaction -> {
                 try {
                     DocumentSnapshot artworkDoc = transaction.get(artworkRef).get();
                     
@@ -631,8 +819,18 @@ public class ArtworkDAO {
                     updates.put("status", "SOLD");
                     updates.put("soldAt", now.toString());
                     updates.put("updatedAt", now.toString());
+                    if ("AUCTION".equals(artworkDoc.getString("saleType"))) {
+                        // Sold auctions are found by endedAt, see findSoldAuctions
+                        updates.put("endedAt", now.toString());
+                    }
                     
                     transaction.update(artworkRef, updates);
+                    if ("AUCTION".equals(artworkDoc.getString("saleType"))) {
+                        Map<String, Object> summary = new HashMap<>();
+                        summary.put("status", "SOLD");
+                        summary.put("endedAt", now.toString());
+                        ArtistAuctionSummaryDAO.update(transaction, artworkDoc.getString("artistId"), artworkId, summary);
+                    }
                     logger.info("Artwork {} marked as sold at {}", artworkId, now);
                     return true;
                 } catch (InterruptedException | ExecutionException e) {
@@ -641,6 +839,12 @@ public class ArtworkDAO {
                 }
             }).get();
             
+            artworkCache.invalidate(artworkId);
+            if (marked) {
+                catalogIndex.updateStatus(artworkId, Artwork.ArtworkStatus.SOLD);
+            }
+            return marked;
+            
         } catch (Exception e) {
             logger.error("Error marking artwork as sold: {}", e.getMessage(), e);
             throw e;
@@ -652,11 +856,31 @@ public class ArtworkDAO {
      */
     public void deleteArtwork(String artworkId) throws ExecutionException, InterruptedException {
         try {
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(artworkId)
-                .delete();
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(artworkId);
             
-            result.get();
+            firestore.runTransaction(transaction -> {
+                DocumentSnapshot existing = transaction.get(docRef).get();
+                transaction.delete(docRef);
+                if (existing.exists()) {
+                    // The artist's bids received and likes go with the artwork, as in the aggregates
+                    Long bidCount = existing.getLong("bidCount");
+                    Long likes = existing.getLong("likes");
+                    String artistId = existing.getString("artistId");
+                    UserStatsDAO.delta()
+                        .add(artistId, UserStatsDAO.ARTWORK_COUNT, -1L)
+                        .add(artistId, UserStatsDAO.BIDS_RECEIVED, -(bidCount != null ? bidCount : 0L))
+                        .add(artistId, UserStatsDAO.LIKES_RECEIVED, -(likes != null ? likes : 0L))
+                        .applyTo(transaction);
+                    if ("AUCTION".equals(existing.getString("saleType"))) {
+                        ArtistAuctionSummaryDAO.remove(transaction, artistId, artworkId);
+                    }
+                }
+                return null;
+            }).get();
+            artworkCache.invalidate(artworkId);
+            catalogIndex.remove(artworkId);
+            counters.discard(artworkId);
+            AuctionClock.getInstance().cancel(artworkId);
             logger.info("Artwork deleted successfully: {}", artworkId);
             
         } catch (Exception e) {
@@ -669,17 +893,32 @@ public class ArtworkDAO {
      * Get count of artworks for a specific user (artist)
      */
     public long getUserArtworkCount(String userId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("artistId", userId);
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            return querySnapshot.size();
-            
-        } catch (Exception e) {
-            logger.error("Error getting user artwork count", e);
-            return 0;
-        }
+        return getUserArtworkCountAsync(userId).join();
+    }
+    
+    /**
+     * Async variant of {@link #getUserArtworkCount(String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getUserArtworkCountAsync(String userId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("artistId", userId);
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting user artwork count", e);
+                return 0L;
+            });
+    }
+    
+    /**
+     * Get count of a user's publicly visible (ACTIVE or SOLD) artworks
+     */
+    public long getUserListedArtworkCount(String userId) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("artistId", userId)
+            .whereIn("status", java.util.Arrays.asList("ACTIVE", "SOLD"));
+        
+        return FirestoreAggregates.count(query).get();
     }
     
     /**
@@ -690,8 +929,7 @@ public class ArtworkDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("buyerId", userId);
             
-            QuerySnapshot querySnapshot = query.get().get();
-            return querySnapshot.size();
+            return FirestoreAggregates.count(query).get();
             
         } catch (Exception e) {
             logger.error("Error getting user purchase count", e);
@@ -703,103 +941,46 @@ public class ArtworkDAO {
      * Get count of all bids placed by a user (from bid history)
      */
     public long getUserTotalBidsCount(String userId) throws ExecutionException, InterruptedException {
-        try {
-            logger.info("=== getUserTotalBidsCount called for userId: " + userId + " ===");
-            
-            Query query = firestore.collection("bid_history")
-                .whereEqualTo("bidderId", userId);
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            long bidCount = querySnapshot.size();
-            
-            logger.info("Found " + bidCount + " bids for user " + userId);
-            
-            // Log some sample bids for debugging
-            if (bidCount > 0) {
-                logger.info("Sample bids for user " + userId + ":");
-                querySnapshot.getDocuments().stream().limit(3).forEach(doc -> {
-                    logger.info("  - Bid ID: " + doc.getId() + ", Amount: " + doc.get("bidAmount") + ", Auction: " + doc.get("auctionId"));
-                });
-            }
-            
-            return bidCount;
-            
-        } catch (Exception e) {
-            logger.error("Error getting user total bids count", e);
-            return 0;
-        }
+        return getUserTotalBidsCountAsync(userId).join();
     }
     
     /**
-     * Get count of active bids by a user (where user is currently highest bidder)
+     * Async variant of {@link #getUserTotalBidsCount(String)}; completes with 0 on error
      */
-    public long getUserActiveBidsCount(String userId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("highestBidderId", userId)
-                .whereEqualTo("listingType", "AUCTION")
-                .whereGreaterThan("auctionEndTime", new java.util.Date());
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            return querySnapshot.size();
-            
-        } catch (Exception e) {
-            logger.error("Error getting user active bids count", e);
-            return 0;
-        }
+    public CompletableFuture<Long> getUserTotalBidsCountAsync(String userId) {
+        logger.info("=== getUserTotalBidsCount called for userId: " + userId + " ===");
+        
+        Query query = firestore.collection("bid_history")
+            .whereEqualTo("bidderId", userId);
+        
+        return FirestoreAggregates.count(query).thenApply(bidCount -> {
+            logger.info("Found " + bidCount + " bids for user " + userId);
+            return bidCount;
+        }).exceptionally(e -> {
+            logger.error("Error getting user total bids count", e);
+            return 0L;
+        });
     }
     
     /**
-     * Get total earnings for an artist
+     * Get total likes received by a user's artworks
      */
-    public double getUserTotalEarnings(String userId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("artistId", userId)
-                .whereIn("listingType", java.util.Arrays.asList("SOLD", "COMPLETED"));
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            double totalEarnings = 0.0;
-            
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                Double price = document.getDouble("currentPrice");
-                if (price != null) {
-                    totalEarnings += price;
-                }
-            }
-            
-            return totalEarnings;
-            
-        } catch (Exception e) {
-            logger.error("Error getting user total earnings", e);
-            return 0.0;
-        }
+    public long getUserTotalLikes(String userId) throws ExecutionException, InterruptedException {
+        return getUserTotalLikesAsync(userId).join();
     }
     
     /**
-     * Get total likes received by a user's artworks
+     * Async variant of {@link #getUserTotalLikes(String)}; completes with 0 on error
      */
-    public long getUserTotalLikes(String userId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("artistId", userId);
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            long totalLikes = 0;
-            
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                Long likeCount = document.getLong("likeCount");
-                if (likeCount != null) {
-                    totalLikes += likeCount;
-                }
-            }
-            
-            return totalLikes;
-            
-        } catch (Exception e) {
+    public CompletableFuture<Long> getUserTotalLikesAsync(String userId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("artistId", userId);
+        
+        // Likes are stored in the "likes" field, see artworkToMap
+        return FirestoreAggregates.sum(query, "likes").thenApply(Double::longValue).exceptionally(e -> {
             logger.error("Error getting user total likes", e);
-            return 0;
-        }
+            return 0L;
+        });
     }
     
     /**
@@ -812,16 +993,7 @@ public class ArtworkDAO {
                 .orderBy("createdAt", Query.Direction.DESCENDING);
             
             QuerySnapshot querySnapshot = query.get().get();
-            List<Artwork> artworks = new ArrayList<>();
-            
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                Artwork artwork = mapToArtwork(document);
-                if (artwork != null) {
-                    artworks.add(artwork);
-                }
-            }
-            
-            return artworks;
+            return mapToArtworks(querySnapshot.getDocuments());
             
         } catch (Exception e) {
             logger.error("Error getting user artworks", e);
@@ -832,7 +1004,7 @@ public class ArtworkDAO {
     /**
      * Convert Artwork object to Firestore Map
      */
-    private Map<String, Object> artworkToMap(Artwork artwork) {
+    Map<String, Object> artworkToMap(Artwork artwork) {
         Map<String, Object> map = new HashMap<>();
         map.put("artworkId", artwork.getArtworkId());
         map.put("title", artwork.getTitle());
@@ -840,6 +1012,7 @@ public class ArtworkDAO {
         map.put("artistId", artwork.getArtistId());
         map.put("artistName", artwork.getArtistName());
         map.put("imageUrls", artwork.getImageUrls());
+        map.put("imageVariants", ImageDerivatives.variantUrls(artwork.getImageUrls()));
         map.put("primaryImageUrl", artwork.getPrimaryImageUrl());
         map.put("category", artwork.getCategory() != null ? artwork.getCategory().name() : null);
         map.put("medium", artwork.getMedium());
@@ -868,6 +1041,11 @@ public class ArtworkDAO {
         map.put("currentBid", artwork.getCurrentBid() != null ? artwork.getCurrentBid().toString() : null);
         map.put("highestBidderId", artwork.getHighestBidderId());
         map.put("bidCount", artwork.getBidCount());
+        if (artwork.getBidderIds() != null) {
+            map.put("topBids", artwork.getTopBids());
+            map.put("bidderIds", artwork.getBidderIds());
+            map.put("distinctBidderCount", artwork.getBidderIds().size());
+        }
         
         // Auction winner fields
         map.put("winnerId", artwork.getWinnerId());
@@ -878,40 +1056,83 @@ public class ArtworkDAO {
         return map;
     }
     
+    /**
+     * Convert a single Firestore DocumentSnapshot to an Artwork, filling in a missing artist name
+     */
+    Artwork mapToArtwork(DocumentSnapshot doc) {
+        Artwork artwork = toArtwork(doc);
+        fillArtistNames(Collections.singletonList(artwork));
+        return artwork;
+    }
+    
+    /**
+     * Convert query results to Artworks, looking up all missing artist names in one batch
+     */
+    private List<Artwork> mapToArtworks(List<? extends DocumentSnapshot> documents) {
+        List<Artwork> artworks = new ArrayList<>(documents.size());
+        for (DocumentSnapshot doc : documents) {
+            artworks.add(toArtwork(doc));
+        }
+        fillArtistNames(artworks);
+        return artworks;
+    }
+    
+    /**
+     * Ensure artistName is always set. Older documents lack it, so it is taken from the artist's user profile.
+     */
+    private void fillArtistNames(List<Artwork> artworks) {
+        Set<String> artistIds = new HashSet<>();
+        for (Artwork artwork : artworks) {
+            if ((artwork.getArtistName() == null || artwork.getArtistName().trim().isEmpty()) && artwork.getArtistId() != null) {
+                artistIds.add(artwork.getArtistId());
+            }
+        }
+        if (artistIds.isEmpty()) {
+            return;
+        }
+        
+        Map<String, User> artists;
+        try {
+            artists = userDAO.findByIds(artistIds);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching artist names", ie);
+        } catch (Exception e) {
+            logger.warn("Could not fetch artist names for artistIds {}: {}", artistIds, e.getMessage());
+            artists = Collections.emptyMap();
+        }
+        for (Artwork artwork : artworks) {
+            if (artwork.getArtistId() != null && artistIds.contains(artwork.getArtistId())) {
+                User artist = artists.get(artwork.getArtistId());
+                artwork.setArtistName(artist != null ? artist.getDisplayName() : "Unknown Artist");
+            }
+        }
+    }
+    
     /**
      * Convert Firestore DocumentSnapshot to Artwork object
      */
-    private Artwork mapToArtwork(DocumentSnapshot doc) {
+    @SuppressWarnings("unchecked")
+    private Artwork toArtwork(DocumentSnapshot doc) {
         Artwork artwork = new Artwork();
         artwork.setArtworkId(doc.getId());
         artwork.setTitle(doc.getString("title"));
         artwork.setDescription(doc.getString("description"));
         artwork.setArtistId(doc.getString("artistId"));
         artwork.setArtistName(doc.getString("artistName"));
-        // Ensure artistName is always set
-        if ((artwork.getArtistName() == null || artwork.getArtistName().trim().isEmpty()) && artwork.getArtistId() != null) {
-            try {
-                UserDAO userDAO = new UserDAO();
-                User artist = userDAO.findById(artwork.getArtistId());
-                if (artist != null) {
-                    artwork.setArtistName(artist.getDisplayName());
-                } else {
-                    artwork.setArtistName("Unknown Artist");
-                }
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Interrupted while fetching artist name", ie);
-            } catch (Exception e) {
-                logger.warn("Could not fetch artist name for artistId {}: {}", artwork.getArtistId(), e.getMessage());
-                artwork.setArtistName("Unknown Artist");
-            }
-        }
         @SuppressWarnings("unchecked")
         List<String> imageUrls = (List<String>) doc.get("imageUrls");
         if (imageUrls != null) {
             artwork.setImageUrls(imageUrls);
         }
         artwork.setPrimaryImageUrl(doc.getString("primaryImageUrl"));
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> imageVariants = (Map<String, List<String>>) doc.get("imageVariants");
+        // Artworks saved before derivatives existed get the same URLs; FileServlet creates the files on demand
+        artwork.setImageVariants(imageVariants != null ? imageVariants : ImageDerivatives.variantUrls(artwork.getImageUrls()));
+        String listingImage = artwork.getPrimaryImageUrl() != null ? artwork.getPrimaryImageUrl()
+            : (artwork.getImageUrls() != null && !artwork.getImageUrls().isEmpty() ? artwork.getImageUrls().get(0) : null);
+        artwork.setThumbnailUrl(ImageDerivatives.variantUrl(listingImage, ImageDerivatives.THUMBNAIL_WIDTH));
         String categoryStr = doc.getString("category");
         if (categoryStr != null) {
             artwork.setCategory(Artwork.ArtCategory.valueOf(categoryStr));
@@ -957,14 +1178,11 @@ public class ArtworkDAO {
         artwork.setFramed(Boolean.TRUE.equals(doc.getBoolean("isFramed")));
         artwork.setOriginal(Boolean.TRUE.equals(doc.getBoolean("isOriginal")));
         artwork.setTags(doc.getString("tags"));
+        // Include counts recorded on this instance that have not been flushed yet
         Long views = doc.getLong("views");
-        if (views != null) {
-            artwork.setViews(views.intValue());
-        }
+        artwork.setViews((int) ((views != null ? views : 0) + counters.pendingViews(doc.getId())));
         Long likes = doc.getLong("likes");
-        if (likes != null) {
-            artwork.setLikes(likes.intValue());
-        }
+        artwork.setLikes((int) ((likes != null ? likes : 0) + counters.pendingLikes(doc.getId())));
         String createdAtStr = doc.getString("createdAt");
         if (createdAtStr != null) {
             artwork.setCreatedAt(LocalDateTime.parse(createdAtStr));
@@ -1022,6 +1240,14 @@ public class ArtworkDAO {
         if (bidCount != null) {
             artwork.setBidCount(bidCount.intValue());
         }
+        Object topBids = doc.get("topBids");
+        if (topBids instanceof List) {
+            artwork.setTopBids((List<Map<String, Object>>) topBids);
+        }
+        Object bidderIds = doc.get("bidderIds");
+        if (bidderIds instanceof List) {
+            artwork.setBidderIds((List<String>) bidderIds);
+        }
         
         // Auction winner fields
         artwork.setWinnerId(doc.getString("winnerId"));
@@ -1120,13 +1346,14 @@ public class ArtworkDAO {
     }
     
     /**
-     * Get all artworks for admin with pagination and filtering
+     * Get all artworks for admin with keyset pagination and filtering
      */
-    public List<Artwork> getAllArtworksForAdmin(int page, int limit, String search, String status) 
+    public CursorPage<Artwork> getAllArtworksForAdmin(String cursor, int limit, String search, String status) 
             throws ExecutionException, InterruptedException {
         try {
             Query query = firestore.collection(COLLECTION_NAME)
-                .orderBy("createdAt", Query.Direction.DESCENDING);
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
             
             // Apply status filter
             if (status != null && !status.trim().isEmpty()) {
@@ -1139,16 +1366,10 @@ public class ArtworkDAO {
                            .whereLessThanOrEqualTo("title", search + '\uf8ff');
             }
             
-            ApiFuture<QuerySnapshot> future = query.offset(page * limit).limit(limit).get();
+            CompletableFuture<QuerySnapshot> future = PageCursor.startAfter(query, cursor).limit(limit).get();
             List<QueryDocumentSnapshot> documents = future.get().getDocuments();
             
-            List<Artwork> artworks = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
-                Artwork artwork = mapToArtwork(document);
-                artworks.add(artwork);
-            }
-            
-            return artworks;
+            return new CursorPage<>(mapToArtworks(documents), PageCursor.next(documents, limit));
         } catch (Exception e) {
             logger.error("Error getting artworks for admin: {}", e.getMessage(), e);
             throw e;
@@ -1160,61 +1381,79 @@ public class ArtworkDAO {
      */
     public long getTotalArtworksCount(String search, String status) 
             throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME);
-            
-            // Apply status filter
-            if (status != null && !status.trim().isEmpty()) {
-                query = query.whereEqualTo("status", status);
-            }
-            
-            // Apply search filter
-            if (search != null && !search.trim().isEmpty()) {
-                query = query.whereGreaterThanOrEqualTo("title", search)
-                           .whereLessThanOrEqualTo("title", search + '\uf8ff');
-            }
+        return getTotalArtworksCountAsync(search, status).join();
+    }
+    
+    /**
+     * Async variant of {@link #getTotalArtworksCount(String, String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getTotalArtworksCountAsync(String search, String status) {
+        Query query = firestore.collection(COLLECTION_NAME);
             
-            ApiFuture<QuerySnapshot> future = query.get();
-            return future.get().size();
-        } catch (Exception e) {
-            logger.error("Error getting artworks count: {}", e.getMessage(), e);
-            return 0;
+        // Apply status filter
+        if (status != null && !status.trim().isEmpty()) {
+            query = query.whereEqualTo("status", status);
+        }
+        
+        // Apply search filter
+        if (search != null && !search.trim().isEmpty()) {
+            query = query.whereGreaterThanOrEqualTo("title", search)
+                       .whereLessThanOrEqualTo("title", search + '\uf8ff');
         }
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting artworks count: {}", e.getMessage(), e);
+                return 0L;
+            });
     }
     
     /**
      * Get active auctions count
      */
     public long getActiveAuctionsCount() throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("saleType", "AUCTION")
-                .whereEqualTo("status", "ACTIVE");
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            return future.get().size();
-        } catch (Exception e) {
-            logger.error("Error getting active auctions count: {}", e.getMessage(), e);
-            return 0;
-        }
+        return getActiveAuctionsCountAsync().join();
+    }
+    
+    /**
+     * Async variant of {@link #getActiveAuctionsCount()}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getActiveAuctionsCountAsync() {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("saleType", "AUCTION")
+            .whereEqualTo("status", "ACTIVE");
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting active auctions count: {}", e.getMessage(), e);
+                return 0L;
+            });
     }
     
     /**
-     * Get total platform revenue (placeholder - implement based on transaction system)
+     * Get total platform revenue from completed sales, summed over the daily sales rollups
      */
     public double getTotalPlatformRevenue() {
-        // Placeholder implementation
-        // In a real system, this would query actual transaction records
-        return 125000.50; // Sample value
+        try {
+            return salesRollupDAO.getTotals(SalesRollupDAO.PLATFORM, null, null).getRevenue().doubleValue();
+        } catch (Exception e) {
+            logger.error("Error getting total platform revenue: {}", e.getMessage(), e);
+            return 0.0;
+        }
     }
     
     /**
-     * Get monthly revenue (placeholder - implement based on transaction system)
+     * Get revenue from sales completed so far this month
      */
     public double getMonthlyRevenue() {
-        // Placeholder implementation
-        // In a real system, this would query transactions for current month
-        return 15750.25; // Sample value
+        try {
+            LocalDate today = LocalDate.now();
+            return salesRollupDAO.getTotals(SalesRollupDAO.PLATFORM, today.withDayOfMonth(1), today)
+                .getRevenue().doubleValue();
+        } catch (Exception e) {
+            logger.error("Error getting monthly revenue: {}", e.getMessage(), e);
+            return 0.0;
+        }
     }
     
     /**
@@ -1227,11 +1466,12 @@ public class ArtworkDAO {
             updates.put("isFeatured", isFeatured);
             updates.put("updatedAt", LocalDateTime.now().toString());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(artworkId)
                 .update(updates);
             
             result.get();
+            artworkCache.invalidate(artworkId);
             logger.info("Artwork feature status updated: {} -> {}", artworkId, isFeatured);
             return true;
         } catch (Exception e) {
@@ -1249,11 +1489,20 @@ public class ArtworkDAO {
             updates.put("status", "REMOVED");
             updates.put("updatedAt", LocalDateTime.now().toString());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(artworkId)
-                .update(updates);
-            
-            result.get();
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(artworkId);
+            firestore.runTransaction(transaction -> {
+                DocumentSnapshot existing = transaction.get(docRef).get();
+                transaction.update(docRef, updates);
+                if ("AUCTION".equals(existing.getString("saleType"))) {
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("status", "REMOVED");
+                    ArtistAuctionSummaryDAO.update(transaction, existing.getString("artistId"), artworkId, summary);
+                }
+                return null;
+            }).get();
+            artworkCache.invalidate(artworkId);
+            catalogIndex.remove(artworkId);
+            AuctionClock.getInstance().cancel(artworkId);
             logger.info("Artwork removed: {}", artworkId);
             return true;
         } catch (Exception e) {
@@ -1266,43 +1515,26 @@ public class ArtworkDAO {
      * Get count of all bids received on artworks created by an artist
      */
     public long getArtistReceivedBidsCount(String artistId) throws ExecutionException, InterruptedException {
-        try {
-            logger.info("=== getArtistReceivedBidsCount called for artistId: " + artistId + " ===");
-            
-            // First, get all artwork IDs created by this artist
-            Query artworkQuery = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("artistId", artistId);
-            
-            QuerySnapshot artworkSnapshot = artworkQuery.get().get();
-            
-            if (artworkSnapshot.isEmpty()) {
-                logger.info("No artworks found for artist " + artistId);
-                return 0;
-            }
-            
-            // Count total bids on all artist's artworks
-            long totalBidsReceived = 0;
-            
-            for (QueryDocumentSnapshot artworkDoc : artworkSnapshot.getDocuments()) {
-                String artworkId = artworkDoc.getId();
-                
-                // Count bids for this artwork
-                Query bidQuery = firestore.collection("bid_history")
-                    .whereEqualTo("auctionId", artworkId);
-                
-                QuerySnapshot bidSnapshot = bidQuery.get().get();
-                long bidsForArtwork = bidSnapshot.size();
-                
-                logger.info("Artwork " + artworkId + " has " + bidsForArtwork + " bids");
-                totalBidsReceived += bidsForArtwork;
-            }
-            
+        return getArtistReceivedBidsCountAsync(artistId).join();
+    }
+    
+    /**
+     * Async variant of {@link #getArtistReceivedBidsCount(String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getArtistReceivedBidsCountAsync(String artistId) {
+        logger.info("=== getArtistReceivedBidsCount called for artistId: " + artistId + " ===");
+        
+        Query artworkQuery = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("artistId", artistId);
+        
+        // bidCount is maintained on the artwork with every accepted bid
+        return FirestoreAggregates.sum(artworkQuery, "bidCount").thenApply(total -> {
+            long totalBidsReceived = total.longValue();
             logger.info("Total bids received on artist " + artistId + "'s artworks: " + totalBidsReceived);
             return totalBidsReceived;
-            
-        } catch (Exception e) {
+        }).exceptionally(e -> {
             logger.error("Error getting artist received bids count", e);
-            return 0;
-        }
+            return 0L;
+        });
     }
 }
@@ -0,0 +1,475 @@
+package com.artexchange.dao;
+
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.util.AuctionClock;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Sequenced bid engine with a single writer per auction.
+ *
+ * The current high bid of every auction that has received a bid is held in
+ * memory. Bids are decided under the auction's lock: anything not above the
+ * high bid is rejected immediately without touching Firestore, and accepted
+ * bids are queued in acceptance order. One drainer per auction commits the
+ * queue in batches, each batch as one transaction that re-checks the stored
+ * high bid, so accepted bids stay strictly monotonic even if another server
+ * instance bids on the same auction. A bid counts as on time if it was placed
+ * before the end time, however late its batch commits.
+ *
+ * A book is dropped once its queue is drained after the auction's clock
+ * deadline fires, and by a sweep once it has seen no bids for a while.
+ */
+public class AuctionBidEngine {
+    private static final Logger logger = Logger.getLogger(AuctionBidEngine.class.getName());
+    private static final String ARTWORKS_COLLECTION = "artworks";
+    private static final String BID_HISTORY_COLLECTION = "bid_history";
+
+    /** Bids per commit; each bid is one bid_history write plus the shared artwork update */
+    private static final int MAX_BATCH_SIZE = 200;
+    private static final int COMMIT_THREADS = 4;
+    /** Books without bids for this long are dropped (-Dartexchange.bidEngine.idleSeconds) */
+    private static final long IDLE_MILLIS = Long.getLong("artexchange.bidEngine.idleSeconds", 600L) * 1000;
+    private static final long IDLE_SWEEP_MILLIS = 60_000;
+
+    private static volatile AuctionBidEngine instance;
+
+    private final DocumentStore db;
+    private final Function<String, String> bidderNameResolver;
+    private final ConcurrentHashMap<String, AuctionBook> books = new ConcurrentHashMap<>();
+    private final ExecutorService committer;
+    /** Only touched by the clock's ticker thread */
+    private long lastIdleSweep = System.currentTimeMillis();
+
+    public enum Outcome { ACCEPTED, TOO_LOW, ENDED, NOT_FOUND, FAILED }
+
+    /**
+     * Result of a bid submission
+     */
+    public static class BidResult {
+        private final Outcome outcome;
+        private final double currentBid;
+        private final int bidCount;
+
+        BidResult(Outcome outcome, double currentBid, int bidCount) {
+            this.outcome = outcome;
+            this.currentBid = currentBid;
+            this.bidCount = bidCount;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public boolean isAccepted() { return outcome == Outcome.ACCEPTED; }
+        /** High bid after this submission was decided */
+        public double getCurrentBid() { return currentBid; }
+        public int getBidCount() { return bidCount; }
+    }
+
+    private AuctionBidEngine(DocumentStore db, Function<String, String> bidderNameResolver) {
+        this.db = db;
+        this.bidderNameResolver = bidderNameResolver;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.committer = Executors.newFixedThreadPool(COMMIT_THREADS, r -> {
+            Thread t = new Thread(r, "auction-bid-commit-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AuctionClock clock = AuctionClock.getInstance();
+        clock.addEndListener(this::retire);
+        clock.addTickListener(this::evictIdle);
+    }
+
+    static synchronized AuctionBidEngine getInstance(DocumentStore db, Function<String, String> bidderNameResolver) {
+        if (instance == null) {
+            instance = new AuctionBidEngine(db, bidderNameResolver);
+        }
+        return instance;
+    }
+
+    /**
+     * Drop the in-memory state of an auction, e.g. after it ended or its end time changed.
+     * A book that is still draining is dropped once its queue is empty.
+     */
+    public static void forget(String auctionId) {
+        AuctionBidEngine engine = instance;
+        if (engine != null && auctionId != null) {
+            engine.retire(auctionId);
+        }
+    }
+
+    /**
+     * Wait until every bid this instance accepted for an auction has been committed or rejected
+     *
+     * @return false if bids were still being committed when the timeout ran out
+     */
+    public static boolean awaitDrained(String auctionId, long timeoutMillis) throws InterruptedException {
+        AuctionBidEngine engine = instance;
+        AuctionBook book = engine != null && auctionId != null ? engine.books.get(auctionId) : null;
+        if (book == null) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (book) {
+            while (book.draining) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                book.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decide a bid and wait until it is committed (or rejected)
+     */
+    public BidResult placeBid(String auctionId, String bidderId, double bidAmount)
+            throws ExecutionException, InterruptedException {
+        while (true) {
+            AuctionBook book = books.computeIfAbsent(auctionId, AuctionBook::new);
+            PendingBid bid;
+
+            synchronized (book) {
+                if (book.evicted) {
+                    // Dropped between the lookup and the lock; use the book that replaces it
+                    continue;
+                }
+                book.lastUsed = System.currentTimeMillis();
+                if (!book.loaded) {
+                    loadBook(book);
+                }
+                if (!book.exists) {
+                    evict(book);
+                    return new BidResult(Outcome.NOT_FOUND, 0, 0);
+                }
+                if (book.endTime != null && LocalDateTime.now().isAfter(book.endTime) && !book.draining) {
+                    // The end time may have been extended since the book was loaded
+                    loadBook(book);
+                }
+                if (book.endTime != null && LocalDateTime.now().isAfter(book.endTime)) {
+                    if (!book.draining) {
+                        evict(book);
+                    }
+                    return new BidResult(Outcome.ENDED, book.highBid, book.bidCount);
+                }
+                if (bidAmount <= book.highBid) {
+                    return new BidResult(Outcome.TOO_LOW, book.highBid, book.bidCount);
+                }
+
+                bid = new PendingBid(bidderId, bidAmount);
+                book.highBid = bidAmount;
+                book.highBidderId = bidderId;
+                book.bidCount++;
+                book.pending.add(bid);
+
+                if (!book.draining) {
+                    book.draining = true;
+                    committer.execute(() -> drain(book));
+                }
+            }
+
+            return bid.result.get();
+        }
+    }
+
+    /**
+     * Drop a book now, or once its queue is drained
+     */
+    private void retire(String auctionId) {
+        AuctionBook book = books.get(auctionId);
+        if (book == null) {
+            return;
+        }
+        synchronized (book) {
+            if (book.draining) {
+                book.retired = true;
+            } else {
+                evict(book);
+            }
+        }
+    }
+
+    /**
+     * Clock tick listener: every minute, drop the books that have been idle for IDLE_MILLIS
+     */
+    private void evictIdle(long nowMillis) {
+        if (nowMillis - lastIdleSweep < IDLE_SWEEP_MILLIS) {
+            return;
+        }
+        lastIdleSweep = nowMillis;
+        for (AuctionBook book : books.values()) {
+            synchronized (book) {
+                if (!book.draining && nowMillis - book.lastUsed > IDLE_MILLIS) {
+                    evict(book);
+                }
+            }
+        }
+    }
+
+    /**
+     * Must hold the book's lock, and the book must not be draining
+     */
+    private void evict(AuctionBook book) {
+        book.evicted = true;
+        books.remove(book.auctionId, book);
+    }
+
+    private void loadBook(AuctionBook book) throws ExecutionException, InterruptedException {
+        DocumentSnapshot doc = db.collection(ARTWORKS_COLLECTION).document(book.auctionId).get().get();
+        book.exists = doc.exists();
+        if (book.exists) {
+            book.highBid = storedHighBid(doc);
+            book.bidCount = storedBidCount(doc);
+            book.highBidderId = doc.getString("highestBidderId");
+            book.endTime = parseDateTime(doc.getString("auctionEndTime"));
+        }
+        book.loaded = true;
+    }
+
+    private void drain(AuctionBook book) {
+        while (true) {
+            List<PendingBid> batch = new ArrayList<>();
+            synchronized (book) {
+                while (!book.pending.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                    batch.add(book.pending.poll());
+                }
+                if (batch.isEmpty()) {
+                    book.draining = false;
+                    if (book.retired) {
+                        evict(book);
+                    }
+                    book.notifyAll();
+                    return;
+                }
+            }
+            commit(book, batch);
+        }
+    }
+
+    /**
+     * Commit one batch in a transaction that re-checks every bid against the stored high bid
+     */
+    private void commit(AuctionBook book, List<PendingBid> batch) {
+        Map<String, String> bidderNames = new HashMap<>();
+        for (PendingBid bid : batch) {
+            bidderNames.computeIfAbsent(bid.bidderId, bidderNameResolver);
+        }
+
+        DocumentReference auctionRef = db.collection(ARTWORKS_COLLECTION).document(book.auctionId);
+        try {
+            BatchOutcome outcome = db.runTransaction(transaction -> {
+                DocumentSnapshot doc = transaction.get(auctionRef).get();
+                BatchOutcome result = new BatchOutcome();
+                if (!doc.exists()) {
+                    return result;
+                }
+                String winnerId = doc.getString("winnerId");
+                String status = doc.getString("status");
+                if ((winnerId != null && !winnerId.isEmpty()) || (status != null && !"ACTIVE".equals(status))) {
+                    // Settled, possibly by another instance that did not see these bids
+                    result.ended.addAll(batch);
+                    return result;
+                }
+                LocalDateTime endTime = parseDateTime(doc.getString("auctionEndTime"));
+
+                double highBid = storedHighBid(doc);
+                int bidCount = storedBidCount(doc);
+                AuctionLeaderboard leaderboard = AuctionLeaderboard.fromDocument(doc);
+                if (!leaderboard.isTracked()) {
+                    // First bid since the leaderboard was introduced: seed it once from the history
+                    leaderboard = AuctionLeaderboard.fromHistory(transaction.get(
+                            db.collection(BID_HISTORY_COLLECTION).whereEqualTo("auctionId", book.auctionId)).get().getDocuments());
+                }
+                String highBidderId = null;
+                UserStatsDAO.Delta stats = UserStatsDAO.delta();
+                for (PendingBid bid : batch) {
+                    if (endTime != null && bid.placedAt.isAfter(endTime)) {
+                        result.ended.add(bid);
+                    } else if (bid.amount > highBid) {
+                        Map<String, Object> bidData = new HashMap<>();
+                        bidData.put("auctionId", book.auctionId);
+                        bidData.put("bidderId", bid.bidderId);
+                        bidData.put("bidderName", bidderNames.get(bid.bidderId));
+                        bidData.put("bidAmount", bid.amount);
+                        bidData.put("previousBid", highBid);
+                        bidData.put("timestamp", bid.placedAt.toString());
+                        bidData.put("createdAt", new java.util.Date());
+                        transaction.set(db.collection(BID_HISTORY_COLLECTION).document(), bidData);
+                        leaderboard.record(bid.bidderId, bidderNames.get(bid.bidderId), bid.amount, bid.placedAt.toString());
+
+                        highBid = bid.amount;
+                        highBidderId = bid.bidderId;
+                        bidCount++;
+                        result.accepted.put(bid, bidCount);
+                        stats.add(bid.bidderId, UserStatsDAO.BIDS_PLACED, 1L);
+                        stats.add(doc.getString("artistId"), UserStatsDAO.BIDS_RECEIVED, 1L);
+                    }
+                }
+
+                if (highBidderId != null) {
+                    String now = LocalDateTime.now().toString();
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("currentBid", highBid);
+                    updates.put("bidCount", bidCount);
+                    updates.put("highestBidderId", highBidderId);
+                    updates.put("lastBidderId", highBidderId);
+                    updates.put("lastBidTime", now);
+                    updates.put("updatedAt", now);
+                    updates.putAll(leaderboard.toFields());
+                    transaction.update(auctionRef, updates);
+                    stats.applyTo(transaction);
+                    
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("currentBid", highBid);
+                    summary.put("bidCount", (long) bidCount);
+                    summary.put("biddersCount", (long) leaderboard.getDistinctBidderCount());
+                    ArtistAuctionSummaryDAO.update(transaction, doc.getString("artistId"), book.auctionId, summary);
+                }
+                result.highBid = highBid;
+                result.highBidderId = highBidderId;
+                result.bidCount = bidCount;
+                return result;
+            }).get();
+
+            for (PendingBid bid : batch) {
+                Integer count = outcome.accepted.get(bid);
+                if (count != null) {
+                    bid.result.complete(new BidResult(Outcome.ACCEPTED, bid.amount, count));
+                } else {
+                    bid.result.complete(new BidResult(outcome.ended.contains(bid) ? Outcome.ENDED : Outcome.TOO_LOW,
+                            outcome.highBid, outcome.bidCount));
+                }
+            }
+
+            if (outcome.accepted.size() < batch.size()) {
+                // Another writer got in first; resync from Firestore on the next bid
+                logger.warning("Auction " + book.auctionId + ": " + (batch.size() - outcome.accepted.size())
+                        + " queued bids lost to a concurrent writer or the auction end");
+                invalidate(book);
+            }
+            if (outcome.highBidderId != null) {
+                DocumentCache.artworks().invalidate(book.auctionId);
+                ArtworkCatalogIndex.getInstance().applyBid(book.auctionId,
+                        BigDecimal.valueOf(outcome.highBid), outcome.highBidderId, outcome.bidCount);
+            }
+            logger.info("Committed " + outcome.accepted.size() + " bids for auction " + book.auctionId
+                    + ", high bid " + outcome.highBid);
+
+        } catch (Exception e) {
+            logger.severe("Error committing bids for auction " + book.auctionId + ": " + e.getMessage());
+            invalidate(book);
+            for (PendingBid bid : batch) {
+                bid.result.complete(new BidResult(Outcome.FAILED, 0, 0));
+            }
+        }
+    }
+
+    private void invalidate(AuctionBook book) {
+        synchronized (book) {
+            book.loaded = false;
+        }
+    }
+
+    private static double storedHighBid(DocumentSnapshot doc) {
+        double currentBid = parseAmount(doc.get("currentBid"));
+        if (currentBid == 0) {
+            currentBid = parseAmount(doc.get("startingBid"));
+        }
+        return currentBid;
+    }
+
+    private static int storedBidCount(DocumentSnapshot doc) {
+        Object bidCount = doc.get("bidCount");
+        return bidCount instanceof Number ? ((Number) bidCount).intValue() : 0;
+    }
+
+    /**
+     * Amounts are written as numbers by bids and as strings by artwork saves
+     */
+    private static double parseAmount(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * In-memory state of one auction. Guarded by its own monitor.
+     */
+    private static class AuctionBook {
+        final String auctionId;
+        final ArrayDeque<PendingBid> pending = new ArrayDeque<>();
+        boolean loaded;
+        boolean exists;
+        boolean draining;
+        /** The auction's deadline fired while draining; drop the book once the queue is empty */
+        boolean retired;
+        /** No longer in the map; a bid that still got hold of it looks the book up again */
+        boolean evicted;
+        long lastUsed = System.currentTimeMillis();
+        double highBid;
+        String highBidderId;
+        int bidCount;
+        LocalDateTime endTime;
+
+        AuctionBook(String auctionId) {
+            this.auctionId = auctionId;
+        }
+    }
+
+    private static class PendingBid {
+        final String bidderId;
+        final double amount;
+        final LocalDateTime placedAt = LocalDateTime.now();
+        final CompletableFuture<BidResult> result = new CompletableFuture<>();
+
+        PendingBid(String bidderId, double amount) {
+            this.bidderId = bidderId;
+            this.amount = amount;
+        }
+    }
+
+    private static class BatchOutcome {
+        final Map<PendingBid, Integer> accepted = new HashMap<>();
+        final Set<PendingBid> ended = new HashSet<>();
+        double highBid;
+        String highBidderId;
+        int bidCount;
+    }
+}
@@ -1,22 +1,24 @@
 package com.artexchange.dao;
 
+import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Auction;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
+import com.artexchange.model.User;
+import com.artexchange.dao.store.*;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 
 public class AuctionDAO {
     private static final Logger logger = Logger.getLogger(AuctionDAO.class.getName());
-    private final Firestore db;
+    private final DocumentStore db;
+    private final UserDAO userDAO = new UserDAO();
     
     public AuctionDAO() {
-        this.db = FirestoreClient.getFirestore();
+        this.db = FirebaseConfig.getDocumentStore();
     }
     
     public List<Auction> getAllAuctions() {
@@ -24,7 +26,7 @@ public class AuctionDAO {
             logger.info("Querying Firebase for auctions with saleType=AUCTION (including SOLD auctions)");
             
             // Query for both ACTIVE and SOLD auctions
-            ApiFuture<QuerySnapshot> future = db.collection("artworks")
+            CompletableFuture<QuerySnapshot> future = db.collection("artworks")
                     .whereEqualTo("saleType", "AUCTION")
                     .whereIn("status", Arrays.asList("ACTIVE", "SOLD"))
                     .get();
@@ -77,7 +79,7 @@ public class AuctionDAO {
         try {
             logger.info("Querying Firebase for featured auctions");
             
-            ApiFuture<QuerySnapshot> future = db.collection("artworks")
+            CompletableFuture<QuerySnapshot> future = db.collection("artworks")
                     .whereEqualTo("saleType", "AUCTION")
                     .whereEqualTo("status", "ACTIVE")
                     .orderBy("views", Query.Direction.DESCENDING)
@@ -113,7 +115,7 @@ public class AuctionDAO {
     
     public Auction getAuctionById(String id) {
         try {
-            ApiFuture<DocumentSnapshot> future = db.collection("artworks").document(id).get();
+            CompletableFuture<DocumentSnapshot> future = db.collection("artworks").document(id).get();
             DocumentSnapshot document = future.get();
             
             if (document.exists()) {
@@ -132,12 +134,11 @@ public class AuctionDAO {
         
         try {
             // Count live auctions
-            ApiFuture<QuerySnapshot> liveAuctions = db.collection("artworks")
+            Query liveAuctions = db.collection("artworks")
                     .whereEqualTo("saleType", "AUCTION")
-                    .whereEqualTo("status", "ACTIVE")
-                    .get();
+                    .whereEqualTo("status", "ACTIVE");
             
-            int liveCount = liveAuctions.get().getDocuments().size();
+            int liveCount = FirestoreAggregates.count(liveAuctions).get().intValue();
             
             // For now, use simple calculations for other stats
             stats.put("liveCount", liveCount);
@@ -350,137 +351,45 @@ public class AuctionDAO {
     public boolean placeBid(String auctionId, String bidderId, double bidAmount) 
             throws ExecutionException, InterruptedException {
         try {
-            logger.info("Placing bid for auction " + auctionId + " by user " + bidderId + " with amount " + bidAmount);
-            
-            // Get the current auction data
-            DocumentReference auctionRef = db.collection("artworks").document(auctionId);
-            DocumentSnapshot auctionDoc = auctionRef.get().get();
-            
-            if (!auctionDoc.exists()) {
-                logger.warning("Auction not found: " + auctionId);
-                return false;
-            }
-            
-            // Get current bid and bid count
-            double currentBid = 0;
-            if (auctionDoc.contains("currentBid") && auctionDoc.get("currentBid") != null) {
-                Object currentBidObj = auctionDoc.get("currentBid");
-                if (currentBidObj instanceof Number) {
-                    currentBid = ((Number) currentBidObj).doubleValue();
-                }
-            }
-            
-            // If no current bid, use starting bid
-            if (currentBid == 0 && auctionDoc.contains("startingBid")) {
-                Object startingBidObj = auctionDoc.get("startingBid");
-                if (startingBidObj instanceof Number) {
-                    currentBid = ((Number) startingBidObj).doubleValue();
-                }
-            }
-            
-            // Validate bid amount
-            if (bidAmount <= currentBid) {
-                logger.warning("Bid amount " + bidAmount + " is not higher than current bid " + currentBid);
-                return false;
-            }
-            
-            // Get current bid count
-            int bidCount = 0;
-            if (auctionDoc.contains("bidCount") && auctionDoc.get("bidCount") != null) {
-                Object bidCountObj = auctionDoc.get("bidCount");
-                if (bidCountObj instanceof Number) {
-                    bidCount = ((Number) bidCountObj).intValue();
-                }
-            }
-            
-            // Update auction with new bid
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("currentBid", bidAmount);
-            updates.put("bidCount", bidCount + 1);
-            updates.put("lastBidderId", bidderId);
-            updates.put("lastBidTime", LocalDateTime.now().toString());
-            updates.put("updatedAt", LocalDateTime.now().toString());
-            
-            ApiFuture<WriteResult> result = auctionRef.update(updates);
-            result.get(); // Wait for completion
-            
-            logger.info("Successfully updated auction " + auctionId + " with new bid: " + bidAmount);
-            
-            // Get bidder name for bid history
-            String bidderName = getBidderName(bidderId);
-            
-            // Store bid history in a separate collection
-            saveBidHistory(auctionId, bidderId, bidderName, bidAmount, currentBid);
-            
-            return true;
-            
+            return submitBid(auctionId, bidderId, bidAmount).isAccepted();
         } catch (Exception e) {
-            logger.severe("Error placing bid: " + e.getMessage());
             return false;
         }
     }
     
     /**
-     * Get bidder name from user ID
+     * Place a bid through the sequenced bid engine and return the outcome with the resulting high bid
      */
-    private String getBidderName(String bidderId) {
+    public AuctionBidEngine.BidResult submitBid(String auctionId, String bidderId, double bidAmount) 
+            throws ExecutionException, InterruptedException {
         try {
-            DocumentReference userRef = db.collection("users").document(bidderId);
-            DocumentSnapshot userDoc = userRef.get().get();
+            AuctionBidEngine.BidResult result = AuctionBidEngine.getInstance(db, this::getBidderName)
+                    .placeBid(auctionId, bidderId, bidAmount);
             
-            if (userDoc.exists()) {
-                String firstName = userDoc.getString("firstName");
-                String lastName = userDoc.getString("lastName");
-                String username = userDoc.getString("username");
-                
-                if (firstName != null && lastName != null) {
-                    return firstName + " " + lastName;
-                } else if (firstName != null) {
-                    return firstName;
-                } else if (username != null) {
-                    return username;
-                }
+            if (result.isAccepted()) {
+                logger.info("Accepted bid " + bidAmount + " for auction " + auctionId + " by user " + bidderId);
+            } else {
+                logger.info("Rejected bid " + bidAmount + " for auction " + auctionId + ": " + result.getOutcome()
+                        + " (current bid " + result.getCurrentBid() + ")");
             }
-            return "Unknown User";
+            return result;
+            
         } catch (Exception e) {
-            logger.warning("Error getting bidder name for " + bidderId + ": " + e.getMessage());
-            return "Unknown User";
+            logger.severe("Error placing bid: " + e.getMessage());
+            throw e;
         }
     }
     
     /**
-     * Save bid history to a separate collection
+     * Get bidder name from user ID
      */
-    private void saveBidHistory(String auctionId, String bidderId, String bidderName, double bidAmount, double previousBid) {
+    private String getBidderName(String bidderId) {
         try {
-            logger.info("=== saveBidHistory called ===");
-            logger.info("Auction ID: " + auctionId);
-            logger.info("Bidder ID: " + bidderId);
-            logger.info("Bidder Name: " + bidderName);
-            logger.info("Bid Amount: " + bidAmount);
-            logger.info("Previous Bid: " + previousBid);
-            
-            Map<String, Object> bidData = new HashMap<>();
-            bidData.put("auctionId", auctionId);
-            bidData.put("bidderId", bidderId);
-            bidData.put("bidderName", bidderName);
-            bidData.put("bidAmount", bidAmount);
-            bidData.put("previousBid", previousBid);
-            bidData.put("timestamp", LocalDateTime.now().toString());
-            bidData.put("createdAt", new java.util.Date());
-            
-            logger.info("Bid data to save: " + bidData);
-            
-            // Save to bid_history collection
-            ApiFuture<DocumentReference> future = db.collection("bid_history").add(bidData);
-            DocumentReference docRef = future.get(); // Wait for completion
-            
-            logger.info("Successfully saved bid history with document ID: " + docRef.getId());
-            
+            User bidder = userDAO.findById(bidderId);
+            return bidder != null ? bidder.getDisplayName() : "Unknown User";
         } catch (Exception e) {
-            logger.severe("Error saving bid history: " + e.getMessage());
-            e.printStackTrace();
-            // Don't throw exception here as it shouldn't fail the main bid placement
+            logger.warning("Error getting bidder name for " + bidderId + ": " + e.getMessage());
+            return "Unknown User";
         }
     }
     
@@ -498,7 +407,7 @@ public class AuctionDAO {
             
             logger.info("Executing query: collection(bid_history).whereEqualTo(bidderId, " + userId + ").orderBy(timestamp, DESC)");
             
-            ApiFuture<QuerySnapshot> future = query.get();
+            CompletableFuture<QuerySnapshot> future = query.get();
             List<QueryDocumentSnapshot> documents = future.get().getDocuments();
             
             logger.info("Raw query returned " + documents.size() + " documents");
@@ -516,7 +425,7 @@ public class AuctionDAO {
                 String auctionId = (String) bidData.get("auctionId");
                 
                 // Get artwork details
-                ApiFuture<DocumentSnapshot> artworkFuture = db.collection("artworks").document(auctionId).get();
+                CompletableFuture<DocumentSnapshot> artworkFuture = db.collection("artworks").document(auctionId).get();
                 DocumentSnapshot artworkDoc = artworkFuture.get();
                 
                 if (artworkDoc.exists()) {
@@ -565,7 +474,7 @@ public class AuctionDAO {
             logger.info("=== Getting bidders for auction: " + auctionId + " sorted by: " + sortBy + " ===");
             
             // First, get the artwork/auction to check status and get highest bidder
-            ApiFuture<DocumentSnapshot> artworkFuture = db.collection("artworks").document(auctionId).get();
+            CompletableFuture<DocumentSnapshot> artworkFuture = db.collection("artworks").document(auctionId).get();
             DocumentSnapshot artworkDoc = artworkFuture.get();
             
             String highestBidderId = null;
@@ -579,59 +488,64 @@ public class AuctionDAO {
                 }
             }
             
-            // Query all bids for this auction without ordering (we'll sort in memory if needed)
-            Query query = db.collection("bid_history")
-                    .whereEqualTo("auctionId", auctionId);
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            logger.info("=== Found " + documents.size() + " bid documents for auction " + auctionId + " ===");
+            // One row per bidder from the leaderboard on the artwork; auctions that
+            // predate it fall back to every bid in bid_history
+            List<Map<String, Object>> bidRows = new ArrayList<>();
+            AuctionLeaderboard leaderboard = artworkDoc.exists() ? AuctionLeaderboard.fromDocument(artworkDoc) : null;
+            if (leaderboard != null && leaderboard.isTracked()) {
+                for (AuctionLeaderboard.Entry entry : leaderboard.getTopBids()) {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("bidId", auctionId + "_" + entry.getBidderId());
+                    row.put("bidderId", entry.getBidderId());
+                    row.put("bidderName", entry.getBidderName());
+                    row.put("bidAmount", entry.getBidAmount());
+                    row.put("timestamp", entry.getTimestamp());
+                    bidRows.add(row);
+                }
+                logger.info("=== Leaderboard has " + bidRows.size() + " of " + leaderboard.getDistinctBidderCount()
+                        + " bidders for auction " + auctionId + " ===");
+            } else {
+                Query query = db.collection("bid_history")
+                        .whereEqualTo("auctionId", auctionId);
+                for (QueryDocumentSnapshot doc : query.get().get().getDocuments()) {
+                    Map<String, Object> row = new HashMap<>(doc.getData());
+                    row.put("bidId", doc.getId());
+                    bidRows.add(row);
+                }
+                logger.info("=== Found " + bidRows.size() + " bid documents for auction " + auctionId + " ===");
+            }
             
-            // Log first few documents for debugging
-            for (int i = 0; i < Math.min(3, documents.size()); i++) {
-                QueryDocumentSnapshot doc = documents.get(i);
-                Map<String, Object> data = doc.getData();
-                logger.info("Bid doc " + i + ": bidderId=" + data.get("bidderId") + 
-                           ", bidderName=" + data.get("bidderName") + 
-                           ", bidAmount=" + data.get("bidAmount") + 
-                           ", auctionId=" + data.get("auctionId"));
+            // Fetch user details for email and username in one batch
+            Set<String> bidderIds = new HashSet<>();
+            for (Map<String, Object> bidData : bidRows) {
+                Object bidderId = bidData.get("bidderId");
+                if (bidderId instanceof String) {
+                    bidderIds.add((String) bidderId);
+                }
+            }
+            Map<String, User> bidderUsers;
+            try {
+                bidderUsers = userDAO.findByIds(bidderIds);
+            } catch (Exception e) {
+                logger.warning("Error fetching user details for bidders of auction " + auctionId + " - " + e.getMessage());
+                bidderUsers = Collections.emptyMap();
             }
             
             List<Map<String, Object>> bidders = new ArrayList<>();
             
-            for (QueryDocumentSnapshot doc : documents) {
-                Map<String, Object> bidData = doc.getData();
-                
+            for (Map<String, Object> bidData : bidRows) {
                 Map<String, Object> bidder = new HashMap<>();
-                bidder.put("bidId", doc.getId());
+                bidder.put("bidId", bidData.get("bidId"));
                 String bidderId = (String) bidData.get("bidderId");
                 bidder.put("bidderId", bidderId);
                 bidder.put("bidderName", bidData.get("bidderName"));
                 
-                // Fetch user details for email and username
-                try {
-                    ApiFuture<DocumentSnapshot> userFuture = db.collection("users").document(bidderId).get();
-                    DocumentSnapshot userDoc = userFuture.get();
-                    
-                    if (userDoc.exists()) {
-                        Map<String, Object> userData = userDoc.getData();
-                        bidder.put("email", userData.get("email"));
-                        bidder.put("username", userData.get("username"));
-                        // Use displayName if available, otherwise use username
-                        String displayName = (String) userData.get("displayName");
-                        if (displayName != null && !displayName.trim().isEmpty()) {
-                            bidder.put("fullName", displayName);
-                        } else {
-                            bidder.put("fullName", userData.get("username"));
-                        }
-                    } else {
-                        bidder.put("email", "N/A");
-                        bidder.put("username", bidData.get("bidderName"));
-                        bidder.put("fullName", bidData.get("bidderName"));
-                    }
-                } catch (Exception e) {
-                    logger.warning("Error fetching user details for bidderId: " + bidderId + " - " + e.getMessage());
+                User bidderUser = bidderUsers.get(bidderId);
+                if (bidderUser != null) {
+                    bidder.put("email", bidderUser.getEmail());
+                    bidder.put("username", bidderUser.getUsername());
+                    bidder.put("fullName", bidderUser.getDisplayName());
+                } else {
                     bidder.put("email", "N/A");
                     bidder.put("username", bidData.get("bidderName"));
                     bidder.put("fullName", bidData.get("bidderName"));
@@ -0,0 +1,210 @@
+package com.artexchange.dao;
+
+import com.artexchange.model.Artwork;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-auction leaderboard stored on the artwork document.
+ *
+ * Holds the best bid of each of the top bidders (highest first) and the ids of
+ * every distinct bidder. It is updated in the same transaction that accepts a
+ * bid, so the winner, bidder list and bidder count of an auction can be read
+ * from the artwork without scanning bid_history.
+ */
+public class AuctionLeaderboard {
+    /** Bidders kept on the leaderboard (-Dartexchange.auction.leaderboardSize) */
+    static final int TOP_N = Integer.getInteger("artexchange.auction.leaderboardSize", 25);
+    
+    static final String TOP_BIDS_FIELD = "topBids";
+    static final String BIDDER_IDS_FIELD = "bidderIds";
+    static final String DISTINCT_BIDDERS_FIELD = "distinctBidderCount";
+    
+    private final List<Entry> topBids;
+    private final LinkedHashSet<String> bidderIds;
+    private final boolean tracked;
+    
+    private AuctionLeaderboard(List<Entry> topBids, LinkedHashSet<String> bidderIds, boolean tracked) {
+        this.topBids = topBids;
+        this.bidderIds = bidderIds;
+        this.tracked = tracked;
+    }
+    
+    /**
+     * Read the leaderboard stored on an artwork document
+     */
+    @SuppressWarnings("unchecked")
+    public static AuctionLeaderboard fromDocument(DocumentSnapshot doc) {
+        Object storedBids = doc.get(TOP_BIDS_FIELD);
+        Object storedBidders = doc.get(BIDDER_IDS_FIELD);
+        Long bidCount = doc.getLong("bidCount");
+        return fromFields(storedBids instanceof List ? (List<Map<String, Object>>) storedBids : null,
+                storedBidders instanceof List ? (List<String>) storedBidders : null,
+                bidCount != null ? bidCount.intValue() : 0);
+    }
+    
+    public static AuctionLeaderboard fromArtwork(Artwork artwork) {
+        return fromFields(artwork.getTopBids(), artwork.getBidderIds(), artwork.getBidCount());
+    }
+    
+    private static AuctionLeaderboard fromFields(List<Map<String, Object>> storedBids, List<String> storedBidders, int bidCount) {
+        List<Entry> entries = new ArrayList<>();
+        if (storedBids != null) {
+            for (Map<String, Object> map : storedBids) {
+                Entry entry = Entry.fromMap(map);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        LinkedHashSet<String> bidders = storedBidders != null ? new LinkedHashSet<>(storedBidders) : new LinkedHashSet<>();
+        // Auctions created before the leaderboard existed have bids but no bidder ids
+        boolean tracked = storedBidders != null || bidCount == 0;
+        return new AuctionLeaderboard(entries, bidders, tracked);
+    }
+    
+    /**
+     * Rebuild from the full bid history, for auctions that predate the leaderboard
+     */
+    public static AuctionLeaderboard fromHistory(List<QueryDocumentSnapshot> bidDocuments) {
+        List<Entry> bids = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : bidDocuments) {
+            Entry entry = Entry.fromMap(doc.getData());
+            if (entry != null) {
+                bids.add(entry);
+            }
+        }
+        // Replay in ascending amount order so each bidder ends up with their best bid
+        bids.sort((a, b) -> Double.compare(a.bidAmount, b.bidAmount));
+        AuctionLeaderboard leaderboard = new AuctionLeaderboard(new ArrayList<>(), new LinkedHashSet<>(), true);
+        for (Entry bid : bids) {
+            leaderboard.record(bid.bidderId, bid.bidderName, bid.bidAmount, bid.timestamp);
+        }
+        return leaderboard;
+    }
+    
+    /**
+     * Record an accepted bid. Bids are accepted in increasing order, but the
+     * position is still searched so replays from history stay correct.
+     */
+    public void record(String bidderId, String bidderName, double bidAmount, String timestamp) {
+        bidderIds.add(bidderId);
+        for (int i = 0; i < topBids.size(); i++) {
+            if (topBids.get(i).bidderId.equals(bidderId)) {
+                if (topBids.get(i).bidAmount >= bidAmount) {
+                    return;
+                }
+                topBids.remove(i);
+                break;
+            }
+        }
+        int position = 0;
+        while (position < topBids.size() && topBids.get(position).bidAmount >= bidAmount) {
+            position++;
+        }
+        if (position >= TOP_N) {
+            return;
+        }
+        topBids.add(position, new Entry(bidderId, bidderName, bidAmount, timestamp));
+        if (topBids.size() > TOP_N) {
+            topBids.remove(topBids.size() - 1);
+        }
+    }
+    
+    /**
+     * False for auctions with bids placed before the leaderboard was introduced
+     */
+    public boolean isTracked() {
+        return tracked;
+    }
+    
+    /**
+     * Highest bid, or null if there are no bids
+     */
+    public Entry getLeader() {
+        return topBids.isEmpty() ? null : topBids.get(0);
+    }
+    
+    public List<Entry> getTopBids() {
+        return Collections.unmodifiableList(topBids);
+    }
+    
+    public int getDistinctBidderCount() {
+        return bidderIds.size();
+    }
+    
+    /**
+     * Fields to write back to the artwork document
+     */
+    public Map<String, Object> toFields() {
+        List<Map<String, Object>> bids = new ArrayList<>();
+        for (Entry entry : topBids) {
+            bids.add(entry.toMap());
+        }
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(TOP_BIDS_FIELD, bids);
+        fields.put(BIDDER_IDS_FIELD, new ArrayList<>(bidderIds));
+        fields.put(DISTINCT_BIDDERS_FIELD, bidderIds.size());
+        return fields;
+    }
+    
+    /**
+     * A bidder's best bid
+     */
+    public static class Entry {
+        private final String bidderId;
+        private final String bidderName;
+        private final double bidAmount;
+        private final String timestamp;
+        
+        Entry(String bidderId, String bidderName, double bidAmount, String timestamp) {
+            this.bidderId = bidderId;
+            this.bidderName = bidderName;
+            this.bidAmount = bidAmount;
+            this.timestamp = timestamp;
+        }
+        
+        public String getBidderId() { return bidderId; }
+        public String getBidderName() { return bidderName; }
+        public double getBidAmount() { return bidAmount; }
+        public String getTimestamp() { return timestamp; }
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("bidderId", bidderId);
+            map.put("bidderName", bidderName);
+            map.put("bidAmount", bidAmount);
+            map.put("timestamp", timestamp);
+            return map;
+        }
+        
+        static Entry fromMap(Map<String, Object> map) {
+            Object bidderId = map.get("bidderId");
+            if (!(bidderId instanceof String) || ((String) bidderId).trim().isEmpty()) {
+                return null;
+            }
+            Object amount = map.get("bidAmount");
+            double bidAmount = 0;
+            if (amount instanceof Number) {
+                bidAmount = ((Number) amount).doubleValue();
+            } else if (amount instanceof String) {
+                try {
+                    bidAmount = Double.parseDouble((String) amount);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            Object name = map.get("bidderName");
+            Object timestamp = map.get("timestamp");
+            return new Entry((String) bidderId, name != null ? name.toString() : null, bidAmount,
+                    timestamp != null ? timestamp.toString() : null);
+        }
+    }
+}
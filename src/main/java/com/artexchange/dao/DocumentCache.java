@@ -0,0 +1,242 @@
+package com.artexchange.dao;
+
+import com.artexchange.dao.store.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of Firestore documents by id, shared by the DAOs.
+ *
+ * Entries expire after a TTL and the least recently used entry is evicted once
+ * the cache is full. Snapshots are cached rather than model objects, so every
+ * caller still gets its own mutable copy. Concurrent misses for the same id
+ * share a single Firestore read. Every writer of a cached collection calls
+ * invalidate; a load that races with an invalidation is not cached.
+ */
+public final class DocumentCache {
+    private static final DocumentCache ARTWORKS = new DocumentCache("artworkCache",
+            Integer.getInteger("artexchange.artworkCache.maxEntries", 5000),
+            Long.getLong("artexchange.artworkCache.ttlSeconds", 30L));
+    private static final DocumentCache USERS = new DocumentCache("userCache",
+            Integer.getInteger("artexchange.userCache.maxEntries", 10000),
+            Long.getLong("artexchange.userCache.ttlSeconds", 60L));
+    
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<DocumentSnapshot>> loading = new ConcurrentHashMap<>();
+    /** Bumped by every invalidation; batch loads only cache if it did not move */
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    @FunctionalInterface
+    public interface Loader {
+        DocumentSnapshot load(String id) throws ExecutionException, InterruptedException;
+    }
+    
+    @FunctionalInterface
+    public interface BatchLoader {
+        /** Snapshots for the given ids; missing documents are returned with exists() == false */
+        List<DocumentSnapshot> loadAll(List<String> ids) throws ExecutionException, InterruptedException;
+    }
+    
+    private DocumentCache(String name, int maxEntries, long ttlSeconds) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > DocumentCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Artwork documents (-Dartexchange.artworkCache.maxEntries, -Dartexchange.artworkCache.ttlSeconds)
+     */
+    public static DocumentCache artworks() {
+        return ARTWORKS;
+    }
+    
+    /**
+     * User documents (-Dartexchange.userCache.maxEntries, -Dartexchange.userCache.ttlSeconds)
+     */
+    public static DocumentCache users() {
+        return USERS;
+    }
+    
+    /**
+     * Cached snapshot of a document, loading it on a miss
+     */
+    public DocumentSnapshot get(String id, Loader loader) throws ExecutionException, InterruptedException {
+        DocumentSnapshot cached = lookup(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        
+        CompletableFuture<DocumentSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<DocumentSnapshot> inFlight = loading.putIfAbsent(id, load);
+        if (inFlight != null) {
+            sharedLoads.incrementAndGet();
+            return inFlight.get();
+        }
+        
+        try {
+            DocumentSnapshot snapshot = loader.load(id);
+            // Only cache if no invalidation happened while loading
+            if (loading.remove(id, load)) {
+                store(id, snapshot);
+            }
+            load.complete(snapshot);
+            return snapshot;
+        } catch (Exception e) {
+            loading.remove(id, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Cached snapshots of several documents; all misses are loaded with one call to the batch loader.
+     * The result is keyed by id and only contains documents that exist.
+     */
+    public Map<String, DocumentSnapshot> getAll(Collection<String> ids, BatchLoader loader)
+            throws ExecutionException, InterruptedException {
+        Map<String, DocumentSnapshot> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id == null || id.trim().isEmpty()) {
+                continue;
+            }
+            DocumentSnapshot cached = lookup(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                if (cached.exists()) {
+                    result.put(id, cached);
+                }
+            } else {
+                misses.incrementAndGet();
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        
+        long epoch = invalidationEpoch.get();
+        List<DocumentSnapshot> loaded = loader.loadAll(missing);
+        boolean cacheable = invalidationEpoch.get() == epoch;
+        for (DocumentSnapshot snapshot : loaded) {
+            if (cacheable) {
+                store(snapshot.getId(), snapshot);
+            }
+            if (snapshot.exists()) {
+                result.put(snapshot.getId(), snapshot);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Drop a document after it was written
+     */
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        invalidationEpoch.incrementAndGet();
+        loading.remove(id);
+        synchronized (entries) {
+            entries.remove(id);
+        }
+        invalidations.incrementAndGet();
+    }
+    
+    public void clear() {
+        invalidationEpoch.incrementAndGet();
+        loading.clear();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Hit/miss counters for monitoring
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("sharedLoads", sharedLoads.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+    
+    private DocumentSnapshot lookup(String id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(id);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.snapshot;
+        }
+    }
+    
+    private void store(String id, DocumentSnapshot snapshot) {
+        synchronized (entries) {
+            entries.put(id, new Entry(snapshot));
+        }
+    }
+    
+    private static final class Entry {
+        final DocumentSnapshot snapshot;
+        final long loadedAt = System.nanoTime();
+        
+        Entry(DocumentSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.artexchange.dao;
+
+import com.artexchange.dao.store.AggregateField;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-side count() and sum() aggregations for the DAO counting methods.
+ *
+ * An aggregation is billed and transferred as a single result instead of one
+ * read per matching document. If the backend rejects it (an emulator without
+ * aggregation support, or a missing composite index), the query is run the
+ * old way and the documents are counted or summed locally, but only once per
+ * process: that download is what the aggregation exists to avoid, so later
+ * rejections fail the returned future and the caller's error handling applies.
+ */
+public final class FirestoreAggregates {
+    private static final Logger logger = LoggerFactory.getLogger(FirestoreAggregates.class);
+    private static final AtomicBoolean fellBack = new AtomicBoolean();
+    
+    private FirestoreAggregates() {
+    }
+    
+    /**
+     * Number of documents matching the query
+     */
+    public static CompletableFuture<Long> count(Query query) {
+        return query.count().get()
+            .thenApply(snapshot -> snapshot.getCount())
+            .exceptionallyCompose(e -> {
+                fallBackOnce("count()", e);
+                return query.get()
+                    .thenApply(snapshot -> (long) snapshot.size());
+            });
+    }
+    
+    /**
+     * Sum of a numeric field over the documents matching the query; non-numeric
+     * and missing values are ignored, as Firestore's sum() does
+     */
+    public static CompletableFuture<Double> sum(Query query, String field) {
+        AggregateField sum = AggregateField.sum(field);
+        return query.aggregate(sum).get()
+            .thenApply(snapshot -> {
+                Object value = snapshot.get(sum);
+                return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+            })
+            .exceptionallyCompose(e -> {
+                fallBackOnce("sum(" + field + ")", e);
+                return query.get().thenApply(snapshot -> {
+                    double total = 0;
+                    for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                        Object value = document.get(field);
+                        if (value instanceof Number) {
+                            total += ((Number) value).doubleValue();
+                        }
+                    }
+                    return total;
+                });
+            });
+    }
+    
+    /**
+     * Let the first rejected aggregation fall back to local counting and rethrow every
+     * later one; the message of a missing index error carries the link to create it
+     */
+    private static void fallBackOnce(String aggregation, Throwable e) {
+        if (!fellBack.compareAndSet(false, true)) {
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        }
+        logger.error("{} aggregation failed, reading the matching documents instead; further failed "
+            + "aggregations will not fall back: {}", aggregation, e.getMessage(), e);
+    }
+}
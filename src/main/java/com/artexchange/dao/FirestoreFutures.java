@@ -0,0 +1,36 @@
+package com.artexchange.dao;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bridges Firestore ApiFutures to CompletableFutures for the async DAO methods.
+ *
+ * The callback runs on the thread that completes the Firestore call, so
+ * continuations attached to the result should stay cheap (mapping a snapshot,
+ * summing a field) and must not block on other futures.
+ */
+public final class FirestoreFutures {
+    
+    private FirestoreFutures() {
+    }
+    
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+            
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, Runnable::run);
+        return result;
+    }
+}
@@ -2,8 +2,7 @@ package com.artexchange.dao;
 
 import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Follow;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.artexchange.dao.store.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Data Access Object for Follow operations with Firestore
@@ -22,10 +22,10 @@ import java.util.concurrent.ExecutionException;
 public class FollowDAO {
     private static final Logger logger = LoggerFactory.getLogger(FollowDAO.class);
     private static final String COLLECTION_NAME = "follows";
-    private final Firestore firestore;
+    private final DocumentStore firestore;
     
     public FollowDAO() {
-        this.firestore = FirebaseConfig.getFirestore();
+        this.firestore = FirebaseConfig.getDocumentStore();
     }
     
     /**
@@ -45,8 +45,13 @@ public class FollowDAO {
             
             Map<String, Object> followData = followToMap(follow);
             
-            ApiFuture<WriteResult> result = docRef.set(followData);
-            result.get();
+            WriteBatch batch = firestore.batch();
+            batch.set(docRef, followData);
+            UserStatsDAO.delta()
+                .add(followerId, UserStatsDAO.FOLLOWING_COUNT, 1L)
+                .add(followingId, UserStatsDAO.FOLLOWER_COUNT, 1L)
+                .applyTo(batch);
+            batch.commit().get();
             
             logger.info("User {} started following user {}", followerId, followingId);
             return follow.getFollowId();
@@ -67,12 +72,17 @@ public class FollowDAO {
                 .whereEqualTo("followingId", followingId)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             if (!documents.isEmpty()) {
-                ApiFuture<WriteResult> result = documents.get(0).getReference().delete();
-                result.get();
+                WriteBatch batch = firestore.batch();
+                batch.delete(documents.get(0).getReference());
+                UserStatsDAO.delta()
+                    .add(followerId, UserStatsDAO.FOLLOWING_COUNT, -1L)
+                    .add(followingId, UserStatsDAO.FOLLOWER_COUNT, -1L)
+                    .applyTo(batch);
+                batch.commit().get();
                 logger.info("User {} unfollowed user {}", followerId, followingId);
                 return true;
             }
@@ -95,7 +105,7 @@ public class FollowDAO {
                 .whereEqualTo("followingId", followingId)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             return !documents.isEmpty();
@@ -114,8 +124,7 @@ public class FollowDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("followingId", userId);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
-            return querySnapshot.get().getDocuments().size();
+            return FirestoreAggregates.count(query).get().intValue();
             
         } catch (Exception e) {
             logger.error("Error getting follower count: {}", e.getMessage(), e);
@@ -131,8 +140,7 @@ public class FollowDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("followerId", userId);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
-            return querySnapshot.get().getDocuments().size();
+            return FirestoreAggregates.count(query).get().intValue();
             
         } catch (Exception e) {
             logger.error("Error getting following count: {}", e.getMessage(), e);
@@ -148,7 +156,7 @@ public class FollowDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("followerId", userId);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<String> following = new ArrayList<>();
@@ -172,7 +180,7 @@ public class FollowDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("followingId", userId);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<String> followers = new ArrayList<>();
@@ -1,9 +1,10 @@
 package com.artexchange.dao;
 
+import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Message;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
+import com.artexchange.dao.store.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 
@@ -11,12 +12,12 @@ public class MessageDAO {
     private static final Logger logger = Logger.getLogger(MessageDAO.class.getName());
     private static final String COLLECTION_NAME = "messages";
     
-    private Firestore getFirestore() {
-        return FirestoreClient.getFirestore();
+    private DocumentStore getFirestore() {
+        return FirebaseConfig.getDocumentStore();
     }
     
     public String createMessage(Message message) throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         Map<String, Object> messageData = new HashMap<>();
         messageData.put("senderId", message.getSenderId());
@@ -36,7 +37,7 @@ public class MessageDAO {
     
     public List<Message> getConversation(String userId1, String userId2, String artworkId) 
             throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         Query query = db.collection(COLLECTION_NAME)
                 .whereIn("senderId", Arrays.asList(userId1, userId2))
@@ -60,7 +61,7 @@ public class MessageDAO {
     }
     
     public List<Message> getUserMessages(String userId) throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         // Get messages where user is sender or receiver
         Query senderQuery = db.collection(COLLECTION_NAME)
@@ -97,7 +98,7 @@ public class MessageDAO {
     }
     
     public boolean markAsRead(String messageId) throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         DocumentReference docRef = db.collection(COLLECTION_NAME).document(messageId);
         docRef.update("read", true).get();
@@ -107,18 +108,17 @@ public class MessageDAO {
     }
     
     public long getUnreadCount(String userId) throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         Query query = db.collection(COLLECTION_NAME)
                 .whereEqualTo("receiverId", userId)
                 .whereEqualTo("read", false);
         
-        QuerySnapshot querySnapshot = query.get().get();
-        return querySnapshot.size();
+        return FirestoreAggregates.count(query).get();
     }
     
     public List<String> getUserConversations(String userId) throws ExecutionException, InterruptedException {
-        Firestore db = getFirestore();
+        DocumentStore db = getFirestore();
         
         Set<String> conversationPartners = new HashSet<>();
         
@@ -149,6 +149,45 @@ public class MessageDAO {
         return new ArrayList<>(conversationPartners);
     }
     
+    /**
+     * All of a user's conversations in two queries: messages grouped by the other
+     * participant, each conversation in timestamp order
+     */
+    public Map<String, List<Message>> getConversationsByPartner(String userId) throws ExecutionException, InterruptedException {
+        DocumentStore db = getFirestore();
+        
+        CompletableFuture<QuerySnapshot> senderFuture = db.collection(COLLECTION_NAME)
+                .whereEqualTo("senderId", userId).get();
+        CompletableFuture<QuerySnapshot> receiverFuture = db.collection(COLLECTION_NAME)
+                .whereEqualTo("receiverId", userId).get();
+        
+        List<QueryDocumentSnapshot> documents = new ArrayList<>(senderFuture.get().getDocuments());
+        documents.addAll(receiverFuture.get().getDocuments());
+        
+        Map<String, List<Message>> conversations = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (QueryDocumentSnapshot document : documents) {
+            if (!seen.add(document.getId())) {
+                continue;
+            }
+            Message message = documentToMessage(document);
+            // Messages without a timestamp never showed up in the ordered conversation query either
+            if (message == null || message.getTimestamp() == null) {
+                continue;
+            }
+            String partnerId = userId.equals(message.getSenderId()) ? message.getReceiverId() : message.getSenderId();
+            if (partnerId == null || partnerId.equals(userId)) {
+                continue;
+            }
+            conversations.computeIfAbsent(partnerId, k -> new ArrayList<>()).add(message);
+        }
+        
+        for (List<Message> messages : conversations.values()) {
+            messages.sort(Comparator.comparing(Message::getTimestamp));
+        }
+        return conversations;
+    }
+    
     private Message documentToMessage(QueryDocumentSnapshot document) {
         try {
             Message message = new Message();
@@ -2,17 +2,19 @@ package com.artexchange.dao;
 
 import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Purchase;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.artexchange.util.PageCursor;
+import com.artexchange.dao.store.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -21,10 +23,11 @@ import java.util.concurrent.ExecutionException;
 public class PurchaseDAO {
     private static final Logger logger = LoggerFactory.getLogger(PurchaseDAO.class);
     private static final String COLLECTION_NAME = "purchases";
-    private final Firestore firestore;
+    private static final String AMOUNT_FIELD = "purchaseAmount";
+    private final DocumentStore firestore;
     
     public PurchaseDAO() {
-        this.firestore = FirebaseConfig.getFirestore();
+        this.firestore = FirebaseConfig.getDocumentStore();
     }
     
     /**
@@ -39,12 +42,23 @@ public class PurchaseDAO {
             }
             
             Map<String, Object> purchaseData = purchaseToMap(purchase);
+            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(purchase.getPurchaseId());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(purchase.getPurchaseId())
-                .set(purchaseData);
-            
-            result.get();
+            firestore.runTransaction(transaction -> {
+                DocumentSnapshot existing = transaction.get(docRef).get();
+                UserStatsDAO.Delta stats = UserStatsDAO.delta();
+                SalesRollupDAO.Delta rollups = SalesRollupDAO.delta();
+                if (existing.exists()) {
+                    addStatsContribution(stats, existing.getData(), -1);
+                    SalesRollupDAO.addContribution(rollups, existing.getData(), -1);
+                }
+                addStatsContribution(stats, purchaseData, 1);
+                SalesRollupDAO.addContribution(rollups, purchaseData, 1);
+                transaction.set(docRef, purchaseData);
+                stats.applyTo(transaction);
+                rollups.applyTo(transaction);
+                return null;
+            }).get();
             logger.info("Purchase saved successfully: {}", purchase.getPurchaseId());
             return purchase.getPurchaseId();
             
@@ -60,7 +74,7 @@ public class PurchaseDAO {
     public Purchase findById(String purchaseId) throws ExecutionException, InterruptedException {
         try {
             DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(purchaseId);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
+            CompletableFuture<DocumentSnapshot> future = docRef.get();
             DocumentSnapshot document = future.get();
             
             if (document.exists()) {
@@ -85,7 +99,7 @@ public class PurchaseDAO {
                 .orderBy("purchaseDate", Query.Direction.DESCENDING);
             
             try {
-                ApiFuture<QuerySnapshot> querySnapshot = query.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = query.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 List<Purchase> purchases = new ArrayList<>();
@@ -108,7 +122,7 @@ public class PurchaseDAO {
                 Query simpleQuery = firestore.collection(COLLECTION_NAME)
                     .whereEqualTo("buyerId", buyerId);
                 
-                ApiFuture<QuerySnapshot> querySnapshot = simpleQuery.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = simpleQuery.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 List<Purchase> purchases = new ArrayList<>();
@@ -152,7 +166,7 @@ public class PurchaseDAO {
                 .orderBy("purchaseDate", Query.Direction.DESCENDING);
             
             try {
-                ApiFuture<QuerySnapshot> querySnapshot = query.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = query.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 List<Purchase> purchases = new ArrayList<>();
@@ -175,7 +189,7 @@ public class PurchaseDAO {
                 Query simpleQuery = firestore.collection(COLLECTION_NAME)
                     .whereEqualTo("sellerId", sellerId);
                 
-                ApiFuture<QuerySnapshot> querySnapshot = simpleQuery.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = simpleQuery.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 List<Purchase> purchases = new ArrayList<>();
@@ -208,6 +222,78 @@ public class PurchaseDAO {
         }
     }
     
+    /**
+     * One page of a seller's completed sales between two purchase dates (either may be
+     * null), newest first. Pass the nextCursor of the previous page (null for the first).
+     *
+     * The date range is applied in the query on (sellerId, purchaseDate), the index
+     * findBySellerId already uses. If that query is rejected the purchases are paged
+     * by document id and filtered per page, so memory stays bounded either way.
+     */
+    public CursorPage<Purchase> findCompletedSales(String sellerId, LocalDateTime from, LocalDateTime to,
+            String cursor, int limit) throws ExecutionException, InterruptedException {
+        String[] position = PageCursor.decode(cursor, 2);
+        String[] scanPosition = position == null ? PageCursor.decode(cursor, 1) : null;
+        
+        if (scanPosition == null) {
+            Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("sellerId", sellerId);
+            if (from != null) {
+                query = query.whereGreaterThanOrEqualTo("purchaseDate", from.toString());
+            }
+            if (to != null) {
+                query = query.whereLessThanOrEqualTo("purchaseDate", to.toString());
+            }
+            query = query.orderBy("purchaseDate", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+            if (position != null) {
+                query = query.startAfter(position[0], position[1]);
+            }
+            
+            try {
+                List<QueryDocumentSnapshot> documents = query.limit(limit).get().get().getDocuments();
+                String nextCursor = null;
+                if (documents.size() == limit) {
+                    QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+                    nextCursor = PageCursor.encode(last.getString("purchaseDate"), last.getId());
+                }
+                return new CursorPage<>(completedSales(documents, null, null), nextCursor);
+            } catch (ExecutionException e) {
+                if (position != null) {
+                    throw e;
+                }
+                logger.warn("Date range query failed for seller sales, scanning by id instead: {}", e.getMessage());
+            }
+        }
+        
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("sellerId", sellerId)
+            .orderBy(FieldPath.documentId());
+        if (scanPosition != null) {
+            query = query.startAfter(scanPosition[0]);
+        }
+        List<QueryDocumentSnapshot> documents = query.limit(limit).get().get().getDocuments();
+        String nextCursor = documents.size() == limit
+            ? PageCursor.encode(documents.get(documents.size() - 1).getId())
+            : null;
+        return new CursorPage<>(completedSales(documents, from, to), nextCursor);
+    }
+    
+    private List<Purchase> completedSales(List<QueryDocumentSnapshot> documents, LocalDateTime from, LocalDateTime to) {
+        List<Purchase> purchases = new ArrayList<>();
+        for (DocumentSnapshot doc : documents) {
+            try {
+                Purchase purchase = mapToPurchase(doc);
+                if (!"COMPLETED".equals(purchase.getStatus()) || purchase.getPurchaseDate() == null) continue;
+                if (from != null && purchase.getPurchaseDate().isBefore(from)) continue;
+                if (to != null && purchase.getPurchaseDate().isAfter(to)) continue;
+                purchases.add(purchase);
+            } catch (Exception e) {
+                logger.warn("Error mapping purchase document {}: {}", doc.getId(), e.getMessage());
+            }
+        }
+        return purchases;
+    }
+    
     /**
      * Find purchase by artwork ID
      */
@@ -217,7 +303,7 @@ public class PurchaseDAO {
                 .whereEqualTo("artworkId", artworkId)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             if (!documents.isEmpty()) {
@@ -239,11 +325,7 @@ public class PurchaseDAO {
             Map<String, Object> updates = new HashMap<>();
             updates.put("status", status);
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(purchaseId)
-                .update(updates);
-            
-            result.get();
+            updateWithStats(purchaseId, updates);
             logger.info("Purchase status updated: {} -> {}", purchaseId, status);
             
         } catch (Exception e) {
@@ -252,39 +334,98 @@ public class PurchaseDAO {
         }
     }
     
+    /**
+     * Apply a partial update and move the buyer's and seller's user_stats counters
+     * and the daily sales rollups in the same transaction
+     */
+    private void updateWithStats(String purchaseId, Map<String, Object> updates)
+            throws ExecutionException, InterruptedException {
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(purchaseId);
+        firestore.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(docRef).get();
+            UserStatsDAO.Delta stats = UserStatsDAO.delta();
+            SalesRollupDAO.Delta rollups = SalesRollupDAO.delta();
+            if (existing.exists()) {
+                Map<String, Object> after = new HashMap<>(existing.getData());
+                after.putAll(updates);
+                addStatsContribution(stats, existing.getData(), -1);
+                addStatsContribution(stats, after, 1);
+                SalesRollupDAO.addContribution(rollups, existing.getData(), -1);
+                SalesRollupDAO.addContribution(rollups, after, 1);
+            }
+            transaction.update(docRef, updates);
+            stats.applyTo(transaction);
+            rollups.applyTo(transaction);
+            return null;
+        }).get();
+    }
+    
+    /**
+     * What a purchase document adds to its buyer's and seller's stats; applying
+     * the old version with sign -1 and the new one with +1 gives the change
+     */
+    private static void addStatsContribution(UserStatsDAO.Delta stats, Map<String, Object> purchase, int sign) {
+        String buyerId = (String) purchase.get("buyerId");
+        String sellerId = (String) purchase.get("sellerId");
+        boolean completed = "COMPLETED".equals(purchase.get("status"));
+        stats.add(buyerId, UserStatsDAO.PURCHASE_COUNT, (long) sign);
+        if (completed) {
+            Object price = purchase.get("purchasePrice");
+            double amount = 0;
+            if (price instanceof String && !((String) price).isEmpty()) {
+                try {
+                    amount = Double.parseDouble((String) price);
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid purchase price: {}", price);
+                }
+            }
+            stats.add(buyerId, UserStatsDAO.COMPLETED_PURCHASE_COUNT, (long) sign);
+            stats.add(sellerId, UserStatsDAO.SALES_COUNT, (long) sign);
+            stats.add(sellerId, UserStatsDAO.TOTAL_EARNINGS, sign * amount);
+        }
+    }
+    
     /**
      * Get purchase count for a user (buyer)
      */
     public long getUserPurchaseCount(String buyerId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("buyerId", buyerId);
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            return querySnapshot.size();
-            
-        } catch (Exception e) {
-            logger.error("Error getting user purchase count", e);
-            return 0;
-        }
+        return getUserPurchaseCountAsync(buyerId).join();
+    }
+    
+    /**
+     * Async variant of {@link #getUserPurchaseCount(String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getUserPurchaseCountAsync(String buyerId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("buyerId", buyerId);
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting user purchase count", e);
+                return 0L;
+            });
     }
     
     /**
      * Get sales count for a user (seller/artist)
      */
     public long getUserSalesCount(String sellerId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("sellerId", sellerId)
-                .whereEqualTo("status", "COMPLETED");
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            return querySnapshot.size();
-            
-        } catch (Exception e) {
-            logger.error("Error getting user sales count", e);
-            return 0;
-        }
+        return getUserSalesCountAsync(sellerId).join();
+    }
+    
+    /**
+     * Async variant of {@link #getUserSalesCount(String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getUserSalesCountAsync(String sellerId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("sellerId", sellerId)
+            .whereEqualTo("status", "COMPLETED");
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting user sales count", e);
+                return 0L;
+            });
     }
     
     /**
@@ -295,7 +436,7 @@ public class PurchaseDAO {
             Query query = firestore.collection(COLLECTION_NAME)
                 .whereEqualTo("status", "PENDING_PAYMENT");
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<Purchase> purchases = new ArrayList<>();
@@ -327,11 +468,7 @@ public class PurchaseDAO {
             updates.put("status", "EXPIRED");
             updates.put("paymentExpired", true);
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
-                .document(purchaseId)
-                .update(updates);
-            
-            result.get();
+            updateWithStats(purchaseId, updates);
             logger.info("Purchase payment marked as expired: {}", purchaseId);
             
         } catch (Exception e) {
@@ -344,27 +481,50 @@ public class PurchaseDAO {
      * Get total earnings for a seller
      */
     public BigDecimal getUserTotalEarnings(String sellerId) throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("sellerId", sellerId)
-                .whereEqualTo("status", "COMPLETED");
-            
-            QuerySnapshot querySnapshot = query.get().get();
-            BigDecimal totalEarnings = BigDecimal.ZERO;
-            
-            for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
-                String priceStr = document.getString("purchasePrice");
-                if (priceStr != null) {
-                    totalEarnings = totalEarnings.add(new BigDecimal(priceStr));
-                }
-            }
-            
-            return totalEarnings;
-            
-        } catch (Exception e) {
+        return getUserTotalEarningsAsync(sellerId).join();
+    }
+    
+    /**
+     * Async variant of {@link #getUserTotalEarnings(String)}; completes with zero on error
+     */
+    public CompletableFuture<BigDecimal> getUserTotalEarningsAsync(String sellerId) {
+        return sumCompletedEarnings(sellerId).exceptionally(e -> {
             logger.error("Error getting user total earnings", e);
             return BigDecimal.ZERO;
+        });
+    }
+    
+    /**
+     * Sum of completed sale prices for a seller; fails if the queries fail
+     */
+    CompletableFuture<BigDecimal> sumCompletedEarnings(String sellerId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereEqualTo("sellerId", sellerId)
+            .whereEqualTo("status", "COMPLETED");
+        
+        // Purchases saved before purchaseAmount existed only carry the price as a
+        // string, which sum() skips; use the aggregate only if every sale has it
+        CompletableFuture<Long> sales = FirestoreAggregates.count(query);
+        CompletableFuture<Long> salesWithAmount = FirestoreAggregates.count(query.whereGreaterThanOrEqualTo(AMOUNT_FIELD, 0));
+        CompletableFuture<Double> amountSum = FirestoreAggregates.sum(query, AMOUNT_FIELD);
+        
+        return CompletableFuture.allOf(sales, salesWithAmount, amountSum).thenCompose(ignored -> {
+            if (sales.join().equals(salesWithAmount.join())) {
+                return CompletableFuture.completedFuture(BigDecimal.valueOf(amountSum.join()).setScale(2, RoundingMode.HALF_UP));
+            }
+            return query.get().thenApply(PurchaseDAO::sumPurchasePrices);
+        });
+    }
+    
+    private static BigDecimal sumPurchasePrices(QuerySnapshot querySnapshot) {
+        BigDecimal totalEarnings = BigDecimal.ZERO;
+        for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+            String priceStr = document.getString("purchasePrice");
+            if (priceStr != null) {
+                totalEarnings = totalEarnings.add(new BigDecimal(priceStr));
+            }
         }
+        return totalEarnings;
     }
     
     /**
@@ -377,6 +537,8 @@ public class PurchaseDAO {
         map.put("buyerId", purchase.getBuyerId());
         map.put("sellerId", purchase.getSellerId());
         map.put("purchasePrice", purchase.getPurchasePrice() != null ? purchase.getPurchasePrice().toString() : null);
+        // Numeric copy of the price so earnings can be summed server-side
+        map.put(AMOUNT_FIELD, purchase.getPurchasePrice() != null ? purchase.getPurchasePrice().doubleValue() : null);
         map.put("purchaseDate", purchase.getPurchaseDate() != null ? purchase.getPurchaseDate().toString() : null);
         map.put("status", purchase.getStatus());
         map.put("paymentMethod", purchase.getPaymentMethod());
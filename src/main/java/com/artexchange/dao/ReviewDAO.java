@@ -2,8 +2,7 @@ package com.artexchange.dao;
 
 import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.Review;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.artexchange.dao.store.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +12,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Data Access Object for Review operations with Firestore
@@ -20,10 +20,10 @@ import java.util.concurrent.ExecutionException;
 public class ReviewDAO {
     private static final Logger logger = LoggerFactory.getLogger(ReviewDAO.class);
     private static final String COLLECTION_NAME = "reviews";
-    private final Firestore firestore;
+    private final DocumentStore firestore;
     
     public ReviewDAO() {
-        this.firestore = FirebaseConfig.getFirestore();
+        this.firestore = FirebaseConfig.getDocumentStore();
     }
     
     /**
@@ -39,7 +39,7 @@ public class ReviewDAO {
             
             Map<String, Object> reviewData = reviewToMap(review);
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(review.getReviewId())
                 .set(reviewData);
             
@@ -67,7 +67,7 @@ public class ReviewDAO {
                 .whereEqualTo("artistId", artistId)
                 .orderBy("reviewDate", Query.Direction.DESCENDING);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             logger.info("Found {} reviews for artistId: {}", documents.size(), artistId);
@@ -100,7 +100,7 @@ public class ReviewDAO {
                 Query query = firestore.collection(COLLECTION_NAME)
                     .whereEqualTo("artistId", artistId);
                 
-                ApiFuture<QuerySnapshot> querySnapshot = query.get();
+                CompletableFuture<QuerySnapshot> querySnapshot = query.get();
                 List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
                 
                 List<Review> reviews = new ArrayList<>();
@@ -138,7 +138,7 @@ public class ReviewDAO {
     public Review findById(String reviewId) throws ExecutionException, InterruptedException {
         try {
             DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(reviewId);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
+            CompletableFuture<DocumentSnapshot> future = docRef.get();
             DocumentSnapshot document = future.get();
             
             if (document.exists()) {
@@ -161,7 +161,7 @@ public class ReviewDAO {
                 .whereEqualTo("artworkId", artworkId)
                 .orderBy("reviewDate", Query.Direction.DESCENDING);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<Review> reviews = new ArrayList<>();
@@ -0,0 +1,325 @@
+package com.artexchange.dao;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.model.SalesRollup;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.FieldPath;
+import com.artexchange.dao.store.FieldValue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+import com.artexchange.dao.store.SetOptions;
+import com.artexchange.dao.store.Transaction;
+import com.artexchange.dao.store.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Data Access Object for daily sales rollups (sales_rollups collection).
+ *
+ * Each document holds one day's completed sales of one artist, or of the whole
+ * platform, split into direct purchases and auction sales. A purchase adds its
+ * price to both buckets in the same transaction that marks it COMPLETED, so a
+ * date range is answered from one bucket per day instead of the raw purchases.
+ * The buckets can be recomputed from the purchases with {@link #rebuild()},
+ * which also runs once on the first read if it never has.
+ */
+public class SalesRollupDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupDAO.class);
+    private static final String COLLECTION_NAME = "sales_rollups";
+    /** Scope of the platform-wide buckets; artist buckets use the artistId */
+    public static final String PLATFORM = "platform";
+    
+    private static final String DIRECT_COUNT = "directCount";
+    private static final String DIRECT_REVENUE = "directRevenue";
+    private static final String AUCTION_COUNT = "auctionCount";
+    private static final String AUCTION_REVENUE = "auctionRevenue";
+    /** Document recording when the buckets were last rebuilt; it has no scope so queries skip it */
+    private static final String META_DOCUMENT = "_meta";
+    private static final int WRITES_PER_BATCH = 400;
+    
+    private static volatile boolean backfilled;
+    
+    private final DocumentStore firestore;
+    
+    public SalesRollupDAO() {
+        this.firestore = FirebaseConfig.getDocumentStore();
+    }
+    
+    /**
+     * Daily buckets of a scope between two days (inclusive), oldest first; days without sales are left out
+     */
+    public List<SalesRollup> findDaily(String scope, LocalDate from, LocalDate to)
+            throws ExecutionException, InterruptedException {
+        ensureBackfilled();
+        List<SalesRollup> days = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : rangeQuery(scope, from, to).orderBy("day").get().get().getDocuments()) {
+            days.add(toRollup(doc.getData()));
+        }
+        return days;
+    }
+    
+    /**
+     * Sales of a scope between two days (inclusive, either may be null), summed over the
+     * daily buckets with server-side aggregations
+     */
+    public SalesRollup getTotals(String scope, LocalDate from, LocalDate to)
+            throws ExecutionException, InterruptedException {
+        ensureBackfilled();
+        Query query = rangeQuery(scope, from, to);
+        CompletableFuture<Double> directCount = FirestoreAggregates.sum(query, DIRECT_COUNT);
+        CompletableFuture<Double> directRevenue = FirestoreAggregates.sum(query, DIRECT_REVENUE);
+        CompletableFuture<Double> auctionCount = FirestoreAggregates.sum(query, AUCTION_COUNT);
+        CompletableFuture<Double> auctionRevenue = FirestoreAggregates.sum(query, AUCTION_REVENUE);
+        CompletableFuture.allOf(directCount, directRevenue, auctionCount, auctionRevenue).get();
+        
+        SalesRollup totals = new SalesRollup(scope, null);
+        totals.setDirectCount(Math.round(directCount.join()));
+        totals.setDirectRevenue(money(directRevenue.join()));
+        totals.setAuctionCount(Math.round(auctionCount.join()));
+        totals.setAuctionRevenue(money(auctionRevenue.join()));
+        return totals;
+    }
+    
+    private Query rangeQuery(String scope, LocalDate from, LocalDate to) {
+        Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("scope", scope);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("day", from.toString());
+        }
+        if (to != null) {
+            query = query.whereLessThanOrEqualTo("day", to.toString());
+        }
+        return query;
+    }
+    
+    private void ensureBackfilled() throws ExecutionException, InterruptedException {
+        if (backfilled) {
+            return;
+        }
+        synchronized (SalesRollupDAO.class) {
+            if (backfilled) {
+                return;
+            }
+            DocumentSnapshot meta = firestore.collection(COLLECTION_NAME).document(META_DOCUMENT).get().get();
+            if (!meta.exists()) {
+                rebuild();
+            }
+            backfilled = true;
+        }
+    }
+    
+    /**
+     * Recompute every bucket from the completed purchases and remove buckets no sale
+     * falls into any more. Sales completed while this runs may be counted twice or
+     * not at all, so run it when the shop is quiet.
+     */
+    public int rebuild() throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Object>> buckets = new LinkedHashMap<>();
+        Delta delta = new Delta(buckets);
+        
+        String lastId = null;
+        int purchases = 0;
+        do {
+            Query query = firestore.collection("purchases")
+                .whereEqualTo("status", "COMPLETED")
+                .orderBy(FieldPath.documentId())
+                .limit(WRITES_PER_BATCH);
+            if (lastId != null) {
+                query = query.startAfter(lastId);
+            }
+            List<QueryDocumentSnapshot> page = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : page) {
+                addContribution(delta, doc.getData(), 1);
+            }
+            purchases += page.size();
+            lastId = page.size() == WRITES_PER_BATCH ? page.get(page.size() - 1).getId() : null;
+        } while (lastId != null);
+        
+        // Overwrite the recomputed buckets, then drop the ones that no longer have sales
+        String now = LocalDateTime.now().toString();
+        List<Map.Entry<String, Map<String, Object>>> entries = new ArrayList<>(buckets.entrySet());
+        for (int start = 0; start < entries.size(); start += WRITES_PER_BATCH) {
+            WriteBatch batch = firestore.batch();
+            for (Map.Entry<String, Map<String, Object>> entry : entries.subList(start, Math.min(start + WRITES_PER_BATCH, entries.size()))) {
+                Map<String, Object> fields = new HashMap<>(entry.getValue());
+                fields.put("updatedAt", now);
+                batch.set(firestore.collection(COLLECTION_NAME).document(entry.getKey()), fields);
+            }
+            batch.commit().get();
+        }
+        
+        int removed = 0;
+        lastId = null;
+        do {
+            Query query = firestore.collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .select("scope")
+                .limit(WRITES_PER_BATCH);
+            if (lastId != null) {
+                query = query.startAfter(lastId);
+            }
+            List<QueryDocumentSnapshot> page = query.get().get().getDocuments();
+            WriteBatch batch = firestore.batch();
+            int deletes = 0;
+            for (QueryDocumentSnapshot doc : page) {
+                if (!META_DOCUMENT.equals(doc.getId()) && !buckets.containsKey(doc.getId())) {
+                    batch.delete(doc.getReference());
+                    deletes++;
+                }
+            }
+            if (deletes > 0) {
+                batch.commit().get();
+                removed += deletes;
+            }
+            lastId = page.size() == WRITES_PER_BATCH ? page.get(page.size() - 1).getId() : null;
+        } while (lastId != null);
+        
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("rebuiltAt", now);
+        meta.put("purchaseCount", purchases);
+        meta.put("bucketCount", buckets.size());
+        firestore.collection(COLLECTION_NAME).document(META_DOCUMENT).set(meta).get();
+        backfilled = true;
+        
+        logger.info("Rebuilt {} sales rollup buckets from {} completed purchases ({} stale removed)",
+            buckets.size(), purchases, removed);
+        return buckets.size();
+    }
+    
+    private static SalesRollup toRollup(Map<String, Object> data) {
+        SalesRollup rollup = new SalesRollup((String) data.get("scope"), LocalDate.parse((String) data.get("day")));
+        rollup.setDirectCount(asNumber(data.get(DIRECT_COUNT)).longValue());
+        rollup.setDirectRevenue(money(asNumber(data.get(DIRECT_REVENUE)).doubleValue()));
+        rollup.setAuctionCount(asNumber(data.get(AUCTION_COUNT)).longValue());
+        rollup.setAuctionRevenue(money(asNumber(data.get(AUCTION_REVENUE)).doubleValue()));
+        return rollup;
+    }
+    
+    private static Number asNumber(Object value) {
+        return value instanceof Number ? (Number) value : 0;
+    }
+    
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * What a purchase document adds to its seller's and the platform's daily buckets;
+     * applying the old version with sign -1 and the new one with +1 gives the change.
+     * Only COMPLETED purchases count, on the day of their purchaseDate.
+     */
+    public static void addContribution(Delta delta, Map<String, Object> purchase, int sign) {
+        if (!"COMPLETED".equals(purchase.get("status"))) {
+            return;
+        }
+        Object date = purchase.get("purchaseDate");
+        if (!(date instanceof String) || ((String) date).length() < 10) {
+            return;
+        }
+        String day = ((String) date).substring(0, 10);
+        
+        double amount = 0;
+        Object price = purchase.get("purchasePrice");
+        if (price instanceof String && !((String) price).isEmpty()) {
+            try {
+                amount = Double.parseDouble((String) price);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid purchase price: {}", price);
+            }
+        }
+        
+        // Auction wins are created with a payment deadline; paying later replaces the payment method
+        boolean auction = purchase.get("paymentDeadline") != null || "AUCTION_WIN".equals(purchase.get("paymentMethod"));
+        String countField = auction ? AUCTION_COUNT : DIRECT_COUNT;
+        String revenueField = auction ? AUCTION_REVENUE : DIRECT_REVENUE;
+        
+        Object sellerId = purchase.get("sellerId");
+        if (sellerId instanceof String && !((String) sellerId).trim().isEmpty()) {
+            delta.add((String) sellerId, day, countField, sign, revenueField, sign * amount);
+        }
+        delta.add(PLATFORM, day, countField, sign, revenueField, sign * amount);
+    }
+    
+    /**
+     * Create an empty set of bucket changes
+     */
+    public static Delta delta() {
+        return new Delta(new LinkedHashMap<>());
+    }
+    
+    /**
+     * Bucket changes for one purchase, applied as FieldValue.increment in the
+     * purchase's own transaction
+     */
+    public static final class Delta {
+        private final Map<String, Map<String, Object>> changes;
+        
+        private Delta(Map<String, Map<String, Object>> changes) {
+            this.changes = changes;
+        }
+        
+        private void add(String scope, String day, String countField, long count, String revenueField, double revenue) {
+            Map<String, Object> bucket = changes.computeIfAbsent(scope + "_" + day, id -> {
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("scope", scope);
+                fields.put("day", day);
+                return fields;
+            });
+            bucket.merge(countField, count, (a, b) -> (Long) a + (Long) b);
+            bucket.merge(revenueField, revenue, (a, b) -> (Double) a + (Double) b);
+        }
+        
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+        
+        public void applyTo(Transaction transaction) {
+            DocumentStore firestore = FirebaseConfig.getDocumentStore();
+            changes.forEach((id, fields) -> {
+                if (isUnchanged(fields)) {
+                    // A completed sale saved again on the same day cancels out
+                    return;
+                }
+                DocumentReference ref = firestore.collection(COLLECTION_NAME).document(id);
+                transaction.set(ref, toIncrements(fields), SetOptions.merge());
+            });
+        }
+        
+        private static boolean isUnchanged(Map<String, Object> fields) {
+            for (Object value : fields.values()) {
+                if (value instanceof Number && ((Number) value).doubleValue() != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static Map<String, Object> toIncrements(Map<String, Object> fields) {
+            Map<String, Object> increments = new HashMap<>();
+            fields.forEach((field, value) -> {
+                if (value instanceof Long) {
+                    increments.put(field, FieldValue.increment((Long) value));
+                } else if (value instanceof Double) {
+                    increments.put(field, FieldValue.increment((Double) value));
+                } else {
+                    increments.put(field, value);
+                }
+            });
+            increments.put("updatedAt", LocalDateTime.now().toString());
+            return increments;
+        }
+    }
+}
@@ -2,16 +2,18 @@ package com.artexchange.dao;
 
 import com.artexchange.config.FirebaseConfig;
 import com.artexchange.model.User;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.artexchange.util.PageCursor;
+import com.artexchange.dao.store.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -20,10 +22,13 @@ import java.util.concurrent.ExecutionException;
 public class UserDAO {
     private static final Logger logger = LoggerFactory.getLogger(UserDAO.class);
     private static final String COLLECTION_NAME = "users";
-    private final Firestore firestore;
+    /** Document references per getAll call */
+    private static final int GET_ALL_CHUNK_SIZE = 100;
+    private final DocumentStore firestore;
+    private final DocumentCache userCache = DocumentCache.users();
     
     public UserDAO() {
-        this.firestore = FirebaseConfig.getFirestore();
+        this.firestore = FirebaseConfig.getDocumentStore();
     }
     
     /**
@@ -39,11 +44,12 @@ public class UserDAO {
             
             Map<String, Object> userData = userToMap(user);
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(user.getUserId())
                 .set(userData);
             
             result.get(); // Wait for completion
+            userCache.invalidate(user.getUserId());
             logger.info("User saved successfully: {}", user.getUserId());
             return user.getUserId();
             
@@ -58,9 +64,8 @@ public class UserDAO {
      */
     public User findById(String userId) throws ExecutionException, InterruptedException {
         try {
-            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(userId);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
-            DocumentSnapshot document = future.get();
+            DocumentSnapshot document = userCache.get(userId,
+                id -> firestore.collection(COLLECTION_NAME).document(id).get().get());
             
             if (document.exists()) {
                 return mapToUser(document);
@@ -73,6 +78,45 @@ public class UserDAO {
         }
     }
     
+    /**
+     * Find several users by ID with batched reads. Cached users are served from memory and
+     * the rest are fetched with getAll, one round trip per chunk issued in parallel.
+     * Unknown ids are left out of the returned map.
+     */
+    public Map<String, User> findByIds(Collection<String> userIds) throws ExecutionException, InterruptedException {
+        try {
+            Map<String, DocumentSnapshot> documents = userCache.getAll(userIds, this::getAllUserDocuments);
+            
+            Map<String, User> users = new HashMap<>();
+            for (Map.Entry<String, DocumentSnapshot> entry : documents.entrySet()) {
+                users.put(entry.getKey(), mapToUser(entry.getValue()));
+            }
+            return users;
+            
+        } catch (Exception e) {
+            logger.error("Error finding users by IDs: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    private List<DocumentSnapshot> getAllUserDocuments(List<String> userIds) throws ExecutionException, InterruptedException {
+        List<CompletableFuture<List<DocumentSnapshot>>> chunks = new ArrayList<>();
+        for (int start = 0; start < userIds.size(); start += GET_ALL_CHUNK_SIZE) {
+            List<String> chunk = userIds.subList(start, Math.min(start + GET_ALL_CHUNK_SIZE, userIds.size()));
+            DocumentReference[] refs = new DocumentReference[chunk.size()];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = firestore.collection(COLLECTION_NAME).document(chunk.get(i));
+            }
+            chunks.add(firestore.getAll(refs));
+        }
+        
+        List<DocumentSnapshot> documents = new ArrayList<>(userIds.size());
+        for (CompletableFuture<List<DocumentSnapshot>> chunk : chunks) {
+            documents.addAll(chunk.get());
+        }
+        return documents;
+    }
+    
     /**
      * Find user by email
      */
@@ -82,7 +126,7 @@ public class UserDAO {
                 .whereEqualTo("email", email)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             if (!documents.isEmpty()) {
@@ -105,7 +149,7 @@ public class UserDAO {
                 .whereEqualTo("username", username)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             if (!documents.isEmpty()) {
@@ -128,7 +172,7 @@ public class UserDAO {
                 .whereEqualTo("firebaseUid", firebaseUid)
                 .limit(1);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             if (!documents.isEmpty()) {
@@ -157,11 +201,12 @@ public class UserDAO {
             user.setUpdatedAt(LocalDateTime.now());
             Map<String, Object> userData = userToMap(user);
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(user.getUserId())
                 .set(userData);
             
             result.get();
+            userCache.invalidate(user.getUserId());
             logger.info("User updated successfully: {}", user.getUserId());
             
         } catch (Exception e) {
@@ -179,7 +224,7 @@ public class UserDAO {
                 .whereEqualTo("role", "ARTIST")
                 .whereEqualTo("isActive", true);
             
-            ApiFuture<QuerySnapshot> querySnapshot = query.get();
+            CompletableFuture<QuerySnapshot> querySnapshot = query.get();
             List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
             
             List<User> artists = new ArrayList<>();
@@ -210,13 +255,14 @@ public class UserDAO {
     }
     
     /**
-     * Get all users with pagination and filtering (Admin only)
+     * Get all users with keyset pagination and filtering (Admin only)
      */
-    public List<User> getAllUsers(int page, int limit, String search, String role) 
+    public CursorPage<User> getAllUsers(String cursor, int limit, String search, String role) 
             throws ExecutionException, InterruptedException {
         try {
             Query query = firestore.collection(COLLECTION_NAME)
-                .orderBy("createdAt", Query.Direction.DESCENDING);
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
             
             // Apply role filter
             if (role != null && !role.trim().isEmpty()) {
@@ -231,7 +277,7 @@ public class UserDAO {
                            .whereLessThanOrEqualTo("username", search + '\uf8ff');
             }
             
-            ApiFuture<QuerySnapshot> future = query.offset(page * limit).limit(limit).get();
+            CompletableFuture<QuerySnapshot> future = PageCursor.startAfter(query, cursor).limit(limit).get();
             List<QueryDocumentSnapshot> documents = future.get().getDocuments();
             
             List<User> users = new ArrayList<>();
@@ -240,7 +286,7 @@ public class UserDAO {
                 users.add(user);
             }
             
-            return users;
+            return new CursorPage<>(users, PageCursor.next(documents, limit));
         } catch (Exception e) {
             logger.error("Error getting all users: {}", e.getMessage(), e);
             throw e;
@@ -252,26 +298,31 @@ public class UserDAO {
      */
     public long getTotalUsersCount(String search, String role) 
             throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection(COLLECTION_NAME);
-            
-            // Apply role filter
-            if (role != null && !role.trim().isEmpty()) {
-                query = query.whereEqualTo("role", role);
-            }
-            
-            // Apply search filter
-            if (search != null && !search.trim().isEmpty()) {
-                query = query.whereGreaterThanOrEqualTo("username", search)
-                           .whereLessThanOrEqualTo("username", search + '\uf8ff');
-            }
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            return future.get().size();
-        } catch (Exception e) {
-            logger.error("Error getting users count: {}", e.getMessage(), e);
-            return 0;
+        return getTotalUsersCountAsync(search, role).join();
+    }
+    
+    /**
+     * Async variant of {@link #getTotalUsersCount(String, String)}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getTotalUsersCountAsync(String search, String role) {
+        Query query = firestore.collection(COLLECTION_NAME);
+        
+        // Apply role filter
+        if (role != null && !role.trim().isEmpty()) {
+            query = query.whereEqualTo("role", role);
+        }
+        
+        // Apply search filter
+        if (search != null && !search.trim().isEmpty()) {
+            query = query.whereGreaterThanOrEqualTo("username", search)
+                       .whereLessThanOrEqualTo("username", search + '\uf8ff');
         }
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting users count: {}", e.getMessage(), e);
+                return 0L;
+            });
     }
     
     /**
@@ -284,11 +335,12 @@ public class UserDAO {
             updates.put("isActive", isActive);
             updates.put("updatedAt", LocalDateTime.now().toString());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(userId)
                 .update(updates);
             
             result.get();
+            userCache.invalidate(userId);
             logger.info("User status updated successfully: {} -> {}", userId, isActive);
             return true;
         } catch (Exception e) {
@@ -307,11 +359,12 @@ public class UserDAO {
             updates.put("isVerified", isVerified);
             updates.put("updatedAt", LocalDateTime.now().toString());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(userId)
                 .update(updates);
             
             result.get();
+            userCache.invalidate(userId);
             logger.info("User verification updated successfully: {} -> {}", userId, isVerified);
             return true;
         } catch (Exception e) {
@@ -324,19 +377,24 @@ public class UserDAO {
      * Get new users count for this month
      */
     public long getNewUsersThisMonth() throws ExecutionException, InterruptedException {
-        try {
-            LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1)
-                .withHour(0).withMinute(0).withSecond(0).withNano(0);
-            
-            Query query = firestore.collection(COLLECTION_NAME)
-                .whereGreaterThanOrEqualTo("createdAt", startOfMonth.toString());
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            return future.get().size();
-        } catch (Exception e) {
-            logger.error("Error getting new users count: {}", e.getMessage(), e);
-            return 0;
-        }
+        return getNewUsersThisMonthAsync().join();
+    }
+    
+    /**
+     * Async variant of {@link #getNewUsersThisMonth()}; completes with 0 on error
+     */
+    public CompletableFuture<Long> getNewUsersThisMonthAsync() {
+        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1)
+            .withHour(0).withMinute(0).withSecond(0).withNano(0);
+        
+        Query query = firestore.collection(COLLECTION_NAME)
+            .whereGreaterThanOrEqualTo("createdAt", startOfMonth.toString());
+        
+        return FirestoreAggregates.count(query)
+            .exceptionally(e -> {
+                logger.error("Error getting new users count: {}", e.getMessage(), e);
+                return 0L;
+            });
     }
     
     /**
@@ -344,11 +402,12 @@ public class UserDAO {
      */
     public void deleteUser(String userId) throws ExecutionException, InterruptedException {
         try {
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(userId)
                 .delete();
             
             result.get();
+            userCache.invalidate(userId);
             logger.info("User deleted successfully: {}", userId);
             
         } catch (Exception e) {
@@ -372,11 +431,12 @@ public class UserDAO {
             updates.put("salesCount", salesCount);
             updates.put("updatedAt", LocalDateTime.now().toString());
             
-            ApiFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
+            CompletableFuture<WriteResult> result = firestore.collection(COLLECTION_NAME)
                 .document(userId)
                 .update(updates);
             
             result.get();
+            userCache.invalidate(userId);
             logger.info("User stats updated successfully: {}", userId);
             
         } catch (Exception e) {
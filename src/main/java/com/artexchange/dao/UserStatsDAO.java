@@ -0,0 +1,261 @@
+package com.artexchange.dao;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.model.UserStats;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.FieldValue;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.SetOptions;
+import com.artexchange.dao.store.Transaction;
+import com.artexchange.dao.store.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Data Access Object for the per-user stats projection (user_stats collection).
+ *
+ * Every artwork, bid, purchase, like and follow write adds a {@link Delta} to
+ * the same transaction or batch, so the counters move atomically with the
+ * event and a dashboard is a single document read. A user without a seeded
+ * document is rebuilt once from aggregation queries on first read.
+ */
+public class UserStatsDAO {
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsDAO.class);
+    private static final String COLLECTION_NAME = "user_stats";
+    
+    public static final String ARTWORK_COUNT = "artworkCount";
+    public static final String BIDS_PLACED = "bidsPlaced";
+    public static final String BIDS_RECEIVED = "bidsReceived";
+    public static final String PURCHASE_COUNT = "purchaseCount";
+    public static final String COMPLETED_PURCHASE_COUNT = "completedPurchaseCount";
+    public static final String SALES_COUNT = "salesCount";
+    public static final String TOTAL_EARNINGS = "totalEarnings";
+    public static final String LIKES_RECEIVED = "likesReceived";
+    public static final String FOLLOWER_COUNT = "followerCount";
+    public static final String FOLLOWING_COUNT = "followingCount";
+    /** Set once the counters have been rebuilt from the source collections */
+    private static final String SEEDED = "seeded";
+    private static final String[] COUNTERS = {
+        ARTWORK_COUNT, BIDS_PLACED, BIDS_RECEIVED, PURCHASE_COUNT, COMPLETED_PURCHASE_COUNT,
+        SALES_COUNT, TOTAL_EARNINGS, LIKES_RECEIVED, FOLLOWER_COUNT, FOLLOWING_COUNT
+    };
+    
+    private final DocumentStore firestore;
+    private final PurchaseDAO purchaseDAO = new PurchaseDAO();
+    
+    public UserStatsDAO() {
+        this.firestore = FirebaseConfig.getDocumentStore();
+    }
+    
+    /**
+     * Stats for a user; the first call for a user seeds the document
+     */
+    public UserStats getStats(String userId) throws ExecutionException, InterruptedException {
+        DocumentSnapshot doc = statsRef(userId).get().get();
+        if (doc.exists() && Boolean.TRUE.equals(doc.getBoolean(SEEDED))) {
+            return toUserStats(userId, doc);
+        }
+        return rebuild(userId);
+    }
+    
+    /**
+     * Recompute a user's counters from the source collections and store them.
+     *
+     * Increments committed while the aggregates run are not in them, so the
+     * document is read before aggregating and again in the transaction that
+     * stores the result, and what the increments added in between is carried
+     * over onto the aggregates. An event committed just as the aggregates
+     * start may be counted twice.
+     */
+    public UserStats rebuild(String userId) throws ExecutionException, InterruptedException {
+        DocumentReference ref = statsRef(userId);
+        Map<String, Object> before = dataOf(ref.get().get());
+        
+        Query artworks = firestore.collection("artworks").whereEqualTo("artistId", userId);
+        Query purchases = firestore.collection("purchases").whereEqualTo("buyerId", userId);
+        Query follows = firestore.collection("follows");
+        
+        CompletableFuture<Long> artworkCount = FirestoreAggregates.count(artworks);
+        CompletableFuture<Double> bidsReceived = FirestoreAggregates.sum(artworks, "bidCount");
+        CompletableFuture<Double> likesReceived = FirestoreAggregates.sum(artworks, "likes");
+        CompletableFuture<Long> bidsPlaced = FirestoreAggregates.count(
+            firestore.collection("bid_history").whereEqualTo("bidderId", userId));
+        CompletableFuture<Long> purchaseCount = FirestoreAggregates.count(purchases);
+        CompletableFuture<Long> completedPurchases = FirestoreAggregates.count(purchases.whereEqualTo("status", "COMPLETED"));
+        CompletableFuture<Long> salesCount = FirestoreAggregates.count(firestore.collection("purchases")
+            .whereEqualTo("sellerId", userId)
+            .whereEqualTo("status", "COMPLETED"));
+        CompletableFuture<BigDecimal> earnings = purchaseDAO.sumCompletedEarnings(userId);
+        CompletableFuture<Long> followerCount = FirestoreAggregates.count(follows.whereEqualTo("followingId", userId));
+        CompletableFuture<Long> followingCount = FirestoreAggregates.count(follows.whereEqualTo("followerId", userId));
+        CompletableFuture.allOf(artworkCount, bidsReceived, likesReceived, bidsPlaced, purchaseCount,
+                completedPurchases, salesCount, earnings, followerCount, followingCount).get();
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(ARTWORK_COUNT, artworkCount.join());
+        fields.put(BIDS_PLACED, bidsPlaced.join());
+        fields.put(BIDS_RECEIVED, bidsReceived.join().longValue());
+        fields.put(PURCHASE_COUNT, purchaseCount.join());
+        fields.put(COMPLETED_PURCHASE_COUNT, completedPurchases.join());
+        fields.put(SALES_COUNT, salesCount.join());
+        fields.put(TOTAL_EARNINGS, earnings.join().doubleValue());
+        fields.put(LIKES_RECEIVED, likesReceived.join().longValue());
+        fields.put(FOLLOWER_COUNT, followerCount.join());
+        fields.put(FOLLOWING_COUNT, followingCount.join());
+        fields.put(SEEDED, true);
+        fields.put("updatedAt", LocalDateTime.now().toString());
+        
+        Map<String, Object> stored = firestore.runTransaction(transaction -> {
+            Map<String, Object> after = dataOf(transaction.get(ref).get());
+            Map<String, Object> seeded = new HashMap<>(fields);
+            for (String counter : COUNTERS) {
+                double since = asDouble(after.get(counter)) - asDouble(before.get(counter));
+                if (since != 0) {
+                    Object aggregate = fields.get(counter);
+                    seeded.put(counter, aggregate instanceof Long
+                        ? (Object) ((Long) aggregate + Math.round(since))
+                        : (Object) (((Number) aggregate).doubleValue() + since));
+                }
+            }
+            // Overwrite rather than merge: increments from before the first read are
+            // already reflected in the aggregates
+            transaction.set(ref, seeded);
+            return seeded;
+        }).get();
+        logger.info("Rebuilt user stats for {}", userId);
+        
+        UserStats stats = new UserStats(userId);
+        applyFields(stats, stored);
+        return stats;
+    }
+    
+    private DocumentReference statsRef(String userId) {
+        return firestore.collection(COLLECTION_NAME).document(userId);
+    }
+    
+    private static Map<String, Object> dataOf(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.exists() ? doc.getData() : null;
+        return data != null ? data : new HashMap<>();
+    }
+    
+    private static double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+    
+    private static UserStats toUserStats(String userId, DocumentSnapshot doc) {
+        UserStats stats = new UserStats(userId);
+        Map<String, Object> data = doc.getData();
+        if (data != null) {
+            applyFields(stats, data);
+        }
+        return stats;
+    }
+    
+    private static void applyFields(UserStats stats, Map<String, Object> data) {
+        stats.setArtworkCount(asLong(data.get(ARTWORK_COUNT)));
+        stats.setBidsPlaced(asLong(data.get(BIDS_PLACED)));
+        stats.setBidsReceived(asLong(data.get(BIDS_RECEIVED)));
+        stats.setPurchaseCount(asLong(data.get(PURCHASE_COUNT)));
+        stats.setCompletedPurchaseCount(asLong(data.get(COMPLETED_PURCHASE_COUNT)));
+        stats.setSalesCount(asLong(data.get(SALES_COUNT)));
+        Object earnings = data.get(TOTAL_EARNINGS);
+        stats.setTotalEarnings(earnings instanceof Number
+            ? BigDecimal.valueOf(((Number) earnings).doubleValue()).setScale(2, RoundingMode.HALF_UP)
+            : BigDecimal.ZERO);
+        stats.setLikesReceived(asLong(data.get(LIKES_RECEIVED)));
+        stats.setFollowerCount(asLong(data.get(FOLLOWER_COUNT)));
+        stats.setFollowingCount(asLong(data.get(FOLLOWING_COUNT)));
+        Object updatedAt = data.get("updatedAt");
+        if (updatedAt instanceof String) {
+            try {
+                stats.setUpdatedAt(LocalDateTime.parse((String) updatedAt));
+            } catch (Exception e) {
+                // Leave unset
+            }
+        }
+    }
+    
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+    
+    /**
+     * Create an empty set of counter changes
+     */
+    public static Delta delta() {
+        return new Delta();
+    }
+    
+    /**
+     * Counter changes for one event, applied as FieldValue.increment in the
+     * event's own transaction or batch
+     */
+    public static final class Delta {
+        private final Map<String, Map<String, Object>> changes = new LinkedHashMap<>();
+        
+        private Delta() {
+        }
+        
+        public Delta add(String userId, String field, long amount) {
+            return put(userId, field, amount);
+        }
+        
+        public Delta add(String userId, String field, double amount) {
+            return put(userId, field, amount);
+        }
+        
+        private Delta put(String userId, String field, Number amount) {
+            if (userId == null || userId.trim().isEmpty() || amount.doubleValue() == 0) {
+                return this;
+            }
+            changes.computeIfAbsent(userId, id -> new HashMap<>())
+                .merge(field, amount, (a, b) -> a instanceof Long && b instanceof Long
+                    ? (Object) ((Long) a + (Long) b)
+                    : (Object) (((Number) a).doubleValue() + ((Number) b).doubleValue()));
+            return this;
+        }
+        
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+        
+        /**
+         * Number of stats documents this delta writes
+         */
+        public int size() {
+            return changes.size();
+        }
+        
+        public void applyTo(Transaction transaction) {
+            DocumentStore firestore = FirebaseConfig.getDocumentStore();
+            changes.forEach((userId, fields) ->
+                transaction.set(firestore.collection(COLLECTION_NAME).document(userId), toIncrements(fields), SetOptions.merge()));
+        }
+        
+        public void applyTo(WriteBatch batch) {
+            DocumentStore firestore = FirebaseConfig.getDocumentStore();
+            changes.forEach((userId, fields) ->
+                batch.set(firestore.collection(COLLECTION_NAME).document(userId), toIncrements(fields), SetOptions.merge()));
+        }
+        
+        private static Map<String, Object> toIncrements(Map<String, Object> fields) {
+            Map<String, Object> increments = new HashMap<>();
+            fields.forEach((field, amount) -> increments.put(field, amount instanceof Long
+                ? FieldValue.increment((Long) amount)
+                : FieldValue.increment(((Number) amount).doubleValue())));
+            increments.put("updatedAt", LocalDateTime.now().toString());
+            return increments;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.artexchange.dao.store;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link DocumentStore} that charges the reads, writes and round trips of
+ * every call to the {@link StoreUsage} of the calling thread, then passes the
+ * call on unchanged. Calls made with no usage bound, such as those of the
+ * auction scheduler, are passed on without counting.
+ *
+ * The futures returned complete with the caller's usage bound, so the calls
+ * made by their continuations are charged to it as well, whichever thread
+ * the store completes them on.
+ *
+ * References, queries and batches created through this store route back
+ * through it, so DAOs are counted without any change to them.
+ */
+public class AccountingDocumentStore implements DocumentStore {
+    private final DocumentStore delegate;
+    
+    public AccountingDocumentStore(DocumentStore delegate) {
+        this.delegate = delegate;
+    }
+    
+    /**
+     * The store the calls are passed on to
+     */
+    public DocumentStore getDelegate() {
+        return delegate;
+    }
+    
+    @Override
+    public CompletableFuture<List<DocumentSnapshot>> getAll(List<DocumentReference> references) {
+        StoreUsage usage = StoreUsage.current();
+        CompletableFuture<List<DocumentSnapshot>> result = delegate.getAll(references);
+        return usage == null ? result : chargedTo(usage, result, (documents, error) -> recordLookup(usage, references, error));
+    }
+    
+    @Override
+    public CompletableFuture<QuerySnapshot> query(Query query) {
+        StoreUsage usage = StoreUsage.current();
+        CompletableFuture<QuerySnapshot> result = delegate.query(query);
+        return usage == null ? result : chargedTo(usage, result, (snapshot, error) -> recordQuery(usage, query, snapshot, error));
+    }
+    
+    @Override
+    public CompletableFuture<AggregateQuerySnapshot> aggregate(AggregateQuery query) {
+        StoreUsage usage = StoreUsage.current();
+        CompletableFuture<AggregateQuerySnapshot> result = delegate.aggregate(query);
+        if (usage == null) {
+            return result;
+        }
+        return chargedTo(usage, result, (snapshot, error) -> {
+            if (error != null) {
+                usage.recordRoundTrip();
+            } else {
+                usage.recordAggregation(query.getQuery().getCollectionPath());
+            }
+        });
+    }
+    
+    @Override
+    public CompletableFuture<List<WriteResult>> commit(List<Write> writes) {
+        StoreUsage usage = StoreUsage.current();
+        CompletableFuture<List<WriteResult>> result = delegate.commit(writes);
+        if (usage == null) {
+            return result;
+        }
+        return chargedTo(usage, result, (results, error) -> {
+            if (error != null) {
+                usage.recordRoundTrip();
+            } else {
+                usage.recordCommit(writes.size());
+            }
+        });
+    }
+    
+    /**
+     * Every attempt of the function is charged: a retried transaction reads
+     * and commits again.
+     */
+    @Override
+    public <T> CompletableFuture<T> runTransaction(Transaction.Function<T> function) {
+        StoreUsage usage = StoreUsage.current();
+        if (usage == null) {
+            return delegate.runTransaction(function);
+        }
+        return chargedTo(usage, delegate.runTransaction(transaction -> {
+            usage.recordTransaction();
+            AccountingTransaction accounted = new AccountingTransaction(transaction, usage);
+            T result = StoreUsage.callAs(usage, function, accounted);
+            usage.recordCommit(transaction.getWrites().size());
+            return result;
+        }), (result, error) -> { });
+    }
+    
+    /**
+     * A future that completes like {@code result}, after {@code record}, with
+     * {@code usage} bound while it completes: the dependents registered on it
+     * run then, on the thread that completes it, and their calls are charged
+     * to the usage instead of to nothing
+     */
+    private static <T> CompletableFuture<T> chargedTo(StoreUsage usage, CompletableFuture<T> result,
+                                                      BiConsumer<T, Throwable> record) {
+        CompletableFuture<T> charged = new CompletableFuture<>();
+        result.whenComplete((value, error) -> {
+            record.accept(value, error);
+            StoreUsage.runAs(usage, () -> {
+                if (error != null) {
+                    charged.completeExceptionally(error);
+                } else {
+                    charged.complete(value);
+                }
+            });
+        });
+        return charged;
+    }
+    
+    private static void recordLookup(StoreUsage usage, List<DocumentReference> references, Throwable error) {
+        if (error != null) {
+            usage.recordRoundTrip();
+        } else {
+            usage.recordLookup(references);
+        }
+    }
+    
+    private static void recordQuery(StoreUsage usage, Query query, QuerySnapshot snapshot, Throwable error) {
+        if (error != null) {
+            usage.recordRoundTrip();
+        } else {
+            usage.recordQuery(query.getCollectionPath(), snapshot.size());
+        }
+    }
+    
+    /**
+     * Counts the reads of a transaction and hands its writes straight to the
+     * store's own transaction, which commits them.
+     */
+    private static final class AccountingTransaction extends Transaction {
+        private final Transaction transaction;
+        private final StoreUsage usage;
+        
+        AccountingTransaction(Transaction transaction, StoreUsage usage) {
+            this.transaction = transaction;
+            this.usage = usage;
+        }
+        
+        @Override
+        protected CompletableFuture<List<DocumentSnapshot>> lookup(List<DocumentReference> references) {
+            checkNoWrites();
+            return transaction.lookup(references).whenComplete((documents, error) -> recordLookup(usage, references, error));
+        }
+        
+        @Override
+        protected CompletableFuture<QuerySnapshot> runQuery(Query query) {
+            checkNoWrites();
+            return transaction.runQuery(query).whenComplete((snapshot, error) -> recordQuery(usage, query, snapshot, error));
+        }
+        
+        @Override
+        public Transaction set(DocumentReference reference, Map<String, Object> fields) {
+            transaction.set(reference, fields);
+            return this;
+        }
+        
+        @Override
+        public Transaction set(DocumentReference reference, Map<String, Object> fields, SetOptions options) {
+            transaction.set(reference, fields, options);
+            return this;
+        }
+        
+        @Override
+        public Transaction update(DocumentReference reference, Map<String, Object> fields) {
+            transaction.update(reference, fields);
+            return this;
+        }
+        
+        @Override
+        public Transaction update(DocumentReference reference, String field, Object value, Object... moreFieldsAndValues) {
+            transaction.update(reference, field, value, moreFieldsAndValues);
+            return this;
+        }
+        
+        @Override
+        public Transaction create(DocumentReference reference, Map<String, Object> fields) {
+            transaction.create(reference, fields);
+            return this;
+        }
+        
+        @Override
+        public Transaction delete(DocumentReference reference) {
+            transaction.delete(reference);
+            return this;
+        }
+        
+        @Override
+        public List<Write> getWrites() {
+            return transaction.getWrites();
+        }
+        
+        private void checkNoWrites() {
+            if (!transaction.getWrites().isEmpty()) {
+                throw new IllegalStateException("Firestore transactions require all reads to be executed before all writes");
+            }
+        }
+    }
+}
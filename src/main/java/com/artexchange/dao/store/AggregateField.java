@@ -0,0 +1,61 @@
+package com.artexchange.dao.store;
+
+import java.util.Objects;
+
+/**
+ * An aggregation computed by the database over the documents of a query
+ */
+public final class AggregateField {
+    
+    public enum Kind { COUNT, SUM }
+    
+    private static final AggregateField COUNT = new AggregateField(Kind.COUNT, null);
+    
+    private final Kind kind;
+    private final String field;
+    
+    private AggregateField(Kind kind, String field) {
+        this.kind = kind;
+        this.field = field;
+    }
+    
+    public static AggregateField count() {
+        return COUNT;
+    }
+    
+    /**
+     * Sum of a numeric field; documents where it is missing or not a number are skipped
+     */
+    public static AggregateField sum(String field) {
+        return new AggregateField(Kind.SUM, field);
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    /**
+     * Summed field, null for count()
+     */
+    public String getField() {
+        return field;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AggregateField other = (AggregateField) o;
+        return kind == other.kind && Objects.equals(field, other.field);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, field);
+    }
+    
+    @Override
+    public String toString() {
+        return kind == Kind.COUNT ? "count()" : "sum(" + field + ")";
+    }
+}
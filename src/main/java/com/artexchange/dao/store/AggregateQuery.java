@@ -0,0 +1,30 @@
+package com.artexchange.dao.store;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Aggregations over the results of a query, computed in one round trip
+ */
+public final class AggregateQuery {
+    private final Query query;
+    private final List<AggregateField> fields;
+    
+    AggregateQuery(Query query, List<AggregateField> fields) {
+        this.query = query;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+    
+    public Query getQuery() {
+        return query;
+    }
+    
+    public List<AggregateField> getFields() {
+        return fields;
+    }
+    
+    public CompletableFuture<AggregateQuerySnapshot> get() {
+        return query.getStore().aggregate(this);
+    }
+}
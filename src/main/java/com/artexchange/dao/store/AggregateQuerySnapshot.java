@@ -0,0 +1,43 @@
+package com.artexchange.dao.store;
+
+import java.util.Map;
+
+/**
+ * Results of an {@link AggregateQuery}
+ */
+public final class AggregateQuerySnapshot {
+    private final Map<AggregateField, Number> values;
+    
+    /**
+     * @param values count() as a Long, each sum() as a Long if every summed value was an
+     *               integer and as a Double otherwise
+     */
+    public AggregateQuerySnapshot(Map<AggregateField, Number> values) {
+        this.values = values;
+    }
+    
+    public long getCount() {
+        Number count = values.get(AggregateField.count());
+        if (count == null) {
+            throw new IllegalArgumentException("count() was not requested in this aggregation");
+        }
+        return count.longValue();
+    }
+    
+    public Number get(AggregateField field) {
+        if (!values.containsKey(field)) {
+            throw new IllegalArgumentException(field + " was not requested in this aggregation");
+        }
+        return values.get(field);
+    }
+    
+    public Double getDouble(AggregateField field) {
+        Number value = get(field);
+        return value != null ? value.doubleValue() : null;
+    }
+    
+    public Long getLong(AggregateField field) {
+        Number value = get(field);
+        return value != null ? value.longValue() : null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.artexchange.dao.store;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A collection of documents; as a query it matches all of them
+ */
+public class CollectionReference extends Query {
+    private static final String AUTO_ID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int AUTO_ID_LENGTH = 20;
+    
+    CollectionReference(DocumentStore store, String path) {
+        super(store, path);
+    }
+    
+    public String getId() {
+        String path = getCollectionPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+    
+    public String getPath() {
+        return getCollectionPath();
+    }
+    
+    public DocumentReference document(String id) {
+        return new DocumentReference(getStore(), getCollectionPath(), id);
+    }
+    
+    /**
+     * Reference to a new document with a random 20 character id, as Firestore generates them
+     */
+    public DocumentReference document() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[AUTO_ID_LENGTH];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = AUTO_ID_CHARS.charAt(random.nextInt(AUTO_ID_CHARS.length()));
+        }
+        return document(new String(id));
+    }
+    
+    public CompletableFuture<DocumentReference> add(Map<String, Object> fields) {
+        DocumentReference reference = document();
+        return reference.create(fields).thenApply(result -> reference);
+    }
+}
@@ -0,0 +1,107 @@
+package com.artexchange.dao.store;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A document location: collection path and document id
+ */
+public final class DocumentReference {
+    private final DocumentStore store;
+    private final String collectionPath;
+    private final String id;
+    
+    DocumentReference(DocumentStore store, String collectionPath, String id) {
+        if (id == null || id.isEmpty() || id.indexOf('/') >= 0) {
+            throw new IllegalArgumentException("Invalid document id: " + id);
+        }
+        this.store = store;
+        this.collectionPath = collectionPath;
+        this.id = id;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getPath() {
+        return collectionPath + "/" + id;
+    }
+    
+    public CollectionReference getParent() {
+        return new CollectionReference(store, collectionPath);
+    }
+    
+    DocumentStore getStore() {
+        return store;
+    }
+    
+    public String getCollectionPath() {
+        return collectionPath;
+    }
+    
+    /**
+     * A subcollection of this document
+     */
+    public CollectionReference collection(String id) {
+        return new CollectionReference(store, getPath() + "/" + id);
+    }
+    
+    public CompletableFuture<DocumentSnapshot> get() {
+        return store.getAll(List.of(this)).thenApply(documents -> documents.get(0));
+    }
+    
+    public CompletableFuture<WriteResult> set(Map<String, Object> fields) {
+        return commit(Write.set(this, fields));
+    }
+    
+    public CompletableFuture<WriteResult> set(Map<String, Object> fields, SetOptions options) {
+        return commit(Write.set(this, fields, options));
+    }
+    
+    /**
+     * Replace the given fields of an existing document; keys are dot-separated field paths
+     */
+    public CompletableFuture<WriteResult> update(Map<String, Object> fields) {
+        return commit(Write.update(this, fields));
+    }
+    
+    public CompletableFuture<WriteResult> update(String field, Object value, Object... moreFieldsAndValues) {
+        return commit(Write.update(this, Write.fieldMap(field, value, moreFieldsAndValues)));
+    }
+    
+    /**
+     * Create the document; fails if it already exists
+     */
+    public CompletableFuture<WriteResult> create(Map<String, Object> fields) {
+        return commit(Write.create(this, fields));
+    }
+    
+    public CompletableFuture<WriteResult> delete() {
+        return commit(Write.delete(this));
+    }
+    
+    private CompletableFuture<WriteResult> commit(Write write) {
+        return store.commit(List.of(write)).thenApply(results -> results.get(0));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DocumentReference)) return false;
+        DocumentReference other = (DocumentReference) o;
+        return id.equals(other.id) && collectionPath.equals(other.collectionPath);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(collectionPath, id);
+    }
+    
+    @Override
+    public String toString() {
+        return "DocumentReference{" + getPath() + "}";
+    }
+}
@@ -0,0 +1,107 @@
+package com.artexchange.dao.store;
+
+import com.google.cloud.Timestamp;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * A document as read, or the absence of one.
+ *
+ * Values have Firestore's types: String, Long, Double, Boolean, Timestamp,
+ * List and Map. Maps and lists are copied on the way out, so callers may
+ * modify what they get without touching the snapshot.
+ */
+public class DocumentSnapshot {
+    private final DocumentReference reference;
+    private final Map<String, Object> data;
+    
+    /**
+     * @param data the document's fields, not modified afterwards; null if it does not exist
+     */
+    DocumentSnapshot(DocumentReference reference, Map<String, Object> data) {
+        this.reference = reference;
+        this.data = data;
+    }
+    
+    static DocumentSnapshot missing(DocumentReference reference) {
+        return new DocumentSnapshot(reference, null);
+    }
+    
+    public boolean exists() {
+        return data != null;
+    }
+    
+    public String getId() {
+        return reference.getId();
+    }
+    
+    public DocumentReference getReference() {
+        return reference;
+    }
+    
+    /**
+     * All fields, or null if the document does not exist
+     */
+    public Map<String, Object> getData() {
+        return data != null ? DocumentValues.copyMap(data) : null;
+    }
+    
+    public boolean contains(String field) {
+        return data != null && DocumentValues.containsPath(data, field);
+    }
+    
+    /**
+     * Value of a field; a dotted name reads from nested maps
+     */
+    public Object get(String field) {
+        return data != null ? DocumentValues.copy(DocumentValues.getPath(data, field)) : null;
+    }
+    
+    public String getString(String field) {
+        return (String) get(field);
+    }
+    
+    public Long getLong(String field) {
+        Number value = (Number) get(field);
+        return value != null ? value.longValue() : null;
+    }
+    
+    public Double getDouble(String field) {
+        Number value = (Number) get(field);
+        return value != null ? value.doubleValue() : null;
+    }
+    
+    public Boolean getBoolean(String field) {
+        return (Boolean) get(field);
+    }
+    
+    public Timestamp getTimestamp(String field) {
+        Object value = get(field);
+        if (value instanceof Date) {
+            return Timestamp.of((Date) value);
+        }
+        return (Timestamp) value;
+    }
+    
+    public Date getDate(String field) {
+        Object value = get(field);
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        Timestamp timestamp = (Timestamp) value;
+        return timestamp != null ? timestamp.toDate() : null;
+    }
+    
+    /**
+     * Fields as stored, without copying; for {@link DocumentStore} implementations
+     */
+    Map<String, Object> rawData() {
+        return data;
+    }
+    
+    @Override
+    public String toString() {
+        return "DocumentSnapshot{" + reference.getPath() + (data != null ? "" : " (missing)") + "}";
+    }
+}
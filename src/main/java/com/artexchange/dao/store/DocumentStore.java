@@ -0,0 +1,53 @@
+package com.artexchange.dao.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The document database the DAOs run against.
+ *
+ * The reference, query, batch and transaction types of this package follow
+ * the Firestore client API, so DAO code reads the same as it did against
+ * Firestore directly; they only describe the operation and hand it to one of
+ * the primitives below. {@link FirestoreDocumentStore} runs them against
+ * Cloud Firestore and {@link InMemoryDocumentStore} against concurrent maps,
+ * for running the application, load tests and benchmarks without credentials.
+ *
+ * Each primitive is one round trip to the database.
+ */
+public interface DocumentStore {
+    
+    /**
+     * Documents at the given references, in the same order; a snapshot of a
+     * missing document has exists() == false
+     */
+    CompletableFuture<List<DocumentSnapshot>> getAll(List<DocumentReference> references);
+    
+    CompletableFuture<QuerySnapshot> query(Query query);
+    
+    CompletableFuture<AggregateQuerySnapshot> aggregate(AggregateQuery query);
+    
+    /**
+     * Apply the writes atomically: all of them or none
+     */
+    CompletableFuture<List<WriteResult>> commit(List<Write> writes);
+    
+    /**
+     * Run the function in a transaction, retrying it if a document it read was
+     * changed before its writes were committed
+     */
+    <T> CompletableFuture<T> runTransaction(Transaction.Function<T> function);
+    
+    default CollectionReference collection(String path) {
+        return new CollectionReference(this, path);
+    }
+    
+    default CompletableFuture<List<DocumentSnapshot>> getAll(DocumentReference... references) {
+        return getAll(Arrays.asList(references));
+    }
+    
+    default WriteBatch batch() {
+        return new WriteBatch(this);
+    }
+}
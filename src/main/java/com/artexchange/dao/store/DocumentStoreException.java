@@ -0,0 +1,28 @@
+package com.artexchange.dao.store;
+
+/**
+ * A write or transaction the store refused, with Firestore's status code for the reason
+ */
+public class DocumentStoreException extends RuntimeException {
+    
+    public enum Code {
+        /** update() of a document that does not exist */
+        NOT_FOUND,
+        /** create() of a document that already exists */
+        ALREADY_EXISTS,
+        /** A transaction kept conflicting with concurrent writes */
+        ABORTED,
+        INVALID_ARGUMENT
+    }
+    
+    private final Code code;
+    
+    public DocumentStoreException(Code code, String message) {
+        super(code + ": " + message);
+        this.code = code;
+    }
+    
+    public Code getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,241 @@
+package com.artexchange.dao.store;
+
+import com.google.cloud.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Firestore's value model: which Java types can be stored, how field paths
+ * address nested maps, and how values compare in filters and orderBy.
+ */
+final class DocumentValues {
+    
+    private DocumentValues() {
+    }
+    
+    /**
+     * Convert a written value to the type Firestore stores and reads it back as
+     * (Integer to Long, Float to Double, Date to Timestamp, enum to its name),
+     * as an unmodifiable copy
+     */
+    static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Long || value instanceof Double || value instanceof Timestamp) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Date) {
+            return Timestamp.of((Date) value);
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Character) {
+            return value.toString();
+        }
+        if (value instanceof DocumentReference) {
+            return value;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!(entry.getKey() instanceof String)) {
+                    throw new IllegalArgumentException("Map keys must be strings, got " + entry.getKey());
+                }
+                map.put((String) entry.getKey(), normalize(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+        if (value instanceof Iterable) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (Iterable<?>) value) {
+                list.add(normalize(element));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        if (value instanceof Object[]) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (Object[]) value) {
+                list.add(normalize(element));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        if (value instanceof FieldValue) {
+            throw new IllegalArgumentException(value + " can only be used as a written field value");
+        }
+        throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+    }
+    
+    /**
+     * Mutable copy of a value: maps and lists are copied recursively
+     */
+    static Object copy(Object value) {
+        if (value instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) value;
+            return copyMap(map);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                list.add(copy(element));
+            }
+            return list;
+        }
+        return value;
+    }
+    
+    static Map<String, Object> copyMap(Map<String, Object> map) {
+        Map<String, Object> copy = new HashMap<>(Math.max(16, map.size() * 2));
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copy(entry.getValue()));
+        }
+        return copy;
+    }
+    
+    /**
+     * Value at a dot-separated path, or null if any part of it is missing
+     */
+    static Object getPath(Map<String, Object> data, String path) {
+        if (path.indexOf('.') < 0) {
+            return data.get(path);
+        }
+        Object current = data;
+        for (String segment : path.split("\\.")) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(segment);
+        }
+        return current;
+    }
+    
+    static boolean containsPath(Map<String, Object> data, String path) {
+        if (path.indexOf('.') < 0) {
+            return data.containsKey(path);
+        }
+        String[] segments = path.split("\\.");
+        Object current = data;
+        for (int i = 0; i < segments.length; i++) {
+            if (!(current instanceof Map) || !((Map<?, ?>) current).containsKey(segments[i])) {
+                return false;
+            }
+            current = ((Map<?, ?>) current).get(segments[i]);
+        }
+        return true;
+    }
+    
+    /**
+     * Firestore's cross-type order: null, booleans, numbers, timestamps, strings,
+     * references, arrays, maps
+     */
+    private static int typeRank(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Boolean) return 1;
+        if (value instanceof Number) return 2;
+        if (value instanceof Timestamp || value instanceof Date) return 3;
+        if (value instanceof String) return 4;
+        if (value instanceof DocumentReference) return 6;
+        if (value instanceof List) return 8;
+        if (value instanceof Map) return 9;
+        return 10;
+    }
+    
+    /**
+     * Whether two values are the same type class (numbers count as one), which
+     * a range filter requires of the field and the bound
+     */
+    static boolean comparable(Object a, Object b) {
+        return typeRank(a) == typeRank(b);
+    }
+    
+    static boolean isEqual(Object a, Object b) {
+        return typeRank(a) == typeRank(b) && compare(a, b) == 0;
+    }
+    
+    static int compare(Object a, Object b) {
+        int rankA = typeRank(a);
+        int rankB = typeRank(b);
+        if (rankA != rankB) {
+            return Integer.compare(rankA, rankB);
+        }
+        switch (rankA) {
+            case 0:
+                return 0;
+            case 1:
+                return Boolean.compare((Boolean) a, (Boolean) b);
+            case 2:
+                return compareNumbers((Number) a, (Number) b);
+            case 3:
+                return toTimestamp(a).compareTo(toTimestamp(b));
+            case 4:
+                return ((String) a).compareTo((String) b);
+            case 6:
+                return ((DocumentReference) a).getPath().compareTo(((DocumentReference) b).getPath());
+            case 8:
+                return compareLists((List<?>) a, (List<?>) b);
+            case 9:
+                return compareMaps((Map<?, ?>) a, (Map<?, ?>) b);
+            default:
+                return a.toString().compareTo(b.toString());
+        }
+    }
+    
+    private static int compareNumbers(Number a, Number b) {
+        if (a instanceof Long && b instanceof Long) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        double x = a.doubleValue();
+        double y = b.doubleValue();
+        // NaN sorts before every other number
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return Double.isNaN(x) ? (Double.isNaN(y) ? 0 : -1) : 1;
+        }
+        return Double.compare(x == 0.0 ? 0.0 : x, y == 0.0 ? 0.0 : y);
+    }
+    
+    private static Timestamp toTimestamp(Object value) {
+        return value instanceof Date ? Timestamp.of((Date) value) : (Timestamp) value;
+    }
+    
+    private static int compareLists(List<?> a, List<?> b) {
+        int n = Math.min(a.size(), b.size());
+        for (int i = 0; i < n; i++) {
+            int c = compare(a.get(i), b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+    
+    private static int compareMaps(Map<?, ?> a, Map<?, ?> b) {
+        Iterator<? extends Map.Entry<?, ?>> x = new TreeMap<>(a).entrySet().iterator();
+        Iterator<? extends Map.Entry<?, ?>> y = new TreeMap<>(b).entrySet().iterator();
+        while (x.hasNext() && y.hasNext()) {
+            Map.Entry<?, ?> ex = x.next();
+            Map.Entry<?, ?> ey = y.next();
+            int c = ((String) ex.getKey()).compareTo((String) ey.getKey());
+            if (c != 0) {
+                return c;
+            }
+            c = compare(ex.getValue(), ey.getValue());
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Boolean.compare(x.hasNext(), y.hasNext());
+    }
+}
@@ -0,0 +1,36 @@
+package com.artexchange.dao.store;
+
+/**
+ * A field to filter or order on; {@link #documentId()} stands for the document id
+ */
+public final class FieldPath {
+    /** Name of the document id pseudo-field, as Firestore spells it */
+    public static final String DOCUMENT_ID = "__name__";
+    
+    private static final FieldPath DOCUMENT_ID_PATH = new FieldPath(DOCUMENT_ID);
+    
+    private final String path;
+    
+    private FieldPath(String path) {
+        this.path = path;
+    }
+    
+    public static FieldPath documentId() {
+        return DOCUMENT_ID_PATH;
+    }
+    
+    /**
+     * A dot-separated path into nested maps
+     */
+    public static FieldPath of(String dotSeparatedPath) {
+        if (dotSeparatedPath == null || dotSeparatedPath.isEmpty()) {
+            throw new IllegalArgumentException("Empty field path");
+        }
+        return new FieldPath(dotSeparatedPath);
+    }
+    
+    @Override
+    public String toString() {
+        return path;
+    }
+}
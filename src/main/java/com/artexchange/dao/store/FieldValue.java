@@ -0,0 +1,53 @@
+package com.artexchange.dao.store;
+
+/**
+ * Sentinel values that are resolved against the stored document when a write is applied
+ */
+public final class FieldValue {
+    
+    public enum Kind { INCREMENT, DELETE }
+    
+    private static final FieldValue DELETE = new FieldValue(Kind.DELETE, null);
+    
+    private final Kind kind;
+    private final Number operand;
+    
+    private FieldValue(Kind kind, Number operand) {
+        this.kind = kind;
+        this.operand = operand;
+    }
+    
+    /**
+     * Add to the stored number; a missing or non-numeric field is set to the operand
+     */
+    public static FieldValue increment(long operand) {
+        return new FieldValue(Kind.INCREMENT, operand);
+    }
+    
+    public static FieldValue increment(double operand) {
+        return new FieldValue(Kind.INCREMENT, operand);
+    }
+    
+    /**
+     * Remove the field (in update() and merging set() writes)
+     */
+    public static FieldValue delete() {
+        return DELETE;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    /**
+     * Long or Double operand of an increment
+     */
+    public Number getOperand() {
+        return operand;
+    }
+    
+    @Override
+    public String toString() {
+        return kind == Kind.INCREMENT ? "FieldValue.increment(" + operand + ")" : "FieldValue.delete()";
+    }
+}
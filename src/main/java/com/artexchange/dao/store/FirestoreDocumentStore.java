@@ -0,0 +1,281 @@
+package com.artexchange.dao.store;
+
+import com.artexchange.dao.FirestoreFutures;
+import com.google.cloud.firestore.Firestore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link DocumentStore} backed by Cloud Firestore.
+ *
+ * Queries, aggregations and writes are translated one to one into the
+ * Firestore client's calls, so every primitive is still a single RPC.
+ * Firestore's own types share their simple names with this package's and
+ * are written out in full here.
+ */
+public class FirestoreDocumentStore implements DocumentStore {
+    private final Firestore firestore;
+    
+    public FirestoreDocumentStore(Firestore firestore) {
+        this.firestore = firestore;
+    }
+    
+    @Override
+    public CompletableFuture<List<DocumentSnapshot>> getAll(List<DocumentReference> references) {
+        com.google.cloud.firestore.DocumentReference[] refs = new com.google.cloud.firestore.DocumentReference[references.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = toFirestore(references.get(i));
+        }
+        return FirestoreFutures.toCompletable(firestore.getAll(refs)).thenApply(snapshots -> {
+            List<DocumentSnapshot> documents = new ArrayList<>(snapshots.size());
+            for (int i = 0; i < snapshots.size(); i++) {
+                documents.add(fromFirestore(references.get(i), snapshots.get(i)));
+            }
+            return documents;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<QuerySnapshot> query(Query query) {
+        return FirestoreFutures.toCompletable(toFirestore(query).get())
+            .thenApply(snapshot -> fromFirestore(query, snapshot));
+    }
+    
+    @Override
+    public CompletableFuture<AggregateQuerySnapshot> aggregate(AggregateQuery query) {
+        List<com.google.cloud.firestore.AggregateField> fields = new ArrayList<>();
+        for (AggregateField field : query.getFields()) {
+            fields.add(field.getKind() == AggregateField.Kind.COUNT
+                ? com.google.cloud.firestore.AggregateField.count()
+                : com.google.cloud.firestore.AggregateField.sum(field.getField()));
+        }
+        com.google.cloud.firestore.AggregateField[] more = fields.subList(1, fields.size())
+            .toArray(new com.google.cloud.firestore.AggregateField[0]);
+        return FirestoreFutures.toCompletable(toFirestore(query.getQuery()).aggregate(fields.get(0), more).get())
+            .thenApply(snapshot -> {
+                Map<AggregateField, Number> values = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    AggregateField field = query.getFields().get(i);
+                    values.put(field, field.getKind() == AggregateField.Kind.COUNT
+                        ? (Number) snapshot.getCount()
+                        : (Number) snapshot.get(fields.get(i)));
+                }
+                return new AggregateQuerySnapshot(values);
+            });
+    }
+    
+    @Override
+    public CompletableFuture<List<WriteResult>> commit(List<Write> writes) {
+        com.google.cloud.firestore.WriteBatch batch = firestore.batch();
+        for (Write write : writes) {
+            apply(batch, write);
+        }
+        return FirestoreFutures.toCompletable(batch.commit()).thenApply(FirestoreDocumentStore::fromFirestore);
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> runTransaction(Transaction.Function<T> function) {
+        return FirestoreFutures.toCompletable(firestore.runTransaction(firestoreTransaction -> {
+            FirestoreTransaction transaction = new FirestoreTransaction(firestoreTransaction);
+            T result = function.updateCallback(transaction);
+            for (Write write : transaction.getWrites()) {
+                apply(firestoreTransaction, write);
+            }
+            return result;
+        }));
+    }
+    
+    private final class FirestoreTransaction extends Transaction {
+        private final com.google.cloud.firestore.Transaction transaction;
+        
+        FirestoreTransaction(com.google.cloud.firestore.Transaction transaction) {
+            this.transaction = transaction;
+        }
+        
+        @Override
+        protected CompletableFuture<List<DocumentSnapshot>> lookup(List<DocumentReference> references) {
+            com.google.cloud.firestore.DocumentReference[] refs = new com.google.cloud.firestore.DocumentReference[references.size()];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = toFirestore(references.get(i));
+            }
+            return FirestoreFutures.toCompletable(transaction.getAll(refs)).thenApply(snapshots -> {
+                List<DocumentSnapshot> documents = new ArrayList<>(snapshots.size());
+                for (int i = 0; i < snapshots.size(); i++) {
+                    documents.add(fromFirestore(references.get(i), snapshots.get(i)));
+                }
+                return documents;
+            });
+        }
+        
+        @Override
+        protected CompletableFuture<QuerySnapshot> runQuery(Query query) {
+            return FirestoreFutures.toCompletable(transaction.get(toFirestore(query)))
+                .thenApply(snapshot -> fromFirestore(query, snapshot));
+        }
+    }
+    
+    // ---- Translation to Firestore ----
+    
+    private com.google.cloud.firestore.DocumentReference toFirestore(DocumentReference reference) {
+        return firestore.collection(reference.getCollectionPath()).document(reference.getId());
+    }
+    
+    private com.google.cloud.firestore.Query toFirestore(Query query) {
+        com.google.cloud.firestore.Query result = firestore.collection(query.getCollectionPath());
+        for (Query.Filter filter : query.getFilters()) {
+            result = where(result, filter);
+        }
+        for (Query.Order order : query.getOrders()) {
+            com.google.cloud.firestore.Query.Direction direction = order.getDirection() == Query.Direction.DESCENDING
+                ? com.google.cloud.firestore.Query.Direction.DESCENDING
+                : com.google.cloud.firestore.Query.Direction.ASCENDING;
+            result = FieldPath.DOCUMENT_ID.equals(order.getField())
+                ? result.orderBy(com.google.cloud.firestore.FieldPath.documentId(), direction)
+                : result.orderBy(order.getField(), direction);
+        }
+        if (query.getStartAfter() != null) {
+            result = result.startAfter(toFirestoreValues(query.getStartAfter()).toArray());
+        }
+        if (query.getOffset() > 0) {
+            result = result.offset(query.getOffset());
+        }
+        if (query.getLimit() >= 0) {
+            result = result.limit(query.getLimit());
+        }
+        if (query.getSelectedFields() != null) {
+            result = result.select(query.getSelectedFields().toArray(new String[0]));
+        }
+        return result;
+    }
+    
+    private com.google.cloud.firestore.Query where(com.google.cloud.firestore.Query query, Query.Filter filter) {
+        Object value = toFirestoreValue(filter.getValue());
+        if (FieldPath.DOCUMENT_ID.equals(filter.getField())) {
+            com.google.cloud.firestore.FieldPath id = com.google.cloud.firestore.FieldPath.documentId();
+            switch (filter.getOperator()) {
+                case EQUAL: return query.whereEqualTo(id, value);
+                case NOT_EQUAL: return query.whereNotEqualTo(id, value);
+                case LESS_THAN: return query.whereLessThan(id, value);
+                case LESS_THAN_OR_EQUAL: return query.whereLessThanOrEqualTo(id, value);
+                case GREATER_THAN: return query.whereGreaterThan(id, value);
+                case GREATER_THAN_OR_EQUAL: return query.whereGreaterThanOrEqualTo(id, value);
+                case IN: return query.whereIn(id, (List<?>) value);
+                default: throw new IllegalArgumentException("Unsupported document id filter " + filter);
+            }
+        }
+        String field = filter.getField();
+        switch (filter.getOperator()) {
+            case EQUAL: return query.whereEqualTo(field, value);
+            case NOT_EQUAL: return query.whereNotEqualTo(field, value);
+            case LESS_THAN: return query.whereLessThan(field, value);
+            case LESS_THAN_OR_EQUAL: return query.whereLessThanOrEqualTo(field, value);
+            case GREATER_THAN: return query.whereGreaterThan(field, value);
+            case GREATER_THAN_OR_EQUAL: return query.whereGreaterThanOrEqualTo(field, value);
+            case IN: return query.whereIn(field, (List<?>) value);
+            case ARRAY_CONTAINS: return query.whereArrayContains(field, value);
+            default: throw new IllegalArgumentException("Unsupported filter " + filter);
+        }
+    }
+    
+    private void apply(com.google.cloud.firestore.WriteBatch batch, Write write) {
+        com.google.cloud.firestore.DocumentReference reference = toFirestore(write.getReference());
+        Map<String, Object> fields = toFirestoreFields(write.getFields());
+        switch (write.getKind()) {
+            case SET: batch.set(reference, fields); break;
+            case MERGE: batch.set(reference, fields, com.google.cloud.firestore.SetOptions.merge()); break;
+            case UPDATE: batch.update(reference, fields); break;
+            case CREATE: batch.create(reference, fields); break;
+            case DELETE: batch.delete(reference); break;
+            default: throw new IllegalArgumentException("Unsupported write " + write);
+        }
+    }
+    
+    private void apply(com.google.cloud.firestore.Transaction transaction, Write write) {
+        com.google.cloud.firestore.DocumentReference reference = toFirestore(write.getReference());
+        Map<String, Object> fields = toFirestoreFields(write.getFields());
+        switch (write.getKind()) {
+            case SET: transaction.set(reference, fields); break;
+            case MERGE: transaction.set(reference, fields, com.google.cloud.firestore.SetOptions.merge()); break;
+            case UPDATE: transaction.update(reference, fields); break;
+            case CREATE: transaction.create(reference, fields); break;
+            case DELETE: transaction.delete(reference); break;
+            default: throw new IllegalArgumentException("Unsupported write " + write);
+        }
+    }
+    
+    private Map<String, Object> toFirestoreFields(Map<String, Object> fields) {
+        Map<String, Object> converted = new HashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            converted.put(field.getKey(), toFirestoreValue(field.getValue()));
+        }
+        return converted;
+    }
+    
+    private List<Object> toFirestoreValues(List<?> values) {
+        List<Object> converted = new ArrayList<>(values.size());
+        for (Object value : values) {
+            converted.add(toFirestoreValue(value));
+        }
+        return converted;
+    }
+    
+    /**
+     * Our sentinels and references as Firestore's; everything else is passed as is
+     */
+    @SuppressWarnings("unchecked")
+    private Object toFirestoreValue(Object value) {
+        if (value instanceof FieldValue) {
+            FieldValue sentinel = (FieldValue) value;
+            if (sentinel.getKind() == FieldValue.Kind.DELETE) {
+                return com.google.cloud.firestore.FieldValue.delete();
+            }
+            Number operand = sentinel.getOperand();
+            return operand instanceof Long
+                ? com.google.cloud.firestore.FieldValue.increment(operand.longValue())
+                : com.google.cloud.firestore.FieldValue.increment(operand.doubleValue());
+        }
+        if (value instanceof DocumentReference) {
+            return toFirestore((DocumentReference) value);
+        }
+        if (value instanceof Map) {
+            return toFirestoreFields((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            return toFirestoreValues((List<?>) value);
+        }
+        return value;
+    }
+    
+    // ---- Translation from Firestore ----
+    
+    private static DocumentSnapshot fromFirestore(DocumentReference reference, com.google.cloud.firestore.DocumentSnapshot snapshot) {
+        return snapshot.exists()
+            ? new DocumentSnapshot(reference, snapshot.getData())
+            : DocumentSnapshot.missing(reference);
+    }
+    
+    private QuerySnapshot fromFirestore(Query query, com.google.cloud.firestore.QuerySnapshot snapshot) {
+        List<QueryDocumentSnapshot> documents = new ArrayList<>(snapshot.size());
+        for (com.google.cloud.firestore.QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            documents.add(new QueryDocumentSnapshot(
+                new DocumentReference(query.getStore(), query.getCollectionPath(), document.getId()), document.getData()));
+        }
+        return new QuerySnapshot(documents);
+    }
+    
+    private static List<WriteResult> fromFirestore(List<com.google.cloud.firestore.WriteResult> results) {
+        List<WriteResult> converted = new ArrayList<>(results.size());
+        for (com.google.cloud.firestore.WriteResult result : results) {
+            com.google.cloud.Timestamp updateTime = result.getUpdateTime();
+            converted.add(new WriteResult(updateTime != null
+                ? Instant.ofEpochSecond(updateTime.getSeconds(), updateTime.getNanos())
+                : null));
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,653 @@
+package com.artexchange.dao.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A {@link DocumentStore} held in memory, standing in for Firestore when the
+ * application, a load test or a benchmark runs without credentials or network.
+ *
+ * Documents of a collection are kept in a concurrent map sorted by id and are
+ * replaced, never modified, so reads take no locks. Commits are applied under
+ * one lock, each with a new version number; a transaction records the
+ * versions it read and commits only if none of them changed, otherwise it is
+ * run again, up to five attempts as in the Firestore client. Values are
+ * converted to Firestore's types on write, and queries follow Firestore's
+ * semantics for filters, ordering, cursors and documents missing a field.
+ * Queries scan their collection, so they cost time in proportion to its size.
+ *
+ * Every call waits for a delay drawn from the {@link LatencyModel} before it
+ * completes; with {@link LatencyModel#none()} calls complete on the calling thread.
+ */
+public class InMemoryDocumentStore implements DocumentStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryDocumentStore.class);
+    private static final int MAX_TRANSACTION_ATTEMPTS = 5;
+    
+    /** Fields of a document (unmodifiable, normalized) and the commit that wrote them */
+    private static final class StoredDocument {
+        final Map<String, Object> fields;
+        final long version;
+        
+        StoredDocument(Map<String, Object> fields, long version) {
+            this.fields = fields;
+            this.version = version;
+        }
+    }
+    
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<String, StoredDocument>> collections = new ConcurrentHashMap<>();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private long lastVersion; // guarded by commitLock
+    private final LatencyModel latency;
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2, daemon("memory-store-latency"));
+    private final ExecutorService transactionExecutor = Executors.newCachedThreadPool(daemon("memory-store-transaction"));
+    
+    public InMemoryDocumentStore() {
+        this(LatencyModel.none());
+    }
+    
+    public InMemoryDocumentStore(LatencyModel latency) {
+        this.latency = latency;
+    }
+    
+    @Override
+    public CompletableFuture<List<DocumentSnapshot>> getAll(List<DocumentReference> references) {
+        return respond(LatencyModel.Operation.LOOKUP, () -> lookup(references, null));
+    }
+    
+    @Override
+    public CompletableFuture<QuerySnapshot> query(Query query) {
+        return respond(LatencyModel.Operation.QUERY, () -> new QuerySnapshot(run(query, null)));
+    }
+    
+    @Override
+    public CompletableFuture<AggregateQuerySnapshot> aggregate(AggregateQuery query) {
+        return respond(LatencyModel.Operation.AGGREGATION, () -> aggregate(query, run(query.getQuery(), null)));
+    }
+    
+    @Override
+    public CompletableFuture<List<WriteResult>> commit(List<Write> writes) {
+        return respond(LatencyModel.Operation.COMMIT, () -> {
+            commitLock.lock();
+            try {
+                return apply(writes);
+            } finally {
+                commitLock.unlock();
+            }
+        });
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> runTransaction(Transaction.Function<T> function) {
+        return CompletableFuture.supplyAsync(() -> runTransactionAttempts(function), transactionExecutor);
+    }
+    
+    /**
+     * Stop the latency and transaction threads
+     */
+    public void close() {
+        timer.shutdownNow();
+        transactionExecutor.shutdownNow();
+    }
+    
+    /**
+     * Number of documents in a collection
+     */
+    public int size(String collectionPath) {
+        NavigableMap<String, StoredDocument> documents = collections.get(collectionPath);
+        return documents != null ? documents.size() : 0;
+    }
+    
+    // ---- Transactions ----
+    
+    private final class MemoryTransaction extends Transaction {
+        /** Version of each document read; 0 for one that did not exist */
+        final Map<String, Long> readVersions = new HashMap<>();
+        
+        @Override
+        protected CompletableFuture<List<DocumentSnapshot>> lookup(List<DocumentReference> references) {
+            pause(latency.nextDelayNanos(LatencyModel.Operation.LOOKUP));
+            return CompletableFuture.completedFuture(InMemoryDocumentStore.this.lookup(references, readVersions));
+        }
+        
+        @Override
+        protected CompletableFuture<QuerySnapshot> runQuery(Query query) {
+            pause(latency.nextDelayNanos(LatencyModel.Operation.QUERY));
+            return CompletableFuture.completedFuture(new QuerySnapshot(run(query, readVersions)));
+        }
+        
+        boolean readsAreCurrent() {
+            for (Map.Entry<String, Long> read : readVersions.entrySet()) {
+                String path = read.getKey();
+                int slash = path.lastIndexOf('/');
+                StoredDocument current = storedDocument(path.substring(0, slash), path.substring(slash + 1));
+                if ((current != null ? current.version : 0L) != read.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private <T> T runTransactionAttempts(Transaction.Function<T> function) {
+        for (int attempt = 1; ; attempt++) {
+            MemoryTransaction transaction = new MemoryTransaction();
+            T result;
+            try {
+                result = function.updateCallback(transaction);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            
+            pause(latency.nextDelayNanos(LatencyModel.Operation.COMMIT));
+            commitLock.lock();
+            try {
+                if (transaction.readsAreCurrent()) {
+                    apply(transaction.getWrites());
+                    return result;
+                }
+            } finally {
+                commitLock.unlock();
+            }
+            
+            if (attempt == MAX_TRANSACTION_ATTEMPTS) {
+                throw new DocumentStoreException(DocumentStoreException.Code.ABORTED,
+                    "Transaction conflicted with concurrent writes " + attempt + " times");
+            }
+            logger.debug("Transaction attempt {} conflicted with a concurrent write, retrying", attempt);
+            // Randomized backoff so contending transactions do not retry in lockstep
+            pause(TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextInt(1, 1 << attempt)));
+        }
+    }
+    
+    // ---- Reads ----
+    
+    private StoredDocument storedDocument(String collectionPath, String id) {
+        ConcurrentSkipListMap<String, StoredDocument> documents = collections.get(collectionPath);
+        return documents != null ? documents.get(id) : null;
+    }
+    
+    private List<DocumentSnapshot> lookup(List<DocumentReference> references, Map<String, Long> readVersions) {
+        List<DocumentSnapshot> snapshots = new ArrayList<>(references.size());
+        for (DocumentReference reference : references) {
+            StoredDocument stored = storedDocument(reference.getCollectionPath(), reference.getId());
+            if (readVersions != null) {
+                readVersions.put(reference.getPath(), stored != null ? stored.version : 0L);
+            }
+            snapshots.add(stored != null
+                ? new DocumentSnapshot(reference, stored.fields)
+                : DocumentSnapshot.missing(reference));
+        }
+        return snapshots;
+    }
+    
+    private List<QueryDocumentSnapshot> run(Query query, Map<String, Long> readVersions) {
+        ConcurrentSkipListMap<String, StoredDocument> documents = collections.get(query.getCollectionPath());
+        if (documents == null) {
+            return Collections.emptyList();
+        }
+        
+        List<Query.Filter> filters = new ArrayList<>();
+        for (Query.Filter filter : query.getFilters()) {
+            filters.add(new Query.Filter(filter.getField(), filter.getOperator(), normalizeOperand(filter)));
+        }
+        List<Query.Order> orders = effectiveOrders(query);
+        
+        // Documents come out of the map in id order, which is the order when nothing else is asked for
+        List<Map.Entry<String, StoredDocument>> matches = new ArrayList<>();
+        for (Map.Entry<String, StoredDocument> entry : documents.entrySet()) {
+            if (matches(entry.getKey(), entry.getValue().fields, filters) && hasOrderFields(entry.getValue().fields, orders)) {
+                matches.add(entry);
+            }
+        }
+        if (orders.size() > 1 || orders.get(0).getDirection() == Query.Direction.DESCENDING) {
+            matches.sort(comparator(orders));
+        }
+        
+        List<Object> cursor = query.getStartAfter();
+        int start = 0;
+        if (cursor != null) {
+            List<Object> position = new ArrayList<>(cursor.size());
+            for (int i = 0; i < cursor.size(); i++) {
+                Object value = cursor.get(i);
+                if (FieldPath.DOCUMENT_ID.equals(orders.get(i).getField()) && value instanceof DocumentReference) {
+                    value = ((DocumentReference) value).getId();
+                }
+                position.add(DocumentValues.normalize(value));
+            }
+            while (start < matches.size() && compareToCursor(matches.get(start), position, orders) <= 0) {
+                start++;
+            }
+        }
+        start += query.getOffset();
+        int end = query.getLimit() >= 0 ? Math.min(matches.size(), start + query.getLimit()) : matches.size();
+        
+        List<QueryDocumentSnapshot> results = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            Map.Entry<String, StoredDocument> match = matches.get(i);
+            if (readVersions != null) {
+                readVersions.put(query.getCollectionPath() + "/" + match.getKey(), match.getValue().version);
+            }
+            Map<String, Object> fields = match.getValue().fields;
+            if (query.getSelectedFields() != null) {
+                fields = project(fields, query.getSelectedFields());
+            }
+            results.add(new QueryDocumentSnapshot(
+                new DocumentReference(query.getStore(), query.getCollectionPath(), match.getKey()), fields));
+        }
+        return results;
+    }
+    
+    private static Object normalizeOperand(Query.Filter filter) {
+        Object value = filter.getValue();
+        if (FieldPath.DOCUMENT_ID.equals(filter.getField())) {
+            if (filter.getOperator() == Query.Operator.IN) {
+                List<Object> ids = new ArrayList<>();
+                for (Object element : (List<?>) value) {
+                    ids.add(element instanceof DocumentReference ? ((DocumentReference) element).getId() : element);
+                }
+                return ids;
+            }
+            return value instanceof DocumentReference ? ((DocumentReference) value).getId() : value;
+        }
+        return DocumentValues.normalize(value);
+    }
+    
+    /**
+     * The orderBy clauses, then (as Firestore adds them) the first inequality
+     * field if nothing is ordered and the document id
+     */
+    private static List<Query.Order> effectiveOrders(Query query) {
+        List<Query.Order> orders = new ArrayList<>(query.getOrders());
+        if (orders.isEmpty()) {
+            for (Query.Filter filter : query.getFilters()) {
+                if (filter.getOperator().isInequality()) {
+                    orders.add(new Query.Order(filter.getField(), Query.Direction.ASCENDING));
+                    break;
+                }
+            }
+        }
+        boolean byId = false;
+        for (Query.Order order : orders) {
+            byId |= FieldPath.DOCUMENT_ID.equals(order.getField());
+        }
+        if (!byId) {
+            Query.Direction last = orders.isEmpty() ? Query.Direction.ASCENDING : orders.get(orders.size() - 1).getDirection();
+            orders.add(new Query.Order(FieldPath.DOCUMENT_ID, last));
+        }
+        return orders;
+    }
+    
+    private static Object fieldValue(String id, Map<String, Object> fields, String field) {
+        return FieldPath.DOCUMENT_ID.equals(field) ? id : DocumentValues.getPath(fields, field);
+    }
+    
+    private static boolean matches(String id, Map<String, Object> fields, List<Query.Filter> filters) {
+        for (Query.Filter filter : filters) {
+            String field = filter.getField();
+            boolean present = FieldPath.DOCUMENT_ID.equals(field) || DocumentValues.containsPath(fields, field);
+            if (!present) {
+                return false;
+            }
+            Object value = fieldValue(id, fields, field);
+            Object operand = filter.getValue();
+            boolean match;
+            switch (filter.getOperator()) {
+                case EQUAL:
+                    match = DocumentValues.isEqual(value, operand);
+                    break;
+                case NOT_EQUAL:
+                    match = value != null && !DocumentValues.isEqual(value, operand);
+                    break;
+                case LESS_THAN:
+                    match = DocumentValues.comparable(value, operand) && DocumentValues.compare(value, operand) < 0;
+                    break;
+                case LESS_THAN_OR_EQUAL:
+                    match = DocumentValues.comparable(value, operand) && DocumentValues.compare(value, operand) <= 0;
+                    break;
+                case GREATER_THAN:
+                    match = DocumentValues.comparable(value, operand) && DocumentValues.compare(value, operand) > 0;
+                    break;
+                case GREATER_THAN_OR_EQUAL:
+                    match = DocumentValues.comparable(value, operand) && DocumentValues.compare(value, operand) >= 0;
+                    break;
+                case IN:
+                    match = false;
+                    for (Object candidate : (List<?>) operand) {
+                        if (DocumentValues.isEqual(value, candidate)) {
+                            match = true;
+                            break;
+                        }
+                    }
+                    break;
+                case ARRAY_CONTAINS:
+                    match = false;
+                    if (value instanceof List) {
+                        for (Object element : (List<?>) value) {
+                            if (DocumentValues.isEqual(element, operand)) {
+                                match = true;
+                                break;
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator " + filter.getOperator());
+            }
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Firestore leaves out documents that lack a field the query is ordered by
+     */
+    private static boolean hasOrderFields(Map<String, Object> fields, List<Query.Order> orders) {
+        for (Query.Order order : orders) {
+            if (!FieldPath.DOCUMENT_ID.equals(order.getField()) && !DocumentValues.containsPath(fields, order.getField())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static Comparator<Map.Entry<String, StoredDocument>> comparator(List<Query.Order> orders) {
+        return (a, b) -> {
+            for (Query.Order order : orders) {
+                int c = DocumentValues.compare(
+                    fieldValue(a.getKey(), a.getValue().fields, order.getField()),
+                    fieldValue(b.getKey(), b.getValue().fields, order.getField()));
+                if (c != 0) {
+                    return order.getDirection() == Query.Direction.DESCENDING ? -c : c;
+                }
+            }
+            return 0;
+        };
+    }
+    
+    private static int compareToCursor(Map.Entry<String, StoredDocument> document, List<Object> position, List<Query.Order> orders) {
+        for (int i = 0; i < position.size(); i++) {
+            Query.Order order = orders.get(i);
+            int c = DocumentValues.compare(fieldValue(document.getKey(), document.getValue().fields, order.getField()), position.get(i));
+            if (c != 0) {
+                return order.getDirection() == Query.Direction.DESCENDING ? -c : c;
+            }
+        }
+        return 0;
+    }
+    
+    private static Map<String, Object> project(Map<String, Object> fields, List<String> selected) {
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : selected) {
+            if (DocumentValues.containsPath(fields, field)) {
+                String[] segments = field.split("\\.");
+                Map<String, Object> parent = projected;
+                for (int i = 0; i < segments.length - 1; i++) {
+                    parent = childMap(parent, segments[i]);
+                }
+                parent.put(segments[segments.length - 1], DocumentValues.getPath(fields, field));
+            }
+        }
+        return projected;
+    }
+    
+    private static AggregateQuerySnapshot aggregate(AggregateQuery query, List<QueryDocumentSnapshot> documents) {
+        Map<AggregateField, Number> values = new HashMap<>();
+        for (AggregateField field : query.getFields()) {
+            if (field.getKind() == AggregateField.Kind.COUNT) {
+                values.put(field, (long) documents.size());
+                continue;
+            }
+            long longSum = 0;
+            double doubleSum = 0;
+            boolean integral = true;
+            for (QueryDocumentSnapshot document : documents) {
+                Object value = DocumentValues.getPath(document.rawData(), field.getField());
+                if (value instanceof Long && integral) {
+                    long addend = (Long) value;
+                    long sum = longSum + addend;
+                    if (((longSum ^ sum) & (addend ^ sum)) < 0) {
+                        // Overflow: continue in floating point, as Firestore does
+                        integral = false;
+                        doubleSum = (double) longSum + addend;
+                    } else {
+                        longSum = sum;
+                    }
+                } else if (value instanceof Number) {
+                    if (integral) {
+                        integral = false;
+                        doubleSum = longSum;
+                    }
+                    doubleSum += ((Number) value).doubleValue();
+                }
+            }
+            values.put(field, integral ? (Number) longSum : (Number) doubleSum);
+        }
+        return new AggregateQuerySnapshot(values);
+    }
+    
+    // ---- Writes ----
+    
+    /**
+     * Apply a commit; the caller holds the commit lock. Nothing is changed if any write fails.
+     */
+    private List<WriteResult> apply(List<Write> writes) {
+        // Resolve every write against the documents as earlier writes of this commit left them
+        Map<String, Map<String, Object>> updated = new LinkedHashMap<>();
+        Map<String, DocumentReference> references = new HashMap<>();
+        for (Write write : writes) {
+            DocumentReference reference = write.getReference();
+            String path = reference.getPath();
+            Map<String, Object> current;
+            if (updated.containsKey(path)) {
+                current = updated.get(path);
+            } else {
+                StoredDocument stored = storedDocument(reference.getCollectionPath(), reference.getId());
+                current = stored != null ? stored.fields : null;
+            }
+            
+            Map<String, Object> next;
+            switch (write.getKind()) {
+                case SET:
+                    next = resolveAll(write.getFields());
+                    break;
+                case CREATE:
+                    if (current != null) {
+                        throw new DocumentStoreException(DocumentStoreException.Code.ALREADY_EXISTS, "Document already exists: " + path);
+                    }
+                    next = resolveAll(write.getFields());
+                    break;
+                case MERGE:
+                    next = current != null ? DocumentValues.copyMap(current) : new HashMap<>();
+                    merge(next, write.getFields());
+                    break;
+                case UPDATE:
+                    if (current == null) {
+                        throw new DocumentStoreException(DocumentStoreException.Code.NOT_FOUND, "No document to update: " + path);
+                    }
+                    next = DocumentValues.copyMap(current);
+                    for (Map.Entry<String, Object> field : write.getFields().entrySet()) {
+                        String[] segments = field.getKey().split("\\.");
+                        Map<String, Object> parent = next;
+                        for (int i = 0; i < segments.length - 1; i++) {
+                            parent = childMap(parent, segments[i]);
+                        }
+                        put(parent, segments[segments.length - 1], field.getValue());
+                    }
+                    break;
+                case DELETE:
+                    next = null;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported write " + write);
+            }
+            updated.put(path, next);
+            references.put(path, reference);
+        }
+        
+        List<Map<String, Object>> normalized = new ArrayList<>(updated.size());
+        for (Map<String, Object> fields : updated.values()) {
+            normalized.add(fields != null ? normalizeDocument(fields) : null);
+        }
+        
+        long version = ++lastVersion;
+        int i = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : updated.entrySet()) {
+            DocumentReference reference = references.get(entry.getKey());
+            Map<String, Object> fields = normalized.get(i++);
+            if (fields == null) {
+                ConcurrentSkipListMap<String, StoredDocument> documents = collections.get(reference.getCollectionPath());
+                if (documents != null) {
+                    documents.remove(reference.getId());
+                }
+            } else {
+                collections.computeIfAbsent(reference.getCollectionPath(), path -> new ConcurrentSkipListMap<>())
+                    .put(reference.getId(), new StoredDocument(fields, version));
+            }
+        }
+        
+        Instant now = Instant.now();
+        List<WriteResult> results = new ArrayList<>(writes.size());
+        for (int w = 0; w < writes.size(); w++) {
+            results.add(new WriteResult(now));
+        }
+        return results;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> normalizeDocument(Map<String, Object> fields) {
+        return (Map<String, Object>) DocumentValues.normalize(fields);
+    }
+    
+    /**
+     * Fields of a replacing write, with increments taken as their operand
+     */
+    private static Map<String, Object> resolveAll(Map<String, Object> fields) {
+        Map<String, Object> resolved = new HashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            put(resolved, field.getKey(), field.getValue());
+        }
+        return resolved;
+    }
+    
+    /**
+     * Merge fields into a document, recursing into nested maps
+     */
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> target, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof Map && !(target.get(field.getKey()) instanceof Map)) {
+                target.put(field.getKey(), new HashMap<>());
+            }
+            if (value instanceof Map) {
+                merge((Map<String, Object>) target.get(field.getKey()), (Map<String, Object>) value);
+            } else {
+                put(target, field.getKey(), value);
+            }
+        }
+    }
+    
+    /**
+     * Store a value under a key, applying a {@link FieldValue} sentinel to what is there
+     */
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> target, String key, Object value) {
+        if (value instanceof FieldValue) {
+            FieldValue sentinel = (FieldValue) value;
+            if (sentinel.getKind() == FieldValue.Kind.DELETE) {
+                target.remove(key);
+            } else {
+                target.put(key, increment(target.get(key), sentinel.getOperand()));
+            }
+        } else if (value instanceof Map) {
+            target.put(key, resolveAll((Map<String, Object>) value));
+        } else {
+            target.put(key, value);
+        }
+    }
+    
+    private static Number increment(Object current, Number operand) {
+        if (!(current instanceof Number)) {
+            return operand;
+        }
+        Number base = (Number) current;
+        boolean integral = (base instanceof Long || base instanceof Integer) && operand instanceof Long;
+        return integral ? (Number) (base.longValue() + operand.longValue()) : (Number) (base.doubleValue() + operand.doubleValue());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> childMap(Map<String, Object> parent, String key) {
+        Object child = parent.get(key);
+        if (!(child instanceof Map)) {
+            child = new HashMap<String, Object>();
+            parent.put(key, child);
+        }
+        return (Map<String, Object>) child;
+    }
+    
+    // ---- Latency ----
+    
+    private <T> CompletableFuture<T> respond(LatencyModel.Operation operation, Supplier<T> call) {
+        long delay = latency.nextDelayNanos(operation);
+        if (delay <= 0) {
+            try {
+                return CompletableFuture.completedFuture(call.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        timer.schedule(() -> {
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+        return result;
+    }
+    
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.artexchange.dao.store;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Round-trip delay the {@link InMemoryDocumentStore} adds to each call, so
+ * load tests see the request fan-out costs a network database would impose
+ */
+@FunctionalInterface
+public interface LatencyModel {
+    
+    enum Operation { LOOKUP, QUERY, AGGREGATION, COMMIT }
+    
+    /**
+     * Delay in nanoseconds for the next call of the given kind
+     */
+    long nextDelayNanos(Operation operation);
+    
+    static LatencyModel none() {
+        return operation -> 0L;
+    }
+    
+    static LatencyModel fixed(Duration delay) {
+        long nanos = delay.toNanos();
+        return operation -> nanos;
+    }
+    
+    /**
+     * Log-normally distributed delays with the given median and 99th percentile,
+     * the long-tailed shape of real network round trips
+     */
+    static LatencyModel logNormal(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 " + p99 + " is below the median " + median);
+        }
+        double mu = Math.log(median.toNanos());
+        // 2.326 is the standard normal's 99th percentile
+        double sigma = median.isZero() ? 0 : Math.log((double) p99.toNanos() / median.toNanos()) / 2.326;
+        return operation -> median.isZero() ? 0L
+            : (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+    
+    /**
+     * From -Dartexchange.store.latency.medianMs and -Dartexchange.store.latency.p99Ms
+     * (defaults 0 and twice the median); none if the median is 0
+     */
+    static LatencyModel fromSystemProperties() {
+        long medianMs = Long.getLong("artexchange.store.latency.medianMs", 0L);
+        if (medianMs <= 0) {
+            return none();
+        }
+        long p99Ms = Long.getLong("artexchange.store.latency.p99Ms", medianMs * 2);
+        return logNormal(Duration.ofMillis(medianMs), Duration.ofMillis(Math.max(p99Ms, medianMs)));
+    }
+}
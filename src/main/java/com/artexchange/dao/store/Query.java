@@ -0,0 +1,239 @@
+package com.artexchange.dao.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An immutable query over one collection: filters, ordering, a startAfter
+ * cursor, offset, limit and an optional field projection. Each builder
+ * method returns a new query.
+ */
+public class Query {
+    
+    public enum Direction { ASCENDING, DESCENDING }
+    
+    public enum Operator {
+        EQUAL, NOT_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL, IN, ARRAY_CONTAINS;
+        
+        public boolean isInequality() {
+            return this == NOT_EQUAL || this == LESS_THAN || this == LESS_THAN_OR_EQUAL
+                || this == GREATER_THAN || this == GREATER_THAN_OR_EQUAL;
+        }
+    }
+    
+    /**
+     * One where clause; the field is a dot-separated path or {@link FieldPath#DOCUMENT_ID}
+     */
+    public static final class Filter {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+        
+        Filter(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+        
+        public String getField() { return field; }
+        public Operator getOperator() { return operator; }
+        public Object getValue() { return value; }
+        
+        @Override
+        public String toString() {
+            return field + " " + operator + " " + value;
+        }
+    }
+    
+    public static final class Order {
+        private final String field;
+        private final Direction direction;
+        
+        Order(String field, Direction direction) {
+            this.field = field;
+            this.direction = direction;
+        }
+        
+        public String getField() { return field; }
+        public Direction getDirection() { return direction; }
+        
+        @Override
+        public String toString() {
+            return field + " " + direction;
+        }
+    }
+    
+    private final DocumentStore store;
+    private final String collectionPath;
+    private final List<Filter> filters;
+    private final List<Order> orders;
+    private final List<Object> startAfter;
+    private final List<String> selectedFields;
+    private final int offset;
+    private final int limit;
+    
+    Query(DocumentStore store, String collectionPath) {
+        this(store, collectionPath, Collections.emptyList(), Collections.emptyList(), null, null, 0, -1);
+    }
+    
+    private Query(DocumentStore store, String collectionPath, List<Filter> filters, List<Order> orders,
+                  List<Object> startAfter, List<String> selectedFields, int offset, int limit) {
+        this.store = store;
+        this.collectionPath = collectionPath;
+        this.filters = filters;
+        this.orders = orders;
+        this.startAfter = startAfter;
+        this.selectedFields = selectedFields;
+        this.offset = offset;
+        this.limit = limit;
+    }
+    
+    public Query whereEqualTo(String field, Object value) {
+        return where(field, Operator.EQUAL, value);
+    }
+    
+    public Query whereEqualTo(FieldPath field, Object value) {
+        return where(field.toString(), Operator.EQUAL, value);
+    }
+    
+    public Query whereNotEqualTo(String field, Object value) {
+        return where(field, Operator.NOT_EQUAL, value);
+    }
+    
+    public Query whereLessThan(String field, Object value) {
+        return where(field, Operator.LESS_THAN, value);
+    }
+    
+    public Query whereLessThanOrEqualTo(String field, Object value) {
+        return where(field, Operator.LESS_THAN_OR_EQUAL, value);
+    }
+    
+    public Query whereGreaterThan(String field, Object value) {
+        return where(field, Operator.GREATER_THAN, value);
+    }
+    
+    public Query whereGreaterThanOrEqualTo(String field, Object value) {
+        return where(field, Operator.GREATER_THAN_OR_EQUAL, value);
+    }
+    
+    public Query whereGreaterThanOrEqualTo(FieldPath field, Object value) {
+        return where(field.toString(), Operator.GREATER_THAN_OR_EQUAL, value);
+    }
+    
+    public Query whereLessThan(FieldPath field, Object value) {
+        return where(field.toString(), Operator.LESS_THAN, value);
+    }
+    
+    public Query whereIn(String field, List<? extends Object> values) {
+        return where(field, Operator.IN, Collections.unmodifiableList(new ArrayList<>(values)));
+    }
+    
+    public Query whereIn(FieldPath field, List<? extends Object> values) {
+        return whereIn(field.toString(), values);
+    }
+    
+    public Query whereArrayContains(String field, Object value) {
+        return where(field, Operator.ARRAY_CONTAINS, value);
+    }
+    
+    private Query where(String field, Operator operator, Object value) {
+        if (FieldPath.DOCUMENT_ID.equals(field) && value instanceof DocumentReference) {
+            value = ((DocumentReference) value).getId();
+        }
+        List<Filter> newFilters = new ArrayList<>(filters);
+        newFilters.add(new Filter(field, operator, value));
+        return new Query(store, collectionPath, Collections.unmodifiableList(newFilters), orders,
+            startAfter, selectedFields, offset, limit);
+    }
+    
+    public Query orderBy(String field) {
+        return orderBy(field, Direction.ASCENDING);
+    }
+    
+    public Query orderBy(FieldPath field) {
+        return orderBy(field.toString(), Direction.ASCENDING);
+    }
+    
+    public Query orderBy(FieldPath field, Direction direction) {
+        return orderBy(field.toString(), direction);
+    }
+    
+    public Query orderBy(String field, Direction direction) {
+        List<Order> newOrders = new ArrayList<>(orders);
+        newOrders.add(new Order(field, direction));
+        return new Query(store, collectionPath, filters, Collections.unmodifiableList(newOrders),
+            startAfter, selectedFields, offset, limit);
+    }
+    
+    /**
+     * Start after the position given by values of the orderBy fields, in order;
+     * fewer values than orderBy fields compare on a prefix
+     */
+    public Query startAfter(Object... values) {
+        if (values.length == 0 || values.length > orders.size()) {
+            throw new IllegalArgumentException("startAfter needs one value per orderBy field, got " + values.length
+                + " for " + orders.size());
+        }
+        return new Query(store, collectionPath, filters, orders,
+            Collections.unmodifiableList(Arrays.asList(values.clone())), selectedFields, offset, limit);
+    }
+    
+    public Query offset(int offset) {
+        return new Query(store, collectionPath, filters, orders, startAfter, selectedFields, offset, limit);
+    }
+    
+    public Query limit(int limit) {
+        return new Query(store, collectionPath, filters, orders, startAfter, selectedFields, offset, limit);
+    }
+    
+    /**
+     * Return only these fields of each document
+     */
+    public Query select(String... fields) {
+        return new Query(store, collectionPath, filters, orders, startAfter,
+            Collections.unmodifiableList(Arrays.asList(fields.clone())), offset, limit);
+    }
+    
+    public CompletableFuture<QuerySnapshot> get() {
+        return store.query(this);
+    }
+    
+    public AggregateQuery count() {
+        return new AggregateQuery(this, List.of(AggregateField.count()));
+    }
+    
+    public AggregateQuery aggregate(AggregateField field, AggregateField... moreFields) {
+        List<AggregateField> fields = new ArrayList<>();
+        fields.add(field);
+        fields.addAll(Arrays.asList(moreFields));
+        return new AggregateQuery(this, fields);
+    }
+    
+    DocumentStore getStore() {
+        return store;
+    }
+    
+    public String getCollectionPath() { return collectionPath; }
+    public List<Filter> getFilters() { return filters; }
+    public List<Order> getOrders() { return orders; }
+    /** Cursor values, or null to start at the beginning */
+    public List<Object> getStartAfter() { return startAfter; }
+    /** Projected fields, or null for whole documents */
+    public List<String> getSelectedFields() { return selectedFields; }
+    public int getOffset() { return offset; }
+    /** Maximum number of results, or -1 for no limit */
+    public int getLimit() { return limit; }
+    
+    @Override
+    public String toString() {
+        return "Query{" + collectionPath
+            + (filters.isEmpty() ? "" : " where " + filters)
+            + (orders.isEmpty() ? "" : " orderBy " + orders)
+            + (startAfter == null ? "" : " startAfter " + startAfter)
+            + (offset == 0 ? "" : " offset " + offset)
+            + (limit < 0 ? "" : " limit " + limit) + "}";
+    }
+}
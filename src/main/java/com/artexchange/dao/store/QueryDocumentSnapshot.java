@@ -0,0 +1,16 @@
+package com.artexchange.dao.store;
+
+import java.util.Map;
+
+/**
+ * A document returned by a query; it always exists
+ */
+public class QueryDocumentSnapshot extends DocumentSnapshot {
+    
+    QueryDocumentSnapshot(DocumentReference reference, Map<String, Object> data) {
+        super(reference, data);
+        if (data == null) {
+            throw new IllegalArgumentException("A query result must have data");
+        }
+    }
+}
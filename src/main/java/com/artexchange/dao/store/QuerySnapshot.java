@@ -0,0 +1,33 @@
+package com.artexchange.dao.store;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The documents matching a query, in query order
+ */
+public final class QuerySnapshot implements Iterable<QueryDocumentSnapshot> {
+    private final List<QueryDocumentSnapshot> documents;
+    
+    QuerySnapshot(List<QueryDocumentSnapshot> documents) {
+        this.documents = Collections.unmodifiableList(documents);
+    }
+    
+    public List<QueryDocumentSnapshot> getDocuments() {
+        return documents;
+    }
+    
+    public int size() {
+        return documents.size();
+    }
+    
+    public boolean isEmpty() {
+        return documents.isEmpty();
+    }
+    
+    @Override
+    public Iterator<QueryDocumentSnapshot> iterator() {
+        return documents.iterator();
+    }
+}
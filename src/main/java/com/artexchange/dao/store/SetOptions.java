@@ -0,0 +1,26 @@
+package com.artexchange.dao.store;
+
+/**
+ * Options of a set() write
+ */
+public final class SetOptions {
+    private static final SetOptions MERGE = new SetOptions(true);
+    
+    private final boolean merge;
+    
+    private SetOptions(boolean merge) {
+        this.merge = merge;
+    }
+    
+    /**
+     * Merge the given fields, recursively through nested maps, into the existing
+     * document instead of replacing it
+     */
+    public static SetOptions merge() {
+        return MERGE;
+    }
+    
+    public boolean isMerge() {
+        return merge;
+    }
+}
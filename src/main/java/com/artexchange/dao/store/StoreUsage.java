@@ -0,0 +1,162 @@
+package com.artexchange.dao.store;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Document reads, writes and round trips made on behalf of one unit of work,
+ * usually an HTTP request, as counted by {@link AccountingDocumentStore}.
+ *
+ * A usage is bound to the thread that starts the work; operations issued on
+ * that thread are charged to it, including the reads and writes of a
+ * transaction whose function runs on another thread and those issued from
+ * continuations (thenCompose, exceptionallyCompose and the like) of a store
+ * future. Work handed to an executor of its own, such as a *Async stage with
+ * an explicit executor, is not charged. Reads are counted the way
+ * Firestore bills them: one per document returned, at least one per query.
+ */
+public final class StoreUsage {
+    private static final ThreadLocal<StoreUsage> CURRENT = new ThreadLocal<>();
+    
+    private long reads;
+    private long writes;
+    private long roundTrips;
+    private long transactions;
+    /** Lookups and queries per collection; a subcollection counts under its own name across parents */
+    private final Map<String, Integer> lookupsByCollection = new LinkedHashMap<>();
+    
+    /**
+     * Charge operations issued on this thread to a new usage until {@link #end()}
+     */
+    public static StoreUsage begin() {
+        StoreUsage usage = new StoreUsage();
+        CURRENT.set(usage);
+        return usage;
+    }
+    
+    /**
+     * The usage operations on this thread are charged to, or null
+     */
+    public static StoreUsage current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Stop charging this thread's operations to its usage
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+    
+    /**
+     * Run {@code work} with its operations charged to {@code usage}, on
+     * threads that carry out work for another, such as transaction functions
+     */
+    static <T> T callAs(StoreUsage usage, Transaction.Function<T> work, Transaction transaction) throws Exception {
+        StoreUsage previous = CURRENT.get();
+        CURRENT.set(usage);
+        try {
+            return work.updateCallback(transaction);
+        } finally {
+            restore(previous);
+        }
+    }
+    
+    /**
+     * Run {@code work} with its operations charged to {@code usage}, such as
+     * the completion of a store future and the continuations it triggers
+     */
+    static void runAs(StoreUsage usage, Runnable work) {
+        StoreUsage previous = CURRENT.get();
+        CURRENT.set(usage);
+        try {
+            work.run();
+        } finally {
+            restore(previous);
+        }
+    }
+    
+    private static void restore(StoreUsage previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+    
+    synchronized void recordLookup(List<DocumentReference> references) {
+        reads += references.size();
+        roundTrips++;
+        Set<String> collections = new HashSet<>();
+        for (DocumentReference reference : references) {
+            String collection = collectionName(reference.getCollectionPath());
+            if (collections.add(collection)) {
+                lookupsByCollection.merge(collection, 1, Integer::sum);
+            }
+        }
+    }
+    
+    synchronized void recordQuery(String collectionPath, int documents) {
+        reads += Math.max(1, documents);
+        roundTrips++;
+        lookupsByCollection.merge(collectionName(collectionPath), 1, Integer::sum);
+    }
+    
+    /**
+     * A call that failed; it read and wrote nothing
+     */
+    synchronized void recordRoundTrip() {
+        roundTrips++;
+    }
+    
+    synchronized void recordAggregation(String collectionPath) {
+        reads++;
+        roundTrips++;
+        lookupsByCollection.merge(collectionName(collectionPath), 1, Integer::sum);
+    }
+    
+    synchronized void recordCommit(int documents) {
+        writes += documents;
+        roundTrips++;
+    }
+    
+    synchronized void recordTransaction() {
+        transactions++;
+    }
+    
+    public synchronized long getReads() {
+        return reads;
+    }
+    
+    public synchronized long getWrites() {
+        return writes;
+    }
+    
+    public synchronized long getRoundTrips() {
+        return roundTrips;
+    }
+    
+    public synchronized long getTransactions() {
+        return transactions;
+    }
+    
+    /**
+     * Lookups and queries per collection, in the order the collections were first read
+     */
+    public synchronized Map<String, Integer> getLookupsByCollection() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(lookupsByCollection));
+    }
+    
+    private static String collectionName(String collectionPath) {
+        return collectionPath.substring(collectionPath.lastIndexOf('/') + 1);
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return reads + " reads, " + writes + " writes, " + roundTrips + " round trips";
+    }
+}
@@ -0,0 +1,87 @@
+package com.artexchange.dao.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A read-modify-write transaction.
+ *
+ * Writes are collected and committed when the transaction function returns.
+ * As in Firestore, every read must come before the first write.
+ * Implementations supply the reads.
+ */
+public abstract class Transaction {
+    
+    @FunctionalInterface
+    public interface Function<T> {
+        T updateCallback(Transaction transaction) throws Exception;
+    }
+    
+    private final List<Write> writes = new ArrayList<>();
+    
+    protected abstract CompletableFuture<List<DocumentSnapshot>> lookup(List<DocumentReference> references);
+    
+    protected abstract CompletableFuture<QuerySnapshot> runQuery(Query query);
+    
+    public final CompletableFuture<DocumentSnapshot> get(DocumentReference reference) {
+        checkNoWrites();
+        return lookup(List.of(reference)).thenApply(documents -> documents.get(0));
+    }
+    
+    public final CompletableFuture<List<DocumentSnapshot>> getAll(DocumentReference... references) {
+        checkNoWrites();
+        return lookup(Arrays.asList(references));
+    }
+    
+    public final CompletableFuture<QuerySnapshot> get(Query query) {
+        checkNoWrites();
+        return runQuery(query);
+    }
+    
+    public Transaction set(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.set(reference, fields));
+        return this;
+    }
+    
+    public Transaction set(DocumentReference reference, Map<String, Object> fields, SetOptions options) {
+        writes.add(Write.set(reference, fields, options));
+        return this;
+    }
+    
+    public Transaction update(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.update(reference, fields));
+        return this;
+    }
+    
+    public Transaction update(DocumentReference reference, String field, Object value, Object... moreFieldsAndValues) {
+        writes.add(Write.update(reference, Write.fieldMap(field, value, moreFieldsAndValues)));
+        return this;
+    }
+    
+    public Transaction create(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.create(reference, fields));
+        return this;
+    }
+    
+    public Transaction delete(DocumentReference reference) {
+        writes.add(Write.delete(reference));
+        return this;
+    }
+    
+    /**
+     * Writes collected so far, for the implementation to commit
+     */
+    public List<Write> getWrites() {
+        return Collections.unmodifiableList(writes);
+    }
+    
+    private void checkNoWrites() {
+        if (!writes.isEmpty()) {
+            throw new IllegalStateException("Firestore transactions require all reads to be executed before all writes");
+        }
+    }
+}
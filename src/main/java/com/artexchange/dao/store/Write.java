@@ -0,0 +1,88 @@
+package com.artexchange.dao.store;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One document write of a commit, as handed to {@link DocumentStore#commit}
+ */
+public final class Write {
+    
+    public enum Kind {
+        /** Replace the document */
+        SET,
+        /** Merge the fields into the document (set with SetOptions.merge()), creating it if needed */
+        MERGE,
+        /** Replace fields of an existing document; keys are dot-separated field paths */
+        UPDATE,
+        /** Create a document that must not exist yet */
+        CREATE,
+        DELETE
+    }
+    
+    private final Kind kind;
+    private final DocumentReference reference;
+    private final Map<String, Object> fields;
+    
+    private Write(Kind kind, DocumentReference reference, Map<String, Object> fields) {
+        this.kind = kind;
+        this.reference = reference;
+        this.fields = fields != null ? Collections.unmodifiableMap(new LinkedHashMap<>(fields)) : Collections.emptyMap();
+    }
+    
+    static Write set(DocumentReference reference, Map<String, Object> fields) {
+        return new Write(Kind.SET, reference, fields);
+    }
+    
+    static Write set(DocumentReference reference, Map<String, Object> fields, SetOptions options) {
+        return new Write(options != null && options.isMerge() ? Kind.MERGE : Kind.SET, reference, fields);
+    }
+    
+    static Write update(DocumentReference reference, Map<String, Object> fields) {
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("An update needs at least one field");
+        }
+        return new Write(Kind.UPDATE, reference, fields);
+    }
+    
+    static Write create(DocumentReference reference, Map<String, Object> fields) {
+        return new Write(Kind.CREATE, reference, fields);
+    }
+    
+    static Write delete(DocumentReference reference) {
+        return new Write(Kind.DELETE, reference, null);
+    }
+    
+    static Map<String, Object> fieldMap(String field, Object value, Object... moreFieldsAndValues) {
+        if (moreFieldsAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Fields and values must come in pairs");
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(field, value);
+        for (int i = 0; i < moreFieldsAndValues.length; i += 2) {
+            fields.put((String) moreFieldsAndValues[i], moreFieldsAndValues[i + 1]);
+        }
+        return fields;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public DocumentReference getReference() {
+        return reference;
+    }
+    
+    /**
+     * Written fields, possibly holding {@link FieldValue} sentinels; empty for a delete
+     */
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+    
+    @Override
+    public String toString() {
+        return "Write{" + kind + " " + reference.getPath() + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package com.artexchange.dao.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes collected and committed atomically in one round trip
+ */
+public class WriteBatch {
+    private final DocumentStore store;
+    private final List<Write> writes = new ArrayList<>();
+    
+    WriteBatch(DocumentStore store) {
+        this.store = store;
+    }
+    
+    public WriteBatch set(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.set(reference, fields));
+        return this;
+    }
+    
+    public WriteBatch set(DocumentReference reference, Map<String, Object> fields, SetOptions options) {
+        writes.add(Write.set(reference, fields, options));
+        return this;
+    }
+    
+    public WriteBatch update(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.update(reference, fields));
+        return this;
+    }
+    
+    public WriteBatch update(DocumentReference reference, String field, Object value, Object... moreFieldsAndValues) {
+        writes.add(Write.update(reference, Write.fieldMap(field, value, moreFieldsAndValues)));
+        return this;
+    }
+    
+    public WriteBatch create(DocumentReference reference, Map<String, Object> fields) {
+        writes.add(Write.create(reference, fields));
+        return this;
+    }
+    
+    public WriteBatch delete(DocumentReference reference) {
+        writes.add(Write.delete(reference));
+        return this;
+    }
+    
+    public int getMutationsSize() {
+        return writes.size();
+    }
+    
+    public CompletableFuture<List<WriteResult>> commit() {
+        if (writes.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return store.commit(new ArrayList<>(writes));
+    }
+}
@@ -0,0 +1,18 @@
+package com.artexchange.dao.store;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one committed write
+ */
+public final class WriteResult {
+    private final Instant updateTime;
+    
+    public WriteResult(Instant updateTime) {
+        this.updateTime = updateTime;
+    }
+    
+    public Instant getUpdateTime() {
+        return updateTime;
+    }
+}
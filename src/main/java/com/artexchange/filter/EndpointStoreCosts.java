@@ -0,0 +1,91 @@
+package com.artexchange.filter;
+
+import com.artexchange.dao.store.StoreUsage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Document store usage summed per endpoint since startup (or the last reset),
+ * for ranking endpoints by what they cost in Firestore reads and writes.
+ */
+public final class EndpointStoreCosts {
+    private static final ConcurrentHashMap<String, Totals> endpoints = new ConcurrentHashMap<>();
+    
+    private EndpointStoreCosts() {
+    }
+    
+    private static final class Totals {
+        final LongAdder requests = new LongAdder();
+        final LongAdder reads = new LongAdder();
+        final LongAdder writes = new LongAdder();
+        final LongAdder roundTrips = new LongAdder();
+        final LongAdder transactions = new LongAdder();
+        final AtomicLong maxReads = new AtomicLong();
+        final AtomicLong maxRoundTrips = new AtomicLong();
+        /** Requests that looked up one collection more than the repeated-lookup threshold */
+        final LongAdder repeatedLookupRequests = new LongAdder();
+        /** Most lookups of each flagged collection seen in a single request */
+        final ConcurrentHashMap<String, Integer> repeatedCollections = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Add one request's usage; {@code repeated} holds the collections it
+     * looked up too many times, with their lookup counts
+     */
+    static void record(String endpoint, StoreUsage usage, Map<String, Integer> repeated) {
+        Totals totals = endpoints.computeIfAbsent(endpoint, k -> new Totals());
+        totals.requests.increment();
+        totals.reads.add(usage.getReads());
+        totals.writes.add(usage.getWrites());
+        totals.roundTrips.add(usage.getRoundTrips());
+        totals.transactions.add(usage.getTransactions());
+        totals.maxReads.accumulateAndGet(usage.getReads(), Math::max);
+        totals.maxRoundTrips.accumulateAndGet(usage.getRoundTrips(), Math::max);
+        if (!repeated.isEmpty()) {
+            totals.repeatedLookupRequests.increment();
+            repeated.forEach((collection, lookups) -> totals.repeatedCollections.merge(collection, lookups, Math::max));
+        }
+    }
+    
+    /**
+     * Per-endpoint totals, the endpoint with the most document reads first
+     */
+    public static List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        endpoints.forEach((endpoint, totals) -> {
+            long requests = totals.requests.sum();
+            long reads = totals.reads.sum();
+            long roundTrips = totals.roundTrips.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("endpoint", endpoint);
+            entry.put("requests", requests);
+            entry.put("reads", reads);
+            entry.put("writes", totals.writes.sum());
+            entry.put("roundTrips", roundTrips);
+            entry.put("transactions", totals.transactions.sum());
+            entry.put("readsPerRequest", requests > 0 ? (double) reads / requests : 0.0);
+            entry.put("roundTripsPerRequest", requests > 0 ? (double) roundTrips / requests : 0.0);
+            entry.put("maxReads", totals.maxReads.get());
+            entry.put("maxRoundTrips", totals.maxRoundTrips.get());
+            entry.put("repeatedLookupRequests", totals.repeatedLookupRequests.sum());
+            entry.put("repeatedCollections", new LinkedHashMap<>(totals.repeatedCollections));
+            stats.add(entry);
+        });
+        stats.sort(Comparator.comparingLong((Map<String, Object> entry) -> (Long) entry.get("reads")).reversed());
+        return stats;
+    }
+    
+    /**
+     * Forget all totals, e.g. before a load test
+     */
+    public static void reset() {
+        endpoints.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package com.artexchange.filter;
+
+import com.artexchange.metrics.Counter;
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the latency of every request and counts its response status, by
+ * servlet route and method. Routes are servlet mappings such as
+ * "/api/artworks/*" or "*.jsp", so there is one set of metrics per servlet
+ * rather than per URL; once a route, method and status have been seen,
+ * recording them allocates nothing.
+ */
+@WebFilter(filterName = "RequestMetricsFilter", urlPatterns = {"/*"})
+public class RequestMetricsFilter extends HttpFilter {
+    private static final String[] METHODS = { "GET", "POST", "PUT", "DELETE", "OTHER" };
+    private static final String[] STATUS_CLASSES = { "1xx", "2xx", "3xx", "4xx", "5xx" };
+    
+    /**
+     * Metrics of one route, created for each method and status class when it
+     * first occurs. Creating one twice in a race is harmless: the registry
+     * returns the same recorder for the same labels.
+     */
+    private static final class Route {
+        final String route;
+        final LatencyHistogram[] latency = new LatencyHistogram[METHODS.length];
+        final Counter[][] responses = new Counter[METHODS.length][STATUS_CLASSES.length];
+        
+        Route(String route) {
+            this.route = route;
+        }
+        
+        LatencyHistogram latency(int method) {
+            LatencyHistogram histogram = latency[method];
+            if (histogram == null) {
+                histogram = Metrics.histogram("artexchange_http_request_seconds", "HTTP request latency by servlet route",
+                    "route", route, "method", METHODS[method]);
+                latency[method] = histogram;
+            }
+            return histogram;
+        }
+        
+        Counter responses(int method, int statusClass) {
+            Counter counter = responses[method][statusClass];
+            if (counter == null) {
+                counter = Metrics.counter("artexchange_http_responses_total", "HTTP responses by servlet route and status",
+                    "route", route, "method", METHODS[method], "status", STATUS_CLASSES[statusClass]);
+                responses[method][statusClass] = counter;
+            }
+            return counter;
+        }
+    }
+    
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+    
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            Route route = routes.computeIfAbsent(route(request), Route::new);
+            int method = method(request.getMethod());
+            route.latency(method).recordSince(start);
+            // An exception escaping the chain becomes a 500 after this filter returns
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            route.responses(method, Math.max(1, Math.min(5, status / 100)) - 1).increment();
+        }
+    }
+    
+    /**
+     * The mapping pattern, never the path: each label value is a time series of
+     * its own, so extension mappings stay "*.jsp" rather than one route per page,
+     * and requests without a usable mapping are all counted as "other"
+     */
+    private static String route(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        String pattern = mapping != null ? mapping.getPattern() : null;
+        if (pattern == null || pattern.isEmpty()) {
+            return "other";
+        }
+        return pattern;
+    }
+    
+    private static int method(String method) {
+        switch (method) {
+            case "GET": return 0;
+            case "POST": return 1;
+            case "PUT": return 2;
+            case "DELETE": return 3;
+            default: return 4;
+        }
+    }
+}
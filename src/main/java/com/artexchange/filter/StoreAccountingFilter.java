@@ -0,0 +1,77 @@
+package com.artexchange.filter;
+
+import com.artexchange.dao.store.StoreUsage;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Counts the document reads, writes and round trips of each request and adds
+ * them to the totals of its endpoint in {@link EndpointStoreCosts}.
+ *
+ * A request that looks up the same collection more than
+ * -Dartexchange.storeAccounting.repeatedLookups times (default 10) is the
+ * shape of an N+1 pattern: a query followed by one lookup per result. Such
+ * requests are counted per endpoint and logged, once per endpoint and
+ * collection so a hot endpoint does not flood the log.
+ */
+@WebFilter(filterName = "StoreAccountingFilter", urlPatterns = {"/*"})
+public class StoreAccountingFilter extends HttpFilter {
+    private static final Logger logger = Logger.getLogger(StoreAccountingFilter.class.getName());
+    private static final int REPEATED_LOOKUPS = Integer.getInteger("artexchange.storeAccounting.repeatedLookups", 10);
+    
+    private final Set<String> reportedRepeats = ConcurrentHashMap.newKeySet();
+    
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        StoreUsage usage = StoreUsage.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            StoreUsage.end();
+            if (usage.getRoundTrips() > 0) {
+                String endpoint = endpoint(request);
+                EndpointStoreCosts.record(endpoint, usage, repeatedLookups(endpoint, usage));
+            }
+        }
+    }
+    
+    private Map<String, Integer> repeatedLookups(String endpoint, StoreUsage usage) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        usage.getLookupsByCollection().forEach((collection, lookups) -> {
+            if (lookups > REPEATED_LOOKUPS) {
+                repeated.put(collection, lookups);
+                if (reportedRepeats.add(endpoint + " " + collection)) {
+                    logger.warning(endpoint + " looked up collection '" + collection + "' " + lookups
+                        + " times in one request (" + usage + "); likely an N+1 pattern");
+                }
+            }
+        });
+        return repeated;
+    }
+    
+    /**
+     * The method and servlet mapping, e.g. "GET /api/artworks/*", so requests
+     * for different ids add up under one endpoint
+     */
+    private static String endpoint(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        String pattern = mapping != null ? mapping.getPattern() : null;
+        if (pattern == null || pattern.isEmpty() || pattern.startsWith("*.")) {
+            pattern = request.getServletPath();
+        }
+        return request.getMethod() + " " + pattern;
+    }
+}
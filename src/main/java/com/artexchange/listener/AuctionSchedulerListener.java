@@ -1,6 +1,14 @@
 package com.artexchange.listener;
 
+import com.artexchange.dao.ArtworkCounters;
+import com.artexchange.metrics.Counter;
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
+import com.artexchange.util.AuctionClock;
 import com.artexchange.util.AuctionProcessor;
+import com.artexchange.util.ImageDerivatives;
+import com.artexchange.util.UploadStore;
+import com.artexchange.util.UploadSweeper;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
@@ -12,11 +20,22 @@ import java.util.logging.Logger;
 
 /**
  * Context listener to start automatic auction processing on application startup
- * Checks for ended auctions every 60 seconds and processes them automatically
+ * Closes each auction from the shared deadline index within a second of its end time;
+ * a periodic sweep remains as a low-frequency safety net
  */
 @WebListener
 public class AuctionSchedulerListener implements ServletContextListener {
     private static final Logger logger = Logger.getLogger(AuctionSchedulerListener.class.getName());
+    private static final long SAFETY_SWEEP_MINUTES = 15;
+    private static final long UPLOAD_SWEEP_HOURS = Long.getLong("artexchange.uploads.sweepHours", 24L);
+    private static final LatencyHistogram DEADLINE_LOAD = cycle("deadline_load");
+    private static final LatencyHistogram SAFETY_SWEEP = cycle("safety_sweep");
+    private static final LatencyHistogram EXPIRED_PAYMENTS = cycle("expired_payments");
+    private static final LatencyHistogram UPLOAD_SWEEP = cycle("upload_sweep");
+    private static final Counter DEADLINE_LOAD_FAILURES = failures("deadline_load");
+    private static final Counter SAFETY_SWEEP_FAILURES = failures("safety_sweep");
+    private static final Counter EXPIRED_PAYMENTS_FAILURES = failures("expired_payments");
+    private static final Counter UPLOAD_SWEEP_FAILURES = failures("upload_sweep");
     private ScheduledExecutorService scheduler;
     
     @Override
@@ -26,28 +45,84 @@ public class AuctionSchedulerListener implements ServletContextListener {
         // Create scheduled executor service with 1 thread
         scheduler = Executors.newScheduledThreadPool(1);
         
-        // Schedule auction processing to run every 60 seconds
-        // Initial delay of 30 seconds to allow app to fully start
+        // Close auctions on the settlement pool as their deadlines come due
+        AuctionClock clock = AuctionClock.getInstance();
+        clock.addEndListener(AuctionProcessor::settleAsync);
+        
+        // Load the deadline index once Firebase is up; retry on failure
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    AuctionProcessor.scheduleActiveAuctionDeadlines();
+                } catch (Exception e) {
+                    DEADLINE_LOAD_FAILURES.increment();
+                    logger.severe("Error loading auction deadlines, retrying in 30 seconds: " + e.getMessage());
+                    scheduler.schedule(this, 30, TimeUnit.SECONDS);
+                } finally {
+                    DEADLINE_LOAD.recordSince(start);
+                }
+            }
+        }, 5, TimeUnit.SECONDS);
+        
+        // Safety net for auctions whose deadline was missed (e.g. edited on another instance)
         scheduler.scheduleAtFixedRate(() -> {
+            long start = System.nanoTime();
             try {
-                logger.info("Running scheduled auction processing...");
+                logger.info("Running auction safety sweep...");
                 AuctionProcessor.processAllEndedAuctions();
-                // Also process expired payments
-                AuctionProcessor.processExpiredPayments();
             } catch (Exception e) {
+                SAFETY_SWEEP_FAILURES.increment();
                 logger.severe("Error in scheduled auction processing: " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                SAFETY_SWEEP.recordSince(start);
+            }
+        }, SAFETY_SWEEP_MINUTES, SAFETY_SWEEP_MINUTES, TimeUnit.MINUTES);
+        
+        // Expired payments keep the 60 second cadence
+        scheduler.scheduleAtFixedRate(() -> {
+            long start = System.nanoTime();
+            try {
+                AuctionProcessor.processExpiredPayments();
+            } catch (Exception e) {
+                EXPIRED_PAYMENTS_FAILURES.increment();
+                logger.severe("Error in scheduled payment processing: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                EXPIRED_PAYMENTS.recordSince(start);
             }
         }, 30, 60, TimeUnit.SECONDS);
         
+        // Delete stored uploads no artwork or profile refers to any more
+        UploadStore uploadStore = UploadStore.get(sce.getServletContext());
+        scheduler.scheduleAtFixedRate(() -> {
+            long start = System.nanoTime();
+            try {
+                new UploadSweeper(uploadStore).run();
+            } catch (Exception e) {
+                UPLOAD_SWEEP_FAILURES.increment();
+                logger.severe("Error in scheduled upload sweep: " + e.getMessage());
+            } finally {
+                UPLOAD_SWEEP.recordSince(start);
+            }
+        }, 1, UPLOAD_SWEEP_HOURS, TimeUnit.HOURS);
+        
         logger.info("=== AuctionScheduler Started Successfully ===");
-        logger.info("Automatic auction processing will run every 60 seconds");
+        logger.info("Auctions close from the deadline index; safety sweep every " + SAFETY_SWEEP_MINUTES + " minutes");
     }
     
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         logger.info("=== AuctionScheduler Shutting Down ===");
         
+        AuctionClock.getInstance().shutdown();
+        AuctionProcessor.shutdown();
+        // Write out view/like counts that have not been flushed yet
+        ArtworkCounters.getInstance().shutdown();
+        ImageDerivatives.getInstance().shutdown();
+        
         if (scheduler != null && !scheduler.isShutdown()) {
             scheduler.shutdown();
             try {
@@ -64,5 +139,12 @@ public class AuctionSchedulerListener implements ServletContextListener {
             }
         }
     }
+    
+    private static LatencyHistogram cycle(String task) {
+        return Metrics.histogram("artexchange_scheduler_cycle_seconds", "Duration of one run of a scheduled task", "task", task);
+    }
+    
+    private static Counter failures(String task) {
+        return Metrics.counter("artexchange_scheduler_failures_total", "Runs of a scheduled task that threw", "task", task);
+    }
 }
-
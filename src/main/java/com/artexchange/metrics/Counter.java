@@ -0,0 +1,25 @@
+package com.artexchange.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up; increments allocate nothing and do not contend
+ */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+    
+    Counter() {
+    }
+    
+    public void increment() {
+        value.increment();
+    }
+    
+    public void add(long amount) {
+        value.add(amount);
+    }
+    
+    public long get() {
+        return value.sum();
+    }
+}
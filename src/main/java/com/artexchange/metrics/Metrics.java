@@ -0,0 +1,153 @@
+package com.artexchange.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Application-wide registry of latency histograms, counters and gauges,
+ * written out in the Prometheus text format by the metrics servlet.
+ *
+ * Metrics are registered once, by name and label values, and the returned
+ * recorder is kept by the caller, usually in a static field; recording then
+ * never touches the registry. Asking again for the same name and labels
+ * returns the same recorder. Histograms are exposed as summaries in seconds,
+ * with quantile 1 being the maximum.
+ */
+public final class Metrics {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999, 1.0 };
+    
+    private enum Type { SUMMARY, COUNTER, GAUGE }
+    
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        /** Metric by rendered label set, in registration order */
+        final Map<String, Object> children = new LinkedHashMap<>();
+        
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+    
+    private static final Map<String, Family> families = new LinkedHashMap<>();
+    
+    private Metrics() {
+    }
+    
+    /**
+     * @param labels label names and values, alternating
+     */
+    public static LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) register(name, help, Type.SUMMARY, labels, null);
+    }
+    
+    /**
+     * @param name  should end in _total
+     * @param labels label names and values, alternating
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, help, Type.COUNTER, labels, null);
+    }
+    
+    /**
+     * A value read when the metrics are written, such as a queue length.
+     * Registering the same name and labels again replaces the supplier.
+     */
+    public static void gauge(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, value);
+    }
+    
+    private static synchronized Object register(String name, String help, Type type, String[] labels, LongSupplier gauge) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels of " + name + " must be name/value pairs");
+        }
+        Family family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type.name().toLowerCase(Locale.ROOT));
+        }
+        String labelText = labelText(labels);
+        if (type == Type.GAUGE) {
+            family.children.put(labelText, gauge);
+            return gauge;
+        }
+        return family.children.computeIfAbsent(labelText, k -> type == Type.SUMMARY ? new LatencyHistogram() : new Counter());
+    }
+    
+    /**
+     * Every registered metric in the Prometheus text exposition format, version 0.0.4
+     */
+    public static String toPrometheusText() {
+        List<Family> snapshot;
+        Map<Family, Map<String, Object>> children = new LinkedHashMap<>();
+        synchronized (Metrics.class) {
+            snapshot = new ArrayList<>(families.values());
+            for (Family family : snapshot) {
+                children.put(family, new LinkedHashMap<>(family.children));
+            }
+        }
+        
+        StringBuilder out = new StringBuilder(8192);
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Object> child : children.get(family).entrySet()) {
+                String labels = child.getKey();
+                switch (family.type) {
+                    case SUMMARY:
+                        writeSummary(out, family.name, labels, (LatencyHistogram) child.getValue());
+                        break;
+                    case COUNTER:
+                        sample(out, family.name, labels, null, ((Counter) child.getValue()).get());
+                        break;
+                    default:
+                        sample(out, family.name, labels, null, ((LongSupplier) child.getValue()).getAsLong());
+                }
+            }
+        }
+        return out.toString();
+    }
+    
+    private static void writeSummary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            sample(out, name, labels, "quantile=\"" + quantile + "\"", seconds(histogram.getValueAtQuantile(quantile)));
+        }
+        sample(out, name + "_sum", labels, null, seconds(histogram.getSumNanos()));
+        sample(out, name + "_count", labels, null, histogram.getCount());
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, String extraLabel, Object value) {
+        out.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            out.append('{').append(labels);
+            if (extraLabel != null) {
+                out.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+    
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+    
+    private static String labelText(String[] labels) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"")
+                .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                .append('"');
+        }
+        return text.toString();
+    }
+}
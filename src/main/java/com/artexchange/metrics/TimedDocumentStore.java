@@ -0,0 +1,146 @@
+package com.artexchange.metrics;
+
+import com.artexchange.dao.store.AggregateQuery;
+import com.artexchange.dao.store.AggregateQuerySnapshot;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QuerySnapshot;
+import com.artexchange.dao.store.Transaction;
+import com.artexchange.dao.store.Write;
+import com.artexchange.dao.store.WriteResult;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link DocumentStore} that records the latency of every call by
+ * operation and collection. Every DAO method comes down to these calls, so
+ * this times the DAOs' work against the database without touching them.
+ * A subcollection is recorded under its own name whatever its parent.
+ */
+public class TimedDocumentStore implements DocumentStore {
+    private static final String LATENCY = "artexchange_store_operation_seconds";
+    private static final String LATENCY_HELP = "Document store round trips by operation and collection";
+    private static final String[] OPERATIONS = { "lookup", "query", "aggregate", "commit" };
+    private static final int LOOKUP = 0;
+    private static final int QUERY = 1;
+    private static final int AGGREGATE = 2;
+    private static final int COMMIT = 3;
+    
+    private static final LatencyHistogram TRANSACTIONS = Metrics.histogram("artexchange_store_transaction_seconds",
+        "Document store transactions, including retries");
+    private static final Counter[] ERRORS = new Counter[OPERATIONS.length + 1];
+    
+    static {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            ERRORS[i] = Metrics.counter("artexchange_store_errors_total", "Document store calls that failed", "operation", OPERATIONS[i]);
+        }
+        ERRORS[OPERATIONS.length] = Metrics.counter("artexchange_store_errors_total", "Document store calls that failed",
+            "operation", "transaction");
+    }
+    
+    /**
+     * Histograms of one collection, by operation, registered when the
+     * operation first occurs; a racing duplicate registration gets the same one
+     */
+    private static final class CollectionTimers {
+        final String name;
+        final LatencyHistogram[] operations = new LatencyHistogram[OPERATIONS.length];
+        
+        CollectionTimers(String name) {
+            this.name = name;
+        }
+        
+        LatencyHistogram operation(int operation) {
+            LatencyHistogram histogram = operations[operation];
+            if (histogram == null) {
+                histogram = Metrics.histogram(LATENCY, LATENCY_HELP, "operation", OPERATIONS[operation], "collection", name);
+                operations[operation] = histogram;
+            }
+            return histogram;
+        }
+    }
+    
+    private final DocumentStore delegate;
+    /** Copied on write; there are a few dozen collections at most */
+    private volatile CollectionTimers[] collections = new CollectionTimers[0];
+    
+    public TimedDocumentStore(DocumentStore delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public CompletableFuture<List<DocumentSnapshot>> getAll(List<DocumentReference> references) {
+        long start = System.nanoTime();
+        LatencyHistogram histogram = references.isEmpty() ? null : timer(references.get(0).getCollectionPath(), LOOKUP);
+        return time(delegate.getAll(references), histogram, LOOKUP, start);
+    }
+    
+    @Override
+    public CompletableFuture<QuerySnapshot> query(Query query) {
+        long start = System.nanoTime();
+        return time(delegate.query(query), timer(query.getCollectionPath(), QUERY), QUERY, start);
+    }
+    
+    @Override
+    public CompletableFuture<AggregateQuerySnapshot> aggregate(AggregateQuery query) {
+        long start = System.nanoTime();
+        return time(delegate.aggregate(query), timer(query.getQuery().getCollectionPath(), AGGREGATE), AGGREGATE, start);
+    }
+    
+    /**
+     * Recorded under the collection of the first write
+     */
+    @Override
+    public CompletableFuture<List<WriteResult>> commit(List<Write> writes) {
+        long start = System.nanoTime();
+        LatencyHistogram histogram = writes.isEmpty() ? null : timer(writes.get(0).getReference().getCollectionPath(), COMMIT);
+        return time(delegate.commit(writes), histogram, COMMIT, start);
+    }
+    
+    @Override
+    public <T> CompletableFuture<T> runTransaction(Transaction.Function<T> function) {
+        long start = System.nanoTime();
+        return time(delegate.runTransaction(function), TRANSACTIONS, OPERATIONS.length, start);
+    }
+    
+    private static <T> CompletableFuture<T> time(CompletableFuture<T> result, LatencyHistogram histogram, int operation, long start) {
+        return result.whenComplete((value, error) -> {
+            if (error != null) {
+                ERRORS[operation].increment();
+            } else if (histogram != null) {
+                histogram.recordSince(start);
+            }
+        });
+    }
+    
+    /**
+     * The histogram for an operation on a collection, found by comparing the
+     * last segment of the path in place so no string is created
+     */
+    private LatencyHistogram timer(String collectionPath, int operation) {
+        int start = collectionPath.lastIndexOf('/') + 1;
+        int length = collectionPath.length() - start;
+        for (CollectionTimers timers : collections) {
+            if (timers.name.length() == length && collectionPath.regionMatches(start, timers.name, 0, length)) {
+                return timers.operation(operation);
+            }
+        }
+        return addCollection(collectionPath.substring(start)).operation(operation);
+    }
+    
+    private synchronized CollectionTimers addCollection(String name) {
+        for (CollectionTimers timers : collections) {
+            if (timers.name.equals(name)) {
+                return timers;
+            }
+        }
+        CollectionTimers[] grown = Arrays.copyOf(collections, collections.length + 1);
+        grown[collections.length] = new CollectionTimers(name);
+        collections = grown;
+        return grown[grown.length - 1];
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -17,6 +18,8 @@ public class Artwork {
     private String artistName;
     private List<String> imageUrls;
     private String primaryImageUrl;
+    private Map<String, List<String>> imageVariants; // width -> URLs parallel to imageUrls
+    private String thumbnailUrl; // listing-size copy of the primary image
     private ArtCategory category;
     private String medium;
     private String dimensions;
@@ -44,6 +47,10 @@ public class Artwork {
     private BigDecimal currentBid;
     private String highestBidderId;
     private int bidCount;
+    // Leaderboard maintained by the bid engine; bidderIds is null for auctions that predate it.
+    // Transient so bidder ids and names stay out of the JSON responses
+    private transient List<Map<String, Object>> topBids;
+    private transient List<String> bidderIds;
     
     // Auction winner fields
     private String winnerId;
@@ -103,6 +110,52 @@ public class Artwork {
         this.price = price;
     }
     
+    /**
+     * Field-by-field copy; lists and maps are shared with {@code other}
+     */
+    public Artwork(Artwork other) {
+        this.artworkId = other.artworkId;
+        this.title = other.title;
+        this.description = other.description;
+        this.artistId = other.artistId;
+        this.artistName = other.artistName;
+        this.imageUrls = other.imageUrls;
+        this.primaryImageUrl = other.primaryImageUrl;
+        this.imageVariants = other.imageVariants;
+        this.thumbnailUrl = other.thumbnailUrl;
+        this.category = other.category;
+        this.medium = other.medium;
+        this.dimensions = other.dimensions;
+        this.yearCreated = other.yearCreated;
+        this.price = other.price;
+        this.currency = other.currency;
+        this.status = other.status;
+        this.saleType = other.saleType;
+        this.isFramed = other.isFramed;
+        this.isOriginal = other.isOriginal;
+        this.tags = other.tags;
+        this.views = other.views;
+        this.likes = other.likes;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.soldAt = other.soldAt;
+        this.location = other.location;
+        this.isShippingAvailable = other.isShippingAvailable;
+        this.shippingCost = other.shippingCost;
+        this.auctionStartTime = other.auctionStartTime;
+        this.auctionEndTime = other.auctionEndTime;
+        this.startingBid = other.startingBid;
+        this.currentBid = other.currentBid;
+        this.highestBidderId = other.highestBidderId;
+        this.bidCount = other.bidCount;
+        this.topBids = other.topBids;
+        this.bidderIds = other.bidderIds;
+        this.winnerId = other.winnerId;
+        this.winnerName = other.winnerName;
+        this.winningBidAmount = other.winningBidAmount;
+        this.endedAt = other.endedAt;
+    }
+    
     // Getters and Setters
     public String getArtworkId() { return artworkId; }
     public void setArtworkId(String artworkId) { this.artworkId = artworkId; }
@@ -125,6 +178,12 @@ public class Artwork {
     public String getPrimaryImageUrl() { return primaryImageUrl; }
     public void setPrimaryImageUrl(String primaryImageUrl) { this.primaryImageUrl = primaryImageUrl; }
     
+    public Map<String, List<String>> getImageVariants() { return imageVariants; }
+    public void setImageVariants(Map<String, List<String>> imageVariants) { this.imageVariants = imageVariants; }
+    
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    
     public ArtCategory getCategory() { return category; }
     public void setCategory(ArtCategory category) { this.category = category; }
     
@@ -201,6 +260,14 @@ public class Artwork {
     public int getBidCount() { return bidCount; }
     public void setBidCount(int bidCount) { this.bidCount = bidCount; }
     
+    public List<Map<String, Object>> getTopBids() { return topBids; }
+    public void setTopBids(List<Map<String, Object>> topBids) { this.topBids = topBids; }
+    
+    public List<String> getBidderIds() { return bidderIds; }
+    public void setBidderIds(List<String> bidderIds) { this.bidderIds = bidderIds; }
+    
+    public int getDistinctBidderCount() { return bidderIds != null ? bidderIds.size() : 0; }
+    
     // Auction winner getters and setters
     public String getWinnerId() { return winnerId; }
     public void setWinnerId(String winnerId) { this.winnerId = winnerId; }
@@ -0,0 +1,71 @@
+package com.artexchange.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Completed sales of an artist, or of the whole platform, on one day
+ * (from the sales_rollups collection) or summed over a range of days
+ */
+public class SalesRollup {
+    private String scope; // artistId or "platform"
+    private LocalDate day; // null for a range total
+    private long directCount;
+    private BigDecimal directRevenue = BigDecimal.ZERO;
+    private long auctionCount;
+    private BigDecimal auctionRevenue = BigDecimal.ZERO;
+    
+    // Constructors
+    public SalesRollup() {}
+    
+    public SalesRollup(String scope, LocalDate day) {
+        this.scope = scope;
+        this.day = day;
+    }
+    
+    // Getters and Setters
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+    
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+    
+    public long getDirectCount() { return directCount; }
+    public void setDirectCount(long directCount) { this.directCount = directCount; }
+    
+    public BigDecimal getDirectRevenue() { return directRevenue; }
+    public void setDirectRevenue(BigDecimal directRevenue) { this.directRevenue = directRevenue; }
+    
+    public long getAuctionCount() { return auctionCount; }
+    public void setAuctionCount(long auctionCount) { this.auctionCount = auctionCount; }
+    
+    public BigDecimal getAuctionRevenue() { return auctionRevenue; }
+    public void setAuctionRevenue(BigDecimal auctionRevenue) { this.auctionRevenue = auctionRevenue; }
+    
+    // Derived values
+    public long getCount() {
+        return directCount + auctionCount;
+    }
+    
+    public BigDecimal getRevenue() {
+        return directRevenue.add(auctionRevenue);
+    }
+    
+    public BigDecimal getAveragePrice() {
+        long count = getCount();
+        return count > 0 ? getRevenue().divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+    
+    @Override
+    public String toString() {
+        return "SalesRollup{" +
+                "scope='" + scope + '\'' +
+                ", day=" + day +
+                ", directCount=" + directCount +
+                ", directRevenue=" + directRevenue +
+                ", auctionCount=" + auctionCount +
+                ", auctionRevenue=" + auctionRevenue +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.artexchange.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user counters kept in the user_stats collection, updated with every
+ * artwork, bid, purchase, like and follow event
+ */
+public class UserStats {
+    private String userId;
+    private long artworkCount;
+    private long bidsPlaced;
+    private long bidsReceived;
+    private long purchaseCount;
+    private long completedPurchaseCount;
+    private long salesCount;
+    private BigDecimal totalEarnings = BigDecimal.ZERO;
+    private long likesReceived;
+    private long followerCount;
+    private long followingCount;
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UserStats() {}
+    
+    public UserStats(String userId) {
+        this.userId = userId;
+    }
+    
+    // Getters and Setters
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    
+    public long getArtworkCount() { return artworkCount; }
+    public void setArtworkCount(long artworkCount) { this.artworkCount = artworkCount; }
+    
+    public long getBidsPlaced() { return bidsPlaced; }
+    public void setBidsPlaced(long bidsPlaced) { this.bidsPlaced = bidsPlaced; }
+    
+    public long getBidsReceived() { return bidsReceived; }
+    public void setBidsReceived(long bidsReceived) { this.bidsReceived = bidsReceived; }
+    
+    public long getPurchaseCount() { return purchaseCount; }
+    public void setPurchaseCount(long purchaseCount) { this.purchaseCount = purchaseCount; }
+    
+    public long getCompletedPurchaseCount() { return completedPurchaseCount; }
+    public void setCompletedPurchaseCount(long completedPurchaseCount) { this.completedPurchaseCount = completedPurchaseCount; }
+    
+    public long getSalesCount() { return salesCount; }
+    public void setSalesCount(long salesCount) { this.salesCount = salesCount; }
+    
+    public BigDecimal getTotalEarnings() { return totalEarnings; }
+    public void setTotalEarnings(BigDecimal totalEarnings) { this.totalEarnings = totalEarnings; }
+    
+    public long getLikesReceived() { return likesReceived; }
+    public void setLikesReceived(long likesReceived) { this.likesReceived = likesReceived; }
+    
+    public long getFollowerCount() { return followerCount; }
+    public void setFollowerCount(long followerCount) { this.followerCount = followerCount; }
+    
+    public long getFollowingCount() { return followingCount; }
+    public void setFollowingCount(long followingCount) { this.followingCount = followingCount; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    @Override
+    public String toString() {
+        return "UserStats{" +
+                "userId='" + userId + '\'' +
+                ", artworkCount=" + artworkCount +
+                ", bidsPlaced=" + bidsPlaced +
+                ", bidsReceived=" + bidsReceived +
+                ", purchaseCount=" + purchaseCount +
+                ", salesCount=" + salesCount +
+                ", totalEarnings=" + totalEarnings +
+                ", likesReceived=" + likesReceived +
+                ", followerCount=" + followerCount +
+                ", followingCount=" + followingCount +
+                '}';
+    }
+}
@@ -1,7 +1,11 @@
 package com.artexchange.servlet;
 
+import com.artexchange.dao.DocumentCache;
 import com.artexchange.dao.ArtworkDAO;
+import com.artexchange.dao.CursorPage;
+import com.artexchange.dao.SalesRollupDAO;
 import com.artexchange.dao.UserDAO;
+import com.artexchange.filter.EndpointStoreCosts;
 import com.artexchange.model.User;
 import com.artexchange.model.Artwork;
 import com.artexchange.util.SessionUtil;
@@ -16,6 +20,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -27,6 +32,7 @@ public class AdminServlet extends HttpServlet {
     private final Gson gson = new Gson();
     private final UserDAO userDAO = new UserDAO();
     private final ArtworkDAO artworkDAO = new ArtworkDAO();
+    private final SalesRollupDAO salesRollupDAO = new SalesRollupDAO();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -63,6 +69,9 @@ public class AdminServlet extends HttpServlet {
                 case "/stats":
                     handleGetStats(request, response);
                     break;
+                case "/store-costs":
+                    handleGetStoreCosts(request, response);
+                    break;
                 default:
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                     response.getWriter().write("{\"error\": \"Endpoint not found\"}");
@@ -106,6 +115,12 @@ public class AdminServlet extends HttpServlet {
                 case "/artworks/remove":
                     handleRemoveArtwork(request, response);
                     break;
+                case "/sales-rollups/rebuild":
+                    handleRebuildSalesRollups(request, response);
+                    break;
+                case "/store-costs/reset":
+                    handleResetStoreCosts(request, response);
+                    break;
                 default:
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                     response.getWriter().write("{\"error\": \"Endpoint not found\"}");
@@ -125,46 +140,42 @@ public class AdminServlet extends HttpServlet {
     
     private void handleGetUsers(HttpServletRequest request, HttpServletResponse response) 
             throws Exception {
-        String page = request.getParameter("page");
+        String cursor = request.getParameter("cursor");
         String limit = request.getParameter("limit");
         String search = request.getParameter("search");
         String role = request.getParameter("role");
         
-        int pageNum = page != null ? Integer.parseInt(page) : 0;
         int limitNum = limit != null ? Integer.parseInt(limit) : 20;
         
-        List<User> users = userDAO.getAllUsers(pageNum, limitNum, search, role);
+        CursorPage<User> users = userDAO.getAllUsers(cursor, limitNum, search, role);
         long totalUsers = userDAO.getTotalUsersCount(search, role);
         
         JsonObject response_data = new JsonObject();
         response_data.addProperty("success", true);
-        response_data.add("users", gson.toJsonTree(users));
+        response_data.add("users", gson.toJsonTree(users.getItems()));
         response_data.addProperty("totalUsers", totalUsers);
-        response_data.addProperty("totalPages", (totalUsers + limitNum - 1) / limitNum);
-        response_data.addProperty("currentPage", pageNum);
+        response_data.addProperty("nextCursor", users.getNextCursor());
         
         response.getWriter().write(gson.toJson(response_data));
     }
     
     private void handleGetArtworks(HttpServletRequest request, HttpServletResponse response) 
             throws Exception {
-        String page = request.getParameter("page");
+        String cursor = request.getParameter("cursor");
         String limit = request.getParameter("limit");
         String search = request.getParameter("search");
         String status = request.getParameter("status");
         
-        int pageNum = page != null ? Integer.parseInt(page) : 0;
         int limitNum = limit != null ? Integer.parseInt(limit) : 20;
         
-        List<Artwork> artworks = artworkDAO.getAllArtworksForAdmin(pageNum, limitNum, search, status);
+        CursorPage<Artwork> artworks = artworkDAO.getAllArtworksForAdmin(cursor, limitNum, search, status);
         long totalArtworks = artworkDAO.getTotalArtworksCount(search, status);
         
         JsonObject response_data = new JsonObject();
         response_data.addProperty("success", true);
-        response_data.add("artworks", gson.toJsonTree(artworks));
+        response_data.add("artworks", gson.toJsonTree(artworks.getItems()));
         response_data.addProperty("totalArtworks", totalArtworks);
-        response_data.addProperty("totalPages", (totalArtworks + limitNum - 1) / limitNum);
-        response_data.addProperty("currentPage", pageNum);
+        response_data.addProperty("nextCursor", artworks.getNextCursor());
         
         response.getWriter().write(gson.toJson(response_data));
     }
@@ -173,15 +184,26 @@ public class AdminServlet extends HttpServlet {
             throws Exception {
         JsonObject stats = new JsonObject();
         
-        // Get platform statistics
-        stats.addProperty("totalUsers", userDAO.getTotalUsersCount(null, null));
-        stats.addProperty("totalArtists", userDAO.getTotalUsersCount(null, "ARTIST"));
-        stats.addProperty("totalBuyers", userDAO.getTotalUsersCount(null, "BUYER"));
-        stats.addProperty("totalArtworks", artworkDAO.getTotalArtworksCount(null, null));
-        stats.addProperty("activeAuctions", artworkDAO.getActiveAuctionsCount());
+        // Get platform statistics; the independent counts run concurrently
+        CompletableFuture<Long> totalUsers = userDAO.getTotalUsersCountAsync(null, null);
+        CompletableFuture<Long> totalArtists = userDAO.getTotalUsersCountAsync(null, "ARTIST");
+        CompletableFuture<Long> totalBuyers = userDAO.getTotalUsersCountAsync(null, "BUYER");
+        CompletableFuture<Long> totalArtworks = artworkDAO.getTotalArtworksCountAsync(null, null);
+        CompletableFuture<Long> activeAuctions = artworkDAO.getActiveAuctionsCountAsync();
+        CompletableFuture<Long> newUsersThisMonth = userDAO.getNewUsersThisMonthAsync();
+        CompletableFuture.allOf(totalUsers, totalArtists, totalBuyers, totalArtworks, activeAuctions,
+                newUsersThisMonth).join();
+        
+        stats.addProperty("totalUsers", totalUsers.join());
+        stats.addProperty("totalArtists", totalArtists.join());
+        stats.addProperty("totalBuyers", totalBuyers.join());
+        stats.addProperty("totalArtworks", totalArtworks.join());
+        stats.addProperty("activeAuctions", activeAuctions.join());
         stats.addProperty("totalRevenue", artworkDAO.getTotalPlatformRevenue());
         stats.addProperty("monthlyRevenue", artworkDAO.getMonthlyRevenue());
-        stats.addProperty("newUsersThisMonth", userDAO.getNewUsersThisMonth());
+        stats.addProperty("newUsersThisMonth", newUsersThisMonth.join());
+        stats.add("artworkCache", gson.toJsonTree(DocumentCache.artworks().getStats()));
+        stats.add("userCache", gson.toJsonTree(DocumentCache.users().getStats()));
         
         JsonObject response_data = new JsonObject();
         response_data.addProperty("success", true);
@@ -190,6 +212,18 @@ public class AdminServlet extends HttpServlet {
         response.getWriter().write(gson.toJson(response_data));
     }
     
+    /**
+     * Firestore reads, writes and round trips per endpoint, most reads first
+     */
+    private void handleGetStoreCosts(HttpServletRequest request, HttpServletResponse response) 
+            throws Exception {
+        JsonObject response_data = new JsonObject();
+        response_data.addProperty("success", true);
+        response_data.add("endpoints", gson.toJsonTree(EndpointStoreCosts.getStats()));
+        
+        response.getWriter().write(gson.toJson(response_data));
+    }
+    
     private void handleActivateUser(HttpServletRequest request, HttpServletResponse response) 
             throws Exception {
         String userId = request.getParameter("userId");
@@ -288,4 +322,27 @@ public class AdminServlet extends HttpServlet {
         
         response.getWriter().write(gson.toJson(response_data));
     }
+    
+    private void handleRebuildSalesRollups(HttpServletRequest request, HttpServletResponse response) 
+            throws Exception {
+        int buckets = salesRollupDAO.rebuild();
+        
+        JsonObject response_data = new JsonObject();
+        response_data.addProperty("success", true);
+        response_data.addProperty("buckets", buckets);
+        response_data.addProperty("message", "Sales rollups rebuilt");
+        
+        response.getWriter().write(gson.toJson(response_data));
+    }
+    
+    private void handleResetStoreCosts(HttpServletRequest request, HttpServletResponse response) 
+            throws Exception {
+        EndpointStoreCosts.reset();
+        
+        JsonObject response_data = new JsonObject();
+        response_data.addProperty("success", true);
+        response_data.addProperty("message", "Store costs reset");
+        
+        response.getWriter().write(gson.toJson(response_data));
+    }
 }
@@ -5,6 +5,7 @@ import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.model.User;
 import com.artexchange.model.Artwork;
 import com.artexchange.util.GsonUtil;
+import com.artexchange.util.ImageDerivatives;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
@@ -78,7 +79,7 @@ public class ArtistsServlet extends HttpServlet {
                         int count = Math.min(3, artworks.size());
                         for (int i = 0; i < count; i++) {
                             if (artworks.get(i).getImageUrls() != null && !artworks.get(i).getImageUrls().isEmpty()) {
-                                portfolio.add(artworks.get(i).getImageUrls().get(0));
+                                portfolio.add(ImageDerivatives.variantUrl(artworks.get(i).getImageUrls().get(0), ImageDerivatives.PREVIEW_WIDTH));
                             }
                         }
                     }
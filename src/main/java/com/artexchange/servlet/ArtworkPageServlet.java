@@ -1,5 +1,6 @@
 package com.artexchange.servlet;
 
+import com.artexchange.dao.ArtworkCounters;
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.model.Artwork;
 import com.artexchange.util.SessionUtil;
@@ -50,9 +51,9 @@ public class ArtworkPageServlet extends HttpServlet {
                 return;
             }
             
-            // Increment view count
-            artwork.incrementViews();
-            artworkDAO.updateArtwork(artwork);
+            // Count the view; it is written to Firestore by the next counter flush
+            ArtworkCounters.getInstance().recordView(artworkId);
+            artwork.setViews(artwork.getViews() + 1);
             
             // Set artwork as request attribute
             request.setAttribute("artwork", artwork);
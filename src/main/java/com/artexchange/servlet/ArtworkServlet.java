@@ -1,6 +1,9 @@
 package com.artexchange.servlet;
 
+import com.artexchange.dao.ArtworkCounters;
 import com.artexchange.dao.ArtworkDAO;
+import com.artexchange.dao.AuctionBidEngine;
+import com.artexchange.dao.CursorPage;
 import com.artexchange.dao.PurchaseDAO;
 import com.artexchange.dao.AuctionDAO;
 import com.artexchange.model.Artwork;
@@ -8,6 +11,7 @@ import com.artexchange.model.Purchase;
 import com.artexchange.util.SessionUtil;
 import com.artexchange.util.GsonUtil;
 import com.artexchange.util.NotificationUtil;
+import com.artexchange.websocket.AuctionWebSocket;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
@@ -217,18 +221,27 @@ public class ArtworkServlet extends HttpServlet {
         String maxPriceParam = request.getParameter("maxPrice");
         String listingTypeParam = request.getParameter("listingType");
         String sortByParam = request.getParameter("sortBy");
+        String cursorParam = request.getParameter("cursor");
         
-        logger.info("Parameters - page: {}, limit: {}, category: {}, search: {}, minPrice: {}, maxPrice: {}, listingType: {}, sortBy: {}", 
-                   pageParam, limitParam, categoryParam, searchParam, minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
+        logger.info("Parameters - page: {}, cursor: {}, limit: {}, category: {}, search: {}, minPrice: {}, maxPrice: {}, listingType: {}, sortBy: {}", 
+                   pageParam, cursorParam, limitParam, categoryParam, searchParam, minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
         
         int page = pageParam != null ? Integer.parseInt(pageParam) : 1;
         int limit = limitParam != null ? Integer.parseInt(limitParam) : 12;
         
-        logger.info("Calling artworkDAO.findActiveArtworks with page: {}, limit: {}, category: {}, search: {}, minPrice: {}, maxPrice: {}, listingType: {}, sortBy: {}", 
-                   page, limit, categoryParam, searchParam, minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
-        
-        List<Artwork> artworks = artworkDAO.findActiveArtworks(page, limit, categoryParam, searchParam, 
-                                                               minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
+        // Clients that send a cursor (or no page number) get keyset pagination with a nextCursor token
+        List<Artwork> artworks;
+        String nextCursor = null;
+        if (cursorParam != null || pageParam == null) {
+            CursorPage<Artwork> artworkPage = artworkDAO.findActiveArtworks(cursorParam, limit, categoryParam, searchParam, 
+                                                                           minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
+            artworks = artworkPage.getItems();
+            nextCursor = artworkPage.getNextCursor();
+        } else {
+            logger.info("Calling artworkDAO.findActiveArtworks with page: {}, limit: {}", page, limit);
+            artworks = artworkDAO.findActiveArtworks(page, limit, categoryParam, searchParam, 
+                                                     minPriceParam, maxPriceParam, listingTypeParam, sortByParam);
+        }
         
         logger.info("Retrieved {} artworks from DAO", artworks != null ? artworks.size() : 0);
         if (artworks != null) {
@@ -246,6 +259,7 @@ public class ArtworkServlet extends HttpServlet {
         responseData.put("totalPages", 1); // TODO: implement proper pagination
         responseData.put("page", page);
         responseData.put("limit", limit);
+        responseData.put("nextCursor", nextCursor);
         
         String jsonResponse = gson.toJson(responseData);
         logger.info("Response JSON length: {} characters", jsonResponse.length());
@@ -315,9 +329,9 @@ public class ArtworkServlet extends HttpServlet {
             return;
         }
         
-        // Increment view count
-        artwork.incrementViews();
-        artworkDAO.updateArtwork(artwork);
+        // Count the view; it is written to Firestore by the next counter flush
+        ArtworkCounters.getInstance().recordView(artworkId);
+        artwork.setViews(artwork.getViews() + 1);
         
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("success", true);
@@ -388,7 +402,7 @@ public class ArtworkServlet extends HttpServlet {
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("success", true);
         responseData.put("bidders", bidders);
-        responseData.put("totalBidders", bidders.size());
+        responseData.put("totalBidders", artwork.getBidderIds() != null ? artwork.getDistinctBidderCount() : bidders.size());
         responseData.put("artworkId", artworkId);
         responseData.put("artworkTitle", artwork.getTitle());
         
@@ -417,8 +431,8 @@ public class ArtworkServlet extends HttpServlet {
         
         // This would be implemented with a LikeDAO to track user likes
         // For now, just increment likes
-        artwork.incrementLikes();
-        artworkDAO.updateArtwork(artwork);
+        ArtworkCounters.getInstance().recordLike(artworkId, artwork.getArtistId());
+        artwork.setLikes(artwork.getLikes() + 1);
         
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("success", true);
@@ -490,23 +504,32 @@ public class ArtworkServlet extends HttpServlet {
             return;
         }
         
-        // Use AuctionDAO to place the bid (this will save bid history)
-        boolean bidPlaced = auctionDAO.placeBid(artworkId, currentUserId, bidAmount);
+        // Sequenced through the bid engine, which also saves bid history
+        AuctionBidEngine.BidResult bidResult = auctionDAO.submitBid(artworkId, currentUserId, bidAmount);
         
-        if (!bidPlaced) {
+        if (!bidResult.isAccepted()) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            sendErrorResponse(response, "Failed to place bid");
+            switch (bidResult.getOutcome()) {
+                case TOO_LOW:
+                    sendErrorResponse(response, "Bid must be higher than current bid");
+                    break;
+                case ENDED:
+                    sendErrorResponse(response, "Auction is not active");
+                    break;
+                default:
+                    sendErrorResponse(response, "Failed to place bid");
+            }
             return;
         }
         
-        // Get updated artwork info
-        artwork = artworkDAO.findById(artworkId);
+        // Push the new bid to viewers of the auction room
+        AuctionWebSocket.publishBid(artworkId, currentUserId, bidAmount);
         
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("success", true);
         responseData.put("message", "Bid placed successfully");
-        responseData.put("currentBid", artwork.getCurrentBid());
-        responseData.put("bidCount", artwork.getBidCount());
+        responseData.put("currentBid", java.math.BigDecimal.valueOf(bidResult.getCurrentBid()));
+        responseData.put("bidCount", bidResult.getBidCount());
         
         response.getWriter().write(gson.toJson(responseData));
     }
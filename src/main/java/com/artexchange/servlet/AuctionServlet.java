@@ -1,5 +1,6 @@
 package com.artexchange.servlet;
 
+import com.artexchange.dao.AuctionBidEngine;
 import com.artexchange.dao.AuctionDAO;
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.dao.UserDAO;
@@ -9,6 +10,8 @@ import com.artexchange.model.User;
 import com.artexchange.util.GsonUtil;
 import com.artexchange.util.SessionUtil;
 import com.artexchange.util.AuctionProcessor;
+import com.artexchange.util.SettlementSummary;
+import com.artexchange.websocket.AuctionWebSocket;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
 import com.google.gson.Gson;
@@ -382,24 +385,31 @@ public class AuctionServlet extends HttpServlet {
                 return;
             }
             
-            // Place the bid
-            boolean bidPlaced = auctionDAO.placeBid(auctionId, authenticatedUser.getUserId(), bidAmount);
+            // Place the bid through the sequenced bid engine
+            AuctionBidEngine.BidResult bidResult = auctionDAO.submitBid(auctionId, authenticatedUser.getUserId(), bidAmount);
             
-            if (bidPlaced) {
+            if (bidResult.isAccepted()) {
                 logger.info("Bid placed successfully for auction " + auctionId + " by user " + authenticatedUser.getUserId() + " with amount " + bidAmount);
+                AuctionWebSocket.publishBid(auctionId, authenticatedUser.getUserId(), bidAmount);
                 
                 Map<String, Object> result = new HashMap<>();
                 result.put("success", true);
                 result.put("message", "Bid placed successfully");
                 result.put("bidAmount", bidAmount);
+                result.put("bidCount", bidResult.getBidCount());
                 result.put("auctionId", auctionId);
                 result.put("userId", authenticatedUser.getUserId());
                 
                 response.getWriter().write(GsonUtil.getGson().toJson(result));
             } else {
-                logger.warning("Failed to place bid for auction " + auctionId);
+                logger.warning("Failed to place bid for auction " + auctionId + ": " + bidResult.getOutcome());
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                response.getWriter().write("{\"success\": false, \"message\": \"Failed to place bid. Your bid may not be high enough or the auction may no longer be active.\"}");
+                Map<String, Object> result = new HashMap<>();
+                result.put("success", false);
+                result.put("outcome", bidResult.getOutcome().name());
+                result.put("currentBid", bidResult.getCurrentBid());
+                result.put("message", "Failed to place bid. Your bid may not be high enough or the auction may no longer be active.");
+                response.getWriter().write(GsonUtil.getGson().toJson(result));
             }
         } catch (Exception e) {
             logger.severe("Error placing bid: " + e.getMessage());
@@ -722,11 +732,12 @@ public class AuctionServlet extends HttpServlet {
             logger.info("Processing ended auctions...");
             
             // Process all ended auctions
-            AuctionProcessor.processAllEndedAuctions();
+            SettlementSummary summary = AuctionProcessor.processAllEndedAuctions();
             
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
             result.put("message", "Ended auctions processed successfully");
+            result.put("summary", summary.toMap());
             
             response.getWriter().write(GsonUtil.getGson().toJson(result));
             logger.info("Successfully processed ended auctions");
@@ -748,12 +759,13 @@ public class AuctionServlet extends HttpServlet {
             logger.info("Processing specific auction: " + artworkId);
             
             // Process the specific auction
-            AuctionProcessor.processEndedAuction(artworkId);
+            AuctionProcessor.SettlementOutcome outcome = AuctionProcessor.processEndedAuction(artworkId);
             
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
             result.put("message", "Auction processed successfully");
             result.put("artworkId", artworkId);
+            result.put("outcome", outcome.name());
             
             response.getWriter().write(GsonUtil.getGson().toJson(result));
             logger.info("Successfully processed auction: " + artworkId);
@@ -1,8 +1,11 @@
 package com.artexchange.servlet;
 
+import com.artexchange.dao.ArtistAuctionSummaryDAO;
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.dao.PurchaseDAO;
 import com.artexchange.dao.UserDAO;
+import com.artexchange.dao.UserStatsDAO;
+import com.artexchange.model.UserStats;
 import com.artexchange.util.SessionUtil;
 import com.artexchange.util.GsonUtil;
 import com.google.gson.Gson;
@@ -15,6 +18,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 @WebServlet("/api/dashboard/*")
@@ -24,6 +29,8 @@ public class DashboardServlet extends HttpServlet {
     private final ArtworkDAO artworkDAO = new ArtworkDAO();
     private final PurchaseDAO purchaseDAO = new PurchaseDAO();
     private final UserDAO userDAO = new UserDAO();
+    private final UserStatsDAO userStatsDAO = new UserStatsDAO();
+    private final ArtistAuctionSummaryDAO artistAuctionSummaryDAO = new ArtistAuctionSummaryDAO();
     
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -87,71 +94,22 @@ public class DashboardServlet extends HttpServlet {
         String userRole = SessionUtil.getCurrentUserRole(request);
         logger.info("=== Getting dashboard stats for user: " + userId + " with role: " + userRole + " ===");
         
-        // Get user's artworks count (if artist)
-        try {
-            long artworkCount = artworkDAO.getUserArtworkCount(userId);
-            stats.addProperty("totalArtworks", artworkCount);
-        } catch (Exception e) {
-            stats.addProperty("totalArtworks", 0);
-        }
-        
-        // Get user's purchases count
-        // For artists: count sales (purchases of their artworks)
-        // For buyers: count purchases they made
-        try {
-            long purchaseCount = 0;
-            if ("ARTIST".equals(userRole)) {
-                purchaseCount = purchaseDAO.getUserSalesCount(userId);
-            } else {
-                purchaseCount = purchaseDAO.getUserPurchaseCount(userId);
-            }
-            stats.addProperty("totalPurchases", purchaseCount);
-        } catch (Exception e) {
-            logger.warning("Error getting purchase count: " + e.getMessage());
-            stats.addProperty("totalPurchases", 0);
-        }
-        
-        // Get bid count based on user role
-        try {
-            long bidCount = 0;
-            
-            if ("ARTIST".equals(userRole)) {
-                // For artists: show bids received on their artworks
-                logger.info("Getting bids received on artist's artworks for user: " + userId);
-                bidCount = artworkDAO.getArtistReceivedBidsCount(userId);
-                logger.info("Artist received bids count: " + bidCount);
-            } else {
-                // For buyers/collectors: show bids they placed
-                logger.info("Getting bids placed by user: " + userId);
-                bidCount = artworkDAO.getUserTotalBidsCount(userId);
-                logger.info("User placed bids count: " + bidCount);
-            }
-            
-            stats.addProperty("activeBids", bidCount);
-        } catch (Exception e) {
-            logger.severe("Error getting bid count: " + e.getMessage());
-            stats.addProperty("activeBids", 0);
-        }
-        
-        // Get total earnings (if artist)
-        try {
-            if ("ARTIST".equals(userRole)) {
-                java.math.BigDecimal totalEarnings = purchaseDAO.getUserTotalEarnings(userId);
-                stats.addProperty("totalEarnings", totalEarnings.doubleValue());
-            } else {
-                stats.addProperty("totalEarnings", 0.0);
-            }
-        } catch (Exception e) {
-            logger.warning("Error getting total earnings: " + e.getMessage());
-            stats.addProperty("totalEarnings", 0.0);
-        }
+        boolean isArtist = "ARTIST".equals(userRole);
         
-        // Get total likes received
         try {
-            long totalLikes = artworkDAO.getUserTotalLikes(userId);
-            stats.addProperty("totalLikes", totalLikes);
+            // One read of the stats document maintained by the write paths
+            UserStats userStats = userStatsDAO.getStats(userId);
+            stats.addProperty("totalArtworks", userStats.getArtworkCount());
+            // For artists: count sales (purchases of their artworks)
+            // For buyers: count purchases they made
+            stats.addProperty("totalPurchases", isArtist ? userStats.getSalesCount() : userStats.getPurchaseCount());
+            // For artists: bids received on their artworks; for buyers/collectors: bids they placed
+            stats.addProperty("activeBids", isArtist ? userStats.getBidsReceived() : userStats.getBidsPlaced());
+            stats.addProperty("totalEarnings", isArtist ? userStats.getTotalEarnings().doubleValue() : 0.0);
+            stats.addProperty("totalLikes", userStats.getLikesReceived());
         } catch (Exception e) {
-            stats.addProperty("totalLikes", 0);
+            logger.warning("User stats unavailable, querying directly: " + e.getMessage());
+            addQueriedStats(stats, userId, isArtist);
         }
         
         // Get profile views (placeholder - implement based on analytics needs)
@@ -177,6 +135,32 @@ public class DashboardServlet extends HttpServlet {
         response.getWriter().write(gson.toJson(jsonResponse));
     }
     
+    /**
+     * Fallback when the stats document cannot be read: run the counting queries
+     * concurrently. Each async DAO method already falls back to zero on error.
+     */
+    private void addQueriedStats(JsonObject stats, String userId, boolean isArtist) {
+        CompletableFuture<Long> artworkCount = artworkDAO.getUserArtworkCountAsync(userId);
+        CompletableFuture<Long> purchaseCount = isArtist
+            ? purchaseDAO.getUserSalesCountAsync(userId)
+            : purchaseDAO.getUserPurchaseCountAsync(userId);
+        CompletableFuture<Long> bidCount = isArtist
+            ? artworkDAO.getArtistReceivedBidsCountAsync(userId)
+            : artworkDAO.getUserTotalBidsCountAsync(userId);
+        CompletableFuture<java.math.BigDecimal> totalEarnings = isArtist
+            ? purchaseDAO.getUserTotalEarningsAsync(userId)
+            : CompletableFuture.completedFuture(java.math.BigDecimal.ZERO);
+        CompletableFuture<Long> totalLikes = artworkDAO.getUserTotalLikesAsync(userId);
+        
+        CompletableFuture.allOf(artworkCount, purchaseCount, bidCount, totalEarnings, totalLikes).join();
+        
+        stats.addProperty("totalArtworks", artworkCount.join());
+        stats.addProperty("totalPurchases", purchaseCount.join());
+        stats.addProperty("activeBids", bidCount.join());
+        stats.addProperty("totalEarnings", totalEarnings.join().doubleValue());
+        stats.addProperty("totalLikes", totalLikes.join());
+    }
+    
     /**
      * Get seller/artist dashboard data including active auctions with bidder counts
      */
@@ -197,9 +181,17 @@ public class DashboardServlet extends HttpServlet {
         
         JsonObject dashboardData = new JsonObject();
         
+        // Likes received and sales made come from the artist's stats projection
+        UserStats userStats = null;
+        try {
+            userStats = userStatsDAO.getStats(userId);
+        } catch (Exception e) {
+            logger.warning("Error reading user stats, querying counts instead: " + e.getMessage());
+        }
+        
         // Get total likes received
         try {
-            long likesCount = artworkDAO.getUserTotalLikes(userId);
+            long likesCount = userStats != null ? userStats.getLikesReceived() : artworkDAO.getUserTotalLikes(userId);
             dashboardData.addProperty("likesCount", likesCount);
             logger.info("Likes count: " + likesCount);
         } catch (Exception e) {
@@ -210,7 +202,7 @@ public class DashboardServlet extends HttpServlet {
         // Get total purchases (purchases of artist's artworks)
         try {
             // Count purchases where sellerId = userId (sales made by this artist)
-            long purchasesCount = purchaseDAO.getUserSalesCount(userId);
+            long purchasesCount = userStats != null ? userStats.getSalesCount() : purchaseDAO.getUserSalesCount(userId);
             dashboardData.addProperty("purchasesCount", purchasesCount);
             logger.info("Purchases count (sales): " + purchasesCount);
         } catch (Exception e) {
@@ -220,97 +212,53 @@ public class DashboardServlet extends HttpServlet {
         
         // Get active and ended auctions with bidder counts and winner information
         try {
-            // First, try a direct query for auctions to ensure we get all of them
-            List<com.artexchange.model.Artwork> artistArtworks = artworkDAO.findArtworksByArtist(userId, 1, 1000); // Increased limit to get all artworks
-            logger.info("Found " + artistArtworks.size() + " total artworks for artist " + userId);
-            
-            // Also log how many are auctions
-            long auctionCount = artistArtworks.stream()
-                .filter(a -> a.getSaleType() != null && a.getSaleType() == com.artexchange.model.Artwork.SaleType.AUCTION)
-                .count();
-            logger.info("Found " + auctionCount + " artworks with saleType=AUCTION");
-            
-            long activeAuctionCount = artistArtworks.stream()
-                .filter(a -> a.getSaleType() != null && a.getSaleType() == com.artexchange.model.Artwork.SaleType.AUCTION
-                          && a.getStatus() != null && a.getStatus() == com.artexchange.model.Artwork.ArtworkStatus.ACTIVE)
-                .count();
-            logger.info("Found " + activeAuctionCount + " artworks with saleType=AUCTION and status=ACTIVE");
+            // One query of the artist's auction summary entries instead of their artworks plus bid_history per auction
+            List<Map<String, Object>> auctions = artistAuctionSummaryDAO.getAuctions(userId);
+            logger.info("Found " + auctions.size() + " auction summaries for artist " + userId);
             
             com.google.gson.JsonArray auctionsArray = new com.google.gson.JsonArray();
             
-            for (com.artexchange.model.Artwork artwork : artistArtworks) {
-                // Log each artwork for debugging
-                logger.info("Checking artwork: " + artwork.getArtworkId() + 
-                           ", Title: " + artwork.getTitle() + 
-                           ", SaleType: " + (artwork.getSaleType() != null ? artwork.getSaleType().toString() : "null") +
-                           ", Status: " + (artwork.getStatus() != null ? artwork.getStatus().toString() : "null"));
-                
+            for (Map<String, Object> auction : auctions) {
                 // Include both active and sold (ended) auctions
-                // Use null-safe comparison
-                boolean isAuction = artwork.getSaleType() != null && 
-                                   artwork.getSaleType() == com.artexchange.model.Artwork.SaleType.AUCTION;
-                boolean isActiveOrSold = artwork.getStatus() != null && 
-                                        (artwork.getStatus() == com.artexchange.model.Artwork.ArtworkStatus.ACTIVE 
-                                         || artwork.getStatus() == com.artexchange.model.Artwork.ArtworkStatus.SOLD);
+                Object status = auction.get("status");
+                if (!"ACTIVE".equals(status) && !"SOLD".equals(status)) {
+                    continue;
+                }
                 
-                if (isAuction && isActiveOrSold) {
-                    logger.info("Found auction artwork: " + artwork.getArtworkId() + " with status: " + artwork.getStatus());
-                    
-                    // Get unique bidder count for this auction
-                    long biddersCount = 0;
-                    try {
-                        com.google.cloud.firestore.Query bidQuery = com.artexchange.config.FirebaseConfig.getFirestore()
-                            .collection("bid_history")
-                            .whereEqualTo("auctionId", artwork.getArtworkId());
-                        com.google.cloud.firestore.QuerySnapshot bidSnapshot = bidQuery.get().get();
-                        
-                        // Count unique bidders
-                        java.util.Set<String> uniqueBidders = new java.util.HashSet<>();
-                        for (com.google.cloud.firestore.QueryDocumentSnapshot doc : bidSnapshot.getDocuments()) {
-                            String bidderId = doc.getString("bidderId");
-                            if (bidderId != null && !bidderId.trim().isEmpty()) {
-                                uniqueBidders.add(bidderId);
-                            }
-                        }
-                        biddersCount = uniqueBidders.size();
-                    } catch (Exception e) {
-                        logger.warning("Error getting bidder count for artwork " + artwork.getArtworkId() + ": " + e.getMessage());
-                    }
-                    
-                    com.google.gson.JsonObject auctionObj = new com.google.gson.JsonObject();
-                    auctionObj.addProperty("auctionId", artwork.getArtworkId());
-                    auctionObj.addProperty("artworkTitle", artwork.getTitle());
-                    auctionObj.addProperty("currentBid", artwork.getCurrentBid() != null ? artwork.getCurrentBid().doubleValue() : 0.0);
-                    auctionObj.addProperty("biddersCount", biddersCount);
-                    Integer bidCount = artwork.getBidCount();
-                    auctionObj.addProperty("bidCount", bidCount != null ? bidCount.intValue() : 0);
-                    auctionObj.addProperty("status", artwork.getStatus().toString());
-                    
-                    // Add winner information if auction has ended (SOLD status)
-                    if (artwork.getStatus() == com.artexchange.model.Artwork.ArtworkStatus.SOLD) {
-                        // Check if there's a winner
-                        if (artwork.getWinnerId() != null && !artwork.getWinnerId().trim().isEmpty()) {
-                            auctionObj.addProperty("winnerId", artwork.getWinnerId());
-                            auctionObj.addProperty("winnerName", artwork.getWinnerName() != null ? artwork.getWinnerName() : "Unknown");
-                            if (artwork.getWinningBidAmount() != null) {
-                                auctionObj.addProperty("winningBidAmount", artwork.getWinningBidAmount().doubleValue());
-                            }
-                            auctionObj.addProperty("hasWinner", true);
-                        } else {
-                            // Auction ended but no winner (no bids)
-                            auctionObj.addProperty("hasWinner", false);
-                        }
-                        // Always include endedAt if available
-                        if (artwork.getEndedAt() != null) {
-                            auctionObj.addProperty("endedAt", artwork.getEndedAt().toString());
+                com.google.gson.JsonObject auctionObj = new com.google.gson.JsonObject();
+                auctionObj.addProperty("auctionId", (String) auction.get("auctionId"));
+                auctionObj.addProperty("artworkTitle", (String) auction.get("artworkTitle"));
+                auctionObj.addProperty("currentBid", asNumber(auction.get("currentBid")).doubleValue());
+                auctionObj.addProperty("biddersCount", asNumber(auction.get("biddersCount")).longValue());
+                auctionObj.addProperty("bidCount", asNumber(auction.get("bidCount")).intValue());
+                auctionObj.addProperty("status", (String) status);
+                
+                // Add winner information if auction has ended (SOLD status)
+                if ("SOLD".equals(status)) {
+                    // Check if there's a winner
+                    Object winnerId = auction.get("winnerId");
+                    if (winnerId instanceof String && !((String) winnerId).trim().isEmpty()) {
+                        auctionObj.addProperty("winnerId", (String) winnerId);
+                        Object winnerName = auction.get("winnerName");
+                        auctionObj.addProperty("winnerName", winnerName != null ? winnerName.toString() : "Unknown");
+                        if (auction.get("winningBidAmount") instanceof Number) {
+                            auctionObj.addProperty("winningBidAmount", ((Number) auction.get("winningBidAmount")).doubleValue());
                         }
+                        auctionObj.addProperty("hasWinner", true);
                     } else {
-                        // Active auction - no winner yet
+                        // Auction ended but no winner (no bids)
                         auctionObj.addProperty("hasWinner", false);
                     }
-                    
-                    auctionsArray.add(auctionObj);
+                    // Always include endedAt if available
+                    if (auction.get("endedAt") != null) {
+                        auctionObj.addProperty("endedAt", auction.get("endedAt").toString());
+                    }
+                } else {
+                    // Active auction - no winner yet
+                    auctionObj.addProperty("hasWinner", false);
                 }
+                
+                auctionsArray.add(auctionObj);
             }
             
             dashboardData.add("auctions", auctionsArray);
@@ -338,4 +286,8 @@ public class DashboardServlet extends HttpServlet {
         
         response.getWriter().write(gson.toJson(jsonResponse));
     }
+    
+    private static Number asNumber(Object value) {
+        return value instanceof Number ? (Number) value : 0;
+    }
 }
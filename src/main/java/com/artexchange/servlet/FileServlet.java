@@ -1,27 +1,63 @@
 package com.artexchange.servlet;
 
+import com.artexchange.util.ImageDerivatives;
+import com.artexchange.util.UploadStore;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Servlet for serving uploaded files
+ * Servlet for serving uploaded files.
+ *
+ * Images can be requested at a fixed width with ?w= (see {@link ImageDerivatives}).
+ *
+ * Uploads are stored under their SHA-256 (older ones under random UUIDs) and
+ * never rewritten, so the name itself is a strong ETag. Revalidations are answered with 304 from
+ * If-None-Match / If-Modified-Since, single byte ranges are served with 206,
+ * and the body is handed to the container's sendfile when it offers one
+ * (Tomcat) or copied with FileChannel.transferTo otherwise.
  */
 @WebServlet("/uploads/*")
 public class FileServlet extends HttpServlet {
     private static final Logger logger = Logger.getLogger(FileServlet.class.getName());
-    private static final String UPLOAD_DIR = "uploads";
-
+    
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+        "([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-f]{64})(\\.[A-Za-z0-9]+)?");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    
+    // Tomcat's sendfile request attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        serveFile(request, response, true);
+    }
+    
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        serveFile(request, response, false);
+    }
+    
+    private void serveFile(HttpServletRequest request, HttpServletResponse response, boolean sendBody)
+            throws IOException {
         
         String pathInfo = request.getPathInfo();
         
@@ -45,12 +81,11 @@ public class FileServlet extends HttpServlet {
         String normalizedPath = relativePath.replace("/", File.separator);
         
         try {
-            // Get the upload directory path
-            String uploadPath = getServletContext().getRealPath("") + File.separator + UPLOAD_DIR;
-            Path filePath = Paths.get(uploadPath, normalizedPath);
+            // Get the upload directory path (the store root, or the webapp directory for older files)
+            Path uploadDirPath = UploadStore.get(getServletContext()).baseFor(normalizedPath).normalize();
+            Path filePath = uploadDirPath.resolve(normalizedPath);
             
             // Additional security: ensure the resolved path is within the upload directory
-            Path uploadDirPath = Paths.get(uploadPath).normalize();
             Path resolvedFilePath = filePath.normalize();
             
             if (!resolvedFilePath.startsWith(uploadDirPath)) {
@@ -62,7 +97,7 @@ public class FileServlet extends HttpServlet {
             // Check if file exists
             if (!Files.exists(resolvedFilePath) || !Files.isRegularFile(resolvedFilePath)) {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                logger.info("File not found: " + resolvedFilePath);
+                logger.fine("File not found: " + resolvedFilePath);
                 return;
             }
             
@@ -74,33 +109,209 @@ public class FileServlet extends HttpServlet {
             if (mimeType == null) {
                 mimeType = "application/octet-stream";
             }
-            response.setContentType(mimeType);
             
-            // Set content length
-            response.setContentLengthLong(Files.size(resolvedFilePath));
+            // ?w= asks for a downscaled copy of an image, created on first request for older uploads
+            int width = parseWidth(request.getParameter("w"));
+            if (width > 0 && mimeType.startsWith("image/")) {
+                width = ImageDerivatives.snapWidth(width);
+                resolvedFilePath = ImageDerivatives.getInstance().resolve(uploadDirPath, resolvedFilePath, width);
+            } else {
+                width = 0;
+            }
             
-            // Set cache headers for images
+            long length = Files.size(resolvedFilePath);
+            // HTTP dates have second precision
+            long lastModified = Files.getLastModifiedTime(resolvedFilePath).toMillis() / 1000 * 1000;
+            String etag = etagFor(fileName, width, length, lastModified);
+            
+            // Validators and cache headers go on 200, 206 and 304 alike
+            response.setHeader("ETag", etag);
+            response.setDateHeader("Last-Modified", lastModified);
+            response.setHeader("Accept-Ranges", "bytes");
             if (mimeType.startsWith("image/")) {
                 response.setHeader("Cache-Control", "public, max-age=31536000"); // 1 year
                 response.setHeader("Expires", "Thu, 31 Dec 2037 23:55:55 GMT");
             }
             
-            // Stream the file to the response
-            try (InputStream inputStream = Files.newInputStream(resolvedFilePath);
-                 OutputStream outputStream = response.getOutputStream()) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+            if (isNotModified(request, etag, lastModified)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            
+            response.setContentType(mimeType);
+            
+            // Serve a single byte range if one was asked for and the client's copy is current
+            long start = 0;
+            long end = length - 1;
+            String range = request.getHeader("Range");
+            if (range != null && length > 0 && isIfRangeCurrent(request, etag, lastModified)) {
+                long[] bounds = parseRange(range, length);
+                if (bounds == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    start = bounds[0];
+                    end = bounds[1];
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+            
+            long count = end - start + 1;
+            response.setContentLengthLong(count);
+            if (!sendBody || count <= 0) {
+                return;
+            }
+            
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // The container writes the file straight from the page cache to the socket
+                request.setAttribute(SENDFILE_FILENAME, resolvedFilePath.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+            } else {
+                try (FileChannel channel = FileChannel.open(resolvedFilePath, StandardOpenOption.READ)) {
+                    WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                    long position = start;
+                    long remaining = count;
+                    while (remaining > 0) {
+                        long written = channel.transferTo(position, remaining, out);
+                        if (written <= 0) {
+                            break;
+                        }
+                        position += written;
+                        remaining -= written;
+                    }
                 }
             }
             
-            logger.info("Served file: " + relativePath);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Served file: " + relativePath + " (" + count + " of " + length + " bytes)");
+            }
             
         } catch (Exception e) {
             logger.severe("Error serving file " + relativePath + ": " + e.getMessage());
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+    
+    /**
+     * A UUID or content-hash file name is never reused for other content, so it (and
+     * the width of a derivative) alone is a strong validator; other names also carry
+     * the size and modification time
+     */
+    private static String etagFor(String fileName, int width, long length, long lastModified) {
+        String variant = width > 0 ? "-w" + width : "";
+        if (IMMUTABLE_NAME.matcher(fileName).matches()) {
+            return "\"" + fileName + variant + "\"";
+        }
+        return "\"" + fileName + variant + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+    
+    private static int parseWidth(String value) {
+        if (value == null || value.isEmpty() || value.length() > 5) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * If-None-Match takes precedence; If-Modified-Since is only used without it
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Weak comparison of an If-None-Match list, as RFC 9110 specifies for it
+     */
+    private static boolean matchesAny(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Without If-Range a Range always applies; with it, only if the validator
+     * still matches, otherwise the whole file is sent
+     */
+    private static boolean isIfRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"")) {
+            return ifRange.trim().equals(etag);
+        }
+        try {
+            return request.getDateHeader("If-Range") == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Bounds {start, end} (inclusive) of a single "bytes=" range, an empty array if the
+     * header should be ignored (multiple ranges, other units, bad syntax), or null if
+     * the range cannot be satisfied
+     */
+    private static long[] parseRange(String header, long length) {
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches()) {
+            return new long[0];
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) {
+                    return null;
+                }
+                return new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) {
+                return null;
+            }
+            if (end < start) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            // Digits too long for a long
+            return new long[0];
         }
     }
 }
@@ -7,13 +7,11 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Part;
+import com.artexchange.util.ImageDerivatives;
+import com.artexchange.util.UploadStore;
 import com.google.gson.JsonObject;
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 @WebServlet("/api/upload")
@@ -38,21 +36,7 @@ public class FileUploadServlet extends HttpServlet {
         JsonObject jsonResponse = new JsonObject();
         
         try {
-            // Get the upload directory path
-            String uploadPath = getServletContext().getRealPath("") + File.separator + UPLOAD_DIR;
-            
-            // Log the path for debugging
-            logger.info("Upload path resolved to: " + uploadPath);
-            
-            // Create upload directory if it doesn't exist
-            File uploadDir = new File(uploadPath);
-            if (!uploadDir.exists()) {
-                logger.info("Creating upload directory: " + uploadPath);
-                boolean created = uploadDir.mkdirs();
-                logger.info("Directory creation result: " + created);
-            } else {
-                logger.info("Upload directory already exists: " + uploadPath);
-            }
+            UploadStore store = UploadStore.get(getServletContext());
             
             // Get the file part from the request
             Part filePart = request.getPart("file");
@@ -92,38 +76,31 @@ public class FileUploadServlet extends HttpServlet {
                 return;
             }
             
-            // Generate unique filename
+            // Save file under the hash of its content; re-uploading the same image reuses it
             String fileExtension = getFileExtension(originalFileName);
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-            
-            // Create file path
-            Path filePath = Paths.get(uploadPath, uniqueFileName);
-            
-            logger.info("Saving file to path: " + filePath.toString());
-            
-            // Save file
+            String storedName;
             try (InputStream inputStream = filePart.getInputStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-                logger.info("File saved successfully: " + uniqueFileName);
+                storedName = store.store(inputStream, fileExtension);
             }
+            Path filePath = store.getRoot().resolve(storedName);
             
-            // Verify file was created
-            File savedFile = filePath.toFile();
-            if (savedFile.exists()) {
-                logger.info("File verification successful. Size: " + savedFile.length() + " bytes");
-            } else {
-                logger.severe("File was not created at expected location: " + filePath.toString());
-            }
+            // Downscaled copies for listings are made in the background
+            ImageDerivatives.getInstance().scheduleAll(store.getRoot(), filePath);
             
             // Generate URL for the uploaded file
-            String fileUrl = request.getContextPath() + "/" + UPLOAD_DIR + "/" + uniqueFileName;
+            String fileUrl = request.getContextPath() + "/" + UPLOAD_DIR + "/" + storedName;
             
-            logger.info("File uploaded successfully: " + uniqueFileName);
+            logger.info("File uploaded successfully: " + storedName + " (" + fileSize + " bytes)");
             
             jsonResponse.addProperty("success", true);
             jsonResponse.addProperty("message", "File uploaded successfully");
-            jsonResponse.addProperty("fileName", uniqueFileName);
+            jsonResponse.addProperty("fileName", storedName);
             jsonResponse.addProperty("fileUrl", fileUrl);
+            JsonObject variants = new JsonObject();
+            for (int width : ImageDerivatives.WIDTHS) {
+                variants.addProperty(String.valueOf(width), ImageDerivatives.variantUrl(fileUrl, width));
+            }
+            jsonResponse.add("variants", variants);
             jsonResponse.addProperty("originalName", originalFileName);
             
         } catch (Exception e) {
@@ -16,6 +16,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 @WebServlet("/api/messages/*")
@@ -109,28 +110,30 @@ public class MessageServlet extends HttpServlet {
     private void handleGetConversations(HttpServletRequest request, HttpServletResponse response, String userId)
             throws Exception {
         
-        List<String> conversationPartners = messageDAO.getUserConversations(userId);
+        // Messages and partner profiles are loaded in bulk rather than per conversation
+        Map<String, List<Message>> conversationsByPartner = messageDAO.getConversationsByPartner(userId);
+        Map<String, User> partners = userDAO.findByIds(conversationsByPartner.keySet());
         JsonArray conversations = new JsonArray();
         
-        for (String partnerId : conversationPartners) {
+        for (Map.Entry<String, List<Message>> entry : conversationsByPartner.entrySet()) {
+            String partnerId = entry.getKey();
+            List<Message> messages = entry.getValue();
+            
             // Handle SYSTEM notifications specially
             if ("SYSTEM".equals(partnerId)) {
-                // Get all system messages for this user
-                List<Message> systemMessages = messageDAO.getConversation(userId, "SYSTEM", null);
-                
-                if (!systemMessages.isEmpty()) {
+                if (!messages.isEmpty()) {
                     JsonObject conversation = new JsonObject();
                     conversation.addProperty("partnerId", "SYSTEM");
                     conversation.addProperty("partnerName", "System Notifications");
                     conversation.addProperty("partnerAvatar", "/assets/images/default-avatar.svg");
                     
-                    Message latestMessage = systemMessages.get(systemMessages.size() - 1);
+                    Message latestMessage = messages.get(messages.size() - 1);
                     conversation.addProperty("lastMessage", latestMessage.getContent());
                     conversation.addProperty("lastMessageTime", latestMessage.getTimestamp().getTime());
                     conversation.addProperty("lastMessageSenderId", latestMessage.getSenderId());
                     
                     // Count unread system messages
-                    long unreadCount = systemMessages.stream()
+                    long unreadCount = messages.stream()
                             .filter(m -> m.getReceiverId().equals(userId) && !m.isRead())
                             .count();
                     conversation.addProperty("unreadCount", unreadCount);
@@ -139,11 +142,8 @@ public class MessageServlet extends HttpServlet {
                 }
             } else {
                 // Handle regular user conversations
-                User partner = userDAO.findById(partnerId);
+                User partner = partners.get(partnerId);
                 if (partner != null) {
-                    // Get latest message in conversation
-                    List<Message> messages = messageDAO.getConversation(userId, partnerId, null);
-                    
                     JsonObject conversation = new JsonObject();
                     conversation.addProperty("partnerId", partnerId);
                     conversation.addProperty("partnerName", partner.getDisplayName());
@@ -0,0 +1,55 @@
+package com.artexchange.servlet;
+
+import com.artexchange.metrics.Metrics;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.logging.Logger;
+
+/**
+ * Servlet for the /internal/metrics endpoint, scraped by Prometheus.
+ *
+ * With -Dartexchange.metrics.token set, requests must carry it as
+ * "Authorization: Bearer &lt;token&gt;"; without it only local requests are served.
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = {"/internal/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final Logger logger = Logger.getLogger(MetricsServlet.class.getName());
+    private static final String TOKEN = System.getProperty("artexchange.metrics.token");
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (!isAllowed(request)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(Metrics.toPrometheusText());
+    }
+    
+    private static boolean isAllowed(HttpServletRequest request) {
+        if (TOKEN != null && !TOKEN.isEmpty()) {
+            String authorization = request.getHeader("Authorization");
+            return authorization != null && MessageDigest.isEqual(
+                authorization.getBytes(StandardCharsets.UTF_8),
+                ("Bearer " + TOKEN).getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            logger.warning("Unparseable remote address for metrics request: " + request.getRemoteAddr());
+            return false;
+        }
+    }
+}
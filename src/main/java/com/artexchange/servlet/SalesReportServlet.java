@@ -2,15 +2,16 @@ package com.artexchange.servlet;
 
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.dao.PurchaseDAO;
+import com.artexchange.dao.SalesRollupDAO;
 import com.artexchange.dao.UserDAO;
-import com.artexchange.model.Artwork;
-import com.artexchange.model.Purchase;
-import com.artexchange.model.User;
+import com.artexchange.model.SalesRollup;
+import com.artexchange.util.SalesReportEngine;
 import com.artexchange.util.SessionUtil;
 import com.artexchange.util.GsonUtil;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -18,13 +19,11 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.PrintWriter;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 @WebServlet("/api/sales-report")
 public class SalesReportServlet extends HttpServlet {
@@ -33,6 +32,9 @@ public class SalesReportServlet extends HttpServlet {
     private final PurchaseDAO purchaseDAO = new PurchaseDAO();
     private final ArtworkDAO artworkDAO = new ArtworkDAO();
     private final UserDAO userDAO = new UserDAO();
+    private final SalesReportEngine reportEngine = new SalesReportEngine(purchaseDAO, artworkDAO, userDAO);
+    private final SalesRollupDAO salesRollupDAO = new SalesRollupDAO();
+    private static final int DEFAULT_DAILY_RANGE_DAYS = 365;
     
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -85,18 +87,25 @@ public class SalesReportServlet extends HttpServlet {
                 }
             }
             
-            // Get sales report data
-            JsonObject reportData = generateSalesReport(currentUserId, startDate, endDate);
-            
-            JsonObject jsonResponse = new JsonObject();
-            jsonResponse.addProperty("success", true);
-            jsonResponse.add("data", reportData);
-            
-            response.getWriter().write(gson.toJson(jsonResponse));
+            String format = request.getParameter("format");
+            if ("csv".equalsIgnoreCase(format)) {
+                writeCsvReport(response, currentUserId, startDate, endDate);
+            } else if ("daily".equalsIgnoreCase(format)) {
+                writeDailyReport(response, currentUserId, startDate, endDate);
+            } else {
+                writeJsonReport(response, currentUserId, startDate, endDate);
+            }
             
         } catch (Exception e) {
             logger.severe("Error generating sales report for artist " + currentUserId + ": " + e.getMessage());
             e.printStackTrace();
+            if (response.isCommitted()) {
+                // Rows were already streamed; the client sees a truncated body
+                return;
+            }
+            response.reset();
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             JsonObject error = new JsonObject();
             error.addProperty("success", false);
@@ -107,202 +116,126 @@ public class SalesReportServlet extends HttpServlet {
     }
     
     /**
-     * Generate sales report for an artist
+     * Stream the report as {"success":true,"data":{salesRecords:[...], totals...}}.
+     * The totals follow the records because they are only known once every row is written.
      */
-    private JsonObject generateSalesReport(String artistId, LocalDateTime startDate, LocalDateTime endDate)
-            throws ExecutionException, InterruptedException {
-        
-        JsonObject report = new JsonObject();
-        
-        // Get all purchases (direct sales) for this artist
-        List<Purchase> allPurchases;
-        try {
-            allPurchases = purchaseDAO.findBySellerId(artistId);
-            logger.info("Found " + allPurchases.size() + " purchases for artist " + artistId);
-        } catch (Exception e) {
-            logger.severe("Error fetching purchases for artist " + artistId + ": " + e.getMessage());
-            e.printStackTrace();
-            // Return empty list to allow report generation to continue
-            allPurchases = new ArrayList<>();
-        }
-        
-        // Filter by date range if provided
-        List<Purchase> filteredPurchases = allPurchases.stream()
-            .filter(p -> {
-                if (p.getPurchaseDate() == null) return false;
-                if (startDate != null && p.getPurchaseDate().isBefore(startDate)) return false;
-                if (endDate != null && p.getPurchaseDate().isAfter(endDate)) return false;
-                return "COMPLETED".equals(p.getStatus());
-            })
-            .collect(Collectors.toList());
-        
-        // Get all artworks by artist to find auction winners
-        List<Artwork> allArtworks;
-        try {
-            allArtworks = artworkDAO.findArtworksByArtist(artistId, 1, 10000);
-            logger.info("Found " + allArtworks.size() + " artworks for artist " + artistId);
-        } catch (Exception e) {
-            logger.severe("Error fetching artworks for artist " + artistId + ": " + e.getMessage());
-            e.printStackTrace();
-            // Return empty list to allow report generation to continue
-            allArtworks = new ArrayList<>();
-        }
-        
-        // Filter sold auction artworks with winners
-        List<Artwork> soldAuctions = allArtworks.stream()
-            .filter(a -> a.getStatus() == Artwork.ArtworkStatus.SOLD 
-                      && a.getSaleType() == Artwork.SaleType.AUCTION
-                      && a.getWinnerId() != null
-                      && !a.getWinnerId().isEmpty())
-            .filter(a -> {
-                LocalDateTime saleDate = a.getEndedAt() != null ? a.getEndedAt() : 
-                                       (a.getSoldAt() != null ? a.getSoldAt() : a.getUpdatedAt());
-                if (saleDate == null) return false;
-                if (startDate != null && saleDate.isBefore(startDate)) return false;
-                if (endDate != null && saleDate.isAfter(endDate)) return false;
-                return true;
-            })
-            .collect(Collectors.toList());
-        
-        // Build sales records list
-        JsonArray salesRecords = new JsonArray();
-        
-        // Add direct purchases
-        BigDecimal totalDirectSales = BigDecimal.ZERO;
-        for (Purchase purchase : filteredPurchases) {
-            try {
-                JsonObject saleRecord = new JsonObject();
-                saleRecord.addProperty("artworkId", purchase.getArtworkId() != null ? purchase.getArtworkId() : "");
-                
-                // Get artwork title
-                try {
-                    Artwork artwork = artworkDAO.findById(purchase.getArtworkId());
-                    saleRecord.addProperty("artworkTitle", artwork != null && artwork.getTitle() != null ? artwork.getTitle() : "Unknown");
-                } catch (Exception e) {
-                    logger.warning("Error fetching artwork " + purchase.getArtworkId() + ": " + e.getMessage());
-                    saleRecord.addProperty("artworkTitle", "Unknown");
-                }
-                
-                // Get buyer username
-                try {
-                    if (purchase.getBuyerId() != null) {
-                        User buyer = userDAO.findById(purchase.getBuyerId());
-                        String username = "Unknown";
-                        if (buyer != null) {
-                            if (buyer.getUsername() != null && !buyer.getUsername().isEmpty()) {
-                                username = buyer.getUsername();
-                            } else if (buyer.getFirstName() != null) {
-                                username = buyer.getFirstName();
-                                if (buyer.getLastName() != null && !buyer.getLastName().isEmpty()) {
-                                    username += " " + buyer.getLastName();
-                                }
-                            }
-                        }
-                        saleRecord.addProperty("buyerUsername", username);
-                    } else {
-                        saleRecord.addProperty("buyerUsername", "Unknown");
-                    }
-                } catch (Exception e) {
-                    logger.warning("Error fetching buyer " + purchase.getBuyerId() + ": " + e.getMessage());
-                    saleRecord.addProperty("buyerUsername", "Unknown");
-                }
-                
-                saleRecord.addProperty("saleType", "DIRECT_PURCHASE");
-                saleRecord.addProperty("finalPrice", purchase.getPurchasePrice() != null ? 
-                    purchase.getPurchasePrice().doubleValue() : 0.0);
-                saleRecord.addProperty("saleDate", purchase.getPurchaseDate() != null ? 
-                    purchase.getPurchaseDate().toString() : "");
-                
-                BigDecimal purchasePrice = purchase.getPurchasePrice() != null ? 
-                    purchase.getPurchasePrice() : BigDecimal.ZERO;
-                totalDirectSales = totalDirectSales.add(purchasePrice);
-                
-                salesRecords.add(saleRecord);
-            } catch (Exception e) {
-                logger.warning("Error processing purchase record: " + e.getMessage());
-                // Continue with next purchase
-            }
-        }
-        
-        // Add auction sales
-        BigDecimal totalAuctionSales = BigDecimal.ZERO;
-        for (Artwork artwork : soldAuctions) {
-            try {
-                JsonObject saleRecord = new JsonObject();
-                saleRecord.addProperty("artworkId", artwork.getArtworkId() != null ? artwork.getArtworkId() : "");
-                saleRecord.addProperty("artworkTitle", artwork.getTitle() != null ? artwork.getTitle() : "Unknown");
-                
-                // Get buyer username - prefer username from UserDAO, fallback to winnerName
-                String buyerUsername = "Unknown";
-                if (artwork.getWinnerId() != null && !artwork.getWinnerId().isEmpty()) {
-                    try {
-                        User buyer = userDAO.findById(artwork.getWinnerId());
-                        if (buyer != null) {
-                            if (buyer.getUsername() != null && !buyer.getUsername().isEmpty()) {
-                                buyerUsername = buyer.getUsername();
-                            } else if (buyer.getFirstName() != null) {
-                                buyerUsername = buyer.getFirstName();
-                                if (buyer.getLastName() != null && !buyer.getLastName().isEmpty()) {
-                                    buyerUsername += " " + buyer.getLastName();
-                                }
-                            }
-                        } else if (artwork.getWinnerName() != null && !artwork.getWinnerName().isEmpty()) {
-                            buyerUsername = artwork.getWinnerName();
-                        }
-                    } catch (Exception e) {
-                        logger.warning("Error fetching winner user " + artwork.getWinnerId() + ": " + e.getMessage());
-                        // Fallback to winnerName from artwork
-                        if (artwork.getWinnerName() != null && !artwork.getWinnerName().isEmpty()) {
-                            buyerUsername = artwork.getWinnerName();
-                        }
-                    }
-                } else if (artwork.getWinnerName() != null && !artwork.getWinnerName().isEmpty()) {
-                    buyerUsername = artwork.getWinnerName();
-                }
-                
-                saleRecord.addProperty("buyerUsername", buyerUsername);
-                saleRecord.addProperty("saleType", "AUCTION");
-                
-                BigDecimal winningBid = artwork.getWinningBidAmount() != null ? artwork.getWinningBidAmount() : 
-                                      (artwork.getCurrentBid() != null ? artwork.getCurrentBid() : BigDecimal.ZERO);
-                saleRecord.addProperty("finalPrice", winningBid.doubleValue());
-                
-                LocalDateTime saleDate = artwork.getEndedAt() != null ? artwork.getEndedAt() : 
-                                       (artwork.getSoldAt() != null ? artwork.getSoldAt() : artwork.getUpdatedAt());
-                saleRecord.addProperty("saleDate", saleDate != null ? saleDate.toString() : "");
-                
-                totalAuctionSales = totalAuctionSales.add(winningBid);
-                
-                salesRecords.add(saleRecord);
-            } catch (Exception e) {
-                logger.warning("Error processing auction sale record: " + e.getMessage());
-                // Continue with next artwork
-            }
-        }
-        
-        // Calculate totals
-        int totalArtworksSold = filteredPurchases.size() + soldAuctions.size();
-        BigDecimal totalRevenue = totalDirectSales.add(totalAuctionSales);
+    private void writeJsonReport(HttpServletResponse response, String artistId,
+                                 LocalDateTime startDate, LocalDateTime endDate) throws IOException {
+        JsonWriter writer = gson.newJsonWriter(response.getWriter());
+        writer.beginObject();
+        writer.name("success").value(true);
+        writer.name("data").beginObject();
+        
+        writer.name("salesRecords").beginArray();
+        SalesReportEngine.Totals totals = reportEngine.run(artistId, startDate, endDate, record -> {
+            writer.beginObject();
+            writer.name("artworkId").value(record.getArtworkId());
+            writer.name("artworkTitle").value(record.getArtworkTitle());
+            writer.name("buyerUsername").value(record.getBuyerUsername());
+            writer.name("saleType").value(record.getSaleType());
+            writer.name("finalPrice").value(record.getFinalPrice().doubleValue());
+            writer.name("saleDate").value(record.getSaleDate() != null ? record.getSaleDate().toString() : "");
+            writer.endObject();
+        });
+        writer.endArray();
         
         // Add summary statistics
-        report.addProperty("totalArtworksSold", totalArtworksSold);
-        report.addProperty("totalRevenue", totalRevenue.doubleValue());
-        report.addProperty("directPurchaseCount", filteredPurchases.size());
-        report.addProperty("directPurchaseRevenue", totalDirectSales.doubleValue());
-        report.addProperty("auctionSaleCount", soldAuctions.size());
-        report.addProperty("auctionSaleRevenue", totalAuctionSales.doubleValue());
-        
-        // Add sales records
-        report.add("salesRecords", salesRecords);
+        writer.name("totalArtworksSold").value(totals.getTotalArtworksSold());
+        writer.name("totalRevenue").value(totals.getTotalRevenue().doubleValue());
+        writer.name("directPurchaseCount").value(totals.getDirectPurchaseCount());
+        writer.name("directPurchaseRevenue").value(totals.getDirectPurchaseRevenue().doubleValue());
+        writer.name("auctionSaleCount").value(totals.getAuctionSaleCount());
+        writer.name("auctionSaleRevenue").value(totals.getAuctionSaleRevenue().doubleValue());
         
         // Add date range info
         if (startDate != null) {
-            report.addProperty("startDate", startDate.toString());
+            writer.name("startDate").value(startDate.toString());
         }
         if (endDate != null) {
-            report.addProperty("endDate", endDate.toString());
+            writer.name("endDate").value(endDate.toString());
         }
         
-        return report;
+        writer.endObject();
+        writer.endObject();
+        writer.flush();
+    }
+    
+    /**
+     * Totals and per-day sales from the daily rollups, without reading any purchase.
+     * Without a startDate the year up to endDate (or today) is returned.
+     */
+    private void writeDailyReport(HttpServletResponse response, String artistId,
+                                  LocalDateTime startDate, LocalDateTime endDate) throws Exception {
+        LocalDate to = endDate != null ? endDate.toLocalDate() : LocalDate.now();
+        LocalDate from = startDate != null ? startDate.toLocalDate() : to.minusDays(DEFAULT_DAILY_RANGE_DAYS - 1);
+        
+        SalesRollup totals = salesRollupDAO.getTotals(artistId, from, to);
+        List<SalesRollup> days = salesRollupDAO.findDaily(artistId, from, to);
+        
+        JsonObject data = new JsonObject();
+        data.addProperty("startDate", from.toString());
+        data.addProperty("endDate", to.toString());
+        addRollup(data, totals);
+        
+        JsonArray daily = new JsonArray();
+        for (SalesRollup day : days) {
+            JsonObject dayObj = new JsonObject();
+            dayObj.addProperty("day", day.getDay().toString());
+            addRollup(dayObj, day);
+            daily.add(dayObj);
+        }
+        data.add("days", daily);
+        
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.add("data", data);
+        response.getWriter().write(gson.toJson(jsonResponse));
+    }
+    
+    private static void addRollup(JsonObject target, SalesRollup rollup) {
+        target.addProperty("totalArtworksSold", rollup.getCount());
+        target.addProperty("totalRevenue", rollup.getRevenue().doubleValue());
+        target.addProperty("averagePrice", rollup.getAveragePrice().doubleValue());
+        target.addProperty("directPurchaseCount", rollup.getDirectCount());
+        target.addProperty("directPurchaseRevenue", rollup.getDirectRevenue().doubleValue());
+        target.addProperty("auctionSaleCount", rollup.getAuctionCount());
+        target.addProperty("auctionSaleRevenue", rollup.getAuctionRevenue().doubleValue());
+    }
+    
+    /**
+     * Stream the report rows as a CSV attachment
+     */
+    private void writeCsvReport(HttpServletResponse response, String artistId,
+                                LocalDateTime startDate, LocalDateTime endDate) throws IOException {
+        response.setContentType("text/csv");
+        response.setHeader("Content-Disposition",
+            "attachment; filename=\"sales-report-" + LocalDate.now() + ".csv\"");
+        
+        PrintWriter writer = response.getWriter();
+        writer.write("Artwork Title,Buyer Username,Sale Type,Final Price,Sale Date\r\n");
+        reportEngine.run(artistId, startDate, endDate, record -> {
+            writer.write(csvField(record.getArtworkTitle()));
+            writer.write(',');
+            writer.write(csvField(record.getBuyerUsername()));
+            writer.write(',');
+            writer.write(csvField(record.getSaleType()));
+            writer.write(',');
+            writer.write(record.getFinalPrice().toPlainString());
+            writer.write(',');
+            writer.write(csvField(record.getSaleDate() != null ? record.getSaleDate().toString() : ""));
+            writer.write("\r\n");
+        });
+        writer.flush();
+    }
+    
+    /**
+     * Quote a CSV field. Values a spreadsheet would read as a formula get a leading apostrophe.
+     */
+    private static String csvField(String value) {
+        String text = value != null ? value : "";
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
     }
 }
@@ -4,9 +4,11 @@ import com.artexchange.dao.UserDAO;
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.dao.FollowDAO;
 import com.artexchange.dao.PurchaseDAO;
+import com.artexchange.dao.UserStatsDAO;
 import com.artexchange.model.User;
 import com.artexchange.model.Artwork;
 import com.artexchange.model.Purchase;
+import com.artexchange.model.UserStats;
 import com.artexchange.util.SessionUtil;
 import com.artexchange.util.GsonUtil;
 import com.google.gson.Gson;
@@ -20,8 +22,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -35,12 +39,14 @@ public class UserProfileServlet extends HttpServlet {
     private FollowDAO followDAO;
     private PurchaseDAO purchaseDAO;
     private com.artexchange.dao.ReviewDAO reviewDAO;
+    private UserStatsDAO userStatsDAO;
     private Gson gson;
     
     @Override
     public void init() throws ServletException {
         super.init();
         this.userDAO = new UserDAO();
+        this.userStatsDAO = new UserStatsDAO();
         this.artworkDAO = new ArtworkDAO();
         this.followDAO = new FollowDAO();
         this.purchaseDAO = new PurchaseDAO();
@@ -209,15 +215,7 @@ public class UserProfileServlet extends HttpServlet {
         updateUserStatistics(user);
         
         // Get purchased artworks count (for buyers)
-        long purchasedCount = 0;
-        try {
-            List<Purchase> purchases = purchaseDAO.findByBuyerId(userId);
-            purchasedCount = purchases.stream()
-                .filter(p -> "COMPLETED".equals(p.getStatus()))
-                .count();
-        } catch (Exception e) {
-            // If error, keep purchasedCount as 0
-        }
+        long purchasedCount = userStatsDAO.getStats(userId).getCompletedPurchaseCount();
         
         Map<String, Object> stats = new HashMap<>();
         stats.put("artworkCount", user.getArtworkCount());
@@ -367,11 +365,17 @@ public class UserProfileServlet extends HttpServlet {
             .filter(purchase -> "COMPLETED".equals(purchase.getStatus()))
             .collect(java.util.stream.Collectors.toList());
         
-        // Get artwork details for each purchase
+        // Get artwork details for all purchases in one batch
+        Set<String> purchasedArtworkIds = new HashSet<>();
+        for (Purchase purchase : purchases) {
+            purchasedArtworkIds.add(purchase.getArtworkId());
+        }
+        Map<String, Artwork> purchasedArtworks = artworkDAO.findByIds(purchasedArtworkIds);
+        
         List<Map<String, Object>> purchaseArtworks = new ArrayList<>();
         for (Purchase purchase : purchases) {
             try {
-                Artwork artwork = artworkDAO.findById(purchase.getArtworkId());
+                Artwork artwork = purchasedArtworks.get(purchase.getArtworkId());
                 if (artwork != null) {
                     Map<String, Object> purchaseData = new HashMap<>();
                     purchaseData.put("purchaseId", purchase.getPurchaseId());
@@ -468,7 +472,23 @@ public class UserProfileServlet extends HttpServlet {
                                  ", Rating: " + review.getRating());
             }
             
-            // Enrich reviews with artwork and buyer information
+            // Enrich reviews with artwork and buyer information, fetched in bulk
+            Set<String> reviewedArtworkIds = new HashSet<>();
+            Set<String> reviewerIds = new HashSet<>();
+            for (com.artexchange.model.Review review : reviews) {
+                reviewedArtworkIds.add(review.getArtworkId());
+                reviewerIds.add(review.getBuyerId());
+            }
+            Map<String, Artwork> reviewedArtworks = new HashMap<>();
+            Map<String, User> reviewers = new HashMap<>();
+            try {
+                reviewedArtworks = artworkDAO.findByIds(reviewedArtworkIds);
+                reviewers = userDAO.findByIds(reviewerIds);
+            } catch (Exception e) {
+                // Continue without artwork or buyer data
+                System.err.println("Error fetching artworks and buyers for reviews: " + e.getMessage());
+            }
+            
             List<Map<String, Object>> enrichedReviews = new ArrayList<>();
             for (com.artexchange.model.Review review : reviews) {
                 Map<String, Object> reviewData = new HashMap<>();
@@ -485,7 +505,7 @@ public class UserProfileServlet extends HttpServlet {
                 // Get artwork information
                 if (review.getArtworkId() != null) {
                     try {
-                        Artwork artwork = artworkDAO.findById(review.getArtworkId());
+                        Artwork artwork = reviewedArtworks.get(review.getArtworkId());
                         if (artwork != null) {
                             Map<String, Object> artworkData = new HashMap<>();
                             artworkData.put("artworkId", artwork.getArtworkId());
@@ -502,7 +522,7 @@ public class UserProfileServlet extends HttpServlet {
                 // Get buyer information (optional - for buyer name display)
                 if (review.getBuyerId() != null) {
                     try {
-                        User buyer = userDAO.findById(review.getBuyerId());
+                        User buyer = reviewers.get(review.getBuyerId());
                         if (buyer != null) {
                             Map<String, Object> buyerData = new HashMap<>();
                             buyerData.put("buyerId", buyer.getUserId());
@@ -592,8 +612,8 @@ public class UserProfileServlet extends HttpServlet {
             result.put("success", true);
             result.put("action", action);
             result.put("isFollowing", !isCurrentlyFollowing);
-            result.put("followerCount", followDAO.getFollowerCount(userId));
-            result.put("followingCount", followDAO.getFollowingCount(currentUser.getUserId()));
+            result.put("followerCount", targetUser.getFollowerCount());
+            result.put("followingCount", currentUser.getFollowingCount());
             
             sendSuccess(response, result);
         } else {
@@ -602,47 +622,41 @@ public class UserProfileServlet extends HttpServlet {
     }
     
     /**
-     * Update user statistics from database
-     * Includes purchased artworks count and accurate sales count from PurchaseDAO
+     * Update user statistics from the user_stats projection
+     * Includes accurate sales count from completed purchases
      */
     private void updateUserStatistics(User user) throws ExecutionException, InterruptedException {
         if (user == null) return;
         
         String userId = user.getUserId();
+        UserStats stats = userStatsDAO.getStats(userId);
         
-        // Get current statistics
-        int followerCount = followDAO.getFollowerCount(userId);
-        int followingCount = followDAO.getFollowingCount(userId);
-        
-        // Get ALL uploaded artworks (artworks where artistId = userId)
-        List<Artwork> userArtworks = artworkDAO.findByArtistId(userId);
-        
+        int followerCount = (int) stats.getFollowerCount();
+        int followingCount = (int) stats.getFollowingCount();
         // Artwork count: only ACTIVE and SOLD for public stats (visible artworks)
-        int artworkCount = (int) userArtworks.stream()
-            .filter(artwork -> artwork.getStatus() == Artwork.ArtworkStatus.ACTIVE || 
-                             artwork.getStatus() == Artwork.ArtworkStatus.SOLD)
-            .count();
-        
-        // Calculate likes from ALL artworks (including SOLD)
-        int likesCount = userArtworks.stream()
-            .mapToInt(Artwork::getLikes)
-            .sum();
-        
+        int artworkCount = (int) artworkDAO.getUserListedArtworkCount(userId);
+        // Likes from ALL artworks (including SOLD)
+        int likesCount = (int) stats.getLikesReceived();
         // Sales count: number of COMPLETED transactions where user is the seller
-        long salesCount = purchaseDAO.getUserSalesCount(userId);
+        int salesCount = (int) stats.getSalesCount();
         
-        // Note: purchasedCount is calculated in getUserStats method, not here
-        // This method only updates uploaded artworks stats
+        // Only write the denormalized copy on the user document when it changed
+        boolean changed = user.getFollowerCount() != followerCount
+            || user.getFollowingCount() != followingCount
+            || user.getArtworkCount() != artworkCount
+            || user.getLikesCount() != likesCount
+            || user.getSalesCount() != salesCount;
         
         // Update user object
         user.setFollowerCount(followerCount);
         user.setFollowingCount(followingCount);
         user.setArtworkCount(artworkCount);
         user.setLikesCount(likesCount);
-        user.setSalesCount((int) salesCount);
+        user.setSalesCount(salesCount);
         
-        // Update in database
-        userDAO.updateUserStats(userId, followerCount, followingCount, artworkCount, likesCount, (int) salesCount);
+        if (changed) {
+            userDAO.updateUserStats(userId, followerCount, followingCount, artworkCount, likesCount, salesCount);
+        }
     }
     
     /**
@@ -0,0 +1,286 @@
+package com.artexchange.util;
+
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Shared clock for all live auctions.
+ *
+ * Auction end times are kept in a hierarchical timing wheel (4 levels of 64
+ * slots at one-second resolution) driven by a single ticker thread, so adding,
+ * moving or firing a deadline is O(1) no matter how many auctions are live.
+ * Every tick notifies the tick listeners (used for room timer updates) and
+ * each scheduled auction fires its end listeners exactly once. Setting or
+ * moving a deadline notifies the schedule listeners.
+ */
+public class AuctionClock {
+    private static final Logger logger = Logger.getLogger(AuctionClock.class.getName());
+    private static final LatencyHistogram TICK_LATENCY = Metrics.histogram("artexchange_scheduler_cycle_seconds",
+        "Duration of one run of a scheduled task", "task", "auction_clock_tick");
+    private static final AuctionClock instance = new AuctionClock();
+    
+    private static final long TICK_MILLIS = 1000;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    
+    private final List<Deadline>[][] wheel;
+    /** Deadlines further out than the top level can address; re-examined when it wraps */
+    private final List<Deadline> overflow = new ArrayList<>();
+    private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+    private final List<LongConsumer> tickListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> endListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, LocalDateTime>> scheduleListeners = new CopyOnWriteArrayList<>();
+    
+    private ScheduledExecutorService ticker;
+    private long currentTick;
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private AuctionClock() {
+        wheel = new List[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level][slot] = new ArrayList<>();
+            }
+        }
+        currentTick = System.currentTimeMillis() / TICK_MILLIS;
+    }
+    
+    public static AuctionClock getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Called once per tick with the current time in epoch millis
+     */
+    public void addTickListener(LongConsumer listener) {
+        tickListeners.add(listener);
+        start();
+    }
+    
+    /**
+     * Called once with the artwork id when a scheduled auction reaches its end time
+     */
+    public void addEndListener(Consumer<String> listener) {
+        endListeners.add(listener);
+    }
+    
+    /**
+     * Called with the artwork id and new end time whenever an auction's deadline is set or moved
+     */
+    public void addScheduleListener(BiConsumer<String, LocalDateTime> listener) {
+        scheduleListeners.add(listener);
+    }
+    
+    /**
+     * Schedule (or move) the end of an auction
+     */
+    public void schedule(String artworkId, LocalDateTime endTime) {
+        if (artworkId == null || endTime == null) {
+            return;
+        }
+        long endMillis = endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Round up so an auction never closes before its end time
+        long deadlineTick = (endMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+        
+        synchronized (this) {
+            Deadline existing = deadlines.get(artworkId);
+            if (existing != null && existing.tick == deadlineTick) {
+                return;
+            }
+            if (existing != null) {
+                existing.cancelled = true;
+            }
+            Deadline deadline = new Deadline(artworkId, deadlineTick);
+            deadlines.put(artworkId, deadline);
+            place(deadline);
+        }
+        for (BiConsumer<String, LocalDateTime> listener : scheduleListeners) {
+            try {
+                listener.accept(artworkId, endTime);
+            } catch (Exception e) {
+                logger.severe("Error in auction schedule listener for " + artworkId + ": " + e.getMessage());
+            }
+        }
+        start();
+    }
+    
+    /**
+     * Remove an auction's deadline, e.g. when it was closed by another path
+     */
+    public synchronized void cancel(String artworkId) {
+        Deadline existing = deadlines.remove(artworkId);
+        if (existing != null) {
+            existing.cancelled = true;
+        }
+    }
+    
+    public boolean isScheduled(String artworkId) {
+        return deadlines.containsKey(artworkId);
+    }
+    
+    public int scheduledCount() {
+        return deadlines.size();
+    }
+    
+    private synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "auction-clock");
+            t.setDaemon(true);
+            return t;
+        });
+        long now = System.currentTimeMillis();
+        long initialDelay = TICK_MILLIS - (now % TICK_MILLIS);
+        ticker.scheduleAtFixedRate(this::tick, initialDelay, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("Auction clock started");
+    }
+    
+    /**
+     * Stop the ticker thread. Scheduled deadlines are kept and resume if the clock is restarted.
+     */
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+    
+    private void tick() {
+        long start = System.nanoTime();
+        try {
+            long nowMillis = System.currentTimeMillis();
+            long targetTick = nowMillis / TICK_MILLIS;
+            List<Deadline> due = new ArrayList<>();
+            synchronized (this) {
+                // Catch up if the ticker was delayed
+                while (currentTick < targetTick) {
+                    advance(due);
+                }
+            }
+            
+            for (Deadline deadline : due) {
+                for (Consumer<String> listener : endListeners) {
+                    try {
+                        listener.accept(deadline.artworkId);
+                    } catch (Exception e) {
+                        logger.severe("Error in auction end listener for " + deadline.artworkId + ": " + e.getMessage());
+                    }
+                }
+            }
+            for (LongConsumer listener : tickListeners) {
+                try {
+                    listener.accept(nowMillis);
+                } catch (Exception e) {
+                    logger.severe("Error in auction clock tick listener: " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            logger.severe("Error in auction clock tick: " + e.getMessage());
+        }
+        TICK_LATENCY.recordSince(start);
+    }
+    
+    /**
+     * Move one tick forward: cascade higher levels whose slot comes due, then collect level 0
+     */
+    private void advance(List<Deadline> due) {
+        currentTick++;
+        
+        if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Deadline> pending = new ArrayList<>(overflow);
+            overflow.clear();
+            for (Deadline deadline : pending) {
+                place(deadline, due);
+            }
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                List<Deadline> bucket = wheel[level][slot];
+                if (!bucket.isEmpty()) {
+                    List<Deadline> pending = new ArrayList<>(bucket);
+                    bucket.clear();
+                    for (Deadline deadline : pending) {
+                        place(deadline, due);
+                    }
+                }
+            }
+        }
+        
+        List<Deadline> bucket = wheel[0][(int) (currentTick & (SLOTS - 1))];
+        for (Deadline deadline : bucket) {
+            fire(deadline, due);
+        }
+        bucket.clear();
+    }
+    
+    private void place(Deadline deadline) {
+        if (deadline.tick <= currentTick) {
+            // Already past its end time: fire on the next tick
+            wheel[0][(int) ((currentTick + 1) & (SLOTS - 1))].add(deadline);
+            return;
+        }
+        place(deadline, null);
+    }
+    
+    /**
+     * Put a deadline on the lowest level whose higher-order tick bits it shares with the current tick.
+     * Deadlines that are already due go to {@code due}.
+     */
+    private void place(Deadline deadline, List<Deadline> due) {
+        if (deadline.cancelled) {
+            return;
+        }
+        if (deadline.tick <= currentTick) {
+            fire(deadline, due);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if ((deadline.tick >>> shift) == (currentTick >>> shift)) {
+                int slot = (int) ((deadline.tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                wheel[level][slot].add(deadline);
+                return;
+            }
+        }
+        overflow.add(deadline);
+    }
+    
+    private void fire(Deadline deadline, List<Deadline> due) {
+        if (deadline.cancelled) {
+            return;
+        }
+        deadline.cancelled = true;
+        deadlines.remove(deadline.artworkId, deadline);
+        due.add(deadline);
+    }
+    
+    private static class Deadline {
+        final String artworkId;
+        final long tick;
+        boolean cancelled;
+        
+        Deadline(String artworkId, long tick) {
+            this.artworkId = artworkId;
+            this.tick = tick;
+        }
+    }
+}
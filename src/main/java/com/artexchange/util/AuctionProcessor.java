@@ -1,28 +1,49 @@
 package com.artexchange.util;
 
+import com.artexchange.dao.DocumentCache;
+import com.artexchange.dao.ArtworkCatalogIndex;
+import com.artexchange.dao.ArtistAuctionSummaryDAO;
+import com.artexchange.dao.AuctionBidEngine;
+import com.artexchange.dao.AuctionLeaderboard;
 import com.artexchange.dao.ArtworkDAO;
 import com.artexchange.dao.PurchaseDAO;
 import com.artexchange.dao.UserDAO;
+import com.artexchange.metrics.Counter;
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
 import com.artexchange.model.Artwork;
 import com.artexchange.model.Purchase;
 import com.artexchange.model.User;
 import com.artexchange.config.FirebaseConfig;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.Query;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.cloud.firestore.QuerySnapshot;
-import com.google.api.core.ApiFuture;
+import com.artexchange.dao.store.DocumentReference;
+import com.artexchange.dao.store.DocumentSnapshot;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+import com.artexchange.dao.store.QuerySnapshot;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 /**
- * Utility class for processing auction end events
+ * Utility class for processing auction end events.
+ *
+ * Settlement runs on a bounded pool (-Dartexchange.settlement.concurrency, default 16)
+ * so a batch of ended auctions or expired payments is worked through in parallel.
+ * An auction or purchase is only ever settled by one thread at a time.
  */
 public class AuctionProcessor {
     private static final Logger logger = Logger.getLogger(AuctionProcessor.class.getName());
@@ -30,82 +51,132 @@ public class AuctionProcessor {
     private static final PurchaseDAO purchaseDAO = new PurchaseDAO();
     private static final UserDAO userDAO = new UserDAO();
     
+    private static final int SETTLEMENT_CONCURRENCY = Integer.getInteger("artexchange.settlement.concurrency", 16);
+    /** How long settlement waits for the bid engine to commit bids placed before the end */
+    private static final long BID_DRAIN_TIMEOUT_MILLIS = 30_000;
+    private static final AtomicInteger settlementThreadCount = new AtomicInteger();
+    private static final ExecutorService settlementPool = Executors.newFixedThreadPool(SETTLEMENT_CONCURRENCY, r -> {
+        Thread t = new Thread(r, "auction-settlement-" + settlementThreadCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    /** Auctions and purchases currently being settled */
+    private static final Set<String> settlingAuctions = ConcurrentHashMap.newKeySet();
+    private static final Set<String> expiringPurchases = ConcurrentHashMap.newKeySet();
+    
+    private static volatile SettlementSummary lastAuctionRun;
+    private static volatile SettlementSummary lastPaymentRun;
+    
+    public enum SettlementOutcome { SOLD, NO_BIDS, PAYMENT_EXPIRED, ALREADY_SETTLED, NOT_DUE, IN_PROGRESS, NOT_FOUND, FAILED }
+    
+    private static final LatencyHistogram SETTLEMENT_LATENCY = Metrics.histogram("artexchange_auction_settlement_seconds",
+        "Time to settle an ended auction");
+    /** Settlements by outcome, indexed by ordinal */
+    private static final Counter[] SETTLEMENT_OUTCOMES = new Counter[SettlementOutcome.values().length];
+    
+    static {
+        for (SettlementOutcome outcome : SettlementOutcome.values()) {
+            SETTLEMENT_OUTCOMES[outcome.ordinal()] = Metrics.counter("artexchange_auction_settlements_total",
+                "Ended auctions processed, by outcome", "outcome", outcome.name());
+        }
+    }
+    
     /**
-     * Process an ended auction: determine winner, update artwork, create purchase, send notifications
+     * Process an ended auction: determine winner, update artwork, create purchase, send notifications.
+     * Returns IN_PROGRESS without doing anything if another thread is already settling this auction,
+     * and NOT_DUE after rescheduling it if its end time was moved later.
      */
-    public static void processEndedAuction(String artworkId) {
+    public static SettlementOutcome processEndedAuction(String artworkId) {
+        if (!settlingAuctions.add(artworkId)) {
+            logger.info("Auction " + artworkId + " is already being settled");
+            SETTLEMENT_OUTCOMES[SettlementOutcome.IN_PROGRESS.ordinal()].increment();
+            return SettlementOutcome.IN_PROGRESS;
+        }
+        long start = System.nanoTime();
+        SettlementOutcome outcome = SettlementOutcome.FAILED;
+        try {
+            outcome = settleEndedAuction(artworkId);
+            return outcome;
+        } finally {
+            settlingAuctions.remove(artworkId);
+            SETTLEMENT_LATENCY.recordSince(start);
+            SETTLEMENT_OUTCOMES[outcome.ordinal()].increment();
+        }
+    }
+    
+    /**
+     * Queue an ended auction on the settlement pool
+     */
+    public static CompletableFuture<SettlementOutcome> settleAsync(String artworkId) {
+        return CompletableFuture.supplyAsync(() -> processEndedAuction(artworkId), settlementPool);
+    }
+    
+    public static SettlementSummary getLastAuctionRun() {
+        return lastAuctionRun;
+    }
+    
+    public static SettlementSummary getLastPaymentRun() {
+        return lastPaymentRun;
+    }
+    
+    /**
+     * Stop accepting settlement work; called on application shutdown
+     */
+    public static void shutdown() {
+        settlementPool.shutdown();
+    }
+    
+    private static SettlementOutcome settleEndedAuction(String artworkId) {
         try {
             logger.info("Processing ended auction for artwork: " + artworkId);
             
             Artwork artwork = artworkDAO.findById(artworkId);
             if (artwork == null) {
                 logger.warning("Artwork not found: " + artworkId);
-                return;
+                return SettlementOutcome.NOT_FOUND;
             }
             
             // Check if already processed
             if (artwork.getWinnerId() != null && !artwork.getWinnerId().trim().isEmpty()) {
                 logger.info("Auction " + artworkId + " already has a winner: " + artwork.getWinnerId());
-                return;
+                release(artworkId);
+                return SettlementOutcome.ALREADY_SETTLED;
             }
-            
-            // Get the highest bidder from bid_history
-            Map<String, Object> winnerInfo = getHighestBidder(artworkId);
-            
-            String winnerId = null;
-            String winnerName = null;
-            BigDecimal winningBidAmount = null;
-            
-            if (winnerInfo != null && winnerInfo.get("bidderId") != null) {
-                winnerId = (String) winnerInfo.get("bidderId");
-                winnerName = (String) winnerInfo.get("bidderName");
-                Object bidAmountObj = winnerInfo.get("bidAmount");
-                
-                if (bidAmountObj instanceof Number) {
-                    winningBidAmount = BigDecimal.valueOf(((Number) bidAmountObj).doubleValue());
-                } else if (bidAmountObj instanceof String) {
-                    winningBidAmount = new BigDecimal((String) bidAmountObj);
-                }
-            } else {
-                // Fallback to highestBidderId from artwork
-                if (artwork.getHighestBidderId() != null && !artwork.getHighestBidderId().trim().isEmpty()) {
-                    winnerId = artwork.getHighestBidderId();
-                    winningBidAmount = artwork.getCurrentBid() != null ? artwork.getCurrentBid() : artwork.getStartingBid();
-                    
-                    // Get winner name
-                    try {
-                        User winner = userDAO.findById(winnerId);
-                        if (winner != null) {
-                            winnerName = winner.getDisplayName();
-                        } else {
-                            winnerName = "Unknown User";
-                        }
-                    } catch (Exception e) {
-                        logger.warning("Could not fetch winner name: " + e.getMessage());
-                        winnerName = "Unknown User";
-                    }
-                }
+            if (artwork.getStatus() != Artwork.ArtworkStatus.ACTIVE) {
+                logger.info("Auction " + artworkId + " is " + artwork.getStatus() + ", nothing to settle");
+                release(artworkId);
+                return SettlementOutcome.ALREADY_SETTLED;
             }
-            
-            // Check if there's a valid winner
-            if (winnerId == null || winnerId.trim().isEmpty()) {
-                logger.info("Auction ended for artwork " + artworkId + " with no bids");
-                artwork.setStatus(Artwork.ArtworkStatus.INACTIVE);
-                artwork.setEndedAt(LocalDateTime.now());
-                artworkDAO.updateArtwork(artwork);
-                return;
+            // The deadline that fired may be stale if the end time was moved later
+            if (artwork.getAuctionEndTime() != null && artwork.getAuctionEndTime().isAfter(LocalDateTime.now())) {
+                return reschedule(artworkId, artwork.getAuctionEndTime());
             }
             
-            // Update artwork with winner information using transaction
-            boolean success = updateAuctionWithWinner(artworkId, winnerId, winnerName, winningBidAmount);
+            // Bids placed before the end time may still be committing; the winner is picked after them
+            if (!AuctionBidEngine.awaitDrained(artworkId, BID_DRAIN_TIMEOUT_MILLIS)) {
+                logger.warning("Bids for auction " + artworkId + " are still being committed; settling with the committed ones");
+            }
+            // No further bids can be accepted
+            release(artworkId);
             
-            if (!success) {
-                logger.warning("Auction " + artworkId + " was already processed");
-                return;
+            // The winner is taken from the artwork as read by the settlement transaction
+            Settlement settlement = closeAuction(artworkId);
+            if (settlement.outcome != SettlementOutcome.SOLD && settlement.outcome != SettlementOutcome.NO_BIDS) {
+                return settlement.outcome;
             }
             
             // Reload artwork to get updated information
+            DocumentCache.artworks().invalidate(artworkId);
             artwork = artworkDAO.findById(artworkId);
+            ArtworkCatalogIndex.getInstance().upsert(artwork);
+            
+            if (settlement.outcome == SettlementOutcome.NO_BIDS) {
+                logger.info("Auction ended for artwork " + artworkId + " with no bids");
+                return SettlementOutcome.NO_BIDS;
+            }
+            String winnerId = settlement.winnerId;
+            String winnerName = settlement.winnerName;
+            BigDecimal winningBidAmount = settlement.winningBidAmount;
             
             // Create purchase record with PENDING_PAYMENT status
             String purchaseId = null;
@@ -165,92 +236,111 @@ public class AuctionProcessor {
             }
             
             logger.info("Successfully processed auction end for artwork: " + artworkId + " - Winner: " + winnerName + " (" + winnerId + ") - Amount: " + winningBidAmount);
+            return SettlementOutcome.SOLD;
             
         } catch (Exception e) {
             logger.severe("Error processing ended auction: " + e.getMessage());
             e.printStackTrace();
+            return SettlementOutcome.FAILED;
         }
     }
     
     /**
-     * Get the highest bidder from bid_history collection
+     * Release the bid engine's state and clock deadline of an auction that will not take further bids
      */
-    private static Map<String, Object> getHighestBidder(String artworkId) {
-        try {
-            Firestore db = FirebaseConfig.getFirestore();
-            Query query = db.collection("bid_history")
-                    .whereEqualTo("auctionId", artworkId);
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            if (documents.isEmpty()) {
-                logger.info("No bids found in bid_history for auction: " + artworkId);
-                return null;
-            }
-            
-            // Find the highest bid
-            Map<String, Object> highestBid = null;
-            double maxAmount = 0.0;
-            
-            for (QueryDocumentSnapshot doc : documents) {
-                Map<String, Object> bidData = doc.getData();
-                Object bidAmountObj = bidData.get("bidAmount");
-                
-                double bidAmount = 0.0;
-                if (bidAmountObj instanceof Number) {
-                    bidAmount = ((Number) bidAmountObj).doubleValue();
-                } else if (bidAmountObj instanceof String) {
-                    try {
-                        bidAmount = Double.parseDouble((String) bidAmountObj);
-                    } catch (NumberFormatException e) {
-                        continue;
-                    }
-                }
-                
-                if (bidAmount > maxAmount) {
-                    maxAmount = bidAmount;
-                    highestBid = new HashMap<>();
-                    highestBid.put("bidderId", bidData.get("bidderId"));
-                    highestBid.put("bidderName", bidData.get("bidderName"));
-                    highestBid.put("bidAmount", bidAmount);
-                }
-            }
-            
-            return highestBid;
-            
-        } catch (Exception e) {
-            logger.warning("Error getting highest bidder: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+    private static void release(String artworkId) {
+        AuctionBidEngine.forget(artworkId);
+        AuctionClock.getInstance().cancel(artworkId);
+    }
+    
+    private static SettlementOutcome reschedule(String artworkId, LocalDateTime auctionEndTime) {
+        logger.info("Auction " + artworkId + " now ends at " + auctionEndTime + ", rescheduled instead of settled");
+        AuctionClock.getInstance().schedule(artworkId, auctionEndTime);
+        return SettlementOutcome.NOT_DUE;
     }
     
     /**
-     * Atomically update artwork with winner information using a transaction
+     * Close an auction in one transaction: pick the winner from the artwork it reads and
+     * mark the artwork SOLD, or INACTIVE if nobody bid. The auction is re-checked on the
+     * same read: it must still be ACTIVE, without a winner and past its end time.
      */
-    private static boolean updateAuctionWithWinner(String artworkId, String winnerId, String winnerName, BigDecimal winningBidAmount) {
+    private static Settlement closeAuction(String artworkId) {
         try {
-            Firestore db = FirebaseConfig.getFirestore();
-            com.google.cloud.firestore.DocumentReference artworkRef = db.collection("artworks").document(artworkId);
+            DocumentStore db = FirebaseConfig.getDocumentStore();
+            DocumentReference artworkRef = db.collection("artworks").document(artworkId);
+            AtomicReference<LocalDateTime> movedEndTime = new AtomicReference<>();
             
-            return db.runTransaction(transaction -> {
+            Settlement settlement = db.runTransaction(transaction -> {
                 try {
-                    com.google.cloud.firestore.DocumentSnapshot artworkDoc = transaction.get(artworkRef).get();
+                    DocumentSnapshot artworkDoc = transaction.get(artworkRef).get();
+                    movedEndTime.set(null);
                     
                     if (!artworkDoc.exists()) {
-                        throw new RuntimeException("Artwork not found: " + artworkId);
+                        logger.warning("Artwork not found: " + artworkId);
+                        return new Settlement(SettlementOutcome.NOT_FOUND);
                     }
                     
                     // Check if winner is already set
                     String existingWinnerId = artworkDoc.getString("winnerId");
                     if (existingWinnerId != null && !existingWinnerId.trim().isEmpty()) {
                         logger.warning("Auction " + artworkId + " already has a winner: " + existingWinnerId);
-                        return false;
+                        return new Settlement(SettlementOutcome.ALREADY_SETTLED);
+                    }
+                    if (!"ACTIVE".equals(artworkDoc.getString("status"))) {
+                        logger.warning("Auction " + artworkId + " is no longer active: " + artworkDoc.getString("status"));
+                        return new Settlement(SettlementOutcome.ALREADY_SETTLED);
+                    }
+                    String auctionEndTime = artworkDoc.getString("auctionEndTime");
+                    if (auctionEndTime != null && !auctionEndTime.isEmpty()
+                            && LocalDateTime.parse(auctionEndTime).isAfter(LocalDateTime.now())) {
+                        movedEndTime.set(LocalDateTime.parse(auctionEndTime));
+                        return new Settlement(SettlementOutcome.NOT_DUE);
+                    }
+                    
+                    // The leaderboard on the artwork already holds the highest bid; only
+                    // auctions that predate it need the bid_history scan
+                    AuctionLeaderboard leaderboard = AuctionLeaderboard.fromDocument(artworkDoc);
+                    if (!leaderboard.isTracked()) {
+                        leaderboard = AuctionLeaderboard.fromHistory(transaction.get(
+                                db.collection("bid_history").whereEqualTo("auctionId", artworkId)).get().getDocuments());
+                    }
+                    String winnerId = null;
+                    String winnerName = null;
+                    BigDecimal winningBidAmount = null;
+                    AuctionLeaderboard.Entry leader = leaderboard.getLeader();
+                    if (leader != null) {
+                        winnerId = leader.getBidderId();
+                        winnerName = leader.getBidderName();
+                        winningBidAmount = BigDecimal.valueOf(leader.getBidAmount());
+                    } else {
+                        // Fallback to highestBidderId from artwork
+                        String highestBidderId = artworkDoc.getString("highestBidderId");
+                        if (highestBidderId != null && !highestBidderId.trim().isEmpty()) {
+                            winnerId = highestBidderId;
+                            winnerName = bidderName(winnerId);
+                            winningBidAmount = amountOf(artworkDoc.get("currentBid"));
+                            if (winningBidAmount == null) {
+                                winningBidAmount = amountOf(artworkDoc.get("startingBid"));
+                            }
+                        }
                     }
                     
-                    // Update artwork with winner information
                     LocalDateTime now = LocalDateTime.now();
+                    if (winnerId == null) {
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("status", "INACTIVE");
+                        updates.put("endedAt", now.toString());
+                        updates.put("updatedAt", now.toString());
+                        transaction.update(artworkRef, updates);
+                        
+                        Map<String, Object> summary = new HashMap<>();
+                        summary.put("status", "INACTIVE");
+                        summary.put("endedAt", now.toString());
+                        ArtistAuctionSummaryDAO.update(transaction, artworkDoc.getString("artistId"), artworkId, summary);
+                        return new Settlement(SettlementOutcome.NO_BIDS);
+                    }
+                    
+                    // Update artwork with winner information
                     Map<String, Object> updates = new HashMap<>();
                     updates.put("status", "SOLD");
                     updates.put("winnerId", winnerId);
@@ -261,8 +351,20 @@ public class AuctionProcessor {
                     updates.put("updatedAt", now.toString());
                     
                     transaction.update(artworkRef, updates);
+                    
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("status", "SOLD");
+                    summary.put("winnerId", winnerId);
+                    summary.put("winnerName", winnerName);
+                    summary.put("winningBidAmount", winningBidAmount != null ? winningBidAmount.doubleValue() : null);
+                    summary.put("endedAt", now.toString());
+                    ArtistAuctionSummaryDAO.update(transaction, artworkDoc.getString("artistId"), artworkId, summary);
                     logger.info("Artwork " + artworkId + " updated with winner information in transaction");
-                    return true;
+                    Settlement sold = new Settlement(SettlementOutcome.SOLD);
+                    sold.winnerId = winnerId;
+                    sold.winnerName = winnerName;
+                    sold.winningBidAmount = winningBidAmount;
+                    return sold;
                     
                 } catch (InterruptedException | ExecutionException e) {
                     Thread.currentThread().interrupt();
@@ -270,21 +372,86 @@ public class AuctionProcessor {
                 }
             }).get();
             
+            if (settlement.outcome == SettlementOutcome.NOT_DUE) {
+                reschedule(artworkId, movedEndTime.get());
+            }
+            return settlement;
+            
         } catch (Exception e) {
             logger.severe("Error updating auction with winner: " + e.getMessage());
             e.printStackTrace();
-            return false;
+            return new Settlement(SettlementOutcome.FAILED);
+        }
+    }
+    
+    private static String bidderName(String bidderId) {
+        try {
+            User winner = userDAO.findById(bidderId);
+            return winner != null ? winner.getDisplayName() : "Unknown User";
+        } catch (Exception e) {
+            logger.warning("Could not fetch winner name: " + e.getMessage());
+            return "Unknown User";
         }
     }
     
     /**
-     * Process all ended auctions that haven't been processed yet
+     * Amounts are written as numbers by bids and as strings by artwork saves
      */
-    public static void processAllEndedAuctions() {
+    private static BigDecimal amountOf(Object value) {
+        if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return new BigDecimal((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Load the end time of every active auction into the shared deadline index.
+     * Auctions that are already past their end time fire on the next clock tick.
+     */
+    public static int scheduleActiveAuctionDeadlines() throws ExecutionException, InterruptedException {
+        DocumentStore db = FirebaseConfig.getDocumentStore();
+        List<QueryDocumentSnapshot> documents = db.collection("artworks")
+                .whereEqualTo("saleType", "AUCTION")
+                .whereEqualTo("status", "ACTIVE")
+                .select("auctionEndTime", "winnerId")
+                .get().get().getDocuments();
+        
+        AuctionClock clock = AuctionClock.getInstance();
+        int scheduled = 0;
+        for (QueryDocumentSnapshot doc : documents) {
+            String auctionEndTimeStr = doc.getString("auctionEndTime");
+            String winnerId = doc.getString("winnerId");
+            if (auctionEndTimeStr == null || auctionEndTimeStr.trim().isEmpty()
+                    || (winnerId != null && !winnerId.trim().isEmpty())) {
+                continue;
+            }
+            try {
+                clock.schedule(doc.getId(), LocalDateTime.parse(auctionEndTimeStr));
+                scheduled++;
+            } catch (Exception e) {
+                logger.warning("Auction " + doc.getId() + " has an invalid auctionEndTime: " + auctionEndTimeStr);
+            }
+        }
+        logger.info("Scheduled " + scheduled + " auction deadlines");
+        return scheduled;
+    }
+    
+    /**
+     * Process all ended auctions that haven't been processed yet, in parallel on the settlement pool
+     */
+    public static SettlementSummary processAllEndedAuctions() {
+        SettlementSummary summary = new SettlementSummary("ended-auctions");
         try {
             logger.info("=== Starting processAllEndedAuctions ===");
             
-            Firestore db = FirebaseConfig.getFirestore();
+            DocumentStore db = FirebaseConfig.getDocumentStore();
             LocalDateTime now = LocalDateTime.now();
             
             // Get all active auctions first, then filter in memory
@@ -293,12 +460,12 @@ public class AuctionProcessor {
                     .whereEqualTo("saleType", "AUCTION")
                     .whereEqualTo("status", "ACTIVE");
             
-            ApiFuture<QuerySnapshot> future = query.get();
+            CompletableFuture<QuerySnapshot> future = query.get();
             List<QueryDocumentSnapshot> documents = future.get().getDocuments();
             
             logger.info("Found " + documents.size() + " active auctions to check");
             
-            int processedCount = 0;
+            List<String> endedAuctionIds = new ArrayList<>();
             for (QueryDocumentSnapshot doc : documents) {
                 try {
                     String artworkId = doc.getId();
@@ -312,38 +479,51 @@ public class AuctionProcessor {
                     // Parse end time and check if it's in the past
                     LocalDateTime auctionEndTime = LocalDateTime.parse(auctionEndTimeStr);
                     if (auctionEndTime.isAfter(now)) {
-                        // Auction hasn't ended yet
+                        // Auction hasn't ended yet; make sure the deadline index knows about it
+                        AuctionClock.getInstance().schedule(artworkId, auctionEndTime);
                         continue;
                     }
                     
                     // Auction has ended - check if already processed
                     String winnerId = doc.getString("winnerId");
                     if (winnerId == null || winnerId.trim().isEmpty()) {
-                        logger.info("Processing ended auction: " + artworkId + " (ended at: " + auctionEndTimeStr + ")");
-                        processEndedAuction(artworkId);
-                        processedCount++;
+                        endedAuctionIds.add(artworkId);
                     } else {
                         logger.info("Auction " + artworkId + " already processed (has winner: " + winnerId + ")");
                     }
                 } catch (Exception e) {
-                    logger.severe("Error processing auction " + doc.getId() + ": " + e.getMessage());
+                    logger.severe("Error checking auction " + doc.getId() + ": " + e.getMessage());
                     e.printStackTrace();
                 }
             }
             
-            logger.info("=== Finished processing ended auctions. Processed: " + processedCount + " ===");
+            summary.setTotal(endedAuctionIds.size());
+            List<CompletableFuture<Void>> settlements = new ArrayList<>();
+            for (String artworkId : endedAuctionIds) {
+                settlements.add(settleAsync(artworkId)
+                        .exceptionally(e -> SettlementOutcome.FAILED)
+                        .thenAccept(summary::record));
+            }
+            CompletableFuture.allOf(settlements.toArray(new CompletableFuture<?>[0])).join();
             
         } catch (Exception e) {
             logger.severe("Error processing all ended auctions: " + e.getMessage());
             e.printStackTrace();
+            summary.record(SettlementOutcome.FAILED);
         }
+        
+        summary.finish();
+        lastAuctionRun = summary;
+        logger.info("=== Finished processing ended auctions. " + summary + " ===");
+        return summary;
     }
     
     /**
      * Process expired payments for auction wins
      * Checks all PENDING_PAYMENT purchases and marks them as expired if deadline passed
      */
-    public static void processExpiredPayments() {
+    public static SettlementSummary processExpiredPayments() {
+        SettlementSummary summary = new SettlementSummary("expired-payments");
         try {
             logger.info("=== Starting processExpiredPayments ===");
             
@@ -351,60 +531,97 @@ public class AuctionProcessor {
             logger.info("Found " + pendingPurchases.size() + " pending payment purchases to check");
             
             LocalDateTime now = LocalDateTime.now();
-            int expiredCount = 0;
-            
+            List<Purchase> expiredPurchases = new ArrayList<>();
             for (Purchase purchase : pendingPurchases) {
-                try {
-                    // Check if payment deadline has passed
-                    if (purchase.getPaymentDeadline() != null && 
-                        purchase.getPaymentDeadline().isBefore(now) &&
-                        !purchase.isPaymentExpired()) {
-                        
-                        logger.info("Payment expired for purchase: " + purchase.getPurchaseId() + 
-                                   " (deadline: " + purchase.getPaymentDeadline() + ", now: " + now + ")");
-                        
-                        // Mark payment as expired
-                        purchaseDAO.markPaymentAsExpired(purchase.getPurchaseId());
-                        
-                        // Update artwork status - make it available again or mark as expired
-                        Artwork artwork = artworkDAO.findById(purchase.getArtworkId());
-                        if (artwork != null) {
-                            // Set artwork status to INACTIVE since payment failed
-                            artwork.setStatus(Artwork.ArtworkStatus.INACTIVE);
-                            artwork.setWinnerId(null);
-                            artwork.setWinnerName(null);
-                            artwork.setWinningBidAmount(null);
-                            artwork.setSoldAt(null); // Clear soldAt since payment failed
-                            artworkDAO.updateArtwork(artwork);
-                            
-                            logger.info("Artwork " + purchase.getArtworkId() + " marked as INACTIVE due to expired payment");
-                            
-                            // Notify seller that payment expired
-                            try {
-                                NotificationUtil.sendPaymentExpiredNotification(
-                                    purchase.getArtworkId(),
-                                    artwork.getTitle(),
-                                    purchase.getBuyerId(),
-                                    purchase.getSellerId()
-                                );
-                            } catch (Exception e) {
-                                logger.warning("Failed to send payment expired notification: " + e.getMessage());
-                            }
-                        }
-                        
-                        expiredCount++;
-                    }
-                } catch (Exception e) {
-                    logger.severe("Error processing expired payment for purchase " + purchase.getPurchaseId() + ": " + e.getMessage());
-                    e.printStackTrace();
+                // Check if payment deadline has passed
+                if (purchase.getPaymentDeadline() != null && 
+                    purchase.getPaymentDeadline().isBefore(now) &&
+                    !purchase.isPaymentExpired()) {
+                    expiredPurchases.add(purchase);
                 }
             }
             
-            logger.info("=== Finished processing expired payments. Expired: " + expiredCount + " ===");
+            summary.setTotal(expiredPurchases.size());
+            List<CompletableFuture<Void>> expirations = new ArrayList<>();
+            for (Purchase purchase : expiredPurchases) {
+                expirations.add(CompletableFuture.supplyAsync(() -> expirePayment(purchase, now), settlementPool)
+                        .exceptionally(e -> SettlementOutcome.FAILED)
+                        .thenAccept(summary::record));
+            }
+            CompletableFuture.allOf(expirations.toArray(new CompletableFuture<?>[0])).join();
             
         } catch (Exception e) {
             logger.severe("Error processing expired payments: " + e.getMessage());
             e.printStackTrace();
+            summary.record(SettlementOutcome.FAILED);
+        }
+        
+        summary.finish();
+        lastPaymentRun = summary;
+        logger.info("=== Finished processing expired payments. " + summary + " ===");
+        return summary;
+    }
+    
+    /**
+     * Expire one purchase whose payment deadline has passed and release its artwork
+     */
+    private static SettlementOutcome expirePayment(Purchase purchase, LocalDateTime now) {
+        if (!expiringPurchases.add(purchase.getPurchaseId())) {
+            return SettlementOutcome.IN_PROGRESS;
+        }
+        try {
+            logger.info("Payment expired for purchase: " + purchase.getPurchaseId() + 
+                       " (deadline: " + purchase.getPaymentDeadline() + ", now: " + now + ")");
+            
+            // Mark payment as expired
+            purchaseDAO.markPaymentAsExpired(purchase.getPurchaseId());
+            
+            // Update artwork status - make it available again or mark as expired
+            Artwork artwork = artworkDAO.findById(purchase.getArtworkId());
+            if (artwork != null) {
+                // Set artwork status to INACTIVE since payment failed
+                artwork.setStatus(Artwork.ArtworkStatus.INACTIVE);
+                artwork.setWinnerId(null);
+                artwork.setWinnerName(null);
+                artwork.setWinningBidAmount(null);
+                artwork.setSoldAt(null); // Clear soldAt since payment failed
+                artworkDAO.updateArtwork(artwork);
+                
+                logger.info("Artwork " + purchase.getArtworkId() + " marked as INACTIVE due to expired payment");
+                
+                // Notify seller that payment expired
+                try {
+                    NotificationUtil.sendPaymentExpiredNotification(
+                        purchase.getArtworkId(),
+                        artwork.getTitle(),
+                        purchase.getBuyerId(),
+                        purchase.getSellerId()
+                    );
+                } catch (Exception e) {
+                    logger.warning("Failed to send payment expired notification: " + e.getMessage());
+                }
+            }
+            return SettlementOutcome.PAYMENT_EXPIRED;
+        } catch (Exception e) {
+            logger.severe("Error processing expired payment for purchase " + purchase.getPurchaseId() + ": " + e.getMessage());
+            e.printStackTrace();
+            return SettlementOutcome.FAILED;
+        } finally {
+            expiringPurchases.remove(purchase.getPurchaseId());
+        }
+    }
+    
+    /**
+     * Result of the settlement transaction; the winner fields are only set for SOLD
+     */
+    private static class Settlement {
+        final SettlementOutcome outcome;
+        String winnerId;
+        String winnerName;
+        BigDecimal winningBidAmount;
+        
+        Settlement(SettlementOutcome outcome) {
+            this.outcome = outcome;
         }
     }
 }
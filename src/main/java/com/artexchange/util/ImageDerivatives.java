@@ -0,0 +1,232 @@
+package com.artexchange.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Fixed-width downscaled copies of uploaded images.
+ *
+ * A derivative of uploads/name.jpg at width w is stored as
+ * uploads/_w/{w}/name.jpg and requested as /uploads/name.jpg?w={w}. New
+ * uploads get every width generated in the background; legacy uploads get a
+ * width generated on the first request for it. Either way the decoding runs
+ * on the bounded pool below, never on a request thread. Images that ImageIO
+ * cannot decode (WebP without a plugin) or that are already narrow enough
+ * are linked under the derivative name unchanged.
+ */
+public final class ImageDerivatives {
+    private static final Logger logger = Logger.getLogger(ImageDerivatives.class.getName());
+    
+    /** Widths that are generated; a request for another width gets the next larger one */
+    public static final List<Integer> WIDTHS = List.of(320, 640, 1280);
+    /** Width used for listing grid cards */
+    public static final int THUMBNAIL_WIDTH = 640;
+    /** Width used for small previews such as artist portfolio strips */
+    public static final int PREVIEW_WIDTH = 320;
+    static final String DERIVED_DIR = "_w";
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final int THREADS = Integer.getInteger("artexchange.images.threads", 2);
+    
+    private static final ImageDerivatives INSTANCE = new ImageDerivatives();
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread thread = new Thread(r, "image-derivatives");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Generations in progress, so concurrent requests for a missing derivative share one */
+    private final ConcurrentHashMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    
+    private ImageDerivatives() {
+    }
+    
+    public static ImageDerivatives getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Generate every width of a freshly stored upload in the background
+     */
+    public void scheduleAll(Path uploadRoot, Path original) {
+        for (int width : WIDTHS) {
+            derivative(uploadRoot, original, width).whenComplete((target, e) -> {
+                if (e != null) {
+                    logger.warning("Could not create " + width + "px derivative of " + original.getFileName() + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+    
+    /**
+     * The file to serve for a request of an original at a given width: the derivative,
+     * created now if it does not exist yet, or the original if no smaller copy applies.
+     * The original is also served if the pool cannot create the derivative within 30
+     * seconds; the generation carries on and a later request gets the smaller copy.
+     */
+    public Path resolve(Path uploadRoot, Path original, int requestedWidth) {
+        try {
+            return derivative(uploadRoot, original, snapWidth(requestedWidth)).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warning("Serving original for " + original.getFileName() + ": " + e.getMessage());
+            return original;
+        }
+    }
+    
+    private CompletableFuture<Path> derivative(Path uploadRoot, Path original, int width) {
+        Path target = derivativePath(uploadRoot, original, width);
+        if (Files.exists(target)) {
+            return CompletableFuture.completedFuture(target);
+        }
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(create(original, target, width));
+                } catch (Exception e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(target);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(target);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+    
+    private static Path create(Path original, Path target, int width) throws IOException {
+        if (Files.exists(target)) {
+            return target;
+        }
+        Files.createDirectories(target.getParent());
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null || source.getWidth() <= width) {
+            // Not decodable by ImageIO, or no larger than the requested width: keep the
+            // original under the derivative's name so the image is not decoded again
+            try {
+                Files.createLink(target, original);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(original, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return target;
+        }
+        
+        int height = Math.max(1, Math.round(source.getHeight() * (width / (float) source.getWidth())));
+        boolean png = original.getFileName().toString().toLowerCase().endsWith(".png");
+        BufferedImage scaled = new BufferedImage(width, height,
+            png && source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        
+        // Write next to the target and move into place, so a reader never sees a partial file
+        Path temp = Files.createTempFile(target.getParent(), "derivative", ".tmp");
+        try {
+            if (png) {
+                ImageIO.write(scaled, "png", temp.toFile());
+            } else {
+                writeJpeg(scaled, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.fine("Created " + width + "px derivative of " + original.getFileName());
+        return target;
+    }
+    
+    private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+    
+    private static Path derivativePath(Path uploadRoot, Path original, int width) {
+        return uploadRoot.resolve(DERIVED_DIR).resolve(String.valueOf(width)).resolve(uploadRoot.relativize(original));
+    }
+    
+    /**
+     * Smallest generated width at least as wide as requested (the largest if none is)
+     */
+    public static int snapWidth(int requestedWidth) {
+        for (int width : WIDTHS) {
+            if (width >= requestedWidth) {
+                return width;
+            }
+        }
+        return WIDTHS.get(WIDTHS.size() - 1);
+    }
+    
+    /**
+     * URL of an image at a width; images not stored in our uploads are returned unchanged
+     */
+    public static String variantUrl(String imageUrl, int width) {
+        if (imageUrl == null || !imageUrl.contains("/uploads/") || imageUrl.contains("?")) {
+            return imageUrl;
+        }
+        return imageUrl + "?w=" + width;
+    }
+    
+    /**
+     * Variant URLs of an artwork's images, keyed by width, each list parallel to imageUrls
+     */
+    public static Map<String, List<String>> variantUrls(List<String> imageUrls) {
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        if (imageUrls == null || imageUrls.isEmpty()) {
+            return variants;
+        }
+        for (int width : WIDTHS) {
+            variants.put(String.valueOf(width), imageUrls.stream()
+                .map(url -> variantUrl(url, width))
+                .collect(Collectors.toList()));
+        }
+        return variants;
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
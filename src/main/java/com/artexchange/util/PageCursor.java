@@ -0,0 +1,72 @@
+package com.artexchange.util;
+
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Utility class for opaque keyset pagination cursors.
+ * A cursor carries the sort key values of the last row of a page so the next
+ * page can resume with startAfter instead of offset.
+ */
+public class PageCursor {
+    private static final String SEPARATOR = "\n";
+    
+    /**
+     * Encode the sort key values of the last row into an opaque token
+     */
+    public static String encode(String... values) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(values[i] != null ? values[i] : "");
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a token produced by {@link #encode}. Returns null for a blank token
+     * or one that does not carry the expected number of values.
+     */
+    public static String[] decode(String token, int expectedValues) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] values = raw.split(SEPARATOR, -1);
+            return values.length == expectedValues ? values : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Resume a query ordered by (createdAt, documentId) after the cursor position
+     */
+    public static Query startAfter(Query query, String cursor) {
+        String[] position = decode(cursor, 2);
+        if (position == null) {
+            return query;
+        }
+        return query.startAfter(position[0], position[1]);
+    }
+    
+    /**
+     * Cursor for the page after these (createdAt, documentId) ordered documents,
+     * or null if this was the last page
+     */
+    public static String next(List<QueryDocumentSnapshot> documents, int limit) {
+        if (documents.isEmpty() || documents.size() < limit) {
+            return null;
+        }
+        QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+        return encode(last.getString("createdAt"), last.getId());
+    }
+}
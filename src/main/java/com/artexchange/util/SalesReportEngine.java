@@ -0,0 +1,228 @@
+package com.artexchange.util;
+
+import com.artexchange.dao.ArtworkDAO;
+import com.artexchange.dao.CursorPage;
+import com.artexchange.dao.PurchaseDAO;
+import com.artexchange.dao.UserDAO;
+import com.artexchange.model.Artwork;
+import com.artexchange.model.Purchase;
+import com.artexchange.model.User;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Builds an artist's sales report a page at a time.
+ *
+ * Completed purchases and sold auctions are read with the date range applied in
+ * the query, and the artwork titles and buyer names of each page are looked up
+ * in one batch. Every row is handed to a {@link Sink} as soon as it
+ * is built, so a report of any length holds at most one page in memory.
+ */
+public class SalesReportEngine {
+    private static final Logger logger = Logger.getLogger(SalesReportEngine.class.getName());
+    private static final int PAGE_SIZE = Integer.getInteger("artexchange.salesReport.pageSize", 200);
+    
+    private final PurchaseDAO purchaseDAO;
+    private final ArtworkDAO artworkDAO;
+    private final UserDAO userDAO;
+    
+    public SalesReportEngine(PurchaseDAO purchaseDAO, ArtworkDAO artworkDAO, UserDAO userDAO) {
+        this.purchaseDAO = purchaseDAO;
+        this.artworkDAO = artworkDAO;
+        this.userDAO = userDAO;
+    }
+    
+    /**
+     * Receives report rows as they are produced
+     */
+    public interface Sink {
+        void record(SaleRecord record) throws IOException;
+    }
+    
+    /**
+     * One row of the report
+     */
+    public static class SaleRecord {
+        private final String artworkId;
+        private final String artworkTitle;
+        private final String buyerUsername;
+        private final String saleType;
+        private final BigDecimal finalPrice;
+        private final LocalDateTime saleDate;
+        
+        SaleRecord(String artworkId, String artworkTitle, String buyerUsername, String saleType,
+                   BigDecimal finalPrice, LocalDateTime saleDate) {
+            this.artworkId = artworkId;
+            this.artworkTitle = artworkTitle;
+            this.buyerUsername = buyerUsername;
+            this.saleType = saleType;
+            this.finalPrice = finalPrice;
+            this.saleDate = saleDate;
+        }
+        
+        public String getArtworkId() { return artworkId; }
+        public String getArtworkTitle() { return artworkTitle; }
+        public String getBuyerUsername() { return buyerUsername; }
+        public String getSaleType() { return saleType; }
+        public BigDecimal getFinalPrice() { return finalPrice; }
+        public LocalDateTime getSaleDate() { return saleDate; }
+    }
+    
+    /**
+     * Counts and revenue of the rows written by a run
+     */
+    public static class Totals {
+        private int directPurchaseCount;
+        private BigDecimal directPurchaseRevenue = BigDecimal.ZERO;
+        private int auctionSaleCount;
+        private BigDecimal auctionSaleRevenue = BigDecimal.ZERO;
+        
+        public int getDirectPurchaseCount() { return directPurchaseCount; }
+        public BigDecimal getDirectPurchaseRevenue() { return directPurchaseRevenue; }
+        public int getAuctionSaleCount() { return auctionSaleCount; }
+        public BigDecimal getAuctionSaleRevenue() { return auctionSaleRevenue; }
+        public int getTotalArtworksSold() { return directPurchaseCount + auctionSaleCount; }
+        public BigDecimal getTotalRevenue() { return directPurchaseRevenue.add(auctionSaleRevenue); }
+    }
+    
+    /**
+     * Write every direct purchase and then every auction sale of an artist between
+     * two dates (either may be null) to the sink. A section whose reads fail is
+     * logged and cut short so the rows already written still form a valid report.
+     */
+    public Totals run(String artistId, LocalDateTime startDate, LocalDateTime endDate, Sink sink) throws IOException {
+        Totals totals = new Totals();
+        writeDirectPurchases(artistId, startDate, endDate, sink, totals);
+        writeAuctionSales(artistId, startDate, endDate, sink, totals);
+        logger.info("Sales report for artist " + artistId + ": " + totals.getTotalArtworksSold() + " sales");
+        return totals;
+    }
+    
+    private void writeDirectPurchases(String artistId, LocalDateTime startDate, LocalDateTime endDate,
+                                      Sink sink, Totals totals) throws IOException {
+        String cursor = null;
+        do {
+            CursorPage<Purchase> page;
+            Map<String, Artwork> artworksById = Collections.emptyMap();
+            Map<String, User> buyersById = Collections.emptyMap();
+            try {
+                page = purchaseDAO.findCompletedSales(artistId, startDate, endDate, cursor, PAGE_SIZE);
+            } catch (Exception e) {
+                logger.severe("Error fetching purchases for artist " + artistId + ": " + e.getMessage());
+                return;
+            }
+            
+            // Look up the page's artworks and buyers in bulk instead of once per row
+            Set<String> artworkIds = new HashSet<>();
+            Set<String> buyerIds = new HashSet<>();
+            for (Purchase purchase : page.getItems()) {
+                if (purchase.getArtworkId() != null) artworkIds.add(purchase.getArtworkId());
+                if (purchase.getBuyerId() != null) buyerIds.add(purchase.getBuyerId());
+            }
+            try {
+                artworksById = artworkDAO.findByIds(artworkIds);
+                buyersById = userDAO.findByIds(buyerIds);
+            } catch (Exception e) {
+                logger.warning("Error fetching artworks and buyers for sales report: " + e.getMessage());
+            }
+            
+            for (Purchase purchase : page.getItems()) {
+                Artwork artwork = artworksById.get(purchase.getArtworkId());
+                String buyerUsername = displayName(buyersById.get(purchase.getBuyerId()));
+                BigDecimal price = purchase.getPurchasePrice() != null ? purchase.getPurchasePrice() : BigDecimal.ZERO;
+                
+                sink.record(new SaleRecord(
+                    purchase.getArtworkId() != null ? purchase.getArtworkId() : "",
+                    artwork != null && artwork.getTitle() != null ? artwork.getTitle() : "Unknown",
+                    buyerUsername != null ? buyerUsername : "Unknown",
+                    "DIRECT_PURCHASE",
+                    price,
+                    purchase.getPurchaseDate()));
+                totals.directPurchaseCount++;
+                totals.directPurchaseRevenue = totals.directPurchaseRevenue.add(price);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+    
+    private void writeAuctionSales(String artistId, LocalDateTime startDate, LocalDateTime endDate,
+                                   Sink sink, Totals totals) throws IOException {
+        String cursor = null;
+        do {
+            CursorPage<Artwork> page;
+            Map<String, User> buyersById = Collections.emptyMap();
+            try {
+                page = artworkDAO.findSoldAuctions(artistId, startDate, endDate, cursor, PAGE_SIZE);
+            } catch (Exception e) {
+                logger.severe("Error fetching sold auctions for artist " + artistId + ": " + e.getMessage());
+                return;
+            }
+            
+            Set<String> winnerIds = new HashSet<>();
+            for (Artwork artwork : page.getItems()) {
+                if (artwork.getWinnerId() != null && !artwork.getWinnerId().isEmpty()) {
+                    winnerIds.add(artwork.getWinnerId());
+                }
+            }
+            try {
+                buyersById = userDAO.findByIds(winnerIds);
+            } catch (Exception e) {
+                logger.warning("Error fetching auction winners for sales report: " + e.getMessage());
+            }
+            
+            for (Artwork artwork : page.getItems()) {
+                if (artwork.getWinnerId() == null || artwork.getWinnerId().isEmpty()) {
+                    continue;
+                }
+                LocalDateTime saleDate = artwork.getEndedAt();
+                
+                // Prefer the winner's current username, fall back to the name recorded at settlement
+                String buyerUsername = displayName(buyersById.get(artwork.getWinnerId()));
+                if (buyerUsername == null) {
+                    buyerUsername = artwork.getWinnerName() != null && !artwork.getWinnerName().isEmpty()
+                        ? artwork.getWinnerName() : "Unknown";
+                }
+                BigDecimal winningBid = artwork.getWinningBidAmount() != null ? artwork.getWinningBidAmount() :
+                                      (artwork.getCurrentBid() != null ? artwork.getCurrentBid() : BigDecimal.ZERO);
+                
+                sink.record(new SaleRecord(
+                    artwork.getArtworkId() != null ? artwork.getArtworkId() : "",
+                    artwork.getTitle() != null ? artwork.getTitle() : "Unknown",
+                    buyerUsername,
+                    "AUCTION",
+                    winningBid,
+                    saleDate));
+                totals.auctionSaleCount++;
+                totals.auctionSaleRevenue = totals.auctionSaleRevenue.add(winningBid);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+    
+    /**
+     * Username, or first and last name, of a buyer; null if neither is known
+     */
+    private static String displayName(User buyer) {
+        if (buyer == null) {
+            return null;
+        }
+        if (buyer.getUsername() != null && !buyer.getUsername().isEmpty()) {
+            return buyer.getUsername();
+        }
+        if (buyer.getFirstName() != null) {
+            String name = buyer.getFirstName();
+            if (buyer.getLastName() != null && !buyer.getLastName().isEmpty()) {
+                name += " " + buyer.getLastName();
+            }
+            return name;
+        }
+        return null;
+    }
+}
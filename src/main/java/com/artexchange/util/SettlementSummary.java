@@ -0,0 +1,73 @@
+package com.artexchange.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outcome counts and wall-clock time of one settlement run
+ * (ended auctions or expired payments)
+ */
+public class SettlementSummary {
+    private final String run;
+    private final long startedNanos = System.nanoTime();
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private volatile int total;
+    private volatile long elapsedMillis;
+    
+    public SettlementSummary(String run) {
+        this.run = run;
+    }
+    
+    void setTotal(int total) {
+        this.total = total;
+    }
+    
+    void record(Object outcome) {
+        counts.computeIfAbsent(String.valueOf(outcome), k -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    void finish() {
+        elapsedMillis = (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+    
+    public String getRun() {
+        return run;
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public int getCount(Object outcome) {
+        AtomicInteger count = counts.get(String.valueOf(outcome));
+        return count != null ? count.get() : 0;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * JSON-friendly view for admin endpoints
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("run", run);
+        map.put("total", total);
+        Map<String, Integer> outcomes = new LinkedHashMap<>();
+        counts.forEach((outcome, count) -> outcomes.put(outcome, count.get()));
+        map.put("outcomes", outcomes);
+        map.put("elapsedMillis", elapsedMillis);
+        return map;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(run).append(": ").append(total).append(" items in ")
+                .append(elapsedMillis).append(" ms");
+        counts.forEach((outcome, count) -> sb.append(", ").append(outcome).append('=').append(count.get()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,216 @@
+package com.artexchange.util;
+
+import jakarta.servlet.ServletContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for uploaded files.
+ *
+ * A file is stored once under the SHA-256 of its bytes, sharded by the first
+ * two byte pairs of the hash: {root}/ab/cd/abcd...ef.jpg, served as
+ * /uploads/ab/cd/abcd...ef.jpg. The hash is computed while the upload is
+ * streamed to a temp file, which is then moved into place, so the same image
+ * uploaded twice takes the space of one and a half-written file is never
+ * visible. The root is -Dartexchange.uploads.dir, or the webapp's uploads
+ * directory if unset; files uploaded before the store existed stay in the
+ * webapp directory and are still found there.
+ */
+public final class UploadStore {
+    private static final Logger logger = Logger.getLogger(UploadStore.class.getName());
+    private static final String ROOT_PROPERTY = "artexchange.uploads.dir";
+    private static final String WEBAPP_UPLOAD_DIR = "uploads";
+    private static final String TEMP_DIR = ".tmp";
+    private static final Pattern BLOB_KEY = Pattern.compile("([0-9a-f]{2})/([0-9a-f]{2})/([0-9a-f]{64})(\\.[a-z0-9]+)?");
+    private static final Pattern BLOB_URL = Pattern.compile("/uploads/(" + BLOB_KEY.pattern() + ")(\\?.*)?$");
+    
+    private static volatile UploadStore instance;
+    
+    private final Path root;
+    private final Path legacyRoot;
+    
+    private UploadStore(Path root, Path legacyRoot) {
+        this.root = root;
+        this.legacyRoot = legacyRoot;
+    }
+    
+    /**
+     * The store of this web application, created on first use
+     */
+    public static UploadStore get(ServletContext context) {
+        UploadStore store = instance;
+        if (store == null) {
+            synchronized (UploadStore.class) {
+                store = instance;
+                if (store == null) {
+                    Path legacyRoot = Paths.get(context.getRealPath("") + File.separator + WEBAPP_UPLOAD_DIR).normalize();
+                    String configured = System.getProperty(ROOT_PROPERTY);
+                    Path root = configured != null && !configured.trim().isEmpty()
+                        ? Paths.get(configured.trim()).toAbsolutePath().normalize()
+                        : legacyRoot;
+                    logger.info("Upload store root: " + root);
+                    store = new UploadStore(root, legacyRoot);
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+    
+    public Path getRoot() {
+        return root;
+    }
+    
+    /**
+     * Store a file and return its key (path relative to the root, with '/' separators).
+     * Storing content that is already present returns the existing key.
+     */
+    public String store(InputStream input, String extension) throws IOException {
+        Path tempDir = root.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload", ".part");
+        try {
+            MessageDigest digest = sha256();
+            try (DigestInputStream in = new DigestInputStream(input, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String key = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + normalizeExtension(extension);
+            
+            Path target = root.resolve(key);
+            if (Files.exists(target)) {
+                // Same bytes already stored; keep the existing file and refresh its age for the sweeper
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                logger.fine("Upload deduplicated: " + key);
+                return key;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException e) {
+                // Another request stored the same bytes first
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Directory a stored file resolves against: the store root, or the webapp's
+     * uploads directory for a file from before the store was moved out of it
+     */
+    public Path baseFor(String relativePath) {
+        Path stored = root.resolve(relativePath).normalize();
+        if (!root.equals(legacyRoot) && !Files.exists(stored) && Files.exists(legacyRoot.resolve(relativePath))) {
+            return legacyRoot;
+        }
+        return root;
+    }
+    
+    /**
+     * Key of a stored file from its URL, or null for a URL outside the store
+     * (external images, legacy UUID uploads, profile pictures)
+     */
+    public static String keyFromUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = BLOB_URL.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+    
+    /**
+     * Delete stored files that have no references and were last written before the grace
+     * period, together with their image derivatives. The grace period covers files that
+     * were uploaded but whose artwork has not been saved yet.
+     */
+    public int sweep(Set<String> referencedKeys, Duration grace) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(grace);
+        List<Path> orphans = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String key = root.relativize(file).toString().replace(File.separatorChar, '/');
+                if (!BLOB_KEY.matcher(key).matches() || referencedKeys.contains(key)) {
+                    return;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        orphans.add(file);
+                    }
+                } catch (IOException e) {
+                    logger.warning("Could not read age of " + key + ": " + e.getMessage());
+                }
+            });
+        }
+        
+        int deleted = 0;
+        for (Path orphan : orphans) {
+            Path relative = root.relativize(orphan);
+            try {
+                Files.deleteIfExists(orphan);
+                Path derived = root.resolve(ImageDerivatives.DERIVED_DIR);
+                if (Files.isDirectory(derived)) {
+                    try (Stream<Path> widths = Files.list(derived)) {
+                        for (Path widthDir : (Iterable<Path>) widths::iterator) {
+                            Files.deleteIfExists(widthDir.resolve(relative));
+                        }
+                    }
+                }
+                deleted++;
+            } catch (IOException e) {
+                logger.warning("Could not delete orphaned upload " + relative + ": " + e.getMessage());
+            }
+        }
+        return deleted;
+    }
+    
+    private static String normalizeExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return "";
+        }
+        String ext = extension.toLowerCase();
+        if (ext.equals(".jpeg")) {
+            // One extension per format, so identical bytes always get the same key
+            ext = ".jpg";
+        }
+        return ext.matches("\\.[a-z0-9]+") ? ext : "";
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.artexchange.util;
+
+import com.artexchange.config.FirebaseConfig;
+import com.artexchange.dao.store.FieldPath;
+import com.artexchange.dao.store.DocumentStore;
+import com.artexchange.dao.store.Query;
+import com.artexchange.dao.store.QueryDocumentSnapshot;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Removes stored uploads nothing refers to any more.
+ *
+ * Each run counts the references to every blob of the {@link UploadStore}
+ * from artwork images and user profile pictures, then deletes the blobs with
+ * no references that are older than the grace period. Counting from the
+ * documents on each run, rather than keeping counters on every artwork write,
+ * means a missed or failed write can never make a referenced file look orphaned.
+ */
+public class UploadSweeper {
+    private static final Logger logger = Logger.getLogger(UploadSweeper.class.getName());
+    private static final int PAGE_SIZE = 500;
+    /** Hours an unreferenced upload is kept (-Dartexchange.uploads.orphanGraceHours) */
+    private static final long GRACE_HOURS = Long.getLong("artexchange.uploads.orphanGraceHours", 48L);
+    
+    private final UploadStore store;
+    private final DocumentStore firestore;
+    
+    public UploadSweeper(UploadStore store) {
+        this.store = store;
+        this.firestore = FirebaseConfig.getDocumentStore();
+    }
+    
+    /**
+     * Count references and delete orphaned blobs; returns the number deleted
+     */
+    public int run() throws Exception {
+        Map<String, Integer> references = new HashMap<>();
+        countReferences(firestore.collection("artworks"), references, "imageUrls", "primaryImageUrl");
+        countReferences(firestore.collection("users"), references, "profileImage");
+        
+        int deleted = store.sweep(references.keySet(), Duration.ofHours(GRACE_HOURS));
+        logger.info("Upload sweep: " + references.size() + " referenced blobs, " + deleted + " orphans deleted");
+        return deleted;
+    }
+    
+    private void countReferences(Query collection, Map<String, Integer> references, String... fields) throws Exception {
+        String lastId = null;
+        do {
+            Query query = collection.select(fields).orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+            if (lastId != null) {
+                query = query.startAfter(lastId);
+            }
+            List<QueryDocumentSnapshot> page = query.get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : page) {
+                for (String field : fields) {
+                    Object value = doc.get(field);
+                    if (value instanceof List) {
+                        for (Object url : (List<?>) value) {
+                            addReference(references, url);
+                        }
+                    } else {
+                        addReference(references, value);
+                    }
+                }
+            }
+            lastId = page.size() == PAGE_SIZE ? page.get(page.size() - 1).getId() : null;
+        } while (lastId != null);
+    }
+    
+    private static void addReference(Map<String, Integer> references, Object url) {
+        String key = url instanceof String ? UploadStore.keyFromUrl((String) url) : null;
+        if (key != null) {
+            references.merge(key, 1, Integer::sum);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.artexchange.websocket;
 
 import com.artexchange.dao.ArtworkDAO;
-import com.artexchange.util.AuctionProcessor;
+import com.artexchange.dao.AuctionBidEngine;
+import com.artexchange.dao.AuctionDAO;
+import com.artexchange.metrics.Metrics;
+import com.artexchange.util.AuctionClock;
 import com.artexchange.model.Artwork;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -9,26 +12,44 @@ import com.google.gson.JsonObject;
 import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
-import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 @ServerEndpoint("/auction/{artworkId}")
 public class AuctionWebSocket {
     private static final Logger logger = Logger.getLogger(AuctionWebSocket.class.getName());
-    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Session>> auctionSessions = new ConcurrentHashMap<>();
-    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, SessionOutbox>> auctionSessions = new ConcurrentHashMap<>();
+    /** Cached auction state for rooms with viewers; timer updates are built from this, not from Firestore */
+    private static final ConcurrentHashMap<String, AuctionState> auctionStates = new ConcurrentHashMap<>();
     private static final Gson gson = new Gson();
     private static final ArtworkDAO artworkDAO = new ArtworkDAO();
+    private static final AuctionDAO auctionDAO = new AuctionDAO();
+    private static final String OUTBOX_PROPERTY = "auctionOutbox";
+    
+    static {
+        AuctionClock clock = AuctionClock.getInstance();
+        clock.addTickListener(AuctionWebSocket::onClockTick);
+        clock.addEndListener(AuctionWebSocket::onAuctionEnded);
+        clock.addScheduleListener(AuctionWebSocket::onDeadlineMoved);
+        Metrics.gauge("artexchange_ws_sessions", "Open WebSocket sessions", AuctionWebSocket::sessionCount, "endpoint", "auction");
+        Metrics.gauge("artexchange_ws_queued_frames", "Frames waiting to be sent, over all sessions",
+            AuctionWebSocket::queuedFrames, "endpoint", "auction");
+    }
     
     @OnOpen
     public void onOpen(Session session, @PathParam("artworkId") String artworkId) {
-        // Add session to artwork's auction room
-        auctionSessions.computeIfAbsent(artworkId, k -> new ConcurrentHashMap<>())
-                      .put(session.getId(), session);
+        // Add session to artwork's auction room; all frames to it go through its outbox
+        SessionOutbox outbox = new SessionOutbox(session);
+        session.getUserProperties().put(OUTBOX_PROPERTY, outbox);
+        // Joins and the last leave are atomic per room, so a join cannot land in a room being removed
+        auctionSessions.compute(artworkId, (id, room) -> {
+            ConcurrentHashMap<String, SessionOutbox> sessions = room != null ? room : new ConcurrentHashMap<>();
+            sessions.put(session.getId(), outbox);
+            return sessions;
+        });
         
         logger.info("User joined auction for artwork: " + artworkId);
         
@@ -36,7 +57,7 @@ public class AuctionWebSocket {
             // Send current auction status
             sendAuctionStatus(artworkId, session);
             
-            // Start timer updates for this auction if not already running
+            // Make sure the shared clock will end this auction
             startAuctionTimer(artworkId);
             
         } catch (Exception e) {
@@ -68,15 +89,16 @@ public class AuctionWebSocket {
     
     @OnClose
     public void onClose(Session session, @PathParam("artworkId") String artworkId) {
-        ConcurrentHashMap<String, Session> artworkSessions = auctionSessions.get(artworkId);
-        if (artworkSessions != null) {
-            artworkSessions.remove(session.getId());
+        auctionSessions.computeIfPresent(artworkId, (id, room) -> {
+            room.remove(session.getId());
             
-            // If no more sessions for this artwork, clean up
-            if (artworkSessions.isEmpty()) {
-                auctionSessions.remove(artworkId);
+            // If no more sessions for this artwork, clean up. The clock keeps the end deadline.
+            if (room.isEmpty()) {
+                auctionStates.remove(id);
+                return null;
             }
-        }
+            return room;
+        });
         
         logger.info("User left auction for artwork: " + artworkId);
     }
@@ -86,42 +108,59 @@ public class AuctionWebSocket {
         logger.severe("Auction WebSocket error: " + throwable.getMessage());
     }
     
+    /**
+     * Notify viewers of a bid accepted through the REST endpoints
+     */
+    public static void publishBid(String artworkId, String bidderId, double bidAmount) {
+        AuctionState state = auctionStates.get(artworkId);
+        if (state == null) {
+            return;
+        }
+        state.recordBid(bidderId, bidAmount);
+        broadcastBidUpdate(artworkId, state, bidderId, bidAmount);
+    }
+    
     private void handlePlaceBid(JsonObject messageJson, String artworkId, Session session) {
         try {
             double bidAmount = messageJson.get("bidAmount").getAsDouble();
             String bidderId = messageJson.get("bidderId").getAsString();
             
-            // Get current artwork
-            Artwork artwork = artworkDAO.findById(artworkId);
-            if (artwork == null) {
+            AuctionState state = getAuctionState(artworkId);
+            if (state == null) {
                 sendErrorToSession(session, "Artwork not found");
                 return;
             }
             
             // Validate bid
-            if (artwork.getSaleType() != Artwork.SaleType.AUCTION) {
+            if (!state.auction) {
                 sendErrorToSession(session, "This artwork is not for auction");
                 return;
             }
             
-            if (artwork.getAuctionEndTime().isBefore(java.time.LocalDateTime.now())) {
+            if (state.ended || state.getTimeRemaining() <= 0) {
                 sendErrorToSession(session, "Auction has ended");
                 return;
             }
             
-            java.math.BigDecimal currentBid = artwork.getCurrentBid() != null ? artwork.getCurrentBid() : artwork.getStartingBid();
-            if (java.math.BigDecimal.valueOf(bidAmount).compareTo(currentBid) <= 0) {
+            // Sequenced through the bid engine so concurrent bids cannot both win
+            AuctionBidEngine.BidResult result = auctionDAO.submitBid(artworkId, bidderId, bidAmount);
+            if (result.getOutcome() == AuctionBidEngine.Outcome.TOO_LOW) {
                 sendErrorToSession(session, "Bid must be higher than current bid");
                 return;
             }
+            if (result.getOutcome() == AuctionBidEngine.Outcome.ENDED) {
+                sendErrorToSession(session, "Auction has ended");
+                return;
+            }
+            if (!result.isAccepted()) {
+                sendErrorToSession(session, "Error processing bid");
+                return;
+            }
             
-            // Update artwork with new bid
-            artwork.setCurrentBid(java.math.BigDecimal.valueOf(bidAmount));
-            artwork.setHighestBidderId(bidderId);
-            artworkDAO.updateArtwork(artwork);
+            state.recordBid(bidderId, bidAmount);
             
             // Broadcast bid update to all participants
-            broadcastBidUpdate(artworkId, artwork, bidderId, bidAmount);
+            broadcastBidUpdate(artworkId, state, bidderId, bidAmount);
             
             logger.info("New bid placed: " + bidAmount + " for artwork " + artworkId);
             
@@ -133,129 +172,260 @@ public class AuctionWebSocket {
     
     private void sendAuctionStatus(String artworkId, Session session) {
         try {
-            Artwork artwork = artworkDAO.findById(artworkId);
-            if (artwork == null) {
+            AuctionState state = getAuctionState(artworkId);
+            if (state == null) {
                 sendErrorToSession(session, "Artwork not found");
                 return;
             }
             
-            JsonObject status = createAuctionStatusMessage(artwork);
-            session.getBasicRemote().sendText(gson.toJson(status));
+            JsonObject status = createAuctionStatusMessage(artworkId, state);
+            outbox(session).send(gson.toJson(status));
             
         } catch (Exception e) {
             logger.severe("Error sending auction status: " + e.getMessage());
         }
     }
     
-    private void broadcastBidUpdate(String artworkId, Artwork artwork, String bidderId, double bidAmount) {
-        ConcurrentHashMap<String, Session> sessions = auctionSessions.get(artworkId);
+    /**
+     * Cached state of an auction room, loaded from Firestore once when the first viewer joins
+     */
+    private static AuctionState getAuctionState(String artworkId) throws Exception {
+        AuctionState state = auctionStates.get(artworkId);
+        if (state != null) {
+            return state;
+        }
+        Artwork artwork = artworkDAO.findById(artworkId);
+        if (artwork == null) {
+            return null;
+        }
+        state = new AuctionState(artwork);
+        AuctionState existing = auctionStates.putIfAbsent(artworkId, state);
+        return existing != null ? existing : state;
+    }
+    
+    private static void broadcastBidUpdate(String artworkId, AuctionState state, String bidderId, double bidAmount) {
+        ConcurrentHashMap<String, SessionOutbox> sessions = auctionSessions.get(artworkId);
         if (sessions == null) return;
         
-        JsonObject bidUpdate = new JsonObject();
-        bidUpdate.addProperty("type", "bid_update");
-        bidUpdate.addProperty("artworkId", artworkId);
-        bidUpdate.addProperty("newBid", bidAmount);
-        bidUpdate.addProperty("bidderId", bidderId);
-        bidUpdate.addProperty("currentPrice", artwork.getCurrentBid() != null ? artwork.getCurrentBid().doubleValue() : 0.0);
-        bidUpdate.addProperty("timeRemaining", getTimeRemaining(artwork.getAuctionEndTime()));
-        
-        String message = gson.toJson(bidUpdate);
+        String message = bidUpdateFrame(artworkId, bidderId, bidAmount, state.currentPrice, state.getTimeRemaining());
         
-        sessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    session.getBasicRemote().sendText(message);
-                } catch (IOException e) {
-                    logger.warning("Failed to send bid update to session: " + e.getMessage());
-                }
-            }
-        });
+        for (SessionOutbox outbox : sessions.values()) {
+            outbox.send(message);
+        }
     }
     
-    private void startAuctionTimer(String artworkId) {
-        // Check if timer is already running for this auction
-        if (isTimerRunning(artworkId)) {
+    private void startAuctionTimer(String artworkId) throws Exception {
+        AuctionState state = getAuctionState(artworkId);
+        if (state == null || !state.auction || state.ended || state.endTime == null) {
             return;
         }
         
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                Artwork artwork = artworkDAO.findById(artworkId);
-                if (artwork == null) return;
-                
-                long timeRemaining = getTimeRemaining(artwork.getAuctionEndTime());
-                
-                if (timeRemaining <= 0) {
-                    // Auction ended - use AuctionProcessor to handle it
-                    AuctionProcessor.processEndedAuction(artworkId);
-                    return;
-                }
-                
-                // Send timer update
-                broadcastTimerUpdate(artworkId, timeRemaining, artwork);
-                
-            } catch (Exception e) {
-                logger.severe("Error in auction timer: " + e.getMessage());
+        // Scheduling is idempotent; the shared clock holds one deadline per auction
+        if (!isTimerRunning(artworkId)) {
+            AuctionClock.getInstance().schedule(artworkId, state.endTime);
+        }
+    }
+    
+    /**
+     * Shared clock tick: push timer updates to every room that has viewers, from cached state
+     */
+    private static void onClockTick(long nowMillis) {
+        for (Map.Entry<String, ConcurrentHashMap<String, SessionOutbox>> room : auctionSessions.entrySet()) {
+            if (room.getValue().isEmpty()) {
+                continue;
+            }
+            AuctionState state = auctionStates.get(room.getKey());
+            if (state == null || !state.auction || state.ended) {
+                continue;
             }
-        }, 0, 1, TimeUnit.SECONDS);
+            long timeRemaining = state.getTimeRemaining(nowMillis);
+            if (timeRemaining > 0) {
+                // Enqueue only; the outboxes send asynchronously
+                broadcastTimerUpdate(room.getKey(), timeRemaining, state);
+            }
+        }
+    }
+    
+    /**
+     * Shared clock end event, fired once per auction. Settlement is run by AuctionSchedulerListener.
+     */
+    private static void onAuctionEnded(String artworkId) {
+        AuctionState state = auctionStates.get(artworkId);
+        if (state != null) {
+            state.ended = true;
+            broadcastAuctionEnded(artworkId, state);
+        }
+    }
+    
+    /**
+     * Shared clock schedule event: a room's cached end time is replaced when the deadline moves
+     */
+    private static void onDeadlineMoved(String artworkId, LocalDateTime endTime) {
+        auctionStates.computeIfPresent(artworkId, (id, state) ->
+                endTime.equals(state.endTime) ? state : new AuctionState(state, endTime));
+    }
+    
+    private static void broadcastTimerUpdate(String artworkId, long timeRemaining, AuctionState state) {
+        ConcurrentHashMap<String, SessionOutbox> sessions = auctionSessions.get(artworkId);
+        if (sessions == null) return;
+        
+        String message = timerUpdateFrame(artworkId, timeRemaining, state.currentPrice, state.highestBidderId);
+        
+        // Timer frames are coalesced: a slow client only ever gets the latest one
+        for (SessionOutbox outbox : sessions.values()) {
+            outbox.sendTimer(message);
+        }
     }
     
-    private void broadcastTimerUpdate(String artworkId, long timeRemaining, Artwork artwork) {
-        ConcurrentHashMap<String, Session> sessions = auctionSessions.get(artworkId);
+    private static void broadcastAuctionEnded(String artworkId, AuctionState state) {
+        ConcurrentHashMap<String, SessionOutbox> sessions = auctionSessions.get(artworkId);
         if (sessions == null) return;
         
+        String message = auctionEndedFrame(artworkId, state.currentPrice, state.highestBidderId);
+        
+        for (SessionOutbox outbox : sessions.values()) {
+            outbox.send(message);
+        }
+    }
+    
+    /**
+     * Frame sent to the room when a bid is accepted; built once and shared by every outbox
+     */
+    static String bidUpdateFrame(String artworkId, String bidderId, double bidAmount, double currentPrice, long timeRemaining) {
+        JsonObject bidUpdate = new JsonObject();
+        bidUpdate.addProperty("type", "bid_update");
+        bidUpdate.addProperty("artworkId", artworkId);
+        bidUpdate.addProperty("newBid", bidAmount);
+        bidUpdate.addProperty("bidderId", bidderId);
+        bidUpdate.addProperty("currentPrice", currentPrice);
+        bidUpdate.addProperty("timeRemaining", timeRemaining);
+        
+        return gson.toJson(bidUpdate);
+    }
+    
+    static String timerUpdateFrame(String artworkId, long timeRemaining, double currentPrice, String highestBidderId) {
         JsonObject timerUpdate = new JsonObject();
         timerUpdate.addProperty("type", "timer_update");
         timerUpdate.addProperty("artworkId", artworkId);
         timerUpdate.addProperty("timeRemaining", timeRemaining);
-        timerUpdate.addProperty("currentPrice", artwork.getCurrentBid() != null ? artwork.getCurrentBid().doubleValue() : 0.0);
-        timerUpdate.addProperty("highestBidderId", artwork.getHighestBidderId());
+        timerUpdate.addProperty("currentPrice", currentPrice);
+        timerUpdate.addProperty("highestBidderId", highestBidderId);
         
-        String message = gson.toJson(timerUpdate);
+        return gson.toJson(timerUpdate);
+    }
+    
+    static String auctionEndedFrame(String artworkId, double finalPrice, String highestBidderId) {
+        JsonObject ended = new JsonObject();
+        ended.addProperty("type", "auction_ended");
+        ended.addProperty("artworkId", artworkId);
+        ended.addProperty("finalPrice", finalPrice);
+        ended.addProperty("highestBidderId", highestBidderId);
         
-        sessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    session.getBasicRemote().sendText(message);
-                } catch (IOException e) {
-                    logger.warning("Failed to send timer update to session: " + e.getMessage());
-                }
-            }
-        });
+        return gson.toJson(ended);
     }
     
-    private JsonObject createAuctionStatusMessage(Artwork artwork) {
+    private JsonObject createAuctionStatusMessage(String artworkId, AuctionState state) {
         JsonObject status = new JsonObject();
         status.addProperty("type", "auction_status");
-        status.addProperty("artworkId", artwork.getArtworkId());
-        status.addProperty("currentPrice", artwork.getCurrentBid() != null ? artwork.getCurrentBid().doubleValue() : 0.0);
-        status.addProperty("startingPrice", artwork.getStartingBid() != null ? artwork.getStartingBid().doubleValue() : 0.0);
-        status.addProperty("highestBidderId", artwork.getHighestBidderId());
-        status.addProperty("timeRemaining", getTimeRemaining(artwork.getAuctionEndTime()));
-        status.addProperty("isActive", artwork.getAuctionEndTime().isAfter(java.time.LocalDateTime.now()));
+        status.addProperty("artworkId", artworkId);
+        status.addProperty("currentPrice", state.currentPrice);
+        status.addProperty("startingPrice", state.startingPrice);
+        status.addProperty("highestBidderId", state.highestBidderId);
+        status.addProperty("timeRemaining", state.getTimeRemaining());
+        status.addProperty("isActive", !state.ended && state.getTimeRemaining() > 0);
         
         return status;
     }
     
-    private long getTimeRemaining(java.time.LocalDateTime endTime) {
-        if (endTime == null) return 0;
-        return Math.max(0, java.time.Duration.between(java.time.LocalDateTime.now(), endTime).toMillis());
-    }
-    
     private boolean isTimerRunning(String artworkId) {
-        // Simple check - in a real implementation, you'd track running timers
-        return auctionSessions.containsKey(artworkId);
+        return AuctionClock.getInstance().isScheduled(artworkId);
     }
     
     private void sendErrorToSession(Session session, String error) {
-        try {
-            JsonObject errorMessage = new JsonObject();
-            errorMessage.addProperty("type", "error");
-            errorMessage.addProperty("message", error);
-            
-            session.getBasicRemote().sendText(gson.toJson(errorMessage));
-        } catch (IOException e) {
-            logger.severe("Failed to send error message: " + e.getMessage());
+        JsonObject errorMessage = new JsonObject();
+        errorMessage.addProperty("type", "error");
+        errorMessage.addProperty("message", error);
+        
+        outbox(session).send(gson.toJson(errorMessage));
+    }
+    
+    private static long sessionCount() {
+        long sessions = 0;
+        for (ConcurrentHashMap<String, SessionOutbox> room : auctionSessions.values()) {
+            sessions += room.size();
+        }
+        return sessions;
+    }
+    
+    private static long queuedFrames() {
+        long frames = 0;
+        for (ConcurrentHashMap<String, SessionOutbox> room : auctionSessions.values()) {
+            for (SessionOutbox outbox : room.values()) {
+                frames += outbox.getQueueDepth();
+            }
+        }
+        return frames;
+    }
+    
+    private static SessionOutbox outbox(Session session) {
+        SessionOutbox outbox = (SessionOutbox) session.getUserProperties().get(OUTBOX_PROPERTY);
+        if (outbox == null) {
+            outbox = new SessionOutbox(session);
+            session.getUserProperties().put(OUTBOX_PROPERTY, outbox);
+        }
+        return outbox;
+    }
+    
+    /**
+     * Auction fields needed by the room, cached while it has viewers
+     */
+    private static class AuctionState {
+        final boolean auction;
+        final LocalDateTime endTime;
+        final long endMillis;
+        final double startingPrice;
+        volatile double currentPrice;
+        volatile String highestBidderId;
+        volatile boolean ended;
+        
+        AuctionState(Artwork artwork) {
+            this.auction = artwork.getSaleType() == Artwork.SaleType.AUCTION;
+            this.endTime = artwork.getAuctionEndTime();
+            this.endMillis = endTime != null ? endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+            this.startingPrice = artwork.getStartingBid() != null ? artwork.getStartingBid().doubleValue() : 0.0;
+            this.currentPrice = artwork.getCurrentBid() != null ? artwork.getCurrentBid().doubleValue() : 0.0;
+            this.highestBidderId = artwork.getHighestBidderId();
+            this.ended = artwork.getStatus() != Artwork.ArtworkStatus.ACTIVE;
+        }
+        
+        /**
+         * The same auction with a moved end time; the clock only schedules auctions that are still open
+         */
+        AuctionState(AuctionState previous, LocalDateTime endTime) {
+            this.auction = previous.auction;
+            this.endTime = endTime;
+            this.endMillis = endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            this.startingPrice = previous.startingPrice;
+            synchronized (previous) {
+                this.currentPrice = previous.currentPrice;
+                this.highestBidderId = previous.highestBidderId;
+            }
+            this.ended = false;
+        }
+        
+        synchronized void recordBid(String bidderId, double amount) {
+            if (amount > currentPrice) {
+                currentPrice = amount;
+                highestBidderId = bidderId;
+            }
+        }
+        
+        long getTimeRemaining() {
+            return getTimeRemaining(System.currentTimeMillis());
+        }
+        
+        long getTimeRemaining(long nowMillis) {
+            return Math.max(0, endMillis - nowMillis);
         }
     }
 }
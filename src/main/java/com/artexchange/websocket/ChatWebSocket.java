@@ -1,6 +1,8 @@
 package com.artexchange.websocket;
 
 import com.artexchange.dao.MessageDAO;
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
 import com.artexchange.model.Message;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -12,6 +14,7 @@ import jakarta.websocket.server.ServerEndpoint;
 import java.io.IOException;
 import java.util.Date;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 @ServerEndpoint("/chat/{userId}")
@@ -20,6 +23,16 @@ public class ChatWebSocket {
     private static final ConcurrentHashMap<String, Session> userSessions = new ConcurrentHashMap<>();
     private static final Gson gson = new Gson();
     private static final MessageDAO messageDAO = new MessageDAO();
+    private static final LatencyHistogram SEND_LATENCY = Metrics.histogram("artexchange_ws_send_seconds",
+        "WebSocket frame send latency", "endpoint", "chat");
+    /** Chat sends block, so sends in progress stand in for an outbound queue */
+    private static final AtomicInteger sendsInFlight = new AtomicInteger();
+    
+    static {
+        Metrics.gauge("artexchange_ws_sessions", "Open WebSocket sessions", userSessions::size, "endpoint", "chat");
+        Metrics.gauge("artexchange_ws_queued_frames", "Frames waiting to be sent, over all sessions",
+            sendsInFlight::get, "endpoint", "chat");
+    }
     
     @OnOpen
     public void onOpen(Session session, @PathParam("userId") String userId) {
@@ -33,7 +46,7 @@ public class ChatWebSocket {
         response.addProperty("userId", userId);
         
         try {
-            session.getBasicRemote().sendText(gson.toJson(response));
+            send(session, gson.toJson(response));
         } catch (IOException e) {
             logger.severe("Error sending connection confirmation: " + e.getMessage());
         }
@@ -111,7 +124,7 @@ public class ChatWebSocket {
             // Send to receiver if online
             Session receiverSession = userSessions.get(receiverId);
             if (receiverSession != null && receiverSession.isOpen()) {
-                receiverSession.getBasicRemote().sendText(gson.toJson(response));
+                send(receiverSession, gson.toJson(response));
             }
             
             // Send confirmation to sender
@@ -121,7 +134,7 @@ public class ChatWebSocket {
                 confirmation.addProperty("type", "message_sent");
                 confirmation.addProperty("messageId", messageId);
                 confirmation.addProperty("timestamp", message.getTimestamp().getTime());
-                senderSession.getBasicRemote().sendText(gson.toJson(confirmation));
+                send(senderSession, gson.toJson(confirmation));
             }
             
         } catch (Exception e) {
@@ -141,7 +154,7 @@ public class ChatWebSocket {
                 response.addProperty("senderId", senderId);
                 response.addProperty("isTyping", isTyping);
                 
-                receiverSession.getBasicRemote().sendText(gson.toJson(response));
+                send(receiverSession, gson.toJson(response));
             }
             
         } catch (Exception e) {
@@ -163,7 +176,7 @@ public class ChatWebSocket {
                 response.addProperty("type", "message_read");
                 response.addProperty("messageId", messageId);
                 
-                userSession.getBasicRemote().sendText(gson.toJson(response));
+                send(userSession, gson.toJson(response));
             }
             
         } catch (Exception e) {
@@ -177,7 +190,7 @@ public class ChatWebSocket {
             response.addProperty("type", "error");
             response.addProperty("message", error);
             
-            session.getBasicRemote().sendText(gson.toJson(response));
+            send(session, gson.toJson(response));
         } catch (IOException e) {
             logger.severe("Error sending error message: " + e.getMessage());
         }
@@ -188,13 +201,24 @@ public class ChatWebSocket {
         Session userSession = userSessions.get(userId);
         if (userSession != null && userSession.isOpen()) {
             try {
-                userSession.getBasicRemote().sendText(gson.toJson(notification));
+                send(userSession, gson.toJson(notification));
             } catch (IOException e) {
                 logger.severe("Error sending notification to user " + userId + ": " + e.getMessage());
             }
         }
     }
     
+    private static void send(Session session, String frame) throws IOException {
+        long start = System.nanoTime();
+        sendsInFlight.incrementAndGet();
+        try {
+            session.getBasicRemote().sendText(frame);
+        } finally {
+            sendsInFlight.decrementAndGet();
+            SEND_LATENCY.recordSince(start);
+        }
+    }
+    
     // Check if user is online
     public static boolean isUserOnline(String userId) {
         Session session = userSessions.get(userId);
@@ -0,0 +1,147 @@
+package com.artexchange.websocket;
+
+import com.artexchange.metrics.Counter;
+import com.artexchange.metrics.LatencyHistogram;
+import com.artexchange.metrics.Metrics;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, non-blocking outbound queue for one WebSocket session.
+ *
+ * Frames are sent with getAsyncRemote one at a time, so broadcasting only
+ * enqueues and never waits on a slow client. Timer frames are coalesced: only
+ * the latest unsent one is kept. A session whose backlog reaches the
+ * watermark is closed instead of buffering without bound.
+ */
+public class SessionOutbox implements SendHandler {
+    private static final Logger logger = Logger.getLogger(SessionOutbox.class.getName());
+
+    /** Max queued frames per session before it is dropped (-Dartexchange.ws.maxQueuedFrames) */
+    static final int MAX_QUEUED_FRAMES = Integer.getInteger("artexchange.ws.maxQueuedFrames", 256);
+
+    private static final LatencyHistogram SEND_LATENCY = Metrics.histogram("artexchange_ws_send_seconds",
+        "WebSocket frame send latency", "endpoint", "auction");
+    private static final Counter DROPPED_SESSIONS = Metrics.counter("artexchange_ws_dropped_sessions_total",
+        "WebSocket sessions closed for falling behind or failing to send", "endpoint", "auction");
+
+    private final Session session;
+    private final ConcurrentLinkedQueue<String> frames = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicReference<String> latestTimerFrame = new AtomicReference<>();
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    private final AtomicBoolean dropped = new AtomicBoolean(false);
+    /** When the send in flight started; written before it starts and read when it completes */
+    private volatile long sendStartedNanos;
+
+    public SessionOutbox(Session session) {
+        this.session = session;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Queue a frame that must be delivered in order (bids, status, errors)
+     */
+    public void send(String frame) {
+        if (dropped.get()) {
+            return;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED_FRAMES) {
+            queued.decrementAndGet();
+            drop("send queue exceeded " + MAX_QUEUED_FRAMES + " frames");
+            return;
+        }
+        frames.offer(frame);
+        pump();
+    }
+
+    /**
+     * Queue a timer frame, replacing any timer frame that has not been sent yet
+     */
+    public void sendTimer(String frame) {
+        if (dropped.get()) {
+            return;
+        }
+        latestTimerFrame.set(frame);
+        pump();
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Start the next async send unless one is already in flight
+     */
+    private void pump() {
+        while (!dropped.get() && sending.compareAndSet(false, true)) {
+            String next = frames.poll();
+            if (next != null) {
+                queued.decrementAndGet();
+            } else {
+                next = latestTimerFrame.getAndSet(null);
+            }
+
+            if (next == null) {
+                sending.set(false);
+                // A frame may have been queued after the poll but before the flag was cleared
+                if (frames.isEmpty() && latestTimerFrame.get() == null) {
+                    return;
+                }
+                continue;
+            }
+
+            if (!session.isOpen()) {
+                drop("session closed");
+                return;
+            }
+            try {
+                sendStartedNanos = System.nanoTime();
+                session.getAsyncRemote().sendText(next, this);
+            } catch (Exception e) {
+                drop("send failed: " + e.getMessage());
+            }
+            return;
+        }
+    }
+
+    @Override
+    public void onResult(SendResult result) {
+        SEND_LATENCY.recordSince(sendStartedNanos);
+        sending.set(false);
+        if (!result.isOK()) {
+            drop("send failed: " + (result.getException() != null ? result.getException().getMessage() : "unknown"));
+            return;
+        }
+        pump();
+    }
+
+    private void drop(String reason) {
+        if (!dropped.compareAndSet(false, true)) {
+            return;
+        }
+        DROPPED_SESSIONS.increment();
+        frames.clear();
+        queued.set(0);
+        latestTimerFrame.set(null);
+        logger.warning("Dropping auction session " + session.getId() + ": " + reason);
+        try {
+            if (session.isOpen()) {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Client too slow"));
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to close slow session: " + e.getMessage());
+        }
+    }
+}
@@ -379,7 +379,9 @@
     <script>
         let currentUser = null;
         let currentView = 'dashboard';
-        let currentPage = 0;
+        // Cursors of the pages shown so far in each table; the last is the current page's
+        const usersCursors = [null];
+        const artworksCursors = [null];
         let platformStats = {};
         
         // Initialize page
@@ -447,10 +449,10 @@
             updateLastUpdated();
             
             // Set up search and filter handlers
-            document.getElementById('userSearch').addEventListener('input', debounce(loadUsers, 500));
-            document.getElementById('roleFilter').addEventListener('change', loadUsers);
-            document.getElementById('artworkSearch').addEventListener('input', debounce(loadArtworks, 500));
-            document.getElementById('statusFilter').addEventListener('change', loadArtworks);
+            document.getElementById('userSearch').addEventListener('input', debounce(reloadUsers, 500));
+            document.getElementById('roleFilter').addEventListener('change', reloadUsers);
+            document.getElementById('artworkSearch').addEventListener('input', debounce(reloadArtworks, 500));
+            document.getElementById('statusFilter').addEventListener('change', reloadArtworks);
         }
         
         function loadPlatformStats() {
@@ -568,10 +570,11 @@
             const role = document.getElementById('roleFilter').value;
             
             const params = new URLSearchParams({
-                page: currentPage,
                 limit: 20
             });
             
+            const cursor = usersCursors[usersCursors.length - 1];
+            if (cursor) params.append('cursor', cursor);
             if (search) params.append('search', search);
             if (role) params.append('role', role);
             
@@ -580,12 +583,18 @@
                 .then(data => {
                     if (data.success) {
                         displayUsers(data.users);
-                        displayUsersPagination(data.currentPage, data.totalPages);
+                        displayUsersPagination(data.nextCursor);
                     }
                 })
                 .catch(error => console.error('Error loading users:', error));
         }
         
+        // Back to the first page, for a new search or filter
+        function reloadUsers() {
+            usersCursors.length = 1;
+            loadUsers();
+        }
+        
         function displayUsers(users) {
             const tbody = document.getElementById('usersTableBody');
             tbody.innerHTML = users.map(user => 
@@ -638,10 +647,11 @@
             const status = document.getElementById('statusFilter').value;
             
             const params = new URLSearchParams({
-                page: currentPage,
                 limit: 20
             });
             
+            const cursor = artworksCursors[artworksCursors.length - 1];
+            if (cursor) params.append('cursor', cursor);
             if (search) params.append('search', search);
             if (status) params.append('status', status);
             
@@ -650,12 +660,17 @@
                 .then(data => {
                     if (data.success) {
                         displayArtworks(data.artworks);
-                        displayArtworksPagination(data.currentPage, data.totalPages);
+                        displayArtworksPagination(data.nextCursor);
                     }
                 })
                 .catch(error => console.error('Error loading artworks:', error));
         }
         
+        function reloadArtworks() {
+            artworksCursors.length = 1;
+            loadArtworks();
+        }
+        
         function displayArtworks(artworks) {
             const tbody = document.getElementById('artworksTableBody');
             tbody.innerHTML = artworks.map(artwork => 
@@ -946,12 +961,39 @@
             // Placeholder for reports charts
         }
         
-        function displayUsersPagination(currentPage, totalPages) {
-            // Implement pagination for users
+        function displayUsersPagination(nextCursor) {
+            displayPagination('usersPagination', usersCursors, nextCursor, loadUsers);
         }
         
-        function displayArtworksPagination(currentPage, totalPages) {
-            // Implement pagination for artworks
+        function displayArtworksPagination(nextCursor) {
+            displayPagination('artworksPagination', artworksCursors, nextCursor, loadArtworks);
+        }
+        
+        // Previous/Next buttons; the lists are cursor-paged, so pages can only be stepped through
+        function displayPagination(containerId, cursors, nextCursor, load) {
+            const container = document.getElementById(containerId);
+            container.innerHTML =
+                '<ul class="pagination mb-0">' +
+                    '<li class="page-item' + (cursors.length > 1 ? '' : ' disabled') + '">' +
+                        '<button class="page-link" data-page="previous">Previous</button>' +
+                    '</li>' +
+                    '<li class="page-item active"><span class="page-link">Page ' + cursors.length + '</span></li>' +
+                    '<li class="page-item' + (nextCursor ? '' : ' disabled') + '">' +
+                        '<button class="page-link" data-page="next">Next</button>' +
+                    '</li>' +
+                '</ul>';
+            container.querySelector('[data-page="previous"]').addEventListener('click', () => {
+                if (cursors.length > 1) {
+                    cursors.pop();
+                    load();
+                }
+            });
+            container.querySelector('[data-page="next"]').addEventListener('click', () => {
+                if (nextCursor) {
+                    cursors.push(nextCursor);
+                    load();
+                }
+            });
         }
         
         function viewUser(userId) {
@@ -124,7 +124,7 @@ function createArtworkCard(artwork) {
         <div class="col-lg-4 col-md-6 mb-4">
             <div class="card artwork-card h-100 border-0 shadow-sm">
                 <div class="position-relative">
-                    <img src="${artwork.primaryImageUrl || '/assets/images/placeholder-art.jpg'}" 
+                    <img src="${artwork.thumbnailUrl || artwork.primaryImageUrl || '/assets/images/placeholder-art.jpg'}" 
                          class="card-img-top" alt="${artwork.title}">
                     ${isAuction ? `
                         <div class="position-absolute top-0 end-0 m-2">
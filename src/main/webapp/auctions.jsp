@@ -466,7 +466,7 @@
             const colClass = isFeatured ? 'col-md-4 mb-4' : 'col-md-4 mb-4';
             
             // Use actual field names from our Firebase data
-            const imageUrl = auction.primaryImageUrl || '/assets/images/placeholder-artwork.svg';
+            const imageUrl = auction.thumbnailUrl || auction.primaryImageUrl || '/assets/images/placeholder-artwork.svg';
             
             // For sold auctions, show winning bid amount; otherwise show current bid
             let displayPrice = 0;
@@ -393,7 +393,7 @@
                 return '<div class="col-md-4 mb-4">' +
                     '<div class="' + cardClass + '" ' + onClickHandler + '>' +
                         '<div class="position-relative">' +
-                            '<img src="' + (artwork.primaryImageUrl || artwork.imageUrl || '/assets/images/placeholder-artwork.jpg') + '" ' +
+                            '<img src="' + (artwork.thumbnailUrl || artwork.primaryImageUrl || artwork.imageUrl || '/assets/images/placeholder-artwork.jpg') + '" ' +
                                  'class="card-img-top artwork-image" alt="' + artwork.title + '">' +
                             statusBadge +
                             featuredBadge +
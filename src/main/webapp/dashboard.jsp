@@ -3249,29 +3249,15 @@ uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
       }
 
       function downloadCSV(reportData) {
-        const salesRecords = reportData.salesRecords || [];
-        let csv = "Artwork Title,Buyer Username,Sale Type,Final Price,Sale Date\n";
-
-        salesRecords.forEach(function(record) {
-          const saleDate = record.saleDate ? new Date(record.saleDate).toLocaleDateString() : "N/A";
-          const artworkTitle = (record.artworkTitle || "Unknown").replace(/"/g, '""');
-          const buyerUsername = (record.buyerUsername || "Unknown").replace(/"/g, '""');
-          const saleType = record.saleType || "Unknown";
-          const finalPrice = record.finalPrice || 0;
-          
-          csv += '"' + artworkTitle + '",';
-          csv += '"' + buyerUsername + '",';
-          csv += '"' + saleType + '",';
-          csv += finalPrice + ',';
-          csv += '"' + saleDate + '"\n';
-        });
+        // The server streams the CSV for the same date range, so large reports
+        // are not assembled in the browser
+        const params = new URLSearchParams();
+        params.append("format", "csv");
+        if (reportData.startDate) params.append("startDate", reportData.startDate.split('T')[0]);
+        if (reportData.endDate) params.append("endDate", reportData.endDate.split('T')[0]);
 
-        const blob = new Blob([csv], { type: "text/csv;charset=utf-8;" });
         const link = document.createElement("a");
-        const url = URL.createObjectURL(blob);
-        link.setAttribute("href", url);
-        const dateStr = new Date().toISOString().split('T')[0];
-        link.setAttribute("download", "sales-report-" + dateStr + ".csv");
+        link.setAttribute("href", "/api/sales-report?" + params.toString());
         link.style.visibility = "hidden";
         document.body.appendChild(link);
         link.click();